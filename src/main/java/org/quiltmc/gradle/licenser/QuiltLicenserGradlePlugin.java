@@ -26,8 +26,13 @@ import org.gradle.api.tasks.SourceSetContainer;
 import org.gradle.api.tasks.TaskProvider;
 import org.gradle.language.base.plugins.LifecycleBasePlugin;
 import org.quiltmc.gradle.licenser.extension.QuiltLicenserGradleExtension;
+import org.quiltmc.gradle.licenser.task.AggregateLicenseReportsTask;
+import org.quiltmc.gradle.licenser.task.AggregatedApplyLicenseTask;
+import org.quiltmc.gradle.licenser.task.AggregatedCheckLicenseTask;
 import org.quiltmc.gradle.licenser.task.ApplyLicenseTask;
 import org.quiltmc.gradle.licenser.task.CheckLicenseTask;
+import org.quiltmc.gradle.licenser.task.ExportLicenseYearsTask;
+import org.quiltmc.gradle.licenser.task.WatchLicensesTask;
 
 /**
  * Represents the Quilt Licenser Gradle plugin.
@@ -42,6 +47,16 @@ public class QuiltLicenserGradlePlugin implements Plugin<Project> {
 	 * Represents whether the debug mode is enabled or not using the {@value #DEBUG_MODE_PROPERTY} system property.
 	 */
 	public static final boolean DEBUG_MODE = Boolean.getBoolean(DEBUG_MODE_PROPERTY);
+	/**
+	 * The project property used to restrict license tasks to a shard, using the {@code index/count} notation.
+	 */
+	public static final String SHARD_PROPERTY = "quilt.gradle.licenser.shard";
+	/**
+	 * The project property pointing to a license year manifest to read years from, instead of the git history.
+	 */
+	public static final String YEAR_MANIFEST_PROPERTY = "quilt.gradle.licenser.yearManifest";
+	public static final String AGGREGATE_REPORTS_TASK_NAME = "aggregateLicenseReports";
+	public static final String AGGREGATED_TASK_SUFFIX = "Aggregated";
 
 	@Override
 	public void apply(Project project) {
@@ -62,21 +77,36 @@ public class QuiltLicenserGradlePlugin implements Plugin<Project> {
 						project.getTasks().register(getTaskName("apply", sourceSet), ApplyLicenseTask.class, sourceSet, ext)
 								.configure(task -> task.onlyIf(t -> !ext.isSourceSetExcluded(sourceSet)));
 					});
+
+			// The aggregated tasks walk every non-excluded source set in a single pass.
+			var includedSourceSets = sourceSets.matching(sourceSet -> !ext.isSourceSetExcluded(sourceSet));
+			project.getTasks().register(getAggregatedTaskName(CHECK_TASK_PREFIX), AggregatedCheckLicenseTask.class, includedSourceSets, ext);
+			project.getTasks().register(getAggregatedTaskName(APPLY_TASK_PREFIX), AggregatedApplyLicenseTask.class, includedSourceSets, ext);
+			project.getTasks().register(WatchLicensesTask.NAME, WatchLicensesTask.class, includedSourceSets, ext);
 		});
 
 		var globalCheck = this.registerGroupedTask(project, CHECK_TASK_PREFIX, task -> {
-			task.dependsOn(project.getTasks().withType(CheckLicenseTask.class));
+			task.dependsOn(project.provider(() -> ext.isAggregateSourceSets()
+					? project.getTasks().withType(AggregatedCheckLicenseTask.class)
+					: project.getTasks().withType(CheckLicenseTask.class)
+			));
 
 			task.setDescription("Checks whether source files in every source sets contain a valid license header.");
 			task.setGroup("verification");
 		});
 		this.registerGroupedTask(project, APPLY_TASK_PREFIX, task -> {
-			task.dependsOn(project.getTasks().withType(ApplyLicenseTask.class));
+			task.dependsOn(project.provider(() -> ext.isAggregateSourceSets()
+					? project.getTasks().withType(AggregatedApplyLicenseTask.class)
+					: project.getTasks().withType(ApplyLicenseTask.class)
+			));
 
 			task.setDescription("Applies the correct license headers to source files in every source sets.");
 			task.setGroup("generation");
 		});
 
+		project.getTasks().register(AGGREGATE_REPORTS_TASK_NAME, AggregateLicenseReportsTask.class);
+		project.getTasks().register(ExportLicenseYearsTask.NAME, ExportLicenseYearsTask.class);
+
 		project.getPlugins().withType(LifecycleBasePlugin.class).configureEach(plugin -> {
 			project.getTasks().named(LifecycleBasePlugin.CHECK_TASK_NAME).configure(task -> {
 				task.dependsOn(globalCheck);
@@ -91,6 +121,10 @@ public class QuiltLicenserGradlePlugin implements Plugin<Project> {
 		return sourceSet.getTaskName(action + LICENSE_TASK_SUFFIX, null);
 	}
 
+	public static String getAggregatedTaskName(String action) {
+		return action + LICENSE_TASK_SUFFIX + "s" + AGGREGATED_TASK_SUFFIX;
+	}
+
 	private TaskProvider<Task> registerGroupedTask(Project project, String action, Action<Task> consumer) {
 		var task = project.getTasks().register(action + LICENSE_TASK_SUFFIX + 's');
 		task.configure(consumer);
@@ -25,13 +25,14 @@ import java.util.Map;
  * Represents the format of a license header.
  *
  * @author LambdAurora
- * @version 1.0.0
+ * @version 2.1.0
  * @since 1.0.0
  */
 public class HeaderFormat {
 	private final String source;
 	private final String lineSeparator;
 	private final List<String> metadataLines;
+	private final HeaderTemplate template;
 
 	public HeaderFormat(String source) {
 		this.lineSeparator = LicenseUtils.getLineSeparator(source);
@@ -40,6 +41,7 @@ public class HeaderFormat {
 
 		this.source = String.join(this.lineSeparator, LicenseUtils.getHeaderLines(lines));
 		this.metadataLines = List.copyOf(LicenseUtils.getMetadata(lines));
+		this.template = HeaderTemplate.compile(this.getHeaderLines());
 	}
 
 	/**
@@ -69,13 +71,14 @@ public class HeaderFormat {
 	 * @param variables the variables present in the text
 	 */
 	public String[] getHeaderLines(Map<String, String> variables) {
-		String source = this.source;
-
-		for (var entry : variables.entrySet()) {
-			source = source.replace("${" + entry.getKey() + "}", entry.getValue());
-		}
+		return this.template.render(variables);
+	}
 
-		return source.split(this.getLineSeparator());
+	/**
+	 * {@return the compiled template of the license header}
+	 */
+	public HeaderTemplate getTemplate() {
+		return this.template;
 	}
 
 	/**
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2022-2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.gradle.licenser.api.license;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Represents a license header text compiled into literal parts and named variable slots, such as {@code ${YEAR}}.
+ * <p>
+ * The header is parsed once, rendering it with variables then only concatenates the parts of each line.
+ *
+ * @version 2.1.0
+ * @since 2.1.0
+ */
+public final class HeaderTemplate {
+	private static final String SLOT_START = "${";
+	private static final String SLOT_END = "}";
+
+	private final Part[][] lines;
+	private final List<String> variables;
+
+	private HeaderTemplate(Part[][] lines, List<String> variables) {
+		this.lines = lines;
+		this.variables = variables;
+	}
+
+	/**
+	 * Compiles the given header lines into a template.
+	 *
+	 * @param lines the header lines
+	 * @return the compiled template
+	 */
+	public static HeaderTemplate compile(String[] lines) {
+		var compiledLines = new Part[lines.length][];
+		var variables = new ArrayList<String>();
+
+		for (int i = 0; i < lines.length; i++) {
+			compiledLines[i] = compileLine(lines[i], variables);
+		}
+
+		return new HeaderTemplate(compiledLines, List.copyOf(variables));
+	}
+
+	private static Part[] compileLine(String line, List<String> variables) {
+		var parts = new ArrayList<Part>();
+		int index = 0;
+
+		while (index < line.length()) {
+			int start = line.indexOf(SLOT_START, index);
+			int end = start == -1 ? -1 : line.indexOf(SLOT_END, start + SLOT_START.length());
+
+			if (end == -1) {
+				break;
+			}
+
+			if (start != index) {
+				parts.add(new Part(line.substring(index, start), false));
+			}
+
+			String name = line.substring(start + SLOT_START.length(), end);
+			parts.add(new Part(name, true));
+
+			if (!variables.contains(name)) {
+				variables.add(name);
+			}
+
+			index = end + SLOT_END.length();
+		}
+
+		if (index < line.length() || parts.isEmpty()) {
+			parts.add(new Part(line.substring(index), false));
+		}
+
+		return parts.toArray(new Part[0]);
+	}
+
+	/**
+	 * {@return the number of lines of this template}
+	 */
+	public int getLineCount() {
+		return this.lines.length;
+	}
+
+	/**
+	 * {@return the parts of the given line}
+	 *
+	 * @param line the line index
+	 */
+	public List<Part> getLine(int line) {
+		return List.of(this.lines[line]);
+	}
+
+	/**
+	 * {@return the distinct variable names used by this template, in the order of their first occurrence}
+	 */
+	public List<String> getVariables() {
+		return this.variables;
+	}
+
+	/**
+	 * Renders the lines of this template.
+	 * <p>
+	 * Variables which are not present in the given map are kept as-is.
+	 *
+	 * @param variables the variables
+	 * @return the rendered lines
+	 */
+	public String[] render(Map<String, String> variables) {
+		return this.render(variables::get);
+	}
+
+	/**
+	 * Renders the lines of this template.
+	 * <p>
+	 * Variables for which the resolver returns {@code null} are kept as-is.
+	 *
+	 * @param resolver the variable resolver
+	 * @return the rendered lines
+	 */
+	public String[] render(Function<String, String> resolver) {
+		var result = new String[this.lines.length];
+		var builder = new StringBuilder();
+
+		for (int i = 0; i < this.lines.length; i++) {
+			Part[] parts = this.lines[i];
+
+			if (parts.length == 1 && !parts[0].variable()) {
+				result[i] = parts[0].value();
+				continue;
+			}
+
+			builder.setLength(0);
+
+			for (var part : parts) {
+				if (part.variable()) {
+					String value = resolver.apply(part.value());
+					builder.append(value == null ? SLOT_START + part.value() + SLOT_END : value);
+				} else {
+					builder.append(part.value());
+				}
+			}
+
+			result[i] = builder.toString();
+		}
+
+		return result;
+	}
+
+	/**
+	 * Represents a part of a template line.
+	 *
+	 * @param value the literal text, or the variable name if this part is a variable slot
+	 * @param variable {@code true} if this part is a variable slot, or {@code false} if it's literal text
+	 */
+	public record Part(String value, boolean variable) {}
+}
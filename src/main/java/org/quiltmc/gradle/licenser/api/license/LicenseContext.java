@@ -0,0 +1,82 @@
+/*
+ * Copyright 2022-2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.gradle.licenser.api.license;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.file.Path;
+import java.util.OptionalInt;
+
+/**
+ * Represents the environment in which license headers are validated and applied.
+ * <p>
+ * The licensing engine only interacts with its environment through this interface,
+ * so it can run both inside Gradle tasks and headless, without any Gradle classes.
+ *
+ * @version 2.1.0
+ * @since 2.1.0
+ */
+public interface LicenseContext {
+	/**
+	 * {@return the root directory of the project, used by the project-wide year selection mode}
+	 */
+	Path getProjectDirectory();
+
+	/**
+	 * {@return the current year, used for the files which have not been committed yet}
+	 * <p>
+	 * It comes from the configured clock, so results do not have to depend on when the build runs.
+	 */
+	int getCurrentYear();
+
+	/**
+	 * Gets the last modification year of the given path, ignoring modifications older than the given year.
+	 *
+	 * @param path the path of a file, or of the project directory
+	 * @param sinceYear the year before which modifications are ignored, or {@link ModificationYearLookup#UNBOUNDED}
+	 * @return the last modification year, or an empty value if the path has not been modified since the given year
+	 */
+	OptionalInt getModificationYear(Path path, int sinceYear);
+
+	/**
+	 * Gets the creation year of the given file, which is the year of the commit which added it, following renames.
+	 *
+	 * @param path the path of the file
+	 * @return the creation year, or the current year if the file has not been committed yet
+	 */
+	int getCreationYear(Path path);
+
+	/**
+	 * {@return the path to which the given file is backed up before being updated, or {@code null} if it cannot be backed up}
+	 *
+	 * @param path the path of the file
+	 */
+	@Nullable Path getBackupPath(Path path);
+
+	/**
+	 * {@return {@code true} if debug messages should be logged, or {@code false} otherwise}
+	 */
+	boolean isDebug();
+
+	/**
+	 * Logs a debug message, only called if {@link #isDebug()} returns {@code true}.
+	 *
+	 * @param message the message, using {@code {}} placeholders
+	 * @param arguments the arguments of the message
+	 */
+	void debug(String message, Object... arguments);
+}
@@ -17,18 +17,32 @@
 package org.quiltmc.gradle.licenser.api.license;
 
 import org.gradle.api.Project;
-import org.quiltmc.gradle.licenser.QuiltLicenserGradlePlugin;
+import org.jetbrains.annotations.Nullable;
+import org.quiltmc.gradle.licenser.api.license.comment.LicenseComment;
+import org.quiltmc.gradle.licenser.api.license.comment.LicenseCommentStyles;
+import org.quiltmc.gradle.licenser.api.util.GradleLicenseUtils;
 import org.quiltmc.gradle.licenser.impl.LicenseUtils;
 
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Represents a license header.
  *
  * @author LambdAurora
- * @version 1.1.1
+ * @version 2.1.0
  * @since 1.0.0
  */
 public final class LicenseHeader {
@@ -36,7 +50,17 @@ public final class LicenseHeader {
 	public static final String MATCH_FROM_KEY = "match_from: ";
 	public static final String METADATA_MARKER = ";;";
 	public static final String COMMENT_MARKER = METADATA_MARKER + "#";
+	/**
+	 * The default license markers, which tell a license comment apart from an unrelated leading comment.
+	 *
+	 * @since 2.1.0
+	 */
+	public static final List<String> DEFAULT_LICENSE_MARKERS = List.of("copyright", "license");
 	private final List<LicenseRule> rules;
+	private final Map<String, String> variables = new HashMap<>();
+	private final List<String> licenseMarkers = new ArrayList<>(DEFAULT_LICENSE_MARKERS);
+	private final LicenseCommentStyles commentStyles = LicenseCommentStyles.createDefault();
+	private final Map<LicenseRule, LicenseRule.Renderings> renderings = new ConcurrentHashMap<>();
 
 	public LicenseHeader(LicenseRule... rules) {
 		this.rules = new ArrayList<>(List.of(rules));
@@ -57,6 +81,78 @@ public final class LicenseHeader {
 		this.rules.add(rule);
 	}
 
+	/**
+	 * Sets the value of a custom variable of the license header, which can be used in rules as {@code ${NAME}}.
+	 *
+	 * @param name the name of the variable
+	 * @param value the value of the variable
+	 * @throws IllegalArgumentException if the variable is reserved
+	 */
+	public void setVariable(String name, String value) {
+		if (name.equals(YEAR_KEY)) {
+			throw new IllegalArgumentException("The " + YEAR_KEY + " variable is reserved and cannot be set.");
+		}
+
+		this.variables.put(name, value);
+	}
+
+	/**
+	 * {@return the custom variables of this license header}
+	 */
+	public Map<String, String> getVariables() {
+		return Collections.unmodifiableMap(this.variables);
+	}
+
+	/**
+	 * Sets the license markers, replacing the {@linkplain #DEFAULT_LICENSE_MARKERS default ones}.
+	 * <p>
+	 * With comment styles which are not {@linkplain LicenseComment#isAlwaysLicense() always licenses},
+	 * a leading comment is only replaced if it matches a rule or contains one of the markers, ignoring case.
+	 * Otherwise, the license comment is inserted above it.
+	 *
+	 * @param markers the license markers
+	 * @since 2.1.0
+	 */
+	public void setLicenseMarkers(Collection<String> markers) {
+		this.licenseMarkers.clear();
+
+		for (var marker : markers) {
+			if (marker.isBlank()) {
+				throw new IllegalArgumentException("License markers cannot be blank.");
+			}
+
+			this.licenseMarkers.add(marker.toLowerCase(Locale.ROOT));
+		}
+	}
+
+	/**
+	 * {@return the license markers, which tell a license comment apart from an unrelated leading comment}
+	 *
+	 * @since 2.1.0
+	 */
+	public List<String> getLicenseMarkers() {
+		return Collections.unmodifiableList(this.licenseMarkers);
+	}
+
+	/**
+	 * {@return the table of the comment styles used for each file extension}
+	 *
+	 * @since 2.1.0
+	 */
+	public LicenseCommentStyles getCommentStyles() {
+		return this.commentStyles;
+	}
+
+	/**
+	 * {@return the comment style of the given file}
+	 *
+	 * @param path the path of the file
+	 * @since 2.1.0
+	 */
+	public LicenseComment getComment(Path path) {
+		return this.commentStyles.get(path);
+	}
+
 	/**
 	 * Validates the given file.
 	 *
@@ -64,15 +160,142 @@ public final class LicenseHeader {
 	 * @return {@code true} if the file respects the license header format, otherwise {@code false}
 	 */
 	public boolean validate(Path path) {
+		return this.findViolation(path) == null;
+	}
+
+	/**
+	 * Validates the given file, describing where its license header should be fixed if it's invalid.
+	 *
+	 * @param path the path to the file to validate
+	 * @return {@code null} if the file respects the license header format, otherwise the violation
+	 * @since 2.1.0
+	 */
+	public @Nullable Violation findViolation(Path path) {
+		return this.findViolation(null, path);
+	}
+
+	/**
+	 * Validates the given file, describing where its license header should be fixed if it's invalid.
+	 * <p>
+	 * With a context, the year of the license header must also be up to date,
+	 * as in the year {@linkplain #format(LicenseContext, Path) formatting} would write.
+	 *
+	 * @param yearContext the license context used to check the year, or {@code null} to accept any year
+	 * @param path the path to the file to validate
+	 * @return {@code null} if the file respects the license header format, otherwise the violation
+	 * @since 2.1.0
+	 */
+	public @Nullable Violation findViolation(@Nullable LicenseContext yearContext, Path path) {
 		String source = LicenseUtils.readFile(path);
+		LicenseComment comment = this.getComment(path);
+		LicenseRule rule = this.findRule(source, comment);
+
+		if (rule == null) {
+			return new Violation(-1, -1);
+		} else if (rule.validate(source, this.variables, comment)
+				&& (yearContext == null || rule.isYearUpToDate(yearContext, path, source, comment))) {
+			return null;
+		}
+
+		return new Violation(this.rules.indexOf(rule), this.findHeaderEnd(source, comment));
+	}
+
+	/**
+	 * Finds the end of the current license comment of the given source, which formatting replaces.
+	 * <p>
+	 * If the comment style is not {@linkplain LicenseComment#isAlwaysLicense() always a license}, a leading comment
+	 * is only considered a license if it matches a rule or contains a {@linkplain #getLicenseMarkers() license marker}.
+	 * Otherwise, the returned offset is the start of that comment, so the license comment is inserted above it.
+	 *
+	 * @param source the source of the file
+	 * @param comment the comment style of the file
+	 * @return the end offset of the current license comment
+	 * @since 2.1.0
+	 */
+	public int findHeaderEnd(String source, LicenseComment comment) {
+		LicenseComment.Result result = comment.findLicenseComment((CharSequence) source);
+
+		if (!result.hasExisting() || comment.isAlwaysLicense()) {
+			return result.endIndex();
+		}
 
 		for (var rule : this.rules) {
-			if (rule.match(source)) {
-				return rule.validate(source);
+			if (rule.hasHeader(source, comment)) {
+				return result.endIndex();
 			}
 		}
 
-		return false;
+		String text = comment.extractExisting(source, result).toLowerCase(Locale.ROOT);
+
+		for (var marker : this.licenseMarkers) {
+			if (text.contains(marker)) {
+				return result.endIndex();
+			}
+		}
+
+		int start = comment.findHeaderStart(source);
+
+		while (start < source.length() && Character.isWhitespace(source.charAt(start))) {
+			start++;
+		}
+
+		return start;
+	}
+
+	/**
+	 * {@return the rules of this license header}
+	 *
+	 * @since 2.1.0
+	 */
+	public List<LicenseRule> getRules() {
+		return Collections.unmodifiableList(this.rules);
+	}
+
+	/**
+	 * {@return a fingerprint of the rules, variables and comment styles of this license header}
+	 * <p>
+	 * Two license headers with the same fingerprint validate and format files the same way.
+	 *
+	 * @since 2.1.0
+	 */
+	public String getFingerprint() {
+		try {
+			var digest = MessageDigest.getInstance("SHA-256");
+
+			for (var rule : this.rules) {
+				digest.update(rule.getFingerprintSource().getBytes(StandardCharsets.UTF_8));
+				digest.update((byte) 0);
+			}
+
+			for (var variable : new TreeMap<>(this.variables).entrySet()) {
+				digest.update((variable.getKey() + '=' + variable.getValue()).getBytes(StandardCharsets.UTF_8));
+				digest.update((byte) 0);
+			}
+
+			digest.update(this.commentStyles.getFingerprintSource().getBytes(StandardCharsets.UTF_8));
+			digest.update((byte) 0);
+			digest.update(String.join("\0", this.licenseMarkers).getBytes(StandardCharsets.UTF_8));
+			return HexFormat.of().formatHex(digest.digest());
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not available.", e);
+		}
+	}
+
+	/**
+	 * {@return the first rule the given source should respect, or {@code null} if no rule matches}
+	 *
+	 * @param source the source of the file
+	 * @param comment the comment style of the file
+	 * @since 2.1.0
+	 */
+	public @Nullable LicenseRule findRule(String source, LicenseComment comment) {
+		for (var rule : this.rules) {
+			if (rule.match(source, comment)) {
+				return rule;
+			}
+		}
+
+		return null;
 	}
 
 	/**
@@ -82,20 +305,83 @@ public final class LicenseHeader {
 	 * @param rootPath the root path of the project
 	 * @param path the path of the file
 	 * @return {@code true} if files changed, otherwise {@code false}
+	 * @deprecated use {@link GradleLicenseUtils#format(LicenseHeader, Project, Path, Path)} instead
 	 */
+	@Deprecated(since = "2.1.0", forRemoval = true)
 	public boolean format(Project project, Path rootPath, Path path) {
+		return GradleLicenseUtils.format(this, project, rootPath, path);
+	}
+
+	/**
+	 * Formats the given file to contain the correct license header.
+	 *
+	 * @param context the license context
+	 * @param path the path of the file
+	 * @return {@code true} if files changed, otherwise {@code false}
+	 * @since 2.1.0
+	 */
+	public boolean format(LicenseContext context, Path path) {
 		String source = LicenseUtils.readFile(path);
+		LicenseRule.FormattedFile formattedFile = this.prepareFormat(context, path, source);
 
-		for (var rule : this.rules) {
-			if (rule.match(source)) {
-				if (QuiltLicenserGradlePlugin.DEBUG_MODE) {
-					project.getLogger().lifecycle("  => Matched rule {}", rule);
-				}
+		if (formattedFile == null) {
+			return false;
+		}
 
-				return rule.formatFile(project, rootPath, path);
-			}
+		formattedFile.write();
+		return true;
+	}
+
+	/**
+	 * Prepares the formatting of the given file to contain the correct license header, without writing it.
+	 *
+	 * @param context the license context
+	 * @param path the path of the file
+	 * @param source the source of the file
+	 * @return the formatted file to write, or {@code null} if the file doesn't need to change
+	 * @since 2.1.0
+	 */
+	public LicenseRule.@Nullable FormattedFile prepareFormat(LicenseContext context, Path path, String source) {
+		LicenseComment comment = this.getComment(path);
+		LicenseRule rule = this.findRule(source, comment);
+
+		if (rule == null) {
+			return null;
+		}
+
+		if (context.isDebug()) {
+			context.debug("  => Matched rule {}", rule);
 		}
 
-		return false;
+		return this.prepareFormat(context, path, source, rule, this.findHeaderEnd(source, comment));
 	}
+
+	/**
+	 * Prepares the formatting of the given file to contain the license header of the given rule, without writing it.
+	 * <p>
+	 * The rendered license headers are cached by this license header.
+	 *
+	 * @param context the license context
+	 * @param path the path of the file
+	 * @param source the source of the file
+	 * @param rule the rule of the file
+	 * @param headerEnd the end offset of the current license header if already known, or {@code -1} to find it
+	 * @return the formatted file to write, or {@code null} if the file doesn't need to change
+	 * @since 2.1.0
+	 */
+	public LicenseRule.@Nullable FormattedFile prepareFormat(LicenseContext context, Path path, String source, LicenseRule rule,
+			int headerEnd) {
+		return rule.prepareFormat(context, path, source, this.variables, this.getComment(path), headerEnd,
+				this.renderings.computeIfAbsent(rule, r -> new LicenseRule.Renderings())
+		);
+	}
+
+	/**
+	 * Represents why a file doesn't respect the license header.
+	 *
+	 * @param rule the index of the rule the file should respect, or {@code -1} if no rule matches the file
+	 * @param headerEnd the end offset of the current license header of the file, or {@code -1} if no rule matches the file
+	 * @since 2.1.0
+	 */
+	public record Violation(int rule, int headerEnd) {}
 }
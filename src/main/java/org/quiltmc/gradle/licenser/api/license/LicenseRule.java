@@ -16,35 +16,44 @@
 
 package org.quiltmc.gradle.licenser.api.license;
 
-import org.gradle.api.GradleException;
 import org.gradle.api.Project;
 import org.jetbrains.annotations.Nullable;
-import org.quiltmc.gradle.licenser.QuiltLicenserGradlePlugin;
 import org.quiltmc.gradle.licenser.api.license.comment.JavaLicenseComment;
+import org.quiltmc.gradle.licenser.api.license.comment.LicenseComment;
+import org.quiltmc.gradle.licenser.api.util.GradleLicenseUtils;
+import org.quiltmc.gradle.licenser.impl.LicenseRuleCache;
 import org.quiltmc.gradle.licenser.impl.LicenseUtils;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
+import java.util.OptionalInt;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
  * Represents a license header rule, it describes one valid license header format.
  *
  * @author LambdAurora
- * @version 2.0.0
+ * @version 2.1.0
  * @since 1.0.0
  */
 public class LicenseRule {
 	private final HeaderFormat headerFormat;
-	private final Pattern validator;
+	private final String[] markedLines;
+	// Keyed by layout rather than by comment style, the rules outlive the comment styles of the builds sharing them.
+	private final Map<String, Pattern> validators = new ConcurrentHashMap<>();
 	private final @Nullable Pattern matcher;
 	private final LicenseYearDisplayMode yearDisplayMode;
 	private final LicenseYearSelectionMode yearSelectionMode;
+	private final int yearGroup;
 
 	public LicenseRule(String headerFormat) {
 		this(headerFormat, LicenseYearDisplayMode.CREATION_ONLY, LicenseYearSelectionMode.PROJECT);
@@ -52,27 +61,49 @@ public class LicenseRule {
 
 	public LicenseRule(String headerFormat, LicenseYearDisplayMode yearDisplayMode, LicenseYearSelectionMode yearSelectionMode) {
 		this.headerFormat = new HeaderFormat(headerFormat);
-		this.validator = LicenseUtils.getValidator(this.headerFormat);
+		this.markedLines = LicenseUtils.getMarkedLines(this.headerFormat);
+		this.getValidator(JavaLicenseComment.JAVA);
 		this.matcher = LicenseUtils.getMatcher(this.headerFormat);
+		this.yearGroup = this.headerFormat.getTemplate().getVariables().indexOf(LicenseHeader.YEAR_KEY) + 1;
 
-		this.yearDisplayMode = this.headerFormat.getEnumValue("year_display", yearDisplayMode);
-		this.yearSelectionMode = this.headerFormat.getEnumValue("year_selection", yearSelectionMode);
+		this.yearDisplayMode = LicenseUtils.getEnumValue(this.headerFormat, "year_display", yearDisplayMode,
+				LicenseYearDisplayMode.values());
+		this.yearSelectionMode = LicenseUtils.getEnumValue(this.headerFormat, "year_selection", yearSelectionMode,
+				LicenseYearSelectionMode.values());
 	}
 
 	private static String loadFile(Path path) {
 		try {
 			return Files.readString(path, StandardCharsets.UTF_8);
 		} catch (IOException e) {
-			throw new GradleException(String.format("Failed to load license header %s", path), e);
+			throw new UncheckedIOException(String.format("Failed to load license header %s", path), e);
 		}
 	}
 
+	/**
+	 * Loads a license rule from a file.
+	 * <p>
+	 * Identical headers share the same compiled rule.
+	 *
+	 * @param path the path of the license header file
+	 * @return the license rule
+	 */
 	public static LicenseRule fromFile(Path path) {
-		return new LicenseRule(loadFile(path));
+		return fromFile(path, LicenseYearDisplayMode.CREATION_ONLY, LicenseYearSelectionMode.PROJECT);
 	}
 
+	/**
+	 * Loads a license rule from a file.
+	 * <p>
+	 * Identical headers share the same compiled rule.
+	 *
+	 * @param path the path of the license header file
+	 * @param yearDisplayMode the default year display mode
+	 * @param yearSelectionMode the default year selection mode
+	 * @return the license rule
+	 */
 	public static LicenseRule fromFile(Path path, LicenseYearDisplayMode yearDisplayMode, LicenseYearSelectionMode yearSelectionMode) {
-		return new LicenseRule(loadFile(path), yearDisplayMode, yearSelectionMode);
+		return LicenseRuleCache.get(loadFile(path), yearDisplayMode, yearSelectionMode);
 	}
 
 	/**
@@ -91,6 +122,18 @@ public class LicenseRule {
 	 * @return {@code true} if the file's licensing should respect this rule, otherwise {@code false}
 	 */
 	public boolean match(String source) {
+		return this.match(source, JavaLicenseComment.JAVA);
+	}
+
+	/**
+	 * Returns whether the file's licensing should respect this rule.
+	 *
+	 * @param source the source of the file
+	 * @param comment the comment style of the file
+	 * @return {@code true} if the file's licensing should respect this rule, otherwise {@code false}
+	 * @since 2.1.0
+	 */
+	public boolean match(String source, LicenseComment comment) {
 		if (!this.hasSpecialMatching()) {
 			return true;
 		}
@@ -98,95 +141,363 @@ public class LicenseRule {
 		if (this.matcher.matcher(source).find()) {
 			return true;
 		} else {
-			return this.validator.matcher(source).find();
+			return this.matchHeader(source, comment).find();
 		}
 	}
 
+	/**
+	 * Returns whether the given source starts with a license header of this rule, whatever the values of its variables.
+	 *
+	 * @param source the source of the file
+	 * @param comment the comment style of the file
+	 * @return {@code true} if the source starts with a license header of this rule, otherwise {@code false}
+	 * @since 2.1.0
+	 */
+	public boolean hasHeader(String source, LicenseComment comment) {
+		return this.matchHeader(source, comment).find();
+	}
+
 	public boolean validate(String source) {
-		return this.validator.matcher(source).find();
+		return this.validate(source, Map.of());
+	}
+
+	/**
+	 * Checks whether the year of the license header of the given source is the one formatting would produce.
+	 * <p>
+	 * The source is expected to {@linkplain #validate(String, Map, LicenseComment) have a valid license header}.
+	 *
+	 * @param context the license context, used to look up the modification years
+	 * @param path the path of the file
+	 * @param source the source of the file
+	 * @param comment the comment style of the file
+	 * @return {@code true} if the year is up to date or the header has no year, otherwise {@code false}
+	 * @since 2.1.0
+	 */
+	public boolean isYearUpToDate(LicenseContext context, Path path, String source, LicenseComment comment) {
+		if (this.yearGroup == 0) {
+			return true;
+		}
+
+		var matcher = this.matchHeader(source, comment);
+		return matcher.find() && this.getYearString(context, path, source, comment).equals(matcher.group(this.yearGroup));
+	}
+
+	/**
+	 * Validates the license header of the given source.
+	 *
+	 * @param source the source of the file
+	 * @param variables the custom variables of the license header
+	 * @return {@code true} if the source contains a valid license header, otherwise {@code false}
+	 */
+	public boolean validate(String source, Map<String, String> variables) {
+		return this.validate(source, variables, JavaLicenseComment.JAVA);
 	}
 
+	/**
+	 * Validates the license header of the given source.
+	 *
+	 * @param source the source of the file
+	 * @param variables the custom variables of the license header
+	 * @param comment the comment style of the file
+	 * @return {@code true} if the source contains a valid license header, otherwise {@code false}
+	 * @since 2.1.0
+	 */
+	public boolean validate(String source, Map<String, String> variables, LicenseComment comment) {
+		var matcher = this.matchHeader(source, comment);
+
+		if (!matcher.find()) {
+			return false;
+		}
+
+		List<String> templateVariables = this.headerFormat.getTemplate().getVariables();
+
+		for (int i = 0; i < templateVariables.size(); i++) {
+			String name = templateVariables.get(i);
+
+			if (i + 1 != this.yearGroup && !getVariableValue(name, variables).equals(matcher.group(i + 1))) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Formats the given file to contain the correct license header.
+	 *
+	 * @param project the project the file is in
+	 * @param rootPath the root path of the project
+	 * @param path the path of the file
+	 * @return {@code true} if the file changed, otherwise {@code false}
+	 * @deprecated use {@link GradleLicenseUtils#formatFile(LicenseRule, Project, Path, Path)} instead
+	 */
+	@Deprecated(since = "2.1.0", forRemoval = true)
 	public boolean formatFile(Project project, Path rootPath, Path path) {
+		return GradleLicenseUtils.formatFile(this, project, rootPath, path);
+	}
+
+	/**
+	 * Formats the given file to contain the correct license header.
+	 *
+	 * @param project the project the file is in
+	 * @param rootPath the root path of the project
+	 * @param path the path of the file
+	 * @param variables the custom variables of the license header
+	 * @return {@code true} if the file changed, otherwise {@code false}
+	 * @deprecated use {@link GradleLicenseUtils#formatFile(LicenseRule, Project, Path, Path, Map)} instead
+	 */
+	@Deprecated(since = "2.1.0", forRemoval = true)
+	public boolean formatFile(Project project, Path rootPath, Path path, Map<String, String> variables) {
+		return GradleLicenseUtils.formatFile(this, project, rootPath, path, variables);
+	}
+
+	/**
+	 * Formats the given file to contain the correct license header.
+	 * <p>
+	 * The license header is written as a {@linkplain JavaLicenseComment#JAVA Java} comment,
+	 * {@link LicenseHeader#format(LicenseContext, Path)} picks the comment style from the extension of the file instead.
+	 *
+	 * @param context the license context
+	 * @param path the path of the file
+	 * @param variables the custom variables of the license header
+	 * @return {@code true} if the file changed, otherwise {@code false}
+	 * @since 2.1.0
+	 */
+	public boolean formatFile(LicenseContext context, Path path, Map<String, String> variables) {
 		String source = LicenseUtils.readFile(path);
-		String year = this.getYearString(project, path, source);
+		FormattedFile formattedFile = this.prepareFormat(context, path, source, variables, JavaLicenseComment.JAVA, -1);
+
+		if (formattedFile == null) {
+			return false;
+		}
 
-		if (QuiltLicenserGradlePlugin.DEBUG_MODE) {
-			project.getLogger().lifecycle("  => Selected \"{}\" as the year string.", year);
+		formattedFile.write();
+		return true;
+	}
+
+	/**
+	 * Prepares the formatting of the given file without writing it.
+	 *
+	 * @param context the license context
+	 * @param path the path of the file
+	 * @param source the source of the file
+	 * @param variables the custom variables of the license header
+	 * @param comment the comment style of the file
+	 * @param headerEnd the end offset of the current license header if already known, or {@code -1} to find it
+	 * @return the formatted file to write, or {@code null} if the file already contains the correct license header
+	 * @see LicenseHeader#prepareFormat(LicenseContext, Path, String, LicenseRule, int) which caches the rendered headers
+	 * @since 2.1.0
+	 */
+	public @Nullable FormattedFile prepareFormat(LicenseContext context, Path path, String source, Map<String, String> variables,
+			LicenseComment comment, int headerEnd) {
+		return this.prepareFormat(context, path, source, variables, comment, headerEnd, new Renderings());
+	}
+
+	@Nullable FormattedFile prepareFormat(LicenseContext context, Path path, String source, Map<String, String> variables,
+			LicenseComment comment, int headerEnd, Renderings renderings) {
+		String year = this.getYearString(context, path, source, comment);
+
+		if (context.isDebug()) {
+			context.debug("  => Selected \"{}\" as the year string.", year);
 		}
 
-		var result = JavaLicenseComment.JAVA.findLicenseComment(source);
+		int headerStart = comment.findHeaderStart(source);
 
-		// @TODO have a way to specify custom variables?
-		var map = new HashMap<String, String>();
-		map.put(LicenseHeader.YEAR_KEY, year);
-		var newSource = this.getLicenseString(map) + source.substring(result.endIndex());
+		if (headerEnd < headerStart || headerEnd > source.length()) {
+			headerEnd = comment.findLicenseComment((CharSequence) source).endIndex();
+		}
 
-		if (newSource.equals(source)) {
-			return false;
+		Rendering rendering = this.getRendering(year, variables, comment, renderings);
+
+		// Same as comparing the formatted source with the current one, without building it.
+		if (headerEnd == headerStart + rendering.text().length() && source.startsWith(rendering.text(), headerStart)) {
+			return null;
 		}
 
-		var backupPath = LicenseUtils.getBackupPath(project, rootPath, path);
+		var backupPath = context.getBackupPath(path);
 
 		if (backupPath == null) {
-			throw new GradleException("Cannot backup file " + path + ", abandoning formatting.");
+			throw new IllegalStateException("Cannot backup file " + path + ", abandoning formatting.");
 		}
 
-		try {
-			if (!Files.isDirectory(backupPath.getParent())) {
-				Files.createDirectories(backupPath.getParent());
+		byte[] header = headerStart == 0
+				? rendering.bytes()
+				: (source.substring(0, headerStart) + rendering.text()).getBytes(StandardCharsets.UTF_8);
+		return new FormattedFile(path, backupPath, header, source.substring(headerEnd));
+	}
+
+	/**
+	 * Gets the rendered license comment for the given variable values.
+	 */
+	private Rendering getRendering(String year, Map<String, String> variables, LicenseComment comment, Renderings renderings) {
+		List<String> templateVariables = this.headerFormat.getTemplate().getVariables();
+		var values = new String[templateVariables.size()];
+
+		for (int i = 0; i < values.length; i++) {
+			values[i] = i + 1 == this.yearGroup ? year : getVariableValue(templateVariables.get(i), variables);
+		}
+
+		var key = new RenderingKey(comment, Arrays.asList(values));
+		Rendering rendering = renderings.map.get(key);
+
+		if (rendering == null) {
+			if (renderings.map.size() >= Renderings.MAX_SIZE) {
+				renderings.map.clear();
 			}
 
-			Files.copy(path, backupPath, StandardCopyOption.REPLACE_EXISTING);
-		} catch (IOException e) {
-			throw new GradleException("Cannot backup file " + path + ", abandoning formatting.", e);
+			rendering = renderings.map.computeIfAbsent(key, k -> {
+				String text = comment.getLicenseComment(
+						this.headerFormat.getTemplate().render(name -> k.values().get(templateVariables.indexOf(name))),
+						this.headerFormat.getLineSeparator()
+				);
+				return new Rendering(text, text.getBytes(StandardCharsets.UTF_8));
+			});
 		}
 
-		try {
-			Files.writeString(path, newSource);
-		} catch (IOException e) {
-			throw new GradleException("Failed to write updated file " + path + ", abandoning formatting.", e);
+		return rendering;
+	}
+
+	/**
+	 * Gets the validator of the license comment of this rule written in the given style, compiling it on first use.
+	 * <p>
+	 * Comment styles laying out the header the same way, such as equal instances created by different builds, share the validator.
+	 *
+	 * @param comment the comment style
+	 * @return the validator
+	 */
+	private Pattern getValidator(LicenseComment comment) {
+		String layout = LicenseUtils.getValidatorLayout(this.headerFormat, this.markedLines, comment);
+		Pattern validator = this.validators.get(layout);
+
+		if (validator == null) {
+			validator = this.validators.computeIfAbsent(layout, l -> LicenseUtils.compileValidator(this.headerFormat, l));
 		}
 
-		return true;
+		return validator;
 	}
 
-	private String getLicenseString(Map<String, String> variables) {
-		return JavaLicenseComment.JAVA.getLicenseComment(this.headerFormat.getHeaderLines(variables), this.headerFormat.getLineSeparator());
+	/**
+	 * {@return the number of validators compiled by this rule}
+	 */
+	int getValidatorCount() {
+		return this.validators.size();
 	}
 
-	private String getYearString(Project project, Path sourcePath, String source) {
-		int lastModifiedYear = this.yearSelectionMode.getModificationYear(project, sourcePath);
-		var matcher = this.validator.matcher(source);
+	/**
+	 * {@return a matcher of the validator of the given comment style, starting at the header start of the given source}
+	 */
+	private Matcher matchHeader(String source, LicenseComment comment) {
+		return this.getValidator(comment).matcher(source).region(comment.findHeaderStart(source), source.length());
+	}
 
-		if (QuiltLicenserGradlePlugin.DEBUG_MODE) {
-			project.getLogger().lifecycle("  => Found last modification year {}", lastModifiedYear);
-		}
+	private static String getVariableValue(String name, Map<String, String> variables) {
+		String value = variables.get(name);
+		// Undefined variables are kept as-is in the header.
+		return value == null ? "${" + name + "}" : value;
+	}
+
+	private String getYearString(LicenseContext context, Path sourcePath, String source, LicenseComment comment) {
+		// Querying git is expensive, only do it if the display mode actually needs the modification year.
+		ModificationYearLookup lastModifiedYear = sinceYear -> {
+			OptionalInt year = this.yearSelectionMode.getModificationYear(context, sourcePath, sinceYear);
+
+			if (context.isDebug()) {
+				if (year.isPresent()) {
+					context.debug("  => Found last modification year {}", year.getAsInt());
+				} else {
+					context.debug("  => No modification found since {}", sinceYear);
+				}
+			}
+
+			return year;
+		};
+		var matcher = this.matchHeader(source, comment);
 
 		String yearValue = null;
 
 		if (matcher.find()) {
-			if (matcher.groupCount() >= 1) {
-				yearValue = matcher.group(1);
+			if (this.yearGroup != 0) {
+				yearValue = matcher.group(this.yearGroup);
 
-				if (QuiltLicenserGradlePlugin.DEBUG_MODE) {
-					project.getLogger().lifecycle("  => Found current year value in file: \"{}\"", yearValue);
+				if (context.isDebug()) {
+					context.debug("  => Found current year value in file: \"{}\"", yearValue);
 				}
 			}
-		} else if (QuiltLicenserGradlePlugin.DEBUG_MODE) {
-			project.getLogger().lifecycle("  => Could not find current year value in file.");
+		} else if (context.isDebug()) {
+			context.debug("  => Could not find current year value in file.");
 		}
 
-		return this.yearDisplayMode.getYearString(yearValue, lastModifiedYear);
+		return this.yearDisplayMode.getYearString(yearValue, lastModifiedYear, context.getCurrentYear());
+	}
+
+	/**
+	 * {@return a string describing everything which affects the behavior of this rule, used to fingerprint license headers}
+	 */
+	String getFingerprintSource() {
+		return this.headerFormat.getSource() + '\n'
+				+ String.join("\n", this.headerFormat.getMetadataLines()) + '\n'
+				+ this.yearDisplayMode.name() + '\n'
+				+ this.yearSelectionMode.name();
 	}
 
 	@Override
 	public String toString() {
 		return "LicenseRule{" +
 				"headerFormat=" + this.headerFormat +
-				", validator=" + this.validator +
+				", validators=" + this.validators.values() +
 				", matcher=" + this.matcher +
 				", yearDisplayMode=" + this.yearDisplayMode +
 				", yearSelectionMode=" + this.yearSelectionMode +
 				'}';
 	}
+
+	/**
+	 * Represents the cache of the rendered license comments of a rule.
+	 * <p>
+	 * Only a handful of distinct year strings exist in a project, so renderings are cached.
+	 * Rules are shared by every project and build of a daemon, so each {@link LicenseHeader} keeps its own renderings.
+	 */
+	static final class Renderings {
+		private static final int MAX_SIZE = 64;
+		private final Map<RenderingKey, Rendering> map = new ConcurrentHashMap<>();
+	}
+
+	private record RenderingKey(LicenseComment comment, List<String> values) {}
+
+	private record Rendering(String text, byte[] bytes) {}
+
+	/**
+	 * Represents a file formatted with its updated license header, ready to be written.
+	 * <p>
+	 * Writing the file doesn't access the project, so it can be done from any thread.
+	 *
+	 * @param path the path of the file
+	 * @param backupPath the path to which the current file is backed up before being written
+	 * @param header the encoded license header, preceded by the prolog of the file if it has one
+	 * @param body the rest of the source, after the license header
+	 * @since 2.1.0
+	 */
+	public record FormattedFile(Path path, Path backupPath, byte[] header, String body) {
+		/**
+		 * Backs up the current file, then writes the updated file.
+		 */
+		public void write() {
+			try {
+				if (!Files.isDirectory(this.backupPath.getParent())) {
+					Files.createDirectories(this.backupPath.getParent());
+				}
+
+				Files.copy(this.path, this.backupPath, StandardCopyOption.REPLACE_EXISTING);
+			} catch (IOException e) {
+				throw new UncheckedIOException("Cannot backup file " + this.path + ", abandoning formatting.", e);
+			}
+
+			try (var out = Files.newOutputStream(this.path)) {
+				out.write(this.header);
+				out.write(this.body.getBytes(StandardCharsets.UTF_8));
+			} catch (IOException e) {
+				throw new UncheckedIOException("Failed to write updated file " + this.path + ", abandoning formatting.", e);
+			}
+		}
+	}
 }
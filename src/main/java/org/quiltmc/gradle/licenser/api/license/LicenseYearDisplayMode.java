@@ -16,94 +16,148 @@
 
 package org.quiltmc.gradle.licenser.api.license;
 
-import org.eclipse.jgit.util.IntList;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
+import java.util.Calendar;
+import java.util.OptionalInt;
 
 /**
  * Represents how a year value should be represented in the license file.
  *
  * @author LambdAurora
- * @version 2.0.0
+ * @version 2.1.0
  * @since 1.0.0
  */
 public enum LicenseYearDisplayMode {
 	LENIENT_RANGE {
 		@Override
-		protected String getYearString(IntList years) {
-			int min = years.get(0);
+		protected String getYearString(YearIntervalSet years) {
+			int min = years.first();
+			int max = years.last();
 
-			if (years.size() == 1) {
+			if (min == max) {
 				return String.valueOf(min);
 			}
 
-			int max = years.get(years.size() - 1);
 			return min + "-" + max;
 		}
 	},
 	LIST {
 		@Override
-		protected String getYearString(IntList years) {
-			var streamBuilder = IntStream.builder();
-			for (int i = 0; i < years.size(); i++) streamBuilder.add(years.get(i));
+		protected String getYearString(YearIntervalSet years) {
+			var builder = new StringBuilder();
 
-			return streamBuilder.build().sorted()
-					.mapToObj(String::valueOf)
-					.collect(Collectors.joining(", "));
+			for (int i = 0; i < years.intervalCount(); i++) {
+				for (int year = years.intervalStart(i); year <= years.intervalEnd(i); year++) {
+					if (!builder.isEmpty()) builder.append(", ");
+
+					builder.append(year);
+				}
+			}
+
+			return builder.toString();
 		}
 	},
 	CREATION_ONLY {
 		@Override
-		protected String getYearString(IntList years) {
-			return String.valueOf(years.get(0));
+		protected String getYearString(YearIntervalSet years) {
+			return String.valueOf(years.first());
 		}
-	};
 
-	public String getYearString(@Nullable String yearValue, int lastModifiedYear) {
-		if (yearValue != null) {
-			String[] serializedYears = yearValue.split(" ?, ?");
+		@Override
+		protected boolean needsModificationYear(YearIntervalSet years, int currentYear) {
+			// Only the creation year is displayed, which is already known.
+			return years.isEmpty();
+		}
+	},
+	/**
+	 * Displays every year as merged ranges, for example {@code 2015-2019, 2021-2026}.
+	 *
+	 * @since 2.1.0
+	 */
+	COMPACT_RANGES {
+		@Override
+		protected String getYearString(YearIntervalSet years) {
+			var builder = new StringBuilder();
 
-			var years = new IntList();
+			for (int i = 0; i < years.intervalCount(); i++) {
+				if (i != 0) builder.append(", ");
 
-			for (var serializedYear : serializedYears) {
-				try {
-					if (serializedYear.contains("-")) {
-						String[] serializedYearRange = serializedYear.split(" ?- ?");
+				builder.append(years.intervalStart(i));
 
-						if (serializedYearRange.length > 2) {
-							continue; // Invalid year range.
-						}
+				if (years.intervalStart(i) != years.intervalEnd(i)) {
+					builder.append('-').append(years.intervalEnd(i));
+				}
+			}
 
-						int start = Integer.parseInt(serializedYearRange[0]);
-						int end = Integer.parseInt(serializedYearRange[1]);
+			return builder.toString();
+		}
+	};
 
-						if (end < start) continue; // Invalid year range.
+	public String getYearString(@Nullable String yearValue, int lastModifiedYear) {
+		return this.getYearString(yearValue, sinceYear -> OptionalInt.of(lastModifiedYear));
+	}
 
-						for (int i = start; i <= end; i++) {
-							years.add(i);
-						}
+	/**
+	 * Gets the year string to display in the license header.
+	 * <p>
+	 * The last modification year is only queried if it can change the resulting year string,
+	 * as fetching it may be expensive. Modifications older than the newest year already present are ignored.
+	 *
+	 * @param yearValue the year string currently present in the license header, or {@code null} if absent
+	 * @param lastModifiedYear the lookup of the last modification year
+	 * @return the year string
+	 */
+	public String getYearString(@Nullable String yearValue, ModificationYearLookup lastModifiedYear) {
+		return this.getYearString(yearValue, lastModifiedYear, Calendar.getInstance().get(Calendar.YEAR));
+	}
 
-						continue;
-					}
+	/**
+	 * Gets the year string to display in the license header, using the given current year instead of the system clock.
+	 *
+	 * @param yearValue the year string currently present in the license header, or {@code null} if absent
+	 * @param lastModifiedYear the lookup of the last modification year
+	 * @param currentYear the current year
+	 * @return the year string
+	 * @see #getYearString(String, ModificationYearLookup)
+	 * @since 2.1.0
+	 */
+	public String getYearString(@Nullable String yearValue, ModificationYearLookup lastModifiedYear, int currentYear) {
+		if (yearValue != null) {
+			var years = YearIntervalSet.parse(yearValue);
+
+			if (this.needsModificationYear(years, currentYear)) {
+				OptionalInt year = lastModifiedYear.getModificationYear(
+						years.isEmpty() ? ModificationYearLookup.UNBOUNDED : years.last()
+				);
 
-					int year = Integer.parseInt(serializedYear);
-					years.add(year);
-				} catch (NumberFormatException ignored) {
-					// ignore
+				if (year.isPresent()) {
+					years.add(year.getAsInt());
 				}
 			}
 
-			if (!years.contains(lastModifiedYear)) {
-				years.add(lastModifiedYear);
+			if (!years.isEmpty()) {
+				return this.getYearString(years);
 			}
-
-			return this.getYearString(years);
 		}
 
-		return String.valueOf(lastModifiedYear);
+		return String.valueOf(lastModifiedYear.getModificationYear(ModificationYearLookup.UNBOUNDED)
+				.orElse(currentYear));
+	}
+
+	/**
+	 * Returns whether the last modification year can change the year string computed from the given years.
+	 * <p>
+	 * A file cannot be modified after the current year, nor before its creation year.
+	 * So by default, the modification year is only needed if a year between the first year and the current year is missing.
+	 *
+	 * @param years the years currently present in the license header
+	 * @param currentYear the current year
+	 * @return {@code true} if the last modification year is needed, or {@code false} otherwise
+	 */
+	protected boolean needsModificationYear(YearIntervalSet years, int currentYear) {
+		return years.isEmpty() || years.first() > currentYear || !years.containsRange(years.first(), currentYear);
 	}
 
-	protected abstract String getYearString(IntList years);
+	protected abstract String getYearString(YearIntervalSet years);
 }
@@ -17,57 +17,92 @@
 package org.quiltmc.gradle.licenser.api.license;
 
 import org.gradle.api.Project;
-import org.jetbrains.annotations.Nullable;
-import org.quiltmc.gradle.licenser.api.util.GitUtils;
+import org.quiltmc.gradle.licenser.api.util.GradleLicenseUtils;
 
 import java.nio.file.Path;
+import java.util.OptionalInt;
 
 /**
  * Represents the mode in which the year should be fetched.
  *
  * @author LambdAurora
- * @version 2.0.0
+ * @version 2.1.0
  * @since 1.0.0
  */
 public enum LicenseYearSelectionMode {
 	/**
 	 * The license year is project-wide, a change in any file of the project will update every file.
 	 */
-	PROJECT((project, path) -> project.getProjectDir().toPath()),
+	PROJECT(true),
 	/**
 	 * Each file has its own year.
 	 */
-	FILE((project, path) -> path);
+	FILE(false),
+	/**
+	 * Each file uses the year of the commit which created it, following renames, instead of its last modification year.
+	 *
+	 * @since 2.1.0
+	 */
+	CREATION(false) {
+		@Override
+		public OptionalInt getModificationYear(LicenseContext context, Path path, int sinceYear) {
+			return since(context.getCreationYear(path), sinceYear);
+		}
+	};
 
-	private final CommitPathReference commitPathReference;
+	private final boolean projectWide;
 
-	LicenseYearSelectionMode(CommitPathReference commitPathReference) {
-		this.commitPathReference = commitPathReference;
+	LicenseYearSelectionMode(boolean projectWide) {
+		this.projectWide = projectWide;
 	}
 
 	/**
 	 * Gets the last modification year in which the file got modified.
 	 * <p>
-	 * In the case of {@link #PROJECT} the last modification year isn't file dependent.
+	 * In the case of {@link #PROJECT} the last modification year isn't file dependent,
+	 * and in the case of {@link #CREATION} the creation year is used instead.
 	 *
 	 * @param project the project the file is in
 	 * @param path the path to the file
 	 * @return the last modification year
+	 * @deprecated use {@link GradleLicenseUtils#getModificationYear(LicenseYearSelectionMode, Project, Path)} instead
 	 */
+	@Deprecated(since = "2.1.0", forRemoval = true)
 	public int getModificationYear(Project project, Path path) {
-		Path commitPath = this.commitPathReference.getPathForCommitFetching(project, path);
-		return GitUtils.getModificationYear(project, commitPath);
+		return GradleLicenseUtils.getModificationYear(this, project, path);
+	}
+
+	/**
+	 * Gets the last modification year in which the file got modified, ignoring modifications older than the given year.
+	 *
+	 * @param project the project the file is in
+	 * @param path the path to the file
+	 * @param sinceYear the year before which modifications are ignored, or {@link ModificationYearLookup#UNBOUNDED}
+	 * @return the last modification year, or an empty value if the file has not been modified since the given year
+	 * @deprecated use {@link GradleLicenseUtils#getModificationYear(LicenseYearSelectionMode, Project, Path, int)} instead
+	 */
+	@Deprecated(since = "2.1.0", forRemoval = true)
+	public OptionalInt getModificationYear(Project project, Path path, int sinceYear) {
+		return GradleLicenseUtils.getModificationYear(this, project, path, sinceYear);
+	}
+
+	/**
+	 * Gets the last modification year in which the file got modified, ignoring modifications older than the given year.
+	 * <p>
+	 * In the case of {@link #PROJECT} the last modification year isn't file dependent,
+	 * and in the case of {@link #CREATION} the creation year is used instead.
+	 *
+	 * @param context the license context
+	 * @param path the path to the file
+	 * @param sinceYear the year before which modifications are ignored, or {@link ModificationYearLookup#UNBOUNDED}
+	 * @return the last modification year, or an empty value if the file has not been modified since the given year
+	 * @since 2.1.0
+	 */
+	public OptionalInt getModificationYear(LicenseContext context, Path path, int sinceYear) {
+		return context.getModificationYear(this.projectWide ? context.getProjectDirectory() : path, sinceYear);
 	}
 
-	@FunctionalInterface
-	interface CommitPathReference {
-		/**
-		 * Gets the path to use to fetch the latest commit.
-		 *
-		 * @param project the project the path is in
-		 * @param path the path
-		 * @return the path to use to get the latest commit
-		 */
-		@Nullable Path getPathForCommitFetching(Project project, Path path);
+	private static OptionalInt since(int year, int sinceYear) {
+		return year < sinceYear ? OptionalInt.empty() : OptionalInt.of(year);
 	}
 }
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2022-2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.gradle.licenser.api.license;
+
+import java.util.OptionalInt;
+
+/**
+ * Represents a lookup of the last modification year of a file.
+ * <p>
+ * Lookups may be expensive, so they are only performed if the {@link LicenseYearDisplayMode} actually needs the year,
+ * and are bounded by the newest year already present in the license header.
+ *
+ * @version 2.1.0
+ * @since 2.1.0
+ */
+@FunctionalInterface
+public interface ModificationYearLookup {
+	/**
+	 * The lower bound to use to look up the last modification year regardless of its age.
+	 */
+	int UNBOUNDED = Integer.MIN_VALUE;
+
+	/**
+	 * Looks up the last modification year of the file.
+	 *
+	 * @param sinceYear the year before which modifications are ignored, or {@link #UNBOUNDED}
+	 * @return the last modification year,
+	 * or an empty value if the file has not been modified since January 1st of {@code sinceYear}
+	 */
+	OptionalInt getModificationYear(int sinceYear);
+}
@@ -0,0 +1,228 @@
+/*
+ * Copyright 2022-2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.gradle.licenser.api.license;
+
+import java.util.Arrays;
+import java.util.regex.Pattern;
+
+/**
+ * Represents a set of years, stored as sorted and merged intervals.
+ * <p>
+ * Ranges such as {@code 2015-2026} are stored as a single interval, they are never expanded year by year.
+ *
+ * @version 2.1.0
+ * @since 2.1.0
+ */
+public final class YearIntervalSet {
+	private static final Pattern LIST_SEPARATOR = Pattern.compile(" ?, ?");
+	private static final Pattern RANGE_SEPARATOR = Pattern.compile(" ?- ?");
+
+	private int[] starts = new int[4];
+	private int[] ends = new int[4];
+	private int size;
+
+	/**
+	 * Parses a year string from a license header, such as {@code 2015-2019, 2021}.
+	 * <p>
+	 * Invalid years and ranges are ignored.
+	 *
+	 * @param yearValue the year string
+	 * @return the parsed set of years
+	 */
+	public static YearIntervalSet parse(String yearValue) {
+		var years = new YearIntervalSet();
+
+		for (var serializedYear : LIST_SEPARATOR.split(yearValue)) {
+			try {
+				if (serializedYear.contains("-")) {
+					String[] serializedYearRange = RANGE_SEPARATOR.split(serializedYear);
+
+					if (serializedYearRange.length != 2) {
+						continue; // Invalid year range.
+					}
+
+					int start = Integer.parseInt(serializedYearRange[0]);
+					int end = Integer.parseInt(serializedYearRange[1]);
+
+					if (end < start) continue; // Invalid year range.
+
+					years.add(start, end);
+					continue;
+				}
+
+				years.add(Integer.parseInt(serializedYear));
+			} catch (NumberFormatException ignored) {
+				// ignore
+			}
+		}
+
+		return years;
+	}
+
+	/**
+	 * Adds a year to this set.
+	 *
+	 * @param year the year to add
+	 */
+	public void add(int year) {
+		this.add(year, year);
+	}
+
+	/**
+	 * Adds an inclusive range of years to this set, merging it with overlapping and adjacent intervals.
+	 *
+	 * @param start the first year of the range
+	 * @param end the last year of the range
+	 */
+	public void add(int start, int end) {
+		if (end < start) {
+			throw new IllegalArgumentException("Invalid year range " + start + "-" + end + ".");
+		}
+
+		// Find the intervals [first, last) overlapping or adjacent to the new range.
+		int first = 0;
+		while (first < this.size && this.ends[first] < start - 1) first++;
+
+		int last = first;
+		while (last < this.size && this.starts[last] <= end + 1) last++;
+
+		if (first < last) {
+			start = Math.min(start, this.starts[first]);
+			end = Math.max(end, this.ends[last - 1]);
+		}
+
+		int merged = last - first;
+
+		if (merged == 0) {
+			if (this.size == this.starts.length) {
+				this.starts = Arrays.copyOf(this.starts, this.size * 2);
+				this.ends = Arrays.copyOf(this.ends, this.size * 2);
+			}
+
+			System.arraycopy(this.starts, first, this.starts, first + 1, this.size - first);
+			System.arraycopy(this.ends, first, this.ends, first + 1, this.size - first);
+			this.size++;
+		} else if (merged > 1) {
+			System.arraycopy(this.starts, last, this.starts, first + 1, this.size - last);
+			System.arraycopy(this.ends, last, this.ends, first + 1, this.size - last);
+			this.size -= merged - 1;
+		}
+
+		this.starts[first] = start;
+		this.ends[first] = end;
+	}
+
+	/**
+	 * {@return {@code true} if this set contains no year, or {@code false} otherwise}
+	 */
+	public boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	/**
+	 * {@return {@code true} if this set contains the given year, or {@code false} otherwise}
+	 *
+	 * @param year the year
+	 */
+	public boolean contains(int year) {
+		return this.containsRange(year, year);
+	}
+
+	/**
+	 * {@return {@code true} if this set contains every year of the given inclusive range, or {@code false} otherwise}
+	 *
+	 * @param start the first year of the range
+	 * @param end the last year of the range
+	 */
+	public boolean containsRange(int start, int end) {
+		for (int i = 0; i < this.size && this.starts[i] <= start; i++) {
+			if (this.ends[i] >= end) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * {@return the oldest year of this set}
+	 *
+	 * @throws IllegalStateException if this set is empty
+	 */
+	public int first() {
+		this.checkNotEmpty();
+		return this.starts[0];
+	}
+
+	/**
+	 * {@return the newest year of this set}
+	 *
+	 * @throws IllegalStateException if this set is empty
+	 */
+	public int last() {
+		this.checkNotEmpty();
+		return this.ends[this.size - 1];
+	}
+
+	/**
+	 * {@return the number of disjoint intervals of this set}
+	 */
+	public int intervalCount() {
+		return this.size;
+	}
+
+	/**
+	 * {@return the first year of the given interval}
+	 *
+	 * @param interval the interval index
+	 */
+	public int intervalStart(int interval) {
+		return this.starts[interval];
+	}
+
+	/**
+	 * {@return the last year of the given interval}
+	 *
+	 * @param interval the interval index
+	 */
+	public int intervalEnd(int interval) {
+		return this.ends[interval];
+	}
+
+	private void checkNotEmpty() {
+		if (this.size == 0) {
+			throw new IllegalStateException("The year set is empty.");
+		}
+	}
+
+	@Override
+	public String toString() {
+		var builder = new StringBuilder("YearIntervalSet{");
+
+		for (int i = 0; i < this.size; i++) {
+			if (i != 0) builder.append(", ");
+
+			builder.append(this.starts[i]);
+
+			if (this.starts[i] != this.ends[i]) {
+				builder.append('-').append(this.ends[i]);
+			}
+		}
+
+		return builder.append('}').toString();
+	}
+}
@@ -17,43 +17,50 @@
 package org.quiltmc.gradle.licenser.api.license.comment;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.regex.Pattern;
 
 /**
  * Represents the license comment reader and writer for Java-like files.
  *
- * @version 1.2.0
+ * @version 2.1.0
  * @since 1.2.0
  */
 public class JavaLicenseComment implements LicenseComment {
 	public static final JavaLicenseComment JAVA = new JavaLicenseComment();
+	private static final Pattern LINE_PREFIX = Pattern.compile("\n\r? \\* ");
 
 	@Override
-	public @NotNull Result findLicenseComment(@NotNull String source) {
+	public @NotNull Result findLicenseComment(@NotNull CharSequence source) {
+		int length = source.length();
 		int i;
-		String existing = null;
+		int contentStart = -1;
+		int contentEnd = -1;
 
-		for (i = 0; i < source.length(); i++) {
+		for (i = 0; i < length; i++) {
 			char c = source.charAt(i);
 
-			if (c == '/' && existing == null) {
-				if (i + 1 != source.length() && source.charAt(i + 1) == '*'
-						&& i + 2 != source.length() && source.charAt(i + 2) != '*') {
+			if (c == '/' && contentStart == -1) {
+				if (i + 1 != length && source.charAt(i + 1) == '*'
+						&& i + 2 != length && source.charAt(i + 2) != '*') {
 					// License!
 					int j = i + 2;
-					while (j < source.length()) {
-						j = source.indexOf('*', j + 1);
+					while (j < length) {
+						j = indexOf(source, '*', j + 1);
 
 						if (j == -1) {
-							return new Result(source.length() - 1, source.substring(i + 2));
+							return new Result(i + 2, length, length - 1);
 						}
 
-						if (j + 1 == source.length()) {
-							return new Result(j, this.extractLicense(source.substring(i + 2)));
+						if (j + 1 == length) {
+							return new Result(i + 2, length, j);
 						}
 
 						if (source.charAt(j + 1) == '/') {
 							// The end!
-							existing = this.extractLicense(source.substring(i + 2, j - 1));
+							contentStart = i + 2;
+							contentEnd = j - 1;
 							i = j + 1;
 							break;
 						}
@@ -62,7 +69,17 @@ public class JavaLicenseComment implements LicenseComment {
 			} else if (!Character.isWhitespace(c)) break;
 		}
 
-		return new Result(i, null);
+		return new Result(contentStart, contentEnd, i);
+	}
+
+	@Override
+	public @Nullable String extractExisting(@NotNull CharSequence source, @NotNull Result result) {
+		if (!result.hasExisting()) {
+			return null;
+		}
+
+		var content = source.subSequence(result.contentStart(), result.contentEnd());
+		return LINE_PREFIX.matcher(content.toString().trim()).replaceAll("\n");
 	}
 
 	@Override
@@ -83,7 +100,13 @@ public class JavaLicenseComment implements LicenseComment {
 		return builder.toString();
 	}
 
-	private String extractLicense(String source) {
-		return source.trim().replaceAll("\n\r? \\* ", "\n");
+	private static int indexOf(CharSequence source, char c, int from) {
+		for (int i = from; i < source.length(); i++) {
+			if (source.charAt(i) == c) {
+				return i;
+			}
+		}
+
+		return -1;
 	}
 }
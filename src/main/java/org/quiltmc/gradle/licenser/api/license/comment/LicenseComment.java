@@ -17,23 +17,98 @@
 package org.quiltmc.gradle.licenser.api.license.comment;
 
 import org.jetbrains.annotations.NotNull;
-
-import javax.annotation.Nullable;
+import org.jetbrains.annotations.Nullable;
 
 /**
  * Represents the license header comment reader and writer for a language.
  *
- * @version 1.2.0
+ * @version 2.1.0
  * @since 1.2.0
  */
 public interface LicenseComment {
+	/**
+	 * Finds the index at which the license comment starts.
+	 * <p>
+	 * Some files start with a prolog which must stay first, such as the shebang of scripts or the declaration of XML files,
+	 * in which case the license comment is placed after it.
+	 *
+	 * @param source the source
+	 * @return the index right after the prolog of the source, or {@code 0} if the source has no prolog
+	 * @since 2.1.0
+	 */
+	default int findHeaderStart(@NotNull CharSequence source) {
+		return 0;
+	}
+
 	/**
 	 * Attempts to find the license comment.
+	 * <p>
+	 * This only locates the comment, the existing license text can be extracted on request
+	 * using {@link #extractExisting(CharSequence, Result)}.
+	 * The search starts at the {@linkplain #findHeaderStart(CharSequence) header start}.
+	 * <p>
+	 * Implementations must override this method. The default implementation only exists for implementations
+	 * written against the previous versions, which override {@link #findLicenseComment(String)} instead.
 	 *
 	 * @param source the source
 	 * @return the found comment
+	 * @since 2.1.0
+	 */
+	default @NotNull Result findLicenseComment(@NotNull CharSequence source) {
+		return this.findLicenseComment(source.toString());
+	}
+
+	/**
+	 * Attempts to find the license comment, and extracts the existing license text.
+	 *
+	 * @param source the source
+	 * @return the found comment, with its {@linkplain Result#existing() existing license text}
+	 * @deprecated use {@link #findLicenseComment(CharSequence)} and {@link #extractExisting(CharSequence, Result)} instead,
+	 * which only extract the existing license text on request
+	 */
+	@Deprecated(since = "2.1.0", forRemoval = true)
+	default @NotNull Result findLicenseComment(@NotNull String source) {
+		Result result = this.findLicenseComment((CharSequence) source);
+
+		if (result.hasExisting() && result.existing() == null) {
+			return new Result(result.contentStart(), result.contentEnd(), result.endIndex(), this.extractExisting(source, result));
+		}
+
+		return result;
+	}
+
+	/**
+	 * Returns whether every comment found by {@link #findLicenseComment(CharSequence)} is a license comment.
+	 * <p>
+	 * Styles whose comments cannot be told apart from other comments, such as line comments, return {@code false}.
+	 * The found comment is then only replaced if the license header recognizes it as a license,
+	 * otherwise the license comment is inserted above it.
+	 *
+	 * @return {@code true} if every found comment is a license comment, or {@code false} otherwise
+	 * @since 2.1.0
+	 */
+	default boolean isAlwaysLicense() {
+		return true;
+	}
+
+	/**
+	 * Extracts the text of the license comment found by {@link #findLicenseComment(CharSequence)}.
+	 * <p>
+	 * The default implementation returns the {@linkplain Result#existing() already extracted text} if any,
+	 * or otherwise the stripped content of the comment.
+	 *
+	 * @param source the source the comment has been found in
+	 * @param result the result of the comment search
+	 * @return the existing license text, or {@code null} if no license comment has been found
+	 * @since 2.1.0
 	 */
-	@NotNull Result findLicenseComment(@NotNull String source);
+	default @Nullable String extractExisting(@NotNull CharSequence source, @NotNull Result result) {
+		if (result.existing() != null || !result.hasExisting()) {
+			return result.existing();
+		}
+
+		return source.subSequence(result.contentStart(), result.contentEnd()).toString().strip();
+	}
 
 	/**
 	 * Gets the license comment as a string from the given license lines and the line separator used.
@@ -44,5 +119,57 @@ public interface LicenseComment {
 	 */
 	@NotNull String getLicenseComment(@NotNull String[] lines, @NotNull String lineSeparator);
 
-	record Result(int endIndex, @Nullable String existing) {}
+	/**
+	 * Represents the location of a license comment.
+	 *
+	 * @param contentStart the start index of the comment content, or {@code -1} if it is unknown or no license comment has been found
+	 * @param contentEnd the end index (exclusive) of the comment content, or {@code -1} if it is unknown or no license comment has been found
+	 * @param endIndex the index at which the rest of the source starts after the license comment
+	 * @param existing the existing license text if it has already been extracted, otherwise {@code null}
+	 */
+	record Result(int contentStart, int contentEnd, int endIndex, @Nullable String existing) {
+		/**
+		 * Creates the result of a license comment search, whose existing license text is extracted on request.
+		 *
+		 * @param contentStart the start index of the comment content, or {@code -1} if no license comment has been found
+		 * @param contentEnd the end index (exclusive) of the comment content, or {@code -1} if no license comment has been found
+		 * @param endIndex the index at which the rest of the source starts after the license comment
+		 * @since 2.1.0
+		 */
+		public Result(int contentStart, int contentEnd, int endIndex) {
+			this(contentStart, contentEnd, endIndex, null);
+		}
+
+		/**
+		 * Creates the result of a license comment search with the already extracted existing license text.
+		 *
+		 * @param endIndex the index at which the rest of the source starts after the license comment
+		 * @param existing the existing license text, or {@code null} if no license comment has been found
+		 * @deprecated use {@link #Result(int, int, int)} instead, which lets the text be extracted on request
+		 */
+		@Deprecated(since = "2.1.0", forRemoval = true)
+		public Result(int endIndex, @Nullable String existing) {
+			this(-1, -1, endIndex, existing);
+		}
+
+		/**
+		 * Creates a result for a source without any license comment.
+		 *
+		 * @param endIndex the index at which the rest of the source starts
+		 * @return the result
+		 * @since 2.1.0
+		 */
+		public static Result none(int endIndex) {
+			return new Result(-1, -1, endIndex);
+		}
+
+		/**
+		 * {@return {@code true} if a license comment has been found, or {@code false} otherwise}
+		 *
+		 * @since 2.1.0
+		 */
+		public boolean hasExisting() {
+			return this.contentStart != -1 || this.existing != null;
+		}
+	}
 }
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2022-2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.quiltmc.gradle.licenser.api.license.comment;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Represents the table of the license comment styles used for each file extension.
+ * <p>
+ * The style of a file is looked up from the extension of its name,
+ * so each file is validated with the single validator of its style.
+ * Files with an unknown extension use the {@linkplain JavaLicenseComment#JAVA Java style}.
+ *
+ * @version 2.1.0
+ * @since 2.1.0
+ */
+public final class LicenseCommentStyles {
+	private static final Map<String, LicenseComment> NAMED_STYLES = Map.of(
+			"java", JavaLicenseComment.JAVA,
+			"hash", LineLicenseComment.HASH,
+			"slash", LineLicenseComment.DOUBLE_SLASH,
+			"dash", LineLicenseComment.DOUBLE_DASH,
+			"xml", XmlLicenseComment.XML
+	);
+	private final Map<String, LicenseComment> styles = new HashMap<>();
+
+	/**
+	 * Creates the default table of comment styles.
+	 *
+	 * @return the default table
+	 */
+	public static LicenseCommentStyles createDefault() {
+		var styles = new LicenseCommentStyles();
+		styles.register(LineLicenseComment.HASH,
+				"sh", "bash", "zsh", "py", "rb", "pl", "properties", "yml", "yaml", "toml", "cfg", "conf", "mcfunction");
+		styles.register(LineLicenseComment.DOUBLE_DASH, "sql", "lua", "hs");
+		styles.register(XmlLicenseComment.XML, "xml", "xsd", "fxml", "svg", "html", "htm", "xhtml");
+		return styles;
+	}
+
+	/**
+	 * Gets a built-in comment style by its name.
+	 * <p>
+	 * The built-in styles are {@code java} ({@code /* *}{@code /}), {@code hash} ({@code #}), {@code slash} ({@code //}),
+	 * {@code dash} ({@code --}) and {@code xml} ({@code <!-- -->}).
+	 *
+	 * @param name the name of the style
+	 * @return the comment style, or {@code null} if no built-in style has the given name
+	 */
+	public static @Nullable LicenseComment getNamedStyle(String name) {
+		return NAMED_STYLES.get(name.toLowerCase(Locale.ROOT));
+	}
+
+	/**
+	 * Registers the comment style of the given file extensions, replacing their current style.
+	 *
+	 * @param style the comment style
+	 * @param extensions the file extensions, without the leading dot
+	 */
+	public void register(LicenseComment style, String... extensions) {
+		for (var extension : extensions) {
+			this.styles.put(normalizeExtension(extension), style);
+		}
+	}
+
+	/**
+	 * {@return the comment style of the given file}
+	 *
+	 * @param path the path of the file
+	 */
+	public LicenseComment get(Path path) {
+		var name = path.getFileName();
+
+		if (name != null) {
+			String fileName = name.toString();
+			int extensionStart = fileName.lastIndexOf('.');
+
+			if (extensionStart != -1) {
+				LicenseComment style = this.styles.get(fileName.substring(extensionStart + 1).toLowerCase(Locale.ROOT));
+
+				if (style != null) {
+					return style;
+				}
+			}
+		}
+
+		return JavaLicenseComment.JAVA;
+	}
+
+	/**
+	 * {@return a string describing the style of every registered extension, used to fingerprint license headers}
+	 */
+	public String getFingerprintSource() {
+		var builder = new StringBuilder();
+
+		for (var entry : new TreeMap<>(this.styles).entrySet()) {
+			builder.append(entry.getKey()).append('=').append(getStyleName(entry.getValue())).append('\n');
+		}
+
+		return builder.toString();
+	}
+
+	private static String getStyleName(LicenseComment style) {
+		for (var entry : NAMED_STYLES.entrySet()) {
+			if (entry.getValue() == style) {
+				return entry.getKey();
+			}
+		}
+
+		if (style instanceof LineLicenseComment lineStyle) {
+			return lineStyle.getPrefix();
+		}
+
+		return style.getClass().getName();
+	}
+
+	private static String normalizeExtension(String extension) {
+		if (extension.startsWith(".")) {
+			extension = extension.substring(1);
+		}
+
+		if (extension.isEmpty()) {
+			throw new IllegalArgumentException("The file extension of a comment style cannot be empty.");
+		}
+
+		return extension.toLowerCase(Locale.ROOT);
+	}
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2022-2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.quiltmc.gradle.licenser.api.license.comment;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Represents the license comment reader and writer for files using line comments, such as {@code #} or {@code //}.
+ * <p>
+ * The license comment is the first block of consecutive lines starting with the comment prefix.
+ * As any other comment looks the same, that block is only replaced if it looks like a license,
+ * otherwise the license comment is inserted above it.
+ * A leading shebang line ({@code #!}) is kept before the license comment.
+ *
+ * @version 2.1.0
+ * @since 2.1.0
+ */
+public class LineLicenseComment implements LicenseComment {
+	/**
+	 * The style of shell scripts, properties and YAML files.
+	 */
+	public static final LineLicenseComment HASH = new LineLicenseComment("#");
+	/**
+	 * The style of languages preferring line comments over block comments.
+	 */
+	public static final LineLicenseComment DOUBLE_SLASH = new LineLicenseComment("//");
+	/**
+	 * The style of SQL and Lua files.
+	 */
+	public static final LineLicenseComment DOUBLE_DASH = new LineLicenseComment("--");
+	private static final String SHEBANG = "#!";
+
+	private final String prefix;
+
+	public LineLicenseComment(String prefix) {
+		if (prefix.isBlank()) {
+			throw new IllegalArgumentException("The line comment prefix cannot be blank.");
+		}
+
+		this.prefix = prefix;
+	}
+
+	/**
+	 * {@return the prefix of the comment lines}
+	 */
+	public String getPrefix() {
+		return this.prefix;
+	}
+
+	@Override
+	public int findHeaderStart(@NotNull CharSequence source) {
+		if (!startsWith(source, SHEBANG, 0)) {
+			return 0;
+		}
+
+		int lineEnd = indexOf(source, '\n', 0);
+		// A script made of its shebang only has nowhere to put the license after it.
+		return lineEnd == -1 ? 0 : lineEnd + 1;
+	}
+
+	@Override
+	public boolean isAlwaysLicense() {
+		return false;
+	}
+
+	@Override
+	public @NotNull Result findLicenseComment(@NotNull CharSequence source) {
+		int length = source.length();
+		int i = this.findHeaderStart(source);
+
+		while (i < length && Character.isWhitespace(source.charAt(i))) {
+			i++;
+		}
+
+		if (!startsWith(source, this.prefix, i)) {
+			return Result.none(i);
+		}
+
+		int contentStart = i;
+		int contentEnd;
+
+		do {
+			int lineEnd = indexOf(source, '\n', i);
+
+			if (lineEnd == -1) {
+				return new Result(contentStart, length, length);
+			}
+
+			contentEnd = lineEnd;
+			i = lineEnd + 1;
+		} while (startsWith(source, this.prefix, i));
+
+		while (i < length && Character.isWhitespace(source.charAt(i))) {
+			i++;
+		}
+
+		return new Result(contentStart, contentEnd, i);
+	}
+
+	@Override
+	public @Nullable String extractExisting(@NotNull CharSequence source, @NotNull Result result) {
+		if (!result.hasExisting()) {
+			return null;
+		}
+
+		var builder = new StringBuilder();
+
+		for (var line : source.subSequence(result.contentStart(), result.contentEnd()).toString().split("\r?\n")) {
+			String text = line.substring(this.prefix.length());
+			builder.append(text.startsWith(" ") ? text.substring(1) : text).append('\n');
+		}
+
+		return builder.toString().strip();
+	}
+
+	@Override
+	public @NotNull String getLicenseComment(@NotNull String[] lines, @NotNull String lineSeparator) {
+		var builder = new StringBuilder();
+
+		for (var line : lines) {
+			builder.append(this.prefix);
+
+			if (!line.isEmpty()) {
+				builder.append(' ').append(line);
+			}
+
+			builder.append(lineSeparator);
+		}
+
+		builder.append(lineSeparator);
+
+		return builder.toString();
+	}
+
+	private static boolean startsWith(CharSequence source, String prefix, int from) {
+		if (from + prefix.length() > source.length()) {
+			return false;
+		}
+
+		for (int i = 0; i < prefix.length(); i++) {
+			if (source.charAt(from + i) != prefix.charAt(i)) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private static int indexOf(CharSequence source, char c, int from) {
+		for (int i = from; i < source.length(); i++) {
+			if (source.charAt(i) == c) {
+				return i;
+			}
+		}
+
+		return -1;
+	}
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2022-2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.quiltmc.gradle.licenser.api.license.comment;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Represents the license comment reader and writer for XML-like files, using {@code <!-- -->} comments.
+ * <p>
+ * The license comment is the first comment of the file, it is only replaced if it looks like a license,
+ * otherwise the license comment is inserted above it.
+ * A leading XML declaration ({@code <?xml ...?>}) is kept before the license comment.
+ *
+ * @version 2.1.0
+ * @since 2.1.0
+ */
+public class XmlLicenseComment implements LicenseComment {
+	public static final XmlLicenseComment XML = new XmlLicenseComment();
+	private static final String COMMENT_START = "<!--";
+	private static final String COMMENT_END = "-->";
+	private static final String DECLARATION_START = "<?xml";
+	private static final String DECLARATION_END = "?>";
+	private static final String LINE_PREFIX = "  ";
+
+	@Override
+	public int findHeaderStart(@NotNull CharSequence source) {
+		String text = source.toString();
+
+		if (!text.startsWith(DECLARATION_START)) {
+			return 0;
+		}
+
+		int end = text.indexOf(DECLARATION_END);
+
+		if (end == -1) {
+			return 0;
+		}
+
+		end += DECLARATION_END.length();
+
+		if (text.startsWith("\r\n", end)) {
+			return end + 2;
+		} else if (text.startsWith("\n", end)) {
+			return end + 1;
+		}
+
+		return end;
+	}
+
+	@Override
+	public boolean isAlwaysLicense() {
+		return false;
+	}
+
+	@Override
+	public @NotNull Result findLicenseComment(@NotNull CharSequence source) {
+		String text = source.toString();
+		int length = text.length();
+		int i = this.findHeaderStart(text);
+
+		while (i < length && Character.isWhitespace(text.charAt(i))) {
+			i++;
+		}
+
+		if (!text.startsWith(COMMENT_START, i)) {
+			return Result.none(i);
+		}
+
+		int contentStart = i + COMMENT_START.length();
+		int contentEnd = text.indexOf(COMMENT_END, contentStart);
+
+		if (contentEnd == -1) {
+			return new Result(contentStart, length, length);
+		}
+
+		i = contentEnd + COMMENT_END.length();
+
+		while (i < length && Character.isWhitespace(text.charAt(i))) {
+			i++;
+		}
+
+		return new Result(contentStart, contentEnd, i);
+	}
+
+	@Override
+	public @Nullable String extractExisting(@NotNull CharSequence source, @NotNull Result result) {
+		if (!result.hasExisting()) {
+			return null;
+		}
+
+		return source.subSequence(result.contentStart(), result.contentEnd()).toString().stripIndent().strip();
+	}
+
+	@Override
+	public @NotNull String getLicenseComment(@NotNull String[] lines, @NotNull String lineSeparator) {
+		var builder = new StringBuilder();
+
+		builder.append(COMMENT_START).append(lineSeparator);
+		for (var line : lines) {
+			if (!line.isEmpty()) {
+				builder.append(LINE_PREFIX).append(line);
+			}
+
+			builder.append(lineSeparator);
+		}
+
+		builder.append(COMMENT_END).append(lineSeparator).append(lineSeparator);
+
+		return builder.toString();
+	}
+}
@@ -17,67 +17,31 @@
 package org.quiltmc.gradle.licenser.api.util;
 
 import org.eclipse.jgit.api.Git;
-import org.eclipse.jgit.api.errors.GitAPIException;
-import org.eclipse.jgit.diff.DiffEntry;
-import org.eclipse.jgit.diff.DiffFormatter;
-import org.eclipse.jgit.lib.*;
+import org.eclipse.jgit.internal.storage.commitgraph.CommitGraph;
 import org.eclipse.jgit.revwalk.RevCommit;
-import org.eclipse.jgit.revwalk.RevTree;
-import org.eclipse.jgit.revwalk.RevWalk;
-import org.eclipse.jgit.treewalk.AbstractTreeIterator;
-import org.eclipse.jgit.treewalk.CanonicalTreeParser;
-import org.eclipse.jgit.treewalk.FileTreeIterator;
 import org.gradle.api.GradleException;
 import org.gradle.api.Project;
 import org.jetbrains.annotations.Nullable;
+import org.quiltmc.gradle.licenser.api.license.ModificationYearLookup;
+import org.quiltmc.gradle.licenser.QuiltLicenserGradlePlugin;
+import org.quiltmc.gradle.licenser.extension.QuiltLicenserGradleExtension;
+import org.quiltmc.gradle.licenser.impl.GitCreationYears;
+import org.quiltmc.gradle.licenser.impl.GitYearCache;
+import org.quiltmc.gradle.licenser.impl.GitYearResolver;
+import org.quiltmc.gradle.licenser.impl.LicenseYearManifest;
+import org.quiltmc.gradle.licenser.impl.LicenserGitService;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Path;
-import java.util.*;
+import java.util.OptionalInt;
 
 public final class GitUtils {
 	private GitUtils() {
 		throw new UnsupportedOperationException("GitUtils only contains static definitions.");
 	}
 
-	private static String standardizePath(Path path) {
-		var pathStr = path.toString();
-
-		if (!File.separator.equals("/")) {
-			pathStr = pathStr.replace(File.separator, "/");
-		}
-
-		return pathStr;
-	}
-
-	private static Git openGit(Project project) throws IOException {
-		return Git.open(project.getRootProject().getProjectDir());
-	}
-
-	private static Path getRepoRoot(Git git) {
-		return git.getRepository().getDirectory().toPath().getParent();
-	}
-
-	private static @Nullable AbstractTreeIterator prepareTreeParser(Repository repository, String ref) throws IOException {
-		Ref head = repository.getRefDatabase().findRef(ref);
-
-		if (head.getObjectId() == null) {
-			return null;
-		}
-
-		var walk = new RevWalk(repository);
-		RevCommit commit = walk.parseCommit(head.getObjectId());
-		RevTree tree = walk.parseTree(commit.getTree().getId());
-		var oldTreeParser = new CanonicalTreeParser();
-
-		try (ObjectReader oldReader = repository.newObjectReader()) {
-			oldTreeParser.reset(oldReader, tree.getId());
-		}
-
-		return oldTreeParser;
-	}
-
 	/**
 	 * Gets the latest commit hash of a file.
 	 *
@@ -85,28 +49,24 @@ public final class GitUtils {
 	 * @param path the file
 	 */
 	public static @Nullable RevCommit getLatestCommit(Git git, Path path) {
-		try {
-			var pathStr = standardizePath(path);
-
-			var log = git.log();
-
-			if (!pathStr.isEmpty()) {
-				log.addPath(pathStr);
-			}
-
-			Iterator<RevCommit> iterator = log
-					.setMaxCount(1)
-					.call()
-					.iterator();
-
-			// No commits exist - you will need to create a commit to have a hash
-			if (!iterator.hasNext()) {
-				return null;
-			}
+		return getLatestCommit(git, path, ModificationYearLookup.UNBOUNDED);
+	}
 
-			// We only care about the last commit
-			return iterator.next();
-		} catch (GitAPIException e) {
+	/**
+	 * Gets the latest commit of a file which got committed since the given year.
+	 * <p>
+	 * The history walk stops at January 1st of {@code sinceYear},
+	 * which avoids walking the entire history for files which have not been touched in a long time.
+	 *
+	 * @param git the git instance
+	 * @param path the file
+	 * @param sinceYear the year before which commits are ignored, or {@link ModificationYearLookup#UNBOUNDED}
+	 * @return the latest commit, or {@code null} if the file has not been committed since the given year
+	 */
+	public static @Nullable RevCommit getLatestCommit(Git git, Path path, int sinceYear) {
+		try {
+			return GitYearResolver.getLatestCommit(git, path, sinceYear);
+		} catch (IOException e) {
 			throw new GradleException(
 					String.format("Failed to get commit hash of last commit of path %s", path),
 					e
@@ -114,50 +74,90 @@ public final class GitUtils {
 		}
 	}
 
-	private static int getLatestCommitYear(Git git, Path path) {
-		RevCommit latestCommit = getLatestCommit(git, path);
+	public static int getModificationYear(Project project, Path path) {
+		return getModificationYear(project, path, ModificationYearLookup.UNBOUNDED)
+				.orElseGet(() -> getCurrentYear(project));
+	}
 
-		if (latestCommit != null) {
-			PersonIdent authorIdent = latestCommit.getAuthorIdent();
-			Date authorDate = authorIdent.getWhen();
-			TimeZone authorTimeZone = authorIdent.getTimeZone();
+	/**
+	 * Gets the last modification year of the given path, ignoring modifications older than the given year.
+	 *
+	 * @param project the project the path is in
+	 * @param path the path
+	 * @param sinceYear the year before which modifications are ignored, or {@link ModificationYearLookup#UNBOUNDED}
+	 * @return the last modification year, or an empty value if the path has not been modified since the given year
+	 */
+	public static OptionalInt getModificationYear(Project project, Path path, int sinceYear) {
+		var service = LicenserGitService.get(project);
+		LicenseYearManifest yearManifest = getYearManifest(project, service);
 
-			var calendar = Calendar.getInstance(authorTimeZone);
-			calendar.setTime(authorDate);
-			return calendar.get(Calendar.YEAR);
+		if (yearManifest != null) {
+			return yearManifest.getModificationYear(path, sinceYear, service.getCurrentYear());
 		}
 
-		return Calendar.getInstance().get(Calendar.YEAR);
+		Git git = service.getGit();
+		GitYearCache yearCache = git == null ? null : service.getYearCache();
+		// The commit-graph is only needed to walk the history of the path, if the year cache is unavailable.
+		CommitGraph commitGraph = git == null || yearCache != null ? null : service.getCommitGraph();
+
+		return GitYearResolver.getModificationYear(git, yearCache, commitGraph, path, sinceYear, service.getCurrentYear());
 	}
 
-	public static int getModificationYear(Project project, Path path) {
-		try (var git = openGit(project)) {
-			Path repoRoot = getRepoRoot(git);
-			path = repoRoot.relativize(path);
-			var pathString = standardizePath(path);
+	/**
+	 * Gets the creation year of the given file, which is the year of the commit which added it, following renames.
+	 *
+	 * @param project the project the file is in
+	 * @param path the path of the file
+	 * @return the creation year, or the current year if the file has not been committed yet
+	 * @since 2.1.0
+	 */
+	public static int getCreationYear(Project project, Path path) {
+		var service = LicenserGitService.get(project);
+		LicenseYearManifest yearManifest = getYearManifest(project, service);
+
+		if (yearManifest != null) {
+			return yearManifest.getCreationYear(path, service.getCurrentYear());
+		}
 
-			var formatter = new DiffFormatter(System.out);
-			formatter.setRepository(git.getRepository());
-			AbstractTreeIterator commitTreeIterator = prepareTreeParser(git.getRepository(), Constants.HEAD);
+		Git git = service.getGit();
+		GitCreationYears creationYears = git == null ? null : service.getCreationYears();
 
-			if (commitTreeIterator == null) {
-				return getLatestCommitYear(git, path);
-			}
+		return GitYearResolver.getCreationYear(git, creationYears, path, service.getCurrentYear());
+	}
+
+	/**
+	 * {@return the current year, read from the clock configured for the build}
+	 *
+	 * @param project the project requesting the current year
+	 * @since 2.1.0
+	 */
+	public static int getCurrentYear(Project project) {
+		return LicenserGitService.get(project).getCurrentYear();
+	}
+
+	/**
+	 * {@return the year manifest configured for the given project, or {@code null} if years are read from git}
+	 * <p>
+	 * The {@value QuiltLicenserGradlePlugin#YEAR_MANIFEST_PROPERTY} project property is used if the extension does not configure any.
+	 */
+	private static @Nullable LicenseYearManifest getYearManifest(Project project, LicenserGitService service) {
+		var extension = project.getExtensions().findByType(QuiltLicenserGradleExtension.class);
+		File file = extension == null ? null : extension.getYearManifest();
 
-			var workTreeIterator = new FileTreeIterator(git.getRepository());
-			List<DiffEntry> diffEntries = formatter.scan(commitTreeIterator, workTreeIterator);
+		if (file == null) {
+			Object property = project.findProperty(QuiltLicenserGradlePlugin.YEAR_MANIFEST_PROPERTY);
 
-			for (var entry : diffEntries) {
-				if (entry.getNewPath().equals(pathString)) {
-					return Calendar.getInstance().get(Calendar.YEAR);
-				}
+			if (property == null) {
+				return null;
 			}
 
-			return getLatestCommitYear(git, path);
-		} catch (IOException | GradleException e) {
-			// ignored
+			file = project.file(property);
 		}
 
-		return Calendar.getInstance().get(Calendar.YEAR);
+		try {
+			return service.getYearManifest(file.toPath(), project.getProjectDir().toPath());
+		} catch (UncheckedIOException | IllegalStateException e) {
+			throw new GradleException(e.getMessage(), e);
+		}
 	}
 }
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2022-2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.quiltmc.gradle.licenser.api.util;
+
+import org.gradle.api.Project;
+import org.quiltmc.gradle.licenser.api.license.LicenseContext;
+import org.quiltmc.gradle.licenser.api.license.LicenseHeader;
+import org.quiltmc.gradle.licenser.api.license.LicenseRule;
+import org.quiltmc.gradle.licenser.api.license.LicenseYearSelectionMode;
+import org.quiltmc.gradle.licenser.api.license.ModificationYearLookup;
+import org.quiltmc.gradle.licenser.impl.GradleLicenseContext;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.OptionalInt;
+
+/**
+ * Provides the Gradle project based entry points of the licensing engine, which itself doesn't depend on Gradle.
+ *
+ * @version 2.1.0
+ * @since 2.1.0
+ */
+public final class GradleLicenseUtils {
+	private GradleLicenseUtils() {
+		throw new UnsupportedOperationException("GradleLicenseUtils only contains static definitions.");
+	}
+
+	/**
+	 * Creates the license context of a project, which reads the years from the git state shared by the build.
+	 *
+	 * @param project the project
+	 * @param rootPath the root path of the project, against which backups are resolved
+	 * @return the license context
+	 */
+	public static LicenseContext getLicenseContext(Project project, Path rootPath) {
+		return new GradleLicenseContext(project, rootPath);
+	}
+
+	/**
+	 * Formats the given file to contain the correct license header.
+	 *
+	 * @param header the license header
+	 * @param project the project the file is in
+	 * @param rootPath the root path of the project
+	 * @param path the path of the file
+	 * @return {@code true} if files changed, otherwise {@code false}
+	 * @see LicenseHeader#format(LicenseContext, Path)
+	 */
+	public static boolean format(LicenseHeader header, Project project, Path rootPath, Path path) {
+		return header.format(getLicenseContext(project, rootPath), path);
+	}
+
+	/**
+	 * Formats the given file to contain the correct license header of the given rule.
+	 *
+	 * @param rule the license rule
+	 * @param project the project the file is in
+	 * @param rootPath the root path of the project
+	 * @param path the path of the file
+	 * @return {@code true} if the file changed, otherwise {@code false}
+	 */
+	public static boolean formatFile(LicenseRule rule, Project project, Path rootPath, Path path) {
+		return formatFile(rule, project, rootPath, path, Map.of());
+	}
+
+	/**
+	 * Formats the given file to contain the correct license header of the given rule.
+	 *
+	 * @param rule the license rule
+	 * @param project the project the file is in
+	 * @param rootPath the root path of the project
+	 * @param path the path of the file
+	 * @param variables the custom variables of the license header
+	 * @return {@code true} if the file changed, otherwise {@code false}
+	 * @see LicenseRule#formatFile(LicenseContext, Path, Map)
+	 */
+	public static boolean formatFile(LicenseRule rule, Project project, Path rootPath, Path path, Map<String, String> variables) {
+		return rule.formatFile(getLicenseContext(project, rootPath), path, variables);
+	}
+
+	/**
+	 * Gets the last modification year in which the file got modified, following the given selection mode.
+	 *
+	 * @param mode the year selection mode
+	 * @param project the project the file is in
+	 * @param path the path to the file
+	 * @return the last modification year, or the current year if the file has not been committed yet
+	 */
+	public static int getModificationYear(LicenseYearSelectionMode mode, Project project, Path path) {
+		return getModificationYear(mode, project, path, ModificationYearLookup.UNBOUNDED)
+				.orElseGet(() -> GitUtils.getCurrentYear(project));
+	}
+
+	/**
+	 * Gets the last modification year in which the file got modified following the given selection mode,
+	 * ignoring modifications older than the given year.
+	 *
+	 * @param mode the year selection mode
+	 * @param project the project the file is in
+	 * @param path the path to the file
+	 * @param sinceYear the year before which modifications are ignored, or {@link ModificationYearLookup#UNBOUNDED}
+	 * @return the last modification year, or an empty value if the file has not been modified since the given year
+	 * @see LicenseYearSelectionMode#getModificationYear(LicenseContext, Path, int)
+	 */
+	public static OptionalInt getModificationYear(LicenseYearSelectionMode mode, Project project, Path path, int sinceYear) {
+		return mode.getModificationYear(getLicenseContext(project, project.getProjectDir().toPath()), path, sinceYear);
+	}
+}
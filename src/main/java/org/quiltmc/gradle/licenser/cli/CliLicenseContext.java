@@ -0,0 +1,224 @@
+/*
+ * Copyright 2022-2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.quiltmc.gradle.licenser.cli;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.internal.storage.commitgraph.CommitGraph;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+import org.quiltmc.gradle.licenser.api.license.LicenseContext;
+import org.quiltmc.gradle.licenser.impl.GitCommitGraph;
+import org.quiltmc.gradle.licenser.impl.GitCreationYears;
+import org.quiltmc.gradle.licenser.impl.GitYearCache;
+import org.quiltmc.gradle.licenser.impl.GitYearResolver;
+import org.quiltmc.gradle.licenser.impl.LicenseClock;
+import org.quiltmc.gradle.licenser.impl.LicenseUtils;
+import org.quiltmc.gradle.licenser.impl.LicenseYearManifest;
+import org.slf4j.helpers.MessageFormatter;
+import org.slf4j.helpers.NOPLogger;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.OptionalInt;
+
+/**
+ * Represents the license context of a project licensed from the command line.
+ * <p>
+ * The git repository, its year cache and the creation years are only loaded once they are needed,
+ * so checking headers does not pay for them.
+ */
+@ApiStatus.Internal
+final class CliLicenseContext implements LicenseContext, AutoCloseable {
+	private final Path projectDirectory;
+	private final Path buildDirectory;
+	private final boolean generateCommitGraph;
+	private final @Nullable LicenseYearManifest yearManifest;
+	private final LicenseClock clock;
+	private int currentYear;
+	private final boolean debug;
+	private final PrintStream out;
+	private final PrintStream err;
+	private @Nullable Git git;
+	private boolean gitOpened;
+	private @Nullable GitYearCache yearCache;
+	private boolean yearCacheLoaded;
+	private @Nullable CommitGraph commitGraph;
+	private boolean commitGraphLoaded;
+	private @Nullable GitCreationYears creationYears;
+	private boolean creationYearsLoaded;
+
+	/**
+	 * @param projectDirectory the project directory
+	 * @param buildDirectory the build directory, in which updated files are backed up
+	 * @param generateCommitGraph {@code true} to generate a commit-graph if the repository has none, or {@code false} otherwise
+	 * @param yearManifest the manifest to read the years from instead of the git history, or {@code null} to use git
+	 * @param clock the clock the current year is read from
+	 * @param debug {@code true} if debug messages should be printed, or {@code false} otherwise
+	 * @param out the stream debug messages are printed to
+	 * @param err the stream warnings are printed to
+	 */
+	CliLicenseContext(Path projectDirectory, Path buildDirectory, boolean generateCommitGraph,
+			@Nullable LicenseYearManifest yearManifest, LicenseClock clock, boolean debug, PrintStream out, PrintStream err) {
+		this.projectDirectory = projectDirectory;
+		this.buildDirectory = buildDirectory;
+		this.generateCommitGraph = generateCommitGraph;
+		this.yearManifest = yearManifest;
+		this.clock = clock;
+		this.debug = debug;
+		this.out = out;
+		this.err = err;
+	}
+
+	/**
+	 * {@return the git repository, or {@code null} if the project is not in a git repository}
+	 */
+	public @Nullable Git getGit() {
+		if (!this.gitOpened) {
+			this.gitOpened = true;
+			var repositoryBuilder = new FileRepositoryBuilder().findGitDir(this.projectDirectory.toFile());
+
+			if (repositoryBuilder.getGitDir() != null) {
+				try {
+					this.git = Git.open(repositoryBuilder.getGitDir());
+				} catch (IOException e) {
+					this.err.println("Failed to open the git repository, years will default to the current year: " + e.getMessage());
+				}
+			}
+		}
+
+		return this.git;
+	}
+
+	private @Nullable GitYearCache getYearCache() {
+		if (!this.yearCacheLoaded) {
+			this.yearCacheLoaded = true;
+			Git git = this.getGit();
+
+			if (git != null) {
+				try {
+					// Shares the year cache of the Gradle tasks, so both keep it warm.
+					this.yearCache = GitYearCache.load(git.getRepository(),
+							this.projectDirectory.resolve(".gradle/quilt-licenser/git-years.bin"), NOPLogger.NOP_LOGGER);
+				} catch (IOException | RuntimeException e) {
+					this.err.println("Failed to load the git year cache, falling back to per-file history walks: " + e.getMessage());
+				}
+			}
+		}
+
+		return this.yearCache;
+	}
+
+	private @Nullable CommitGraph getCommitGraph() {
+		if (!this.commitGraphLoaded) {
+			this.commitGraphLoaded = true;
+			Git git = this.getGit();
+
+			if (git != null) {
+				try {
+					this.commitGraph = GitCommitGraph.load(git.getRepository(), this.generateCommitGraph
+							? this.projectDirectory.resolve(".gradle/quilt-licenser/commit-graph")
+							: null, NOPLogger.NOP_LOGGER);
+				} catch (IOException | RuntimeException e) {
+					this.err.println("Failed to load the git commit-graph, history walks will diff every commit: " + e.getMessage());
+				}
+			}
+		}
+
+		return this.commitGraph;
+	}
+
+	private @Nullable GitCreationYears getCreationYears() {
+		if (!this.creationYearsLoaded) {
+			this.creationYearsLoaded = true;
+			Git git = this.getGit();
+
+			if (git != null) {
+				try {
+					this.creationYears = GitCreationYears.compute(git.getRepository(), NOPLogger.NOP_LOGGER);
+				} catch (IOException | RuntimeException e) {
+					this.err.println("Failed to compute the creation years of the files, falling back to the current year: " + e.getMessage());
+				}
+			}
+		}
+
+		return this.creationYears;
+	}
+
+	@Override
+	public Path getProjectDirectory() {
+		return this.projectDirectory;
+	}
+
+	@Override
+	public int getCurrentYear() {
+		if (this.currentYear == 0) {
+			this.currentYear = this.clock.getCurrentYear(() -> {
+				Git git = this.getGit();
+				return git == null ? null : git.getRepository();
+			});
+		}
+
+		return this.currentYear;
+	}
+
+	@Override
+	public OptionalInt getModificationYear(Path path, int sinceYear) {
+		if (this.yearManifest != null) {
+			return this.yearManifest.getModificationYear(path, sinceYear, this.getCurrentYear());
+		}
+
+		GitYearCache yearCache = this.getYearCache();
+		// The commit-graph is only needed to walk the history of the path, if the year cache is unavailable.
+		CommitGraph commitGraph = yearCache == null ? this.getCommitGraph() : null;
+
+		return GitYearResolver.getModificationYear(this.getGit(), yearCache, commitGraph, path, sinceYear, this.getCurrentYear());
+	}
+
+	@Override
+	public int getCreationYear(Path path) {
+		if (this.yearManifest != null) {
+			return this.yearManifest.getCreationYear(path, this.getCurrentYear());
+		}
+
+		return GitYearResolver.getCreationYear(this.getGit(), this.getCreationYears(), path, this.getCurrentYear());
+	}
+
+	@Override
+	public @Nullable Path getBackupPath(Path path) {
+		return LicenseUtils.getBackupPath(this.buildDirectory, this.projectDirectory, path);
+	}
+
+	@Override
+	public boolean isDebug() {
+		return this.debug;
+	}
+
+	@Override
+	public void debug(String message, Object... arguments) {
+		this.out.println(MessageFormatter.arrayFormat(message, arguments).getMessage());
+	}
+
+	@Override
+	public void close() {
+		if (this.git != null) {
+			this.git.close();
+		}
+	}
+}
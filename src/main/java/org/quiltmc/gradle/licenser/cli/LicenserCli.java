@@ -0,0 +1,379 @@
+/*
+ * Copyright 2022-2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.quiltmc.gradle.licenser.cli;
+
+import org.eclipse.jgit.api.Git;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+import org.quiltmc.gradle.licenser.api.license.LicenseContext;
+import org.quiltmc.gradle.licenser.api.license.LicenseHeader;
+import org.quiltmc.gradle.licenser.api.license.LicenseRule;
+import org.quiltmc.gradle.licenser.api.license.LicenseYearDisplayMode;
+import org.quiltmc.gradle.licenser.api.license.LicenseYearSelectionMode;
+import org.quiltmc.gradle.licenser.api.license.comment.LicenseCommentStyles;
+import org.quiltmc.gradle.licenser.impl.GitIgnoreRules;
+import org.quiltmc.gradle.licenser.impl.LicenseClock;
+import org.quiltmc.gradle.licenser.impl.LicenseUtils;
+import org.quiltmc.gradle.licenser.impl.LicenseYearManifest;
+import org.quiltmc.gradle.licenser.impl.SourceFileMatcher;
+import org.quiltmc.gradle.licenser.impl.SourceFileSniffer;
+import org.quiltmc.gradle.licenser.impl.SourceFileWalker;
+
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * The command line entry point of the licenser, which checks or applies license headers without starting Gradle.
+ * <p>
+ * It uses the same engine, default excludes and git year cache as the Gradle tasks,
+ * so it gives the same results while being fast enough for pre-commit and on-save hooks.
+ */
+@ApiStatus.Internal
+public final class LicenserCli {
+	public static final int EXIT_SUCCESS = 0;
+	public static final int EXIT_CHECK_FAILED = 1;
+	public static final int EXIT_USAGE = 2;
+
+	private static final String USAGE = """
+			Usage: licenser [--check | --apply] --header <file> [options] <paths...>
+
+			Paths may be files or directories, directories are walked recursively.
+
+			Options:
+			  --check                      Checks the license headers (default).
+			  --apply                      Updates the license headers.
+			  --header <file>              Adds a license header rule, may be repeated.
+			  --year-display <mode>        The default year display mode of the rules (default: creation_only).
+			  --year-selection <mode>      The default year selection mode of the rules (default: project).
+			  --variable <NAME>=<value>    Defines a header variable, may be repeated.
+			  --comment-style <style>=<extensions>
+			                               Uses a comment style (java, hash, slash, dash or xml) for the given
+			                               comma-separated file extensions, may be repeated.
+			  --license-marker <text>      Replaces a leading line or XML comment only if it matches a rule or contains
+			                               one of the markers, may be repeated (default: copyright and license).
+			  --include <pattern>          Only processes the files matching the pattern, may be repeated.
+			  --exclude <pattern>          Skips the files matching the pattern, may be repeated.
+			  --project-dir <dir>          The project directory (default: the working directory).
+			  --build-dir <dir>            The directory updated files are backed up to (default: <project-dir>/build).
+			  --max-file-size <bytes>      Skips files larger than the given size.
+			  --skip-git-ignored           Skips files ignored by git.
+			  --generate-commit-graph      Generates a commit-graph if the repository has none, to speed up history walks.
+			  --year-manifest <file>       Reads the years from a license year manifest instead of the git history.
+			  --strict-years               Also fails the check on license headers whose year is out of date.
+			  --clock <clock>              The source of the current year: system, source_date_epoch, head or a year (default: system).
+			  --debug                      Prints debug messages.""";
+
+	private LicenserCli() {
+		throw new UnsupportedOperationException("LicenserCli only contains static definitions.");
+	}
+
+	public static void main(String[] args) {
+		System.exit(run(args, System.out, System.err));
+	}
+
+	/**
+	 * Runs the licenser with the given command line arguments.
+	 *
+	 * @param args the command line arguments
+	 * @param out the stream to print progress to
+	 * @param err the stream to print errors to
+	 * @return the exit code
+	 */
+	public static int run(String[] args, PrintStream out, PrintStream err) {
+		Options options;
+
+		try {
+			options = Options.parse(args);
+		} catch (IllegalArgumentException e) {
+			err.println(e.getMessage());
+			err.println(USAGE);
+			return EXIT_USAGE;
+		}
+
+		if (options == null) {
+			out.println(USAGE);
+			return EXIT_SUCCESS;
+		}
+
+		var header = new LicenseHeader();
+
+		for (var headerPath : options.headers) {
+			if (!Files.isRegularFile(headerPath)) {
+				err.println("License header file " + headerPath + " does not exist.");
+				return EXIT_USAGE;
+			}
+
+			header.addRule(LicenseRule.fromFile(headerPath, options.yearDisplayMode, options.yearSelectionMode));
+		}
+
+		for (var variable : options.variables) {
+			int separator = variable.indexOf('=');
+			header.setVariable(variable.substring(0, separator), variable.substring(separator + 1));
+		}
+
+		if (!options.licenseMarkers.isEmpty()) {
+			header.setLicenseMarkers(options.licenseMarkers);
+		}
+
+		for (var commentStyle : options.commentStyles) {
+			int separator = commentStyle.indexOf('=');
+			header.getCommentStyles().register(LicenseCommentStyles.getNamedStyle(commentStyle.substring(0, separator)),
+					commentStyle.substring(separator + 1).split(","));
+		}
+
+		LicenseYearManifest yearManifest = null;
+
+		if (options.yearManifest != null) {
+			try {
+				yearManifest = LicenseYearManifest.read(options.yearManifest, options.projectDirectory);
+			} catch (UncheckedIOException | IllegalStateException e) {
+				err.println(e.getMessage());
+				return EXIT_USAGE;
+			}
+		}
+
+		try (var context = new CliLicenseContext(options.projectDirectory, options.buildDirectory,
+				options.generateCommitGraph, yearManifest, options.clock, options.debug, out, err)) {
+			List<Path> files = collectFiles(options, context);
+
+			return options.apply
+					? apply(header, context, files, out)
+					: check(header, options.strictYears ? context : null, files, out, err);
+		} catch (UncheckedIOException | IllegalStateException e) {
+			err.println(e.getMessage());
+			return EXIT_USAGE;
+		}
+	}
+
+	private static int check(LicenseHeader header, @Nullable LicenseContext yearContext, List<Path> files,
+			PrintStream out, PrintStream err) {
+		var failedChecks = new ArrayList<Path>();
+
+		for (var path : files) {
+			if (header.findViolation(yearContext, path) != null) {
+				failedChecks.add(path);
+			}
+		}
+
+		if (failedChecks.isEmpty()) {
+			out.printf("All license header checks passed (%d files).%n", files.size());
+			return EXIT_SUCCESS;
+		}
+
+		for (var failedPath : failedChecks) {
+			err.printf(" - %s - license checks have failed.%n", failedPath);
+		}
+
+		err.printf("License header checks have failed on %d out of %d files.%n", failedChecks.size(), files.size());
+		return EXIT_CHECK_FAILED;
+	}
+
+	private static int apply(LicenseHeader header, CliLicenseContext context, List<Path> files, PrintStream out) {
+		int updated = 0;
+
+		for (var path : files) {
+			if (header.format(context, path)) {
+				out.printf(" - Updated file %s%n", path);
+				updated++;
+			}
+		}
+
+		out.printf("Updated %d out of %d files.%n", updated, files.size());
+		return EXIT_SUCCESS;
+	}
+
+	private static List<Path> collectFiles(Options options, CliLicenseContext context) {
+		var excludes = new ArrayList<>(SourceFileMatcher.DEFAULT_EXCLUDES);
+		excludes.addAll(SourceFileMatcher.DEFAULT_LICENSE_EXCLUDES);
+		excludes.addAll(options.excludes);
+		SourceFileMatcher matcher = SourceFileMatcher.compile(options.includes, excludes);
+		Git git = options.skipGitIgnored ? context.getGit() : null;
+		GitIgnoreRules ignoreRules = git != null ? GitIgnoreRules.load(git.getRepository()) : null;
+		var sniffer = new SourceFileSniffer(options.maxFileSize);
+		var files = new LinkedHashSet<Path>();
+
+		for (var rawPath : options.paths) {
+			Path path = options.projectDirectory.resolve(rawPath).normalize();
+
+			if (Files.isDirectory(path)) {
+				SourceFileWalker.walk(path, List.of(matcher), ignoreRules, file -> addFile(file, sniffer, context, files));
+			} else if (Files.isRegularFile(path)) {
+				// Explicit files, such as the staged files given by a pre-commit hook, are filtered like the walked ones.
+				if (matcher.isSelected(LicenseUtils.getRelativePath(options.projectDirectory, path))
+						&& (ignoreRules == null || !ignoreRules.isIgnored(path, false))) {
+					addFile(path, sniffer, context, files);
+				}
+			} else if (context.isDebug()) {
+				context.debug("=> Skipped missing path {}.", path);
+			}
+		}
+
+		return new ArrayList<>(files);
+	}
+
+	private static void addFile(Path path, SourceFileSniffer sniffer, CliLicenseContext context, Set<Path> files) {
+		SourceFileSniffer.SkipReason skipReason = sniffer.sniff(path);
+
+		if (skipReason == null) {
+			files.add(path);
+		} else if (context.isDebug()) {
+			context.debug("=> Skipped file {} ({}).", path, skipReason.getDescription());
+		}
+	}
+
+	private static final class Options {
+		private boolean apply;
+		private final List<Path> headers = new ArrayList<>();
+		private LicenseYearDisplayMode yearDisplayMode = LicenseYearDisplayMode.CREATION_ONLY;
+		private LicenseYearSelectionMode yearSelectionMode = LicenseYearSelectionMode.PROJECT;
+		private final List<String> variables = new ArrayList<>();
+		private final List<String> commentStyles = new ArrayList<>();
+		private final List<String> licenseMarkers = new ArrayList<>();
+		private final List<String> includes = new ArrayList<>();
+		private final List<String> excludes = new ArrayList<>();
+		private Path projectDirectory = Path.of("").toAbsolutePath();
+		private @Nullable Path buildDirectory;
+		private long maxFileSize = Long.MAX_VALUE;
+		private boolean skipGitIgnored;
+		private boolean generateCommitGraph;
+		private @Nullable Path yearManifest;
+		private LicenseClock clock = LicenseClock.SYSTEM;
+		private boolean strictYears;
+		private boolean debug;
+		private final List<String> paths = new ArrayList<>();
+
+		/**
+		 * {@return the parsed options, or {@code null} if the usage was requested}
+		 *
+		 * @param args the command line arguments
+		 * @throws IllegalArgumentException if the arguments are invalid
+		 */
+		static @Nullable Options parse(String[] args) {
+			var options = new Options();
+
+			for (int i = 0; i < args.length; i++) {
+				String arg = args[i];
+
+				switch (arg) {
+					case "-h", "--help" -> {
+						return null;
+					}
+					case "--check" -> options.apply = false;
+					case "--apply" -> options.apply = true;
+					case "--header" -> options.headers.add(Path.of(value(args, ++i, arg)));
+					case "--year-display" -> options.yearDisplayMode = parseEnum(LicenseYearDisplayMode.values(), value(args, ++i, arg));
+					case "--year-selection" -> options.yearSelectionMode = parseEnum(LicenseYearSelectionMode.values(), value(args, ++i, arg));
+					case "--variable" -> {
+						String variable = value(args, ++i, arg);
+
+						if (variable.indexOf('=') <= 0) {
+							throw new IllegalArgumentException("Invalid variable " + variable + ", expected NAME=value.");
+						}
+
+						options.variables.add(variable);
+					}
+					case "--comment-style" -> {
+						String commentStyle = value(args, ++i, arg);
+						int separator = commentStyle.indexOf('=');
+
+						if (separator <= 0 || List.of(commentStyle.substring(separator + 1).split(",", -1)).contains("")
+								|| LicenseCommentStyles.getNamedStyle(commentStyle.substring(0, separator)) == null) {
+							throw new IllegalArgumentException("Invalid comment style " + commentStyle
+									+ ", expected <java|hash|slash|dash|xml>=<extensions>.");
+						}
+
+						options.commentStyles.add(commentStyle);
+					}
+					case "--license-marker" -> {
+						String marker = value(args, ++i, arg);
+
+						if (marker.isBlank()) {
+							throw new IllegalArgumentException("License markers cannot be blank.");
+						}
+
+						options.licenseMarkers.add(marker);
+					}
+					case "--include" -> options.includes.add(value(args, ++i, arg));
+					case "--exclude" -> options.excludes.add(value(args, ++i, arg));
+					case "--project-dir" -> options.projectDirectory = Path.of(value(args, ++i, arg)).toAbsolutePath().normalize();
+					case "--build-dir" -> options.buildDirectory = Path.of(value(args, ++i, arg)).toAbsolutePath().normalize();
+					case "--max-file-size" -> {
+						String value = value(args, ++i, arg);
+
+						try {
+							options.maxFileSize = Long.parseLong(value);
+						} catch (NumberFormatException e) {
+							throw new IllegalArgumentException("Invalid file size " + value + ".");
+						}
+					}
+					case "--skip-git-ignored" -> options.skipGitIgnored = true;
+					case "--generate-commit-graph" -> options.generateCommitGraph = true;
+					case "--strict-years" -> options.strictYears = true;
+					case "--clock" -> options.clock = LicenseClock.parse(value(args, ++i, arg));
+					case "--year-manifest" -> options.yearManifest = Path.of(value(args, ++i, arg)).toAbsolutePath().normalize();
+					case "--debug" -> options.debug = true;
+					default -> {
+						if (arg.startsWith("--")) {
+							throw new IllegalArgumentException("Unknown option " + arg + ".");
+						}
+
+						options.paths.add(arg);
+					}
+				}
+			}
+
+			if (options.headers.isEmpty()) {
+				throw new IllegalArgumentException("At least one license header must be given with --header.");
+			} else if (options.paths.isEmpty()) {
+				throw new IllegalArgumentException("No paths to license were given.");
+			}
+
+			if (options.buildDirectory == null) {
+				options.buildDirectory = options.projectDirectory.resolve("build");
+			}
+
+			return options;
+		}
+
+		private static String value(String[] args, int index, String option) {
+			if (index >= args.length) {
+				throw new IllegalArgumentException("Missing value for option " + option + ".");
+			}
+
+			return args[index];
+		}
+
+		private static <T extends Enum<T>> T parseEnum(T[] constants, String value) {
+			for (var constant : constants) {
+				if (constant.name().equalsIgnoreCase(value)) {
+					return constant;
+				}
+			}
+
+			throw new IllegalArgumentException("Invalid value " + value + ", expected one of "
+					+ List.of(constants).toString().toLowerCase(Locale.ROOT) + ".");
+		}
+	}
+}
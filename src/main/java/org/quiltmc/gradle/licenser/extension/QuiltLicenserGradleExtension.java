@@ -19,6 +19,7 @@ package org.quiltmc.gradle.licenser.extension;
 import groovy.lang.Closure;
 import groovy.lang.Delegate;
 import groovy.transform.PackageScope;
+import org.gradle.api.GradleException;
 import org.gradle.api.Project;
 import org.gradle.api.file.FileTreeElement;
 import org.gradle.api.model.ObjectFactory;
@@ -29,10 +30,19 @@ import org.gradle.api.tasks.SourceSet;
 import org.gradle.api.tasks.util.PatternFilterable;
 import org.gradle.api.tasks.util.PatternSet;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.quiltmc.gradle.licenser.api.license.LicenseHeader;
 import org.quiltmc.gradle.licenser.api.license.LicenseRule;
+import org.quiltmc.gradle.licenser.api.license.LicenseYearDisplayMode;
+import org.quiltmc.gradle.licenser.api.license.LicenseYearSelectionMode;
+import org.quiltmc.gradle.licenser.api.license.comment.LicenseComment;
+import org.quiltmc.gradle.licenser.api.license.comment.LicenseCommentStyles;
+import org.quiltmc.gradle.licenser.impl.LicenseClock;
+import org.quiltmc.gradle.licenser.impl.LicenseRuleCache;
+import org.quiltmc.gradle.licenser.impl.SourceFileMatcher;
 
 import javax.inject.Inject;
+import java.io.File;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.util.ArrayList;
@@ -58,38 +68,35 @@ public class QuiltLicenserGradleExtension implements PatternFilterable {
 
 	@PackageScope
 	final List<SourceSet> excludedSourceSets = new ArrayList<>();
+	@PackageScope
+	boolean aggregateSourceSets = false;
+	@PackageScope
+	long maxFileSize = Long.MAX_VALUE;
+	@PackageScope
+	boolean skipGitIgnoredFiles = false;
+	@PackageScope
+	boolean generateCommitGraph = false;
+	@PackageScope
+	@Nullable Boolean packedGitMmap;
+	@PackageScope
+	@Nullable Integer packedGitWindowSize;
+	@PackageScope
+	@Nullable Long packedGitLimit;
+	@PackageScope
+	@Nullable Integer deltaBaseCacheLimit;
+	@PackageScope
+	@Nullable File yearManifest;
+	@PackageScope
+	String clock = LicenseClock.SYSTEM.toString();
+	@PackageScope
+	boolean strictYearCheck = false;
 
 	@Inject
 	public QuiltLicenserGradleExtension(final ObjectFactory objects, final Project project) {
 		this.patternFilterable = new PatternSet();
 		this.textResources = project.getResources().getText();
 
-		this.exclude(
-				// Files without standard comment format.
-				"**/*.txt",
-				"**/*.json",
-				"**/*.md", // Supports HTML comments but would require modification of this plugin first
-
-				// Image files
-				"**/*.jpg",
-				"**/*.png",
-				"**/*.gif",
-				"**/*.bmp",
-				"**/*.ico",
-				"**/*.webp",
-				"**/*.qoi",
-
-				// Binary files
-				"**/*.zip",
-				"**/*.jar",
-				"**/*.tar",
-				"**/*.class",
-				"**/*.bin",
-
-				// Manifest
-				"**/MANIFEST.MF",
-				"**/META-INF/services/**"
-		);
+		this.exclude(SourceFileMatcher.DEFAULT_LICENSE_EXCLUDES);
 	}
 
 	/**
@@ -103,7 +110,8 @@ public class QuiltLicenserGradleExtension implements PatternFilterable {
 			return;
 		}
 
-		this.rule(new LicenseRule(this.textResources.fromFile(header, StandardCharsets.UTF_8.name()).asString()));
+		this.rule(LicenseRuleCache.get(this.textResources.fromFile(header, StandardCharsets.UTF_8.name()).asString(),
+				LicenseYearDisplayMode.CREATION_ONLY, LicenseYearSelectionMode.PROJECT));
 	}
 
 	/**
@@ -115,6 +123,64 @@ public class QuiltLicenserGradleExtension implements PatternFilterable {
 		this.header.addRule(rule);
 	}
 
+	/**
+	 * Defines a custom variable which can be used in license headers as {@code ${NAME}}.
+	 *
+	 * @param name the name of the variable
+	 * @param value the value of the variable
+	 * @since 2.1.0
+	 */
+	public void variable(String name, Object value) {
+		try {
+			this.header.setVariable(name, String.valueOf(value));
+		} catch (IllegalArgumentException e) {
+			throw new GradleException(e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Sets the comment style of the license headers of the files with the given extensions.
+	 * <p>
+	 * The built-in styles are {@code java} ({@code /* *}{@code /}), {@code hash} ({@code #}), {@code slash} ({@code //}),
+	 * {@code dash} ({@code --}) and {@code xml} ({@code <!-- -->}).
+	 *
+	 * @param style the name of a built-in style, or a {@link LicenseComment}
+	 * @param extensions the file extensions, without the leading dot
+	 * @since 2.1.0
+	 */
+	public void commentStyle(Object style, String... extensions) {
+		LicenseComment comment = style instanceof LicenseComment licenseComment
+				? licenseComment
+				: LicenseCommentStyles.getNamedStyle(String.valueOf(style));
+
+		if (comment == null) {
+			throw new GradleException(String.format("Unknown license comment style \"%s\".", style));
+		}
+
+		try {
+			this.header.getCommentStyles().register(comment, extensions);
+		} catch (IllegalArgumentException e) {
+			throw new GradleException(e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Sets the markers which tell a license comment apart from an unrelated leading comment, ignoring case.
+	 * <p>
+	 * With line and XML comments, a leading comment which neither matches a rule nor contains a marker
+	 * is kept, and the license header is inserted above it. The default markers are {@code copyright} and {@code license}.
+	 *
+	 * @param markers the license markers
+	 * @since 2.1.0
+	 */
+	public void licenseMarkers(String... markers) {
+		try {
+			this.header.setLicenseMarkers(List.of(markers));
+		} catch (IllegalArgumentException e) {
+			throw new GradleException(e.getMessage(), e);
+		}
+	}
+
 	public LicenseHeader getLicenseHeader() {
 		return this.header;
 	}
@@ -217,4 +283,259 @@ public class QuiltLicenserGradleExtension implements PatternFilterable {
 	public boolean isSourceSetExcluded(@NotNull SourceSet sourceSet) {
 		return this.excludedSourceSets.contains(sourceSet);
 	}
+
+	/**
+	 * Sets whether every non-excluded source set should be processed together by a single task.
+	 * <p>
+	 * When enabled, the {@code checkLicenses} and {@code applyLicenses} tasks run the aggregated tasks
+	 * instead of the tasks of each source set.
+	 *
+	 * @param aggregateSourceSets {@code true} to aggregate the source sets, or {@code false} otherwise
+	 * @since 2.1.0
+	 */
+	public void setAggregateSourceSets(boolean aggregateSourceSets) {
+		this.aggregateSourceSets = aggregateSourceSets;
+	}
+
+	/**
+	 * {@return {@code true} if every non-excluded source set is processed together by a single task, or {@code false} otherwise}
+	 *
+	 * @since 2.1.0
+	 */
+	public boolean isAggregateSourceSets() {
+		return this.aggregateSourceSets;
+	}
+
+	/**
+	 * Sets the maximum size of the files to process, larger files are skipped without being read.
+	 *
+	 * @param maxFileSize the maximum file size in bytes
+	 * @since 2.1.0
+	 */
+	public void setMaxFileSize(long maxFileSize) {
+		if (maxFileSize < 0) {
+			throw new GradleException(String.format("Invalid maximum file size %d, expected a positive size in bytes.", maxFileSize));
+		}
+
+		this.maxFileSize = maxFileSize;
+	}
+
+	/**
+	 * {@return the maximum size in bytes of the files to process}
+	 *
+	 * @since 2.1.0
+	 */
+	public long getMaxFileSize() {
+		return this.maxFileSize;
+	}
+
+	/**
+	 * Sets whether files ignored by git, such as generated sources, should be skipped.
+	 *
+	 * @param skipGitIgnoredFiles {@code true} to skip files ignored by git, or {@code false} otherwise
+	 * @since 2.1.0
+	 */
+	public void setSkipGitIgnoredFiles(boolean skipGitIgnoredFiles) {
+		this.skipGitIgnoredFiles = skipGitIgnoredFiles;
+	}
+
+	/**
+	 * {@return {@code true} if files ignored by git are skipped, or {@code false} otherwise}
+	 *
+	 * @since 2.1.0
+	 */
+	public boolean isSkipGitIgnoredFiles() {
+		return this.skipGitIgnoredFiles;
+	}
+
+	/**
+	 * Sets whether a commit-graph with changed-path Bloom filters should be generated if the repository has none.
+	 * <p>
+	 * The commit-graph is generated into the Gradle project cache directory, the repository itself is left untouched.
+	 * It speeds up the history walks done when the git year cache is unavailable.
+	 * The commit-graph is shared by the whole build, and generated if any project enables it.
+	 *
+	 * @param generateCommitGraph {@code true} to generate a commit-graph, or {@code false} otherwise
+	 * @since 2.1.0
+	 */
+	public void setGenerateCommitGraph(boolean generateCommitGraph) {
+		this.generateCommitGraph = generateCommitGraph;
+	}
+
+	/**
+	 * {@return {@code true} if a commit-graph is generated if the repository has none, or {@code false} otherwise}
+	 *
+	 * @since 2.1.0
+	 */
+	public boolean isGenerateCommitGraph() {
+		return this.generateCommitGraph;
+	}
+
+	/**
+	 * Sets whether git packs should be memory-mapped instead of being read into heap windows.
+	 * <p>
+	 * The JGit caches are global to the JVM, so this setting and the other git cache settings apply to the whole build.
+	 * They should be set from the root project, if projects set different values the one closest to the root is used.
+	 *
+	 * @param packedGitMmap {@code true} to memory-map packs, or {@code false} otherwise
+	 * @since 2.1.0
+	 */
+	public void setPackedGitMmap(boolean packedGitMmap) {
+		this.packedGitMmap = packedGitMmap;
+	}
+
+	/**
+	 * {@return whether git packs are memory-mapped, or {@code null} if the JGit default is kept}
+	 *
+	 * @since 2.1.0
+	 */
+	public @Nullable Boolean getPackedGitMmap() {
+		return this.packedGitMmap;
+	}
+
+	/**
+	 * Sets the size of the windows through which git packs are read.
+	 *
+	 * @param packedGitWindowSize the window size in bytes, a power of 2
+	 * @since 2.1.0
+	 */
+	public void setPackedGitWindowSize(int packedGitWindowSize) {
+		if (packedGitWindowSize <= 0 || Integer.bitCount(packedGitWindowSize) != 1) {
+			throw new GradleException(String.format("Invalid git pack window size %d, expected a power of 2 in bytes.", packedGitWindowSize));
+		}
+
+		this.packedGitWindowSize = packedGitWindowSize;
+	}
+
+	/**
+	 * {@return the size in bytes of the windows through which git packs are read, or {@code null} if the JGit default is kept}
+	 *
+	 * @since 2.1.0
+	 */
+	public @Nullable Integer getPackedGitWindowSize() {
+		return this.packedGitWindowSize;
+	}
+
+	/**
+	 * Sets the total size of the git pack windows kept in memory.
+	 *
+	 * @param packedGitLimit the limit in bytes
+	 * @since 2.1.0
+	 */
+	public void setPackedGitLimit(long packedGitLimit) {
+		if (packedGitLimit <= 0) {
+			throw new GradleException(String.format("Invalid git pack limit %d, expected a positive size in bytes.", packedGitLimit));
+		}
+
+		this.packedGitLimit = packedGitLimit;
+	}
+
+	/**
+	 * {@return the total size in bytes of the git pack windows kept in memory, or {@code null} if the JGit default is kept}
+	 *
+	 * @since 2.1.0
+	 */
+	public @Nullable Long getPackedGitLimit() {
+		return this.packedGitLimit;
+	}
+
+	/**
+	 * Sets the size of the cache of delta bases, which avoids inflating the same objects repeatedly during history walks.
+	 *
+	 * @param deltaBaseCacheLimit the limit in bytes
+	 * @since 2.1.0
+	 */
+	public void setDeltaBaseCacheLimit(int deltaBaseCacheLimit) {
+		if (deltaBaseCacheLimit <= 0) {
+			throw new GradleException(String.format("Invalid git delta base cache limit %d, expected a positive size in bytes.", deltaBaseCacheLimit));
+		}
+
+		this.deltaBaseCacheLimit = deltaBaseCacheLimit;
+	}
+
+	/**
+	 * {@return the size in bytes of the cache of delta bases, or {@code null} if the JGit default is kept}
+	 *
+	 * @since 2.1.0
+	 */
+	public @Nullable Integer getDeltaBaseCacheLimit() {
+		return this.deltaBaseCacheLimit;
+	}
+
+	/**
+	 * Sets the license year manifest to read the years of the files from, instead of the git history.
+	 * <p>
+	 * The manifest is exported from a full clone by the {@code exportLicenseYears} task,
+	 * which gives correct years to shallow clones and builds without git.
+	 *
+	 * @param yearManifest the manifest file, or {@code null} to read the years from git
+	 * @since 2.1.0
+	 */
+	public void setYearManifest(@Nullable File yearManifest) {
+		this.yearManifest = yearManifest;
+	}
+
+	/**
+	 * {@return the license year manifest the years of the files are read from, or {@code null} if they are read from git}
+	 *
+	 * @since 2.1.0
+	 */
+	public @Nullable File getYearManifest() {
+		return this.yearManifest;
+	}
+
+	/**
+	 * Sets the clock the current year is read from, which is the year of the files modified but not committed yet.
+	 * <p>
+	 * Available clocks are:
+	 * <ul>
+	 *     <li>{@code system}, the system clock;</li>
+	 *     <li>{@code source_date_epoch}, the {@code SOURCE_DATE_EPOCH} environment variable, or the system clock if it is unset;</li>
+	 *     <li>{@code head}, the commit time of {@code HEAD};</li>
+	 *     <li>a year, such as {@code 2024}, for a fixed clock.</li>
+	 * </ul>
+	 * Every clock except the system one gives the same results on every machine.
+	 * <p>
+	 * The current year is resolved once for the whole build, so every project applying the plugin must use the same clock.
+	 *
+	 * @param clock the clock
+	 * @since 2.1.0
+	 */
+	public void setClock(String clock) {
+		try {
+			this.clock = LicenseClock.parse(clock).toString();
+		} catch (IllegalArgumentException e) {
+			throw new GradleException(e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * {@return the clock the current year is read from}
+	 *
+	 * @since 2.1.0
+	 */
+	public String getClock() {
+		return this.clock;
+	}
+
+	/**
+	 * Sets whether the license checks should also fail on license headers whose year is out of date.
+	 * <p>
+	 * The expected year is the one the apply task would write, looked up from the git year cache or the year manifest.
+	 *
+	 * @param strictYearCheck {@code true} to check the years of the license headers, or {@code false} otherwise
+	 * @since 2.1.0
+	 */
+	public void setStrictYearCheck(boolean strictYearCheck) {
+		this.strictYearCheck = strictYearCheck;
+	}
+
+	/**
+	 * {@return {@code true} if the license checks also fail on out of date years, or {@code false} otherwise}
+	 *
+	 * @since 2.1.0
+	 */
+	public boolean isStrictYearCheck() {
+		return this.strictYearCheck;
+	}
 }
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2022-2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.quiltmc.gradle.licenser.impl;
+
+import org.eclipse.jgit.storage.file.WindowCacheConfig;
+import org.eclipse.jgit.storage.file.WindowCacheStats;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Represents the settings of the JGit caches used to read packed objects.
+ * <p>
+ * JGit defaults are tuned for small repositories, long history walks on large repositories thrash the caches.
+ * The caches are global to the JVM, so they are only reconfigured if the settings change, which also flushes them.
+ *
+ * @param packedGitMmap whether packs should be memory-mapped, or {@code null} to keep the default
+ * @param packedGitWindowSize the size in bytes of the pack windows, or {@code null} to keep the default
+ * @param packedGitLimit the total size in bytes of the pack windows kept in memory, or {@code null} to keep the default
+ * @param deltaBaseCacheLimit the size in bytes of the delta base cache, or {@code null} to keep the default
+ */
+@ApiStatus.Internal
+public record GitCacheSettings(
+		@Nullable Boolean packedGitMmap, @Nullable Integer packedGitWindowSize, @Nullable Long packedGitLimit,
+		@Nullable Integer deltaBaseCacheLimit
+) {
+	public static final GitCacheSettings DEFAULT = new GitCacheSettings(null, null, null, null);
+
+	private static GitCacheSettings installed = DEFAULT;
+
+	/**
+	 * Installs these settings as the JGit cache configuration, unless they are already installed.
+	 * <p>
+	 * The cache statistics are reset, so they only cover the accesses made after this call.
+	 */
+	public void install() {
+		synchronized (GitCacheSettings.class) {
+			if (!this.equals(installed)) {
+				this.toConfig().install();
+				installed = this;
+			}
+
+			WindowCacheStats.getStats().resetCounters();
+		}
+	}
+
+	/**
+	 * {@return the JGit cache configuration of these settings, with the JGit defaults for the settings left unset}
+	 */
+	public WindowCacheConfig toConfig() {
+		var config = new WindowCacheConfig();
+
+		if (this.packedGitMmap != null) {
+			config.setPackedGitMMAP(this.packedGitMmap);
+		}
+
+		if (this.packedGitWindowSize != null) {
+			config.setPackedGitWindowSize(this.packedGitWindowSize);
+		}
+
+		if (this.packedGitLimit != null) {
+			config.setPackedGitLimit(this.packedGitLimit);
+		}
+
+		if (this.deltaBaseCacheLimit != null) {
+			config.setDeltaBaseCacheLimit(this.deltaBaseCacheLimit);
+		}
+
+		return config;
+	}
+
+	/**
+	 * {@return the settings last installed as the JGit cache configuration}
+	 */
+	public static GitCacheSettings getInstalled() {
+		synchronized (GitCacheSettings.class) {
+			return installed;
+		}
+	}
+
+	/**
+	 * {@return a human-readable summary of the JGit pack window cache statistics}
+	 */
+	public static String describeStatistics() {
+		WindowCacheStats stats = WindowCacheStats.getStats();
+
+		return String.format("%.1f%% hit ratio (%d hits, %d misses), %d evictions, %.1f ms average load time, %d open files, %d open bytes",
+				stats.getHitRatio() * 100, stats.getHitCount(), stats.getMissCount(), stats.getEvictionCount(),
+				stats.getAverageLoadTime() / 1e6, stats.getOpenFileCount(), stats.getOpenByteCount()
+		);
+	}
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2022-2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.quiltmc.gradle.licenser.impl;
+
+import org.eclipse.jgit.errors.IncorrectObjectTypeException;
+import org.eclipse.jgit.internal.storage.commitgraph.CommitGraph;
+import org.eclipse.jgit.internal.storage.commitgraph.CommitGraphLoader;
+import org.eclipse.jgit.internal.storage.commitgraph.CommitGraphWriter;
+import org.eclipse.jgit.internal.storage.commitgraph.GraphCommits;
+import org.eclipse.jgit.internal.storage.file.ObjectDirectory;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.NullProgressMonitor;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Loads the commit-graph of a repository, so path-limited history walks can use its changed-path Bloom filters.
+ * <p>
+ * With a commit-graph, commits are parsed from the graph instead of being inflated,
+ * and the Bloom filters tell which commits cannot have touched a path, skipping their tree diffs entirely.
+ * <p>
+ * The commit-graph maintained by git in the repository is used if present.
+ * Otherwise, a commit-graph can be generated into a licenser-private file, leaving the repository untouched.
+ * <p>
+ * The commit-graph support of JGit is internal API, so another JGit version on the class path may break it.
+ * The {@link LinkageError}s this causes are reported as {@link IOException}s, the history walks then go without commit-graph.
+ */
+@ApiStatus.Internal
+public final class GitCommitGraph {
+	private GitCommitGraph() {
+		throw new UnsupportedOperationException("GitCommitGraph only contains static definitions.");
+	}
+
+	/**
+	 * Loads the commit-graph of the given repository.
+	 *
+	 * @param repository the repository
+	 * @param privateFile the file to generate a commit-graph into if the repository has none, or {@code null} to not generate any
+	 * @param logger the logger
+	 * @return the commit-graph, or {@code null} if none is available
+	 * @throws IOException if the commit-graph could not be read or generated, or the JGit version is incompatible
+	 */
+	public static @Nullable CommitGraph load(Repository repository, @Nullable Path privateFile, Logger logger) throws IOException {
+		try {
+			return loadGraph(repository, privateFile, logger);
+		} catch (LinkageError e) {
+			throw new IOException("The JGit version on the class path does not support the commit-graph API in use.", e);
+		}
+	}
+
+	private static @Nullable CommitGraph loadGraph(Repository repository, @Nullable Path privateFile, Logger logger) throws IOException {
+		if (repository.getObjectDatabase() instanceof ObjectDirectory objectDirectory) {
+			Path repositoryFile = objectDirectory.getDirectory().toPath().resolve("info/commit-graph");
+
+			if (Files.isRegularFile(repositoryFile)) {
+				return read(repositoryFile);
+			}
+		}
+
+		if (privateFile == null) {
+			return null;
+		}
+
+		ObjectId head = repository.resolve(Constants.HEAD);
+
+		if (head == null) {
+			return null;
+		}
+
+		if (Files.isRegularFile(privateFile)) {
+			CommitGraph graph = read(privateFile);
+
+			// Commits missing from the graph are still walked normally, but the whole point is to cover the history.
+			if (graph.findGraphPosition(head) != -1) {
+				return graph;
+			}
+		}
+
+		logger.info("Generating commit-graph with changed-path Bloom filters into {}.", privateFile);
+		write(repository, privateFile);
+		return read(privateFile);
+	}
+
+	/**
+	 * Writes the commit-graph of every commit reachable from the branches and {@code HEAD}, along with their changed-path Bloom filters.
+	 *
+	 * @param repository the repository
+	 * @param file the file to write the commit-graph into
+	 * @throws IOException if the commit-graph could not be written
+	 */
+	public static void write(Repository repository, Path file) throws IOException {
+		try (var walk = new RevWalk(repository)) {
+			var wants = new HashSet<ObjectId>();
+
+			for (Ref ref : repository.getRefDatabase().getRefsByPrefix(Constants.R_HEADS)) {
+				addWant(walk, ref.getObjectId(), wants);
+			}
+
+			addWant(walk, repository.resolve(Constants.HEAD), wants);
+
+			if (wants.isEmpty()) {
+				return;
+			}
+
+			GraphCommits commits = GraphCommits.fromWalk(NullProgressMonitor.INSTANCE, wants, walk);
+			Files.createDirectories(file.getParent());
+			// Concurrent builds may generate the same commit-graph, each one needs its own temporary file.
+			Path tempFile = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+
+			try {
+				try (var out = new BufferedOutputStream(Files.newOutputStream(tempFile))) {
+					new CommitGraphWriter(commits, true).write(NullProgressMonitor.INSTANCE, out);
+				}
+
+				Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} finally {
+				Files.deleteIfExists(tempFile);
+			}
+		}
+	}
+
+	/**
+	 * {@return an object reader exposing the given commit-graph to the walks using it}
+	 *
+	 * @param reader the object reader
+	 * @param graph the commit-graph
+	 */
+	public static ObjectReader withCommitGraph(ObjectReader reader, CommitGraph graph) {
+		return new ObjectReader.Filter() {
+			@Override
+			protected ObjectReader delegate() {
+				return reader;
+			}
+
+			@Override
+			public Optional<CommitGraph> getCommitGraph() {
+				return Optional.of(graph);
+			}
+		};
+	}
+
+	private static CommitGraph read(Path file) throws IOException {
+		try (InputStream in = Files.newInputStream(file)) {
+			// The Bloom filters are only read if asked to explicitly, otherwise JGit defers to its global configuration.
+			return CommitGraphLoader.read(in, true);
+		}
+	}
+
+	private static void addWant(RevWalk walk, @Nullable ObjectId id, Set<ObjectId> wants) throws IOException {
+		if (id == null) {
+			return;
+		}
+
+		try {
+			wants.add(walk.parseCommit(id));
+		} catch (IncorrectObjectTypeException e) {
+			// Not a commit.
+		}
+	}
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2022-2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.gradle.licenser.impl;
+
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.diff.DiffFormatter;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevSort;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.util.io.DisabledOutputStream;
+import org.jetbrains.annotations.ApiStatus;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Represents the creation year of every file of a git repository, following renames.
+ * <p>
+ * The table is computed with a single pass over the first-parent history, from the oldest commit to {@code HEAD},
+ * diffing each commit against its parent with rename detection.
+ * An added file gets the year of the commit which added it, and a renamed file keeps the year of its previous path.
+ * Files added on a merged branch are attributed to the merge commit, as only the first-parent history is walked.
+ */
+@ApiStatus.Internal
+public final class GitCreationYears {
+	private final Map<String, Integer> years;
+
+	private GitCreationYears(Map<String, Integer> years) {
+		this.years = years;
+	}
+
+	/**
+	 * {@return the creation year of the given file, or an empty value if it does not exist at {@code HEAD}}
+	 *
+	 * @param path the path of the file relative to the repository root, using {@code /} as separator
+	 */
+	public OptionalInt getYear(String path) {
+		Integer year = this.years.get(path);
+		return year == null ? OptionalInt.empty() : OptionalInt.of(year);
+	}
+
+	/**
+	 * Visits the creation year of every file.
+	 *
+	 * @param action the action to run on each repository-relative path and its year
+	 */
+	public void forEachYear(ObjIntConsumer<String> action) {
+		this.years.forEach(action::accept);
+	}
+
+	/**
+	 * Computes the creation years of the files of the given repository.
+	 *
+	 * @param repository the repository
+	 * @param logger the logger
+	 * @return the creation years
+	 * @throws IOException if the history could not be walked
+	 */
+	public static GitCreationYears compute(Repository repository, Logger logger) throws IOException {
+		var years = new HashMap<String, Integer>();
+		ObjectId head = repository.resolve(Constants.HEAD);
+
+		if (head == null) {
+			return new GitCreationYears(years);
+		}
+
+		int walked = 0;
+
+		try (var walk = new RevWalk(repository);
+			 var formatter = new DiffFormatter(DisabledOutputStream.INSTANCE)) {
+			formatter.setRepository(repository);
+			formatter.setDetectRenames(true);
+
+			walk.setFirstParent(true);
+			walk.sort(RevSort.TOPO);
+			walk.sort(RevSort.REVERSE, true);
+			walk.markStart(walk.parseCommit(head));
+
+			for (RevCommit commit : walk) {
+				ObjectId parentTree = commit.getParentCount() == 0 ? null : walk.parseCommit(commit.getParent(0)).getTree();
+				record(formatter.scan(parentTree, commit.getTree()), getYear(commit), years);
+				walked++;
+			}
+		}
+
+		logger.info("Computed the creation year of {} files from {} commits.", years.size(), walked);
+		return new GitCreationYears(years);
+	}
+
+	private static void record(Iterable<DiffEntry> entries, int year, Map<String, Integer> years) {
+		for (var entry : entries) {
+			switch (entry.getChangeType()) {
+				case ADD, COPY -> years.put(entry.getNewPath(), year);
+				case DELETE -> years.remove(entry.getOldPath());
+				case RENAME -> {
+					Integer previousYear = years.remove(entry.getOldPath());
+					years.put(entry.getNewPath(), previousYear == null ? year : previousYear);
+				}
+				default -> {
+					// Modifications do not change the creation year.
+				}
+			}
+		}
+	}
+
+	private static int getYear(RevCommit commit) {
+		PersonIdent authorIdent = commit.getAuthorIdent();
+		var calendar = Calendar.getInstance(authorIdent.getTimeZone());
+		calendar.setTime(authorIdent.getWhen());
+		return calendar.get(Calendar.YEAR);
+	}
+}
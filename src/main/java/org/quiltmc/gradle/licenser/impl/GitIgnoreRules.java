@@ -0,0 +1,202 @@
+/*
+ * Copyright 2022-2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.gradle.licenser.impl;
+
+import org.eclipse.jgit.dircache.DirCache;
+import org.eclipse.jgit.ignore.IgnoreNode;
+import org.eclipse.jgit.lib.ConfigConstants;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.util.FS;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Represents the ignore rules of a git work tree.
+ * <p>
+ * The {@code .gitignore} file of each directory is parsed at most once, and the verdict of each directory is cached,
+ * so checking a file only costs lookups once its parent directory has been seen.
+ * <p>
+ * Like git itself, ignore rules don't apply to files tracked in the index, such as force-added files.
+ */
+@ApiStatus.Internal
+public final class GitIgnoreRules {
+	private static final IgnoreNode EMPTY = new IgnoreNode();
+
+	private final Path workTree;
+	private final IgnoreNode globalRules;
+	private final Map<Path, IgnoreNode> nodes = new ConcurrentHashMap<>();
+	private final Map<Path, Boolean> directoryVerdicts = new ConcurrentHashMap<>();
+	private final Set<String> trackedFiles;
+	private final Set<String> trackedDirectories;
+
+	private GitIgnoreRules(Path workTree, IgnoreNode globalRules, Set<String> trackedFiles, Set<String> trackedDirectories) {
+		this.workTree = workTree;
+		this.globalRules = globalRules;
+		this.trackedFiles = trackedFiles;
+		this.trackedDirectories = trackedDirectories;
+	}
+
+	/**
+	 * Loads the ignore rules of the given repository.
+	 * <p>
+	 * Along with the {@code .gitignore} files, the {@code info/exclude} file of the repository
+	 * and the {@code core.excludesFile} configured file are respected.
+	 *
+	 * @param repository the repository
+	 * @return the ignore rules
+	 */
+	public static GitIgnoreRules load(Repository repository) {
+		var globalRules = new IgnoreNode();
+		String excludesFile = repository.getConfig().getString(ConfigConstants.CONFIG_CORE_SECTION, null,
+				ConfigConstants.CONFIG_KEY_EXCLUDESFILE);
+
+		if (excludesFile != null) {
+			if (excludesFile.startsWith("~/")) {
+				excludesFile = new File(FS.DETECTED.userHome(), excludesFile.substring(2)).getPath();
+			}
+
+			parse(globalRules, Path.of(excludesFile));
+		}
+
+		parse(globalRules, repository.getDirectory().toPath().resolve("info").resolve("exclude"));
+
+		var trackedFiles = new HashSet<String>();
+		var trackedDirectories = new HashSet<String>();
+
+		try {
+			DirCache index = repository.readDirCache();
+
+			for (int i = 0; i < index.getEntryCount(); i++) {
+				String path = index.getEntry(i).getPathString();
+				trackedFiles.add(path);
+
+				// Every parent directory of a tracked file must be walked, the parents of a known directory are known too.
+				int separator = path.lastIndexOf('/');
+
+				while (separator != -1 && trackedDirectories.add(path.substring(0, separator))) {
+					separator = path.lastIndexOf('/', separator - 1);
+				}
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(String.format("Failed to read the git index of %s", repository.getDirectory()), e);
+		}
+
+		return new GitIgnoreRules(repository.getWorkTree().toPath().toAbsolutePath().normalize(), globalRules,
+				trackedFiles, trackedDirectories);
+	}
+
+	/**
+	 * {@return {@code true} if the given path is ignored by git, or {@code false} otherwise}
+	 * <p>
+	 * A path is ignored if it matches an ignore rule, or if any of its parent directories does,
+	 * unless it is tracked by git. A directory is only ignored if it contains no tracked file.
+	 * Paths outside the work tree are never ignored.
+	 *
+	 * @param path the path
+	 * @param directory {@code true} if the path is a directory, or {@code false} otherwise
+	 */
+	public boolean isIgnored(Path path, boolean directory) {
+		path = path.toAbsolutePath().normalize();
+
+		if (!path.startsWith(this.workTree) || path.equals(this.workTree)) {
+			return false;
+		}
+
+		String relativePath = LicenseUtils.getRelativePath(this.workTree, path);
+
+		if (directory) {
+			return this.isDirectoryIgnored(path) && !this.trackedDirectories.contains(relativePath);
+		} else if (this.trackedFiles.contains(relativePath)) {
+			return false;
+		}
+
+		Path parent = path.getParent();
+		return (!parent.equals(this.workTree) && this.isDirectoryIgnored(parent)) || this.matches(path, false);
+	}
+
+	private boolean isDirectoryIgnored(Path directory) {
+		Boolean verdict = this.directoryVerdicts.get(directory);
+
+		if (verdict == null) {
+			Path parent = directory.getParent();
+			verdict = (!parent.equals(this.workTree) && this.isDirectoryIgnored(parent)) || this.matches(directory, true);
+			this.directoryVerdicts.put(directory, verdict);
+		}
+
+		return verdict;
+	}
+
+	/**
+	 * Matches the path against the ignore rules, from the closest {@code .gitignore} file to the work tree root,
+	 * the first matching rule winning.
+	 */
+	private boolean matches(Path path, boolean directory) {
+		Path parent = path.getParent();
+
+		while (true) {
+			Boolean result = this.getNode(parent).checkIgnored(LicenseUtils.getRelativePath(parent, path), directory);
+
+			if (result != null) {
+				return result;
+			} else if (parent.equals(this.workTree)) {
+				break;
+			}
+
+			parent = parent.getParent();
+		}
+
+		Boolean result = this.globalRules.checkIgnored(LicenseUtils.getRelativePath(this.workTree, path), directory);
+		return result != null && result;
+	}
+
+	private IgnoreNode getNode(Path directory) {
+		return this.nodes.computeIfAbsent(directory, dir -> {
+			Path ignoreFile = dir.resolve(".gitignore");
+
+			if (!Files.isRegularFile(ignoreFile)) {
+				return EMPTY;
+			}
+
+			var node = new IgnoreNode();
+			parse(node, ignoreFile);
+			return node;
+		});
+	}
+
+	private static void parse(IgnoreNode node, Path file) {
+		if (!Files.isRegularFile(file)) {
+			return;
+		}
+
+		try (InputStream stream = Files.newInputStream(file)) {
+			node.parse(stream);
+		} catch (IOException e) {
+			throw new UncheckedIOException(String.format("Failed to read git ignore rules from %s", file), e);
+		}
+	}
+}
@@ -0,0 +1,357 @@
+/*
+ * Copyright 2022-2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.gradle.licenser.impl;
+
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.diff.DiffFormatter;
+import org.eclipse.jgit.errors.MissingObjectException;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevFlag;
+import org.eclipse.jgit.revwalk.RevSort;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.CanonicalTreeParser;
+import org.eclipse.jgit.treewalk.FileTreeIterator;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+import org.eclipse.jgit.util.io.DisabledOutputStream;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Represents the last commit year of every path of a git repository.
+ * <p>
+ * The cache is persisted on disk along with the {@code HEAD} commit it has been computed at.
+ * On load, only the commits between the cached {@code HEAD} and the current one are walked,
+ * unless the cached {@code HEAD} is not an ancestor anymore (rewritten history, force-push, etc.) in which case
+ * the whole history is walked again.
+ * <p>
+ * Directories are stored too, with the last commit year of any of their descendants.
+ * <p>
+ * Like {@code git log -- <path>}, the history of each path is simplified: if a merge commit keeps the version of a path
+ * from one of its parents, the commits only reachable through its other parents do not count for that path,
+ * as their changes have been discarded by the merge.
+ * The years already cached are kept by incremental updates, so a merge discarding changes of commits walked
+ * by a previous update can only be accounted for by rebuilding the cache.
+ */
+@ApiStatus.Internal
+public final class GitYearCache {
+	private static final int MAGIC = 0x51474c59; // QGLY
+	private static final int FORMAT_VERSION = 2;
+
+	private final @Nullable ObjectId head;
+	private final Map<String, Integer> years;
+	private final Set<String> dirtyPaths;
+
+	private GitYearCache(@Nullable ObjectId head, Map<String, Integer> years, Set<String> dirtyPaths) {
+		this.head = head;
+		this.years = years;
+		this.dirtyPaths = dirtyPaths;
+	}
+
+	/**
+	 * {@return {@code true} if nothing has been committed in the repository yet, or {@code false} otherwise}
+	 */
+	public boolean isUnborn() {
+		return this.head == null;
+	}
+
+	/**
+	 * {@return {@code true} if the given path has uncommitted changes, or {@code false} otherwise}
+	 *
+	 * @param path the repository-relative path, using {@code /} as separator
+	 */
+	public boolean isDirty(String path) {
+		return this.dirtyPaths.contains(path);
+	}
+
+	/**
+	 * {@return the year of the last commit which touched the given path, or an empty value if it has never been committed}
+	 *
+	 * @param path the repository-relative path, using {@code /} as separator, or an empty string for the whole repository
+	 */
+	public OptionalInt getYear(String path) {
+		Integer year = this.years.get(path);
+		return year == null ? OptionalInt.empty() : OptionalInt.of(year);
+	}
+
+	/**
+	 * Visits the last commit year of every path, including directories.
+	 *
+	 * @param action the action to run on each repository-relative path and its year
+	 */
+	public void forEachYear(ObjIntConsumer<String> action) {
+		this.years.forEach(action::accept);
+	}
+
+	/**
+	 * Loads the cache of the given repository, updating it to the current {@code HEAD} if needed.
+	 *
+	 * @param repository the repository
+	 * @param cacheFile the file the cache is persisted in
+	 * @param logger the logger
+	 * @return the up-to-date cache
+	 * @throws IOException if the repository cannot be read
+	 */
+	public static GitYearCache load(Repository repository, Path cacheFile, Logger logger) throws IOException {
+		ObjectId head = repository.resolve(Constants.HEAD);
+
+		if (head == null) {
+			return new GitYearCache(null, Map.of(), Set.of());
+		}
+
+		var years = new HashMap<String, Integer>();
+		ObjectId cachedHead = read(cacheFile, years, logger);
+
+		if (!head.equals(cachedHead)) {
+			try (var walk = new RevWalk(repository)) {
+				RevCommit headCommit = walk.parseCommit(head);
+				boolean incremental = cachedHead != null && isAncestor(walk, cachedHead, headCommit);
+
+				walk.reset();
+				// Children are walked before their parents, so the paths discarded by merges are known when reaching a commit.
+				walk.sort(RevSort.TOPO);
+				walk.markStart(headCommit);
+
+				if (incremental) {
+					walk.markUninteresting(walk.parseCommit(cachedHead));
+				} else {
+					if (cachedHead != null) {
+						logger.info("Cached git HEAD {} is not an ancestor of {}, rebuilding the year cache.", cachedHead.name(), head.name());
+					}
+
+					years.clear();
+				}
+
+				int walked = 0;
+
+				var discardedPaths = new HashMap<RevCommit, Set<String>>();
+
+				try (ObjectReader reader = repository.newObjectReader()) {
+					for (RevCommit commit : walk) {
+						record(walk, reader, commit, years, discardedPaths);
+						walked++;
+					}
+				}
+
+				logger.info("Updated the git year cache with {} commits.", walked);
+			}
+
+			write(cacheFile, head, years, logger);
+		}
+
+		return new GitYearCache(head, years, getDirtyPaths(repository, head));
+	}
+
+	private static boolean isAncestor(RevWalk walk, ObjectId ancestor, RevCommit commit) throws IOException {
+		try {
+			return walk.isMergedInto(walk.parseCommit(ancestor), commit);
+		} catch (MissingObjectException e) {
+			// The cached HEAD got garbage collected.
+			return false;
+		}
+	}
+
+	/**
+	 * Records the paths touched by the given commit.
+	 * <p>
+	 * Like {@code git log -- <path>}, a path touched by a merge commit only counts if it differs from every parent,
+	 * otherwise the change is attributed to the commit of the merged branch.
+	 * The merge only follows the first parent with the same version of such a path,
+	 * so the path is discarded from the history of its other parents.
+	 *
+	 * @param discardedPaths the paths discarded from the history of the commits not walked yet,
+	 * which only applies to a commit if they are discarded from the history of every child
+	 */
+	private static void record(RevWalk walk, ObjectReader reader, RevCommit commit, Map<String, Integer> years,
+			Map<RevCommit, Set<String>> discardedPaths) throws IOException {
+		int year = getYear(commit);
+		Set<String> discarded = discardedPaths.remove(commit);
+
+		if (discarded == null) {
+			discarded = Set.of();
+		}
+
+		RevCommit[] parents = commit.getParents();
+		@SuppressWarnings("unchecked")
+		Set<String>[] parentDiscarded = new Set[parents.length];
+
+		try (var treeWalk = new TreeWalk(reader)) {
+			treeWalk.setRecursive(true);
+			treeWalk.addTree(commit.getTree());
+
+			for (RevCommit parent : parents) {
+				treeWalk.addTree(walk.parseCommit(parent).getTree());
+			}
+
+			if (parents.length != 0) {
+				treeWalk.setFilter(TreeFilter.ANY_DIFF);
+			}
+
+			while (treeWalk.next()) {
+				int sameParent = -1;
+
+				for (int i = 1; i < treeWalk.getTreeCount(); i++) {
+					if (treeWalk.idEqual(0, i)) {
+						sameParent = i - 1;
+						break;
+					}
+				}
+
+				String path = treeWalk.getPathString();
+
+				if (sameParent == -1) {
+					if (!discarded.contains(path)) {
+						recordPath(path, year, years);
+					}
+				} else if (parents.length > 1) {
+					for (int i = 0; i < parents.length; i++) {
+						if (i != sameParent) {
+							if (parentDiscarded[i] == null) {
+								parentDiscarded[i] = new HashSet<>(discarded);
+							}
+
+							parentDiscarded[i].add(path);
+						}
+					}
+				}
+			}
+		}
+
+		for (int i = 0; i < parents.length; i++) {
+			if (!parents[i].has(RevFlag.UNINTERESTING)) {
+				discardedPaths.merge(parents[i], parentDiscarded[i] == null ? discarded : parentDiscarded[i], GitYearCache::intersect);
+			}
+		}
+	}
+
+	private static Set<String> intersect(Set<String> a, Set<String> b) {
+		if (a.isEmpty() || b.isEmpty()) {
+			return Set.of();
+		}
+
+		var intersection = new HashSet<>(a);
+		intersection.retainAll(b);
+		return intersection;
+	}
+
+	private static void recordPath(String path, int year, Map<String, Integer> years) {
+		years.merge(path, year, Math::max);
+
+		for (int i = path.lastIndexOf('/'); i != -1; i = path.lastIndexOf('/', i - 1)) {
+			years.merge(path.substring(0, i), year, Math::max);
+		}
+
+		years.merge("", year, Math::max);
+	}
+
+	private static int getYear(RevCommit commit) {
+		PersonIdent authorIdent = commit.getAuthorIdent();
+		var calendar = Calendar.getInstance(authorIdent.getTimeZone());
+		calendar.setTime(authorIdent.getWhen());
+		return calendar.get(Calendar.YEAR);
+	}
+
+	private static Set<String> getDirtyPaths(Repository repository, ObjectId head) throws IOException {
+		var dirtyPaths = new HashSet<String>();
+
+		try (var formatter = new DiffFormatter(DisabledOutputStream.INSTANCE);
+			 var walk = new RevWalk(repository);
+			 ObjectReader reader = repository.newObjectReader()) {
+			formatter.setRepository(repository);
+
+			var headTree = new CanonicalTreeParser();
+			headTree.reset(reader, walk.parseCommit(head).getTree());
+
+			for (DiffEntry entry : formatter.scan(headTree, new FileTreeIterator(repository))) {
+				dirtyPaths.add(entry.getNewPath());
+			}
+		}
+
+		return dirtyPaths;
+	}
+
+	private static @Nullable ObjectId read(Path cacheFile, Map<String, Integer> years, Logger logger) {
+		if (!Files.isRegularFile(cacheFile)) {
+			return null;
+		}
+
+		try (var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(cacheFile)))) {
+			if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+				return null;
+			}
+
+			ObjectId head = ObjectId.fromString(in.readUTF());
+			int size = in.readInt();
+
+			for (int i = 0; i < size; i++) {
+				years.put(in.readUTF(), (int) in.readShort());
+			}
+
+			return head;
+		} catch (IOException | IllegalArgumentException e) {
+			logger.info("Could not read the git year cache {}, rebuilding it.", cacheFile, e);
+			years.clear();
+			return null;
+		}
+	}
+
+	private static void write(Path cacheFile, ObjectId head, Map<String, Integer> years, Logger logger) {
+		try {
+			Files.createDirectories(cacheFile.getParent());
+			Path tempFile = Files.createTempFile(cacheFile.getParent(), cacheFile.getFileName().toString(), ".tmp");
+
+			try (var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+				out.writeInt(MAGIC);
+				out.writeInt(FORMAT_VERSION);
+				out.writeUTF(head.name());
+				out.writeInt(years.size());
+
+				for (var entry : years.entrySet()) {
+					out.writeUTF(entry.getKey());
+					out.writeShort(entry.getValue());
+				}
+			}
+
+			Files.move(tempFile, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			// The cache is only an optimization, the next build will simply walk the history again.
+			logger.warn("Failed to write the git year cache {}.", cacheFile, e);
+		}
+	}
+}
@@ -0,0 +1,333 @@
+/*
+ * Copyright 2022-2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.gradle.licenser.impl;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.diff.DiffFormatter;
+import org.eclipse.jgit.internal.storage.commitgraph.CommitGraph;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevSort;
+import org.eclipse.jgit.revwalk.RevTree;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.revwalk.filter.CommitTimeRevFilter;
+import org.eclipse.jgit.treewalk.AbstractTreeIterator;
+import org.eclipse.jgit.treewalk.CanonicalTreeParser;
+import org.eclipse.jgit.treewalk.FileTreeIterator;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.AndTreeFilter;
+import org.eclipse.jgit.treewalk.filter.PathFilter;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+import org.eclipse.jgit.util.io.DisabledOutputStream;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+import org.quiltmc.gradle.licenser.api.license.ModificationYearLookup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.TimeZone;
+
+/**
+ * Resolves the modification years of paths from a git repository, without depending on Gradle.
+ */
+@ApiStatus.Internal
+public final class GitYearResolver {
+	private GitYearResolver() {
+		throw new UnsupportedOperationException("GitYearResolver only contains static definitions.");
+	}
+
+	private static String standardizePath(Path path) {
+		var pathStr = path.toString();
+
+		if (!File.separator.equals("/")) {
+			pathStr = pathStr.replace(File.separator, "/");
+		}
+
+		return pathStr;
+	}
+
+	private static Path getRepoRoot(Git git) {
+		return git.getRepository().getDirectory().toPath().getParent();
+	}
+
+	private static @Nullable AbstractTreeIterator prepareTreeParser(Repository repository, String ref) throws IOException {
+		Ref head = repository.getRefDatabase().findRef(ref);
+
+		if (head.getObjectId() == null) {
+			return null;
+		}
+
+		try (var walk = new RevWalk(repository); ObjectReader oldReader = repository.newObjectReader()) {
+			RevCommit commit = walk.parseCommit(head.getObjectId());
+			RevTree tree = walk.parseTree(commit.getTree().getId());
+			var oldTreeParser = new CanonicalTreeParser();
+			oldTreeParser.reset(oldReader, tree.getId());
+			return oldTreeParser;
+		}
+	}
+
+	/**
+	 * Gets the latest commit of a file which got committed since the given year.
+	 * <p>
+	 * The history walk stops at January 1st of {@code sinceYear},
+	 * which avoids walking the entire history for files which have not been touched in a long time.
+	 *
+	 * @param git the git instance
+	 * @param path the file, relative to the repository root
+	 * @param sinceYear the year before which commits are ignored, or {@link ModificationYearLookup#UNBOUNDED}
+	 * @return the latest commit, or {@code null} if the file has not been committed since the given year
+	 * @throws IOException if the history could not be walked
+	 */
+	public static @Nullable RevCommit getLatestCommit(Git git, Path path, int sinceYear) throws IOException {
+		return getLatestCommit(git, null, path, sinceYear);
+	}
+
+	/**
+	 * Gets the latest commit of a file which got committed since the given year, using the given commit-graph.
+	 * <p>
+	 * With a commit-graph, the commits whose changed-path Bloom filter excludes the file are skipped without diffing their trees.
+	 *
+	 * @param git the git instance
+	 * @param commitGraph the commit-graph of the repository, or {@code null} if none is available
+	 * @param path the file, relative to the repository root
+	 * @param sinceYear the year before which commits are ignored, or {@link ModificationYearLookup#UNBOUNDED}
+	 * @return the latest commit, or {@code null} if the file has not been committed since the given year
+	 * @throws IOException if the history could not be walked
+	 */
+	public static @Nullable RevCommit getLatestCommit(Git git, @Nullable CommitGraph commitGraph, Path path, int sinceYear)
+			throws IOException {
+		Repository repository = git.getRepository();
+		ObjectId head = repository.resolve(Constants.HEAD);
+
+		// No commits exist - you will need to create a commit to have a hash
+		if (head == null) {
+			return null;
+		}
+
+		var pathStr = standardizePath(path);
+
+		try (ObjectReader reader = repository.newObjectReader();
+				var walk = new RevWalk(commitGraph == null ? reader : GitCommitGraph.withCommitGraph(reader, commitGraph))) {
+			walk.sort(RevSort.COMMIT_TIME_DESC);
+
+			if (!pathStr.isEmpty()) {
+				walk.setTreeFilter(new ChangedPathTreeFilter(PathFilter.create(pathStr)));
+			}
+
+			if (sinceYear != ModificationYearLookup.UNBOUNDED) {
+				// The walk is sorted by commit time, so this filter stops it entirely once it goes past the bound.
+				// A day of margin is kept to account for time zones, the author year is checked afterward anyway.
+				long since = LocalDate.of(sinceYear, 1, 1).minusDays(1).atStartOfDay().toEpochSecond(ZoneOffset.UTC);
+				walk.setRevFilter(CommitTimeRevFilter.after(since * 1000));
+			}
+
+			walk.markStart(walk.parseCommit(head));
+
+			// We only care about the last commit
+			return walk.next();
+		}
+	}
+
+	private static OptionalInt getLatestCommitYear(Git git, @Nullable CommitGraph commitGraph, Path path, int sinceYear,
+			int currentYear) throws IOException {
+		RevCommit latestCommit = getLatestCommit(git, commitGraph, path, sinceYear);
+
+		if (latestCommit != null) {
+			PersonIdent authorIdent = latestCommit.getAuthorIdent();
+			Date authorDate = authorIdent.getWhen();
+			TimeZone authorTimeZone = authorIdent.getTimeZone();
+
+			var calendar = Calendar.getInstance(authorTimeZone);
+			calendar.setTime(authorDate);
+			int year = calendar.get(Calendar.YEAR);
+
+			if (year < sinceYear) {
+				return OptionalInt.empty();
+			}
+
+			return OptionalInt.of(year);
+		} else if (sinceYear != ModificationYearLookup.UNBOUNDED) {
+			return OptionalInt.empty();
+		}
+
+		return OptionalInt.of(currentYear);
+	}
+
+	/**
+	 * Gets the last modification year of the given path, ignoring modifications older than the given year.
+	 *
+	 * @param git the git repository, or {@code null} if the path is not in a git repository
+	 * @param yearCache the git year cache, or {@code null} to walk the history of the path
+	 * @param path the path
+	 * @param sinceYear the year before which modifications are ignored, or {@link ModificationYearLookup#UNBOUNDED}
+	 * @param currentYear the current year, used for uncommitted changes
+	 * @return the last modification year, or an empty value if the path has not been modified since the given year
+	 */
+	public static OptionalInt getModificationYear(@Nullable Git git, @Nullable GitYearCache yearCache, Path path, int sinceYear,
+			int currentYear) {
+		return getModificationYear(git, yearCache, null, path, sinceYear, currentYear);
+	}
+
+	/**
+	 * Gets the last modification year of the given path, ignoring modifications older than the given year.
+	 *
+	 * @param git the git repository, or {@code null} if the path is not in a git repository
+	 * @param yearCache the git year cache, or {@code null} to walk the history of the path
+	 * @param commitGraph the commit-graph used to walk the history of the path, or {@code null} if none is available
+	 * @param path the path
+	 * @param sinceYear the year before which modifications are ignored, or {@link ModificationYearLookup#UNBOUNDED}
+	 * @param currentYear the current year, used for uncommitted changes
+	 * @return the last modification year, or an empty value if the path has not been modified since the given year
+	 */
+	public static OptionalInt getModificationYear(@Nullable Git git, @Nullable GitYearCache yearCache,
+			@Nullable CommitGraph commitGraph, Path path, int sinceYear, int currentYear) {
+		if (git == null) {
+			return OptionalInt.of(currentYear);
+		}
+
+		try {
+			Path repoRoot = getRepoRoot(git);
+			path = repoRoot.relativize(path);
+			var pathString = standardizePath(path);
+
+			if (yearCache != null) {
+				return getModificationYear(yearCache, pathString, sinceYear, currentYear);
+			}
+
+			AbstractTreeIterator commitTreeIterator = prepareTreeParser(git.getRepository(), Constants.HEAD);
+
+			if (commitTreeIterator == null) {
+				// Nothing has been committed yet, every file is new.
+				return OptionalInt.of(currentYear);
+			}
+
+			if (!pathString.isEmpty()) {
+				try (var formatter = new DiffFormatter(DisabledOutputStream.INSTANCE)) {
+					formatter.setRepository(git.getRepository());
+					// Only the path is compared with the working tree, instead of scanning the whole working tree for each file.
+					formatter.setPathFilter(PathFilter.create(pathString));
+
+					for (var entry : formatter.scan(commitTreeIterator, new FileTreeIterator(git.getRepository()))) {
+						if (entry.getNewPath().equals(pathString)) {
+							return OptionalInt.of(currentYear);
+						}
+					}
+				}
+			}
+
+			return getLatestCommitYear(git, commitGraph, path, sinceYear, currentYear);
+		} catch (IOException e) {
+			// ignored
+		}
+
+		return OptionalInt.of(currentYear);
+	}
+
+	/**
+	 * Gets the creation year of the given file, following renames.
+	 *
+	 * @param git the git repository, or {@code null} if the file is not in a git repository
+	 * @param creationYears the creation years of the files of the repository, or {@code null} if they could not be computed
+	 * @param path the path of the file
+	 * @param currentYear the current year
+	 * @return the creation year, or the current year if the file has not been committed yet
+	 */
+	public static int getCreationYear(@Nullable Git git, @Nullable GitCreationYears creationYears, Path path, int currentYear) {
+		if (git != null && creationYears != null) {
+			OptionalInt year = creationYears.getYear(standardizePath(getRepoRoot(git).relativize(path)));
+
+			if (year.isPresent()) {
+				return year.getAsInt();
+			}
+		}
+
+		return currentYear;
+	}
+
+	private static OptionalInt getModificationYear(GitYearCache yearCache, String path, int sinceYear, int currentYear) {
+		if (yearCache.isUnborn() || yearCache.isDirty(path)) {
+			return OptionalInt.of(currentYear);
+		}
+
+		OptionalInt year = yearCache.getYear(path);
+
+		if (year.isEmpty()) {
+			// Never committed, same as a history walk which found nothing.
+			return sinceYear == ModificationYearLookup.UNBOUNDED
+					? OptionalInt.of(currentYear)
+					: OptionalInt.empty();
+		} else if (year.getAsInt() < sinceYear) {
+			return OptionalInt.empty();
+		}
+
+		return year;
+	}
+
+	/**
+	 * Represents the filter of a path-limited history walk, selecting the commits which changed the path.
+	 * <p>
+	 * This is the same filter as a path-limited log, except the path is exposed to the walk,
+	 * which is what lets it consult the changed-path Bloom filters of the commit-graph to skip tree diffs.
+	 */
+	private static final class ChangedPathTreeFilter extends TreeFilter {
+		private final PathFilter pathFilter;
+		private final TreeFilter filter;
+
+		ChangedPathTreeFilter(PathFilter pathFilter) {
+			this.pathFilter = pathFilter;
+			this.filter = AndTreeFilter.create(pathFilter, TreeFilter.ANY_DIFF);
+		}
+
+		@Override
+		public boolean include(TreeWalk walker) throws IOException {
+			return this.filter.include(walker);
+		}
+
+		@Override
+		public int matchFilter(TreeWalk walker) throws IOException {
+			return this.filter.matchFilter(walker);
+		}
+
+		@Override
+		public boolean shouldBeRecursive() {
+			return this.filter.shouldBeRecursive();
+		}
+
+		@Override
+		public Optional<Set<byte[]>> getPathsBestEffort() {
+			return this.pathFilter.getPathsBestEffort();
+		}
+
+		@Override
+		public TreeFilter clone() {
+			return new ChangedPathTreeFilter(this.pathFilter);
+		}
+	}
+}
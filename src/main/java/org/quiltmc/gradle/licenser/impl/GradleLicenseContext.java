@@ -0,0 +1,71 @@
+/*
+ * Copyright 2022-2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.gradle.licenser.impl;
+
+import org.gradle.api.Project;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+import org.quiltmc.gradle.licenser.QuiltLicenserGradlePlugin;
+import org.quiltmc.gradle.licenser.api.license.LicenseContext;
+import org.quiltmc.gradle.licenser.api.util.GitUtils;
+
+import java.nio.file.Path;
+import java.util.OptionalInt;
+
+/**
+ * Represents the license context of a Gradle project, using the git state shared by the build.
+ *
+ * @param project the project
+ * @param rootPath the root path of the project, against which backups are resolved
+ */
+@ApiStatus.Internal
+public record GradleLicenseContext(Project project, Path rootPath) implements LicenseContext {
+	@Override
+	public Path getProjectDirectory() {
+		return this.project.getProjectDir().toPath();
+	}
+
+	@Override
+	public int getCurrentYear() {
+		return GitUtils.getCurrentYear(this.project);
+	}
+
+	@Override
+	public OptionalInt getModificationYear(Path path, int sinceYear) {
+		return GitUtils.getModificationYear(this.project, path, sinceYear);
+	}
+
+	@Override
+	public int getCreationYear(Path path) {
+		return GitUtils.getCreationYear(this.project, path);
+	}
+
+	@Override
+	public @Nullable Path getBackupPath(Path path) {
+		return LicenseUtils.getBackupPath(this.project.getBuildDir().toPath(), this.rootPath, path);
+	}
+
+	@Override
+	public boolean isDebug() {
+		return QuiltLicenserGradlePlugin.DEBUG_MODE;
+	}
+
+	@Override
+	public void debug(String message, Object... arguments) {
+		this.project.getLogger().lifecycle(message, arguments);
+	}
+}
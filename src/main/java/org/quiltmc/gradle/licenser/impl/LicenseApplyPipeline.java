@@ -0,0 +1,362 @@
+/*
+ * Copyright 2022-2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.gradle.licenser.impl;
+
+import org.gradle.api.GradleException;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+import org.quiltmc.gradle.licenser.api.license.LicenseContext;
+import org.quiltmc.gradle.licenser.api.license.LicenseHeader;
+import org.quiltmc.gradle.licenser.api.license.LicenseRule;
+import org.quiltmc.gradle.licenser.api.license.comment.LicenseComment;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Represents the staged pipeline used to apply license headers, so disk reads, year resolution and writes overlap.
+ * <p>
+ * The stages are connected by bounded queues:
+ * <ol>
+ *     <li>the enumerator, which is the task thread submitting the walked files;</li>
+ *     <li>the readers, which read the files and find their matching rule on a small pool;</li>
+ *     <li>the resolver, which resolves the year strings of the read files one by one on the task thread,
+ *     as it accesses the license context and the git state;
+ *     the modification year of a file is only looked up if its display mode needs it,
+ *     so without the git year cache each lookup walks the history of that single file;</li>
+ *     <li>the writer, which backs up and writes the updated files on its own thread.</li>
+ * </ol>
+ * A failure in any stage is reported once every stage is drained.
+ * The task thread never waits on a queue without checking the other stages are still running,
+ * so a stage dying from an unexpected error fails the pipeline instead of blocking it forever.
+ */
+@ApiStatus.Internal
+public final class LicenseApplyPipeline {
+	private static final int QUEUE_CAPACITY = 64;
+	private static final long STAGE_CHECK_INTERVAL_MS = 100;
+	private static final Submission END_OF_FILES = new Submission(Path.of(""), -1, -1);
+	private static final LicenseRule.FormattedFile END_OF_WRITES = new LicenseRule.FormattedFile(END_OF_FILES.path(), END_OF_FILES.path(),
+			new byte[0], "");
+
+	private final LicenseContext context;
+	private final LicenseHeader licenseHeader;
+	private final Consumer<ResolvedFile> resolvedFileConsumer;
+	private final int readerCount;
+	private final ExecutorService executor;
+	private final BlockingQueue<Submission> files = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+	private final BlockingQueue<ReadFile> readFiles = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+	private final BlockingQueue<LicenseRule.FormattedFile> writes = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+	private final List<Future<?>> stages = new ArrayList<>();
+	private final List<ReadFile> batch = new ArrayList<>();
+	private final AtomicInteger threadIndex = new AtomicInteger();
+	private volatile @Nullable RuntimeException failure;
+	private int pending;
+
+	/**
+	 * Starts a new pipeline.
+	 *
+	 * @param context the license context of the files
+	 * @param licenseHeader the license header to apply
+	 * @param resolvedFileConsumer the consumer of the resolved files, called on the task thread
+	 */
+	public LicenseApplyPipeline(LicenseContext context, LicenseHeader licenseHeader, Consumer<ResolvedFile> resolvedFileConsumer) {
+		this.context = context;
+		this.licenseHeader = licenseHeader;
+		this.resolvedFileConsumer = resolvedFileConsumer;
+		this.readerCount = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+		this.executor = Executors.newFixedThreadPool(this.readerCount + 1, runnable -> {
+			var thread = new Thread(runnable, "quilt-licenser-apply-" + this.threadIndex.getAndIncrement());
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		for (int i = 0; i < this.readerCount; i++) {
+			this.stages.add(this.executor.submit(this::runReader));
+		}
+
+		this.stages.add(this.executor.submit(this::runWriter));
+	}
+
+	/**
+	 * Submits a file to the pipeline.
+	 * <p>
+	 * If the pipeline is full, files which got read in the meantime are resolved until it accepts the file.
+	 *
+	 * @param path the path of the file
+	 */
+	public void submit(Path path) {
+		this.submit(path, -1, -1);
+	}
+
+	/**
+	 * Submits a file to the pipeline, along with what is already known about its license header.
+	 *
+	 * @param path the path of the file
+	 * @param rule the index of the rule the file should respect, or {@code -1} to find it
+	 * @param headerEnd the end offset of the current license header of the file, or {@code -1} to find it
+	 */
+	public void submit(Path path, int rule, int headerEnd) {
+		this.offer(new Submission(path, rule, headerEnd));
+		this.pending++;
+		// Resolve what's already available to keep the readers busy.
+		this.resolveAvailable();
+	}
+
+	/**
+	 * Waits for every submitted file to go through the pipeline, then stops it.
+	 *
+	 * @throws GradleException if any stage failed
+	 */
+	public void finish() {
+		try {
+			for (int i = 0; i < this.readerCount; i++) {
+				this.offer(END_OF_FILES);
+			}
+
+			while (this.pending > 0) {
+				this.batch.add(this.takeReadFile());
+				this.readFiles.drainTo(this.batch);
+				this.resolveBatch();
+			}
+
+			this.putWrite(END_OF_WRITES);
+
+			for (var stage : this.stages) {
+				stage.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new GradleException("Interrupted while applying license headers.", e);
+		} catch (ExecutionException e) {
+			throw new GradleException("Failed to apply license headers.", e.getCause());
+		} finally {
+			this.executor.shutdownNow();
+		}
+
+		if (this.failure != null) {
+			throw this.failure;
+		}
+	}
+
+	private void offer(Submission submission) {
+		try {
+			// When the readers are all waiting on the full read queue, take from it so they can go on.
+			while (!this.files.offer(submission)) {
+				this.batch.add(this.takeReadFile());
+				this.resolveBatch();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new GradleException("Interrupted while applying license headers.", e);
+		}
+	}
+
+	private ReadFile takeReadFile() throws InterruptedException {
+		while (true) {
+			ReadFile readFile = this.readFiles.poll(STAGE_CHECK_INTERVAL_MS, TimeUnit.MILLISECONDS);
+
+			if (readFile != null) {
+				return readFile;
+			}
+
+			this.checkStages();
+
+			// The readers are checked first, as they may still add files to the queue until they are done.
+			if (this.stages.subList(0, this.readerCount).stream().allMatch(Future::isDone) && this.readFiles.isEmpty()) {
+				throw new GradleException("The license header readers stopped before reading every file.");
+			}
+		}
+	}
+
+	private void putWrite(LicenseRule.FormattedFile formattedFile) throws InterruptedException {
+		while (!this.writes.offer(formattedFile, STAGE_CHECK_INTERVAL_MS, TimeUnit.MILLISECONDS)) {
+			this.checkStages();
+
+			if (this.stages.get(this.readerCount).isDone()) {
+				throw new GradleException("The license header writer stopped before writing every file.");
+			}
+		}
+	}
+
+	/**
+	 * Reports the failure of any stage which died from an error it didn't handle.
+	 */
+	private void checkStages() throws InterruptedException {
+		for (var stage : this.stages) {
+			if (stage.isDone()) {
+				try {
+					stage.get();
+				} catch (ExecutionException e) {
+					throw new GradleException("Failed to apply license headers.", e.getCause());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Stops the pipeline without waiting for the submitted files, used when the task fails.
+	 */
+	public void abort() {
+		this.executor.shutdownNow();
+	}
+
+	private void resolveAvailable() {
+		this.readFiles.drainTo(this.batch);
+		this.resolveBatch();
+	}
+
+	private void resolveBatch() {
+		for (var readFile : this.batch) {
+			this.pending--;
+
+			if (this.failure != null) {
+				continue;
+			}
+
+			try {
+				this.resolve(readFile);
+			} catch (RuntimeException e) {
+				this.fail(e);
+			}
+		}
+
+		this.batch.clear();
+	}
+
+	private void resolve(ReadFile readFile) {
+		if (readFile.failure() != null) {
+			throw readFile.failure();
+		}
+
+		if (this.context.isDebug()) {
+			this.context.debug("=> Visiting {}...", readFile.path());
+		}
+
+		LicenseRule.FormattedFile formattedFile = null;
+
+		if (readFile.rule() != null) {
+			if (this.context.isDebug()) {
+				this.context.debug("  => Matched rule {}", readFile.rule());
+			}
+
+			formattedFile = this.licenseHeader.prepareFormat(this.context, readFile.path(), readFile.source(), readFile.rule(),
+					readFile.headerEnd());
+		}
+
+		if (formattedFile != null) {
+			try {
+				this.putWrite(formattedFile);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new GradleException("Interrupted while applying license headers.", e);
+			}
+		}
+
+		this.resolvedFileConsumer.accept(new ResolvedFile(readFile.path(), formattedFile != null));
+	}
+
+	// The stages always drain their input queue until told to stop, so no stage gets stuck after a failure.
+	// They are only interrupted when the pipeline is aborted or finished.
+
+	private void runReader() {
+		try {
+			while (true) {
+				Submission submission = this.files.take();
+
+				if (submission == END_OF_FILES) {
+					return;
+				}
+
+				Path path = submission.path();
+				ReadFile readFile;
+
+				if (this.failure != null) {
+					readFile = new ReadFile(path, "", null, -1, null);
+				} else {
+					try {
+						String source = LicenseUtils.readFile(path);
+						List<LicenseRule> rules = this.licenseHeader.getRules();
+						LicenseComment comment = this.licenseHeader.getComment(path);
+						LicenseRule rule = submission.rule() >= 0 && submission.rule() < rules.size()
+								? rules.get(submission.rule())
+								: this.licenseHeader.findRule(source, comment);
+						int headerEnd = submission.headerEnd() >= 0 || rule == null
+								? submission.headerEnd()
+								: this.licenseHeader.findHeaderEnd(source, comment);
+						readFile = new ReadFile(path, source, rule, headerEnd, null);
+					} catch (RuntimeException e) {
+						readFile = new ReadFile(path, "", null, -1, e);
+					}
+				}
+
+				this.readFiles.put(readFile);
+			}
+		} catch (InterruptedException ignored) {
+			// The pipeline is stopped.
+		}
+	}
+
+	private void runWriter() {
+		try {
+			while (true) {
+				LicenseRule.FormattedFile formattedFile = this.writes.take();
+
+				if (formattedFile == END_OF_WRITES) {
+					return;
+				}
+
+				if (this.failure == null) {
+					try {
+						formattedFile.write();
+					} catch (RuntimeException e) {
+						this.fail(e);
+					}
+				}
+			}
+		} catch (InterruptedException ignored) {
+			// The pipeline is stopped.
+		}
+	}
+
+	private synchronized void fail(RuntimeException e) {
+		if (this.failure == null) {
+			this.failure = e;
+		}
+	}
+
+	/**
+	 * Represents a file resolved by the pipeline.
+	 *
+	 * @param path the path of the file
+	 * @param updated {@code true} if the file is updated, or {@code false} if it already has the correct license header
+	 */
+	public record ResolvedFile(Path path, boolean updated) {}
+
+	private record Submission(Path path, int rule, int headerEnd) {}
+
+	private record ReadFile(Path path, String source, @Nullable LicenseRule rule, int headerEnd, @Nullable RuntimeException failure) {}
+}
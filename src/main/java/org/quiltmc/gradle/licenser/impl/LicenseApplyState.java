@@ -0,0 +1,261 @@
+/*
+ * Copyright 2022-2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.quiltmc.gradle.licenser.impl;
+
+import org.gradle.api.Project;
+import org.gradle.api.logging.Logger;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Represents the files processed by an apply task, along with their stat data, to skip the files which did not change since.
+ * <p>
+ * Like the index of git, the state records the size, modification time and inode of each file once it got a valid license header.
+ * As long as the stat data of a file and the fingerprint of the rules and years it got processed with are unchanged,
+ * the file still has the correct license header and is skipped without being opened.
+ * <p>
+ * Files modified at the same time as the state got written are always processed again, as file times may be coarse.
+ * <p>
+ * The files not visited by an apply, such as those filtered out or processed by another task, keep their entries,
+ * as their stat data is checked again anyway before they are skipped.
+ * Only the entries of the files visited without getting a valid license header, and of the deleted files, are dropped.
+ */
+@ApiStatus.Internal
+public final class LicenseApplyState {
+	public static final String EXTENSION = ".state";
+	private static final int MAGIC = 0x51474c53; // QGLS
+	private static final int FORMAT_VERSION = 1;
+	private static final boolean UNIX_ATTRIBUTES = FileSystems.getDefault().supportedFileAttributeViews().contains("unix");
+
+	private final long fingerprint;
+	private final Map<Path, Entry> previousEntries;
+	private final @Nullable FileTime lastWriteTime;
+	private final Map<Path, Entry> entries = new HashMap<>();
+	private final Set<Path> visited = new HashSet<>();
+
+	private LicenseApplyState(long fingerprint, Map<Path, Entry> previousEntries, @Nullable FileTime lastWriteTime) {
+		this.fingerprint = fingerprint;
+		this.previousEntries = previousEntries;
+		this.lastWriteTime = lastWriteTime;
+	}
+
+	/**
+	 * {@return the path of the state of the apply task of the given source sets}
+	 *
+	 * @param project the project
+	 * @param id the identifier of the source sets, which is the task name without its action prefix
+	 */
+	public static Path getPath(Project project, String id) {
+		return project.getBuildDir().toPath().resolve("quilt/licenser-states").resolve(id + EXTENSION);
+	}
+
+	/**
+	 * Computes the fingerprint of everything the license header of a file depends on, besides the file itself.
+	 *
+	 * @param headerFingerprint the {@linkplain org.quiltmc.gradle.licenser.api.license.LicenseHeader#getFingerprint() fingerprint}
+	 * of the license header
+	 * @param currentYear the current year
+	 * @param projectYear the last modification year of the project
+	 * @return the fingerprint
+	 */
+	public static long computeFingerprint(String headerFingerprint, int currentYear, int projectYear) {
+		try {
+			var digest = MessageDigest.getInstance("SHA-256");
+			digest.update((headerFingerprint + '\n' + currentYear + '\n' + projectYear).getBytes(StandardCharsets.UTF_8));
+			return ByteBuffer.wrap(digest.digest()).getLong();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not available.", e);
+		}
+	}
+
+	/**
+	 * Creates an empty state, which makes every file be processed.
+	 *
+	 * @param fingerprint the fingerprint of the rules and years files are processed with
+	 * @return the state
+	 */
+	public static LicenseApplyState empty(long fingerprint) {
+		return new LicenseApplyState(fingerprint, Map.of(), null);
+	}
+
+	/**
+	 * Reads the state written by the last apply.
+	 * <p>
+	 * Entries recorded with another fingerprint are dropped.
+	 *
+	 * @param path the path of the state
+	 * @param fingerprint the fingerprint of the rules and years files are processed with
+	 * @param logger the logger
+	 * @return the state, which is empty if it doesn't exist or is malformed
+	 */
+	public static LicenseApplyState read(Path path, long fingerprint, Logger logger) {
+		if (!Files.isRegularFile(path)) {
+			return empty(fingerprint);
+		}
+
+		var entries = new HashMap<Path, Entry>();
+
+		try (var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+			FileTime lastWriteTime = Files.getLastModifiedTime(path);
+
+			if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+				return empty(fingerprint);
+			}
+
+			int size = in.readInt();
+
+			for (int i = 0; i < size; i++) {
+				Path file = Path.of(in.readUTF());
+				var entry = new Entry(in.readLong(), in.readLong(), in.readLong(), in.readLong());
+
+				if (entry.fingerprint() == fingerprint) {
+					entries.put(file, entry);
+				}
+			}
+
+			return new LicenseApplyState(fingerprint, entries, lastWriteTime);
+		} catch (IOException | RuntimeException e) {
+			logger.info("Could not read the license apply state {}, processing every file.", path, e);
+			return empty(fingerprint);
+		}
+	}
+
+	/**
+	 * Checks whether the given file is unchanged since it got processed by the last apply, in which case it is kept in this state.
+	 *
+	 * @param path the absolute path of the file
+	 * @return {@code true} if the file is unchanged and can be skipped, or {@code false} otherwise
+	 */
+	public boolean isUnchanged(Path path) {
+		this.visited.add(path);
+		Entry previous = this.previousEntries.get(path);
+
+		if (previous == null) {
+			return false;
+		}
+
+		Entry entry = this.stat(path);
+
+		if (entry == null || !entry.equals(previous)
+				|| entry.modifiedTime() >= this.lastWriteTime.to(TimeUnit.NANOSECONDS)) {
+			return false;
+		}
+
+		this.entries.put(path, entry);
+		return true;
+	}
+
+	/**
+	 * Records the current stat data of a file which has the correct license header.
+	 *
+	 * @param path the absolute path of the file
+	 */
+	public void record(Path path) {
+		this.visited.add(path);
+		Entry entry = this.stat(path);
+
+		if (entry != null) {
+			this.entries.put(path, entry);
+		}
+	}
+
+	/**
+	 * Writes the skipped and recorded files of this state, along with the previous entries of the files which have not been visited.
+	 *
+	 * @param path the path of the state
+	 * @param logger the logger
+	 */
+	public void write(Path path, Logger logger) {
+		for (var previous : this.previousEntries.entrySet()) {
+			if (!this.visited.contains(previous.getKey()) && Files.exists(previous.getKey())) {
+				this.entries.put(previous.getKey(), previous.getValue());
+			}
+		}
+
+		try {
+			Files.createDirectories(path.getParent());
+			Path tempFile = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+
+			try (var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+				out.writeInt(MAGIC);
+				out.writeInt(FORMAT_VERSION);
+				out.writeInt(this.entries.size());
+
+				for (var entry : this.entries.entrySet()) {
+					out.writeUTF(entry.getKey().toString());
+					out.writeLong(entry.getValue().size());
+					out.writeLong(entry.getValue().modifiedTime());
+					out.writeLong(entry.getValue().inode());
+					out.writeLong(entry.getValue().fingerprint());
+				}
+			}
+
+			Files.move(tempFile, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			// The state is only an optimization, the next apply will simply process every file again.
+			logger.warn("Failed to write the license apply state {}.", path, e);
+		}
+	}
+
+	private @Nullable Entry stat(Path path) {
+		try {
+			if (UNIX_ATTRIBUTES) {
+				Map<String, Object> attributes = Files.readAttributes(path, "unix:size,lastModifiedTime,ino");
+				var modifiedTime = (FileTime) attributes.get("lastModifiedTime");
+				return new Entry((Long) attributes.get("size"), modifiedTime.to(TimeUnit.NANOSECONDS), (Long) attributes.get("ino"),
+						this.fingerprint);
+			}
+
+			BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+			return new Entry(attributes.size(), attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS), 0, this.fingerprint);
+		} catch (IOException | UnsupportedOperationException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Represents the stat data of a file with the correct license header.
+	 *
+	 * @param size the size of the file
+	 * @param modifiedTime the modification time of the file, in nanoseconds
+	 * @param inode the inode of the file, or {@code 0} if unsupported by the file system
+	 * @param fingerprint the fingerprint of the rules and years the file got processed with
+	 */
+	private record Entry(long size, long modifiedTime, long inode, long fingerprint) {}
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2022-2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.gradle.licenser.impl;
+
+import org.gradle.api.GradleException;
+import org.gradle.api.Project;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+import org.quiltmc.gradle.licenser.api.license.LicenseHeader;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Represents the files which failed a strict license check, handed over to the matching apply task.
+ * <p>
+ * Files which are not listed and were not modified since the manifest got written are known to be valid,
+ * so applying license headers can skip them.
+ * Only strict checks write a manifest, as other checks accept any year while applying would update it.
+ *
+ * @param fingerprint the fingerprint of the license header and years the files were checked with
+ * @param failures the files which failed the check
+ */
+@ApiStatus.Internal
+public record LicenseCheckManifest(String fingerprint, List<Failure> failures) {
+	public static final String EXTENSION = ".manifest";
+	private static final String FINGERPRINT_KEY = "fingerprint=";
+	private static final String FAILED_KEY = "failed=";
+
+	/**
+	 * {@return the path of the manifest shared by the check and apply tasks of the given source sets}
+	 *
+	 * @param project the project
+	 * @param id the identifier of the source sets, which is the task name without its action prefix
+	 */
+	public static Path getPath(Project project, String id) {
+		return project.getBuildDir().toPath().resolve("quilt/licenser-manifests").resolve(id + EXTENSION);
+	}
+
+	/**
+	 * Computes the fingerprint of a manifest.
+	 * <p>
+	 * The years written by the apply tasks depend on the current year, and with the project year selection
+	 * on the last modification year of the project, so a manifest only stays valid while they are the same.
+	 *
+	 * @param licenseHeader the license header
+	 * @param currentYear the current year
+	 * @param projectYear the last modification year of the project
+	 * @return the fingerprint
+	 */
+	public static String computeFingerprint(LicenseHeader licenseHeader, int currentYear, int projectYear) {
+		return licenseHeader.getFingerprint() + ';' + currentYear + ';' + projectYear;
+	}
+
+	/**
+	 * Writes this manifest.
+	 *
+	 * @param path the path of the manifest
+	 */
+	public void write(Path path) {
+		var lines = new ArrayList<String>(this.failures.size() + 1);
+		lines.add(FINGERPRINT_KEY + this.fingerprint);
+
+		for (var failure : this.failures) {
+			lines.add(FAILED_KEY + failure.rule() + ',' + failure.headerEnd() + ',' + failure.path());
+		}
+
+		try {
+			Files.createDirectories(path.getParent());
+			Files.write(path, lines, StandardCharsets.UTF_8);
+		} catch (IOException e) {
+			throw new GradleException(String.format("Failed to write license check manifest %s", path), e);
+		}
+	}
+
+	/**
+	 * Reads a manifest written by {@link #write(Path)}.
+	 *
+	 * @param path the path of the manifest
+	 * @return the manifest, or {@code null} if it doesn't exist or is malformed
+	 */
+	public static @Nullable Loaded read(Path path) {
+		if (!Files.isRegularFile(path)) {
+			return null;
+		}
+
+		String fingerprint = null;
+		var failures = new HashMap<Path, Failure>();
+
+		try {
+			FileTime lastModifiedTime = Files.getLastModifiedTime(path);
+
+			for (var line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+				if (line.startsWith(FINGERPRINT_KEY)) {
+					fingerprint = line.substring(FINGERPRINT_KEY.length());
+				} else if (line.startsWith(FAILED_KEY)) {
+					String[] parts = line.substring(FAILED_KEY.length()).split(",", 3);
+					var failure = new Failure(Path.of(parts[2]), Integer.parseInt(parts[0]), Integer.parseInt(parts[1]));
+					failures.put(failure.path(), failure);
+				}
+			}
+
+			if (fingerprint == null) {
+				return null;
+			}
+
+			return new Loaded(fingerprint, failures, lastModifiedTime);
+		} catch (IOException | RuntimeException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Represents a file which failed the check.
+	 *
+	 * @param path the absolute path of the file
+	 * @param rule the index of the rule the file should respect, or {@code -1} if unknown
+	 * @param headerEnd the end offset of the current license header, or {@code -1} if unknown
+	 */
+	public record Failure(Path path, int rule, int headerEnd) {}
+
+	/**
+	 * Represents a manifest loaded from disk.
+	 *
+	 * @param fingerprint the fingerprint of the license header and years the files were checked with
+	 * @param failures the files which failed the check
+	 * @param lastModifiedTime the time at which the manifest was written
+	 */
+	public record Loaded(String fingerprint, Map<Path, Failure> failures, FileTime lastModifiedTime) {
+		/**
+		 * {@return the failure of the given file, or {@code null} if it passed the check}
+		 *
+		 * @param path the absolute path of the file
+		 */
+		public @Nullable Failure getFailure(Path path) {
+			return this.failures.get(path);
+		}
+
+		/**
+		 * {@return {@code true} if the given file may have changed since the check, or {@code false} otherwise}
+		 * <p>
+		 * Files modified at the same time as the manifest are considered as changed, as file times may be coarse.
+		 *
+		 * @param path the path of the file
+		 */
+		public boolean isModifiedSince(Path path) {
+			try {
+				return Files.getLastModifiedTime(path).compareTo(this.lastModifiedTime) >= 0;
+			} catch (IOException e) {
+				return true;
+			}
+		}
+	}
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2022-2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.gradle.licenser.impl;
+
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.time.Year;
+import java.time.ZoneOffset;
+import java.util.Locale;
+import java.util.function.Supplier;
+
+/**
+ * Represents the source of the current year, used for files modified but not committed yet.
+ * <p>
+ * The system clock makes the results depend on when and where the build runs,
+ * the other sources give the same current year on every machine.
+ *
+ * @param source the source of the current year
+ * @param fixedYear the current year if the source is {@link Source#FIXED}, ignored otherwise
+ */
+@ApiStatus.Internal
+public record LicenseClock(Source source, int fixedYear) {
+	public static final LicenseClock SYSTEM = new LicenseClock(Source.SYSTEM, 0);
+	public static final String SOURCE_DATE_EPOCH = "SOURCE_DATE_EPOCH";
+
+	/**
+	 * Parses a clock from its description.
+	 *
+	 * @param value {@code system}, {@code source_date_epoch}, {@code head}, or a year for a fixed clock
+	 * @return the clock
+	 * @throws IllegalArgumentException if the description is invalid
+	 */
+	public static LicenseClock parse(String value) {
+		String normalized = value.strip().toLowerCase(Locale.ROOT);
+
+		for (var source : Source.values()) {
+			if (source != Source.FIXED && source.name().toLowerCase(Locale.ROOT).equals(normalized)) {
+				return new LicenseClock(source, 0);
+			}
+		}
+
+		try {
+			return new LicenseClock(Source.FIXED, Integer.parseInt(normalized));
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException(String.format(
+					"Invalid clock %s, expected system, source_date_epoch, head or a year.", value
+			));
+		}
+	}
+
+	/**
+	 * Resolves the current year.
+	 * <p>
+	 * The {@link Source#SOURCE_DATE_EPOCH} and {@link Source#HEAD} sources fall back to the system clock
+	 * if the environment variable is not set or if nothing has been committed yet.
+	 *
+	 * @param repository the supplier of the git repository, only called for the {@link Source#HEAD} source
+	 * @return the current year
+	 */
+	public int getCurrentYear(Supplier<@Nullable Repository> repository) {
+		return switch (this.source) {
+			case SYSTEM -> Year.now().getValue();
+			case FIXED -> this.fixedYear;
+			case SOURCE_DATE_EPOCH -> {
+				String epoch = System.getenv(SOURCE_DATE_EPOCH);
+
+				if (epoch == null || epoch.isBlank()) {
+					yield Year.now().getValue();
+				}
+
+				try {
+					yield Instant.ofEpochSecond(Long.parseLong(epoch.strip())).atZone(ZoneOffset.UTC).getYear();
+				} catch (NumberFormatException e) {
+					throw new IllegalStateException(String.format("Invalid %s value %s, expected seconds.", SOURCE_DATE_EPOCH, epoch), e);
+				}
+			}
+			case HEAD -> {
+				Integer year = getHeadYear(repository.get());
+				yield year == null ? Year.now().getValue() : year;
+			}
+		};
+	}
+
+	private static @Nullable Integer getHeadYear(@Nullable Repository repository) {
+		if (repository == null) {
+			return null;
+		}
+
+		try (var walk = new RevWalk(repository)) {
+			ObjectId head = repository.resolve(Constants.HEAD);
+
+			if (head == null) {
+				return null;
+			}
+
+			PersonIdent committerIdent = walk.parseCommit(head).getCommitterIdent();
+			return committerIdent.getWhenAsInstant().atZone(committerIdent.getZoneId()).getYear();
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to read the HEAD commit of the git repository", e);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return this.source == Source.FIXED ? String.valueOf(this.fixedYear) : this.source.name().toLowerCase(Locale.ROOT);
+	}
+
+	public enum Source {
+		/**
+		 * The year of the system clock.
+		 */
+		SYSTEM,
+		/**
+		 * The year of the {@code SOURCE_DATE_EPOCH} environment variable, as defined by reproducible builds.
+		 */
+		SOURCE_DATE_EPOCH,
+		/**
+		 * The year of the {@code HEAD} commit.
+		 */
+		HEAD,
+		/**
+		 * A fixed year.
+		 */
+		FIXED
+	}
+}
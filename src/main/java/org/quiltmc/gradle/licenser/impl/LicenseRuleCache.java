@@ -0,0 +1,72 @@
+/*
+ * Copyright 2022-2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.gradle.licenser.impl;
+
+import org.jetbrains.annotations.ApiStatus;
+import org.quiltmc.gradle.licenser.api.license.LicenseRule;
+import org.quiltmc.gradle.licenser.api.license.LicenseYearDisplayMode;
+import org.quiltmc.gradle.licenser.api.license.LicenseYearSelectionMode;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Represents the intern table of compiled license rules.
+ * <p>
+ * Parsing a header and compiling its patterns is done once for identical headers,
+ * so subprojects sharing the same header file share the same {@link LicenseRule} instance.
+ * <p>
+ * The table is static so it lives as long as the plugin class loader, which Gradle keeps across builds in a daemon.
+ * Entries are keyed by the header content, which means editing a header file naturally invalidates its entry.
+ * The rules only hold state derived from their header, the rendered headers are cached by each
+ * {@link org.quiltmc.gradle.licenser.api.license.LicenseHeader LicenseHeader} instead.
+ */
+@ApiStatus.Internal
+public final class LicenseRuleCache {
+	private static final int MAX_SIZE = 256;
+	private static final Map<Key, LicenseRule> RULES = new ConcurrentHashMap<>();
+
+	private LicenseRuleCache() {
+		throw new UnsupportedOperationException("LicenseRuleCache only contains static definitions.");
+	}
+
+	/**
+	 * Gets the compiled license rule of the given header, compiling it only if no identical rule has been compiled before.
+	 *
+	 * @param headerFormat the header format source
+	 * @param yearDisplayMode the default year display mode
+	 * @param yearSelectionMode the default year selection mode
+	 * @return the compiled license rule
+	 */
+	public static LicenseRule get(String headerFormat, LicenseYearDisplayMode yearDisplayMode, LicenseYearSelectionMode yearSelectionMode) {
+		var key = new Key(headerFormat, yearDisplayMode, yearSelectionMode);
+		LicenseRule rule = RULES.get(key);
+
+		if (rule == null) {
+			if (RULES.size() >= MAX_SIZE) {
+				// Headers got edited a lot during the lifetime of this daemon, drop the stale rules.
+				RULES.clear();
+			}
+
+			rule = RULES.computeIfAbsent(key, k -> new LicenseRule(k.headerFormat(), k.yearDisplayMode(), k.yearSelectionMode()));
+		}
+
+		return rule;
+	}
+
+	private record Key(String headerFormat, LicenseYearDisplayMode yearDisplayMode, LicenseYearSelectionMode yearSelectionMode) {}
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2022-2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.gradle.licenser.impl;
+
+import org.gradle.api.GradleException;
+import org.jetbrains.annotations.ApiStatus;
+
+/**
+ * Represents a slice of the source files to process, used to split license tasks across several machines.
+ * <p>
+ * Files are assigned to shards using a stable hash of their project-relative path,
+ * which means every machine computes the same partition without any coordination.
+ *
+ * @param index the 1-based index of this shard
+ * @param count the total number of shards
+ */
+@ApiStatus.Internal
+public record LicenseShard(int index, int count) {
+	public LicenseShard {
+		if (count < 1 || index < 1 || index > count) {
+			throw new GradleException(String.format("Invalid license shard %d/%d, expected 1 <= index <= count.", index, count));
+		}
+	}
+
+	/**
+	 * Parses a shard from its {@code index/count} notation, for example {@code 2/4}.
+	 *
+	 * @param value the shard notation
+	 * @return the parsed shard
+	 */
+	public static LicenseShard parse(String value) {
+		int separator = value.indexOf('/');
+
+		if (separator == -1) {
+			throw new GradleException(String.format("Invalid license shard \"%s\", expected the index/count notation.", value));
+		}
+
+		try {
+			return new LicenseShard(
+					Integer.parseInt(value.substring(0, separator).strip()),
+					Integer.parseInt(value.substring(separator + 1).strip())
+			);
+		} catch (NumberFormatException e) {
+			throw new GradleException(String.format("Invalid license shard \"%s\", expected the index/count notation.", value), e);
+		}
+	}
+
+	/**
+	 * {@return {@code true} if the given file belongs to this shard, or {@code false} otherwise}
+	 *
+	 * @param relativePath the project-relative path of the file, using {@code /} as separator
+	 */
+	public boolean contains(String relativePath) {
+		return this.count == 1 || Math.floorMod(hash(relativePath), this.count) == this.index - 1;
+	}
+
+	/**
+	 * Hashes the given path using FNV-1a, which unlike {@link Object#hashCode()} is guaranteed
+	 * to stay the same across JVM implementations and plugin versions.
+	 */
+	private static int hash(String path) {
+		int hash = 0x811c9dc5;
+
+		for (int i = 0; i < path.length(); i++) {
+			hash ^= path.charAt(i);
+			hash *= 0x01000193;
+		}
+
+		return hash;
+	}
+
+	@Override
+	public String toString() {
+		return this.index + "/" + this.count;
+	}
+}
@@ -0,0 +1,265 @@
+/*
+ * Copyright 2022-2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.gradle.licenser.impl;
+
+import org.gradle.api.GradleException;
+import org.gradle.api.Project;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Represents the verdict of a license check task on a single shard.
+ * <p>
+ * Reports identify the run they belong to with the fingerprint of the license header and the checked out commit,
+ * so reports left over by an earlier run are never merged with the current ones.
+ *
+ * @param task the path of the task which produced this report
+ * @param shard the shard which got checked
+ * @param fingerprint the {@linkplain org.quiltmc.gradle.licenser.api.license.LicenseHeader#getFingerprint() fingerprint}
+ * of the license header the files were checked with
+ * @param revision the identifier of the checked out commit, or an empty string if unknown
+ * @param total the number of files checked in this shard
+ * @param failed the project-relative paths of the files which failed the checks
+ */
+@ApiStatus.Internal
+public record LicenseShardReport(
+		String task, LicenseShard shard, String fingerprint, String revision, int total, List<String> failed
+) {
+	public static final String EXTENSION = ".shard";
+	private static final String TASK_KEY = "task=";
+	private static final String SHARD_KEY = "shard=";
+	private static final String FINGERPRINT_KEY = "fingerprint=";
+	private static final String REVISION_KEY = "revision=";
+	private static final String TOTAL_KEY = "total=";
+	private static final String FAILED_KEY = "failed=";
+
+	/**
+	 * {@return the default directory in which shard reports are written}
+	 *
+	 * @param project the project
+	 */
+	public static Path getReportsDirectory(Project project) {
+		return project.getBuildDir().toPath().resolve("quilt/licenser-reports");
+	}
+
+	/**
+	 * {@return the identifier of the commit checked out in the project repository, or an empty string if unknown}
+	 *
+	 * @param project the project
+	 */
+	public static String getRevision(Project project) {
+		String revision = LicenserGitService.get(project).getHeadRevision();
+		return revision == null ? "" : revision;
+	}
+
+	/**
+	 * {@return {@code true} if this shard passed the checks, or {@code false} otherwise}
+	 */
+	public boolean passed() {
+		return this.failed.isEmpty();
+	}
+
+	/**
+	 * Writes this report in the given directory.
+	 * <p>
+	 * Reports of the same task written with another number of shards are deleted, as they can only be outdated.
+	 *
+	 * @param directory the reports directory
+	 * @return the path of the written report
+	 */
+	public Path write(Path directory) {
+		String prefix = this.task.replace(':', '_') + "-";
+		String suffix = "-of-" + this.shard.count() + EXTENSION;
+		var path = directory.resolve(prefix + this.shard.index() + suffix);
+		var lines = new ArrayList<String>(this.failed.size() + 5);
+		lines.add(TASK_KEY + this.task);
+		lines.add(SHARD_KEY + this.shard);
+		lines.add(FINGERPRINT_KEY + this.fingerprint);
+		lines.add(REVISION_KEY + this.revision);
+		lines.add(TOTAL_KEY + this.total);
+
+		for (var failedPath : this.failed) {
+			lines.add(FAILED_KEY + failedPath);
+		}
+
+		try {
+			Files.createDirectories(directory);
+
+			for (var report : list(directory)) {
+				String fileName = report.getFileName().toString();
+
+				if (fileName.startsWith(prefix) && !fileName.endsWith(suffix)) {
+					Files.delete(report);
+				}
+			}
+
+			Files.write(path, lines, StandardCharsets.UTF_8);
+		} catch (IOException e) {
+			throw new GradleException(String.format("Failed to write license shard report %s", path), e);
+		}
+
+		return path;
+	}
+
+	/**
+	 * Reads a report written by {@link #write(Path)}.
+	 *
+	 * @param path the path of the report
+	 * @return the report
+	 */
+	public static LicenseShardReport read(Path path) {
+		String task = null;
+		LicenseShard shard = null;
+		String fingerprint = null;
+		String revision = "";
+		int total = -1;
+		var failed = new ArrayList<String>();
+
+		try {
+			for (var line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+				if (line.startsWith(TASK_KEY)) {
+					task = line.substring(TASK_KEY.length());
+				} else if (line.startsWith(SHARD_KEY)) {
+					shard = LicenseShard.parse(line.substring(SHARD_KEY.length()));
+				} else if (line.startsWith(FINGERPRINT_KEY)) {
+					fingerprint = line.substring(FINGERPRINT_KEY.length());
+				} else if (line.startsWith(REVISION_KEY)) {
+					revision = line.substring(REVISION_KEY.length());
+				} else if (line.startsWith(TOTAL_KEY)) {
+					total = Integer.parseInt(line.substring(TOTAL_KEY.length()));
+				} else if (line.startsWith(FAILED_KEY)) {
+					failed.add(line.substring(FAILED_KEY.length()));
+				}
+			}
+		} catch (IOException | NumberFormatException e) {
+			throw new GradleException(String.format("Failed to read license shard report %s", path), e);
+		}
+
+		if (task == null || shard == null || fingerprint == null || total < 0) {
+			throw new GradleException(String.format("Malformed license shard report %s", path));
+		}
+
+		return new LicenseShardReport(task, shard, fingerprint, revision, total, List.copyOf(failed));
+	}
+
+	/**
+	 * Lists the reports of the given directory.
+	 *
+	 * @param directory the reports directory
+	 * @return the paths of the reports, sorted
+	 * @throws IOException if the directory cannot be listed
+	 */
+	public static List<Path> list(Path directory) throws IOException {
+		if (!Files.isDirectory(directory)) {
+			return List.of();
+		}
+
+		try (Stream<Path> stream = Files.list(directory)) {
+			return stream.filter(path -> path.getFileName().toString().endsWith(EXTENSION))
+					.sorted()
+					.toList();
+		}
+	}
+
+	/**
+	 * Merges the reports of the shards of every task into a single verdict.
+	 * <p>
+	 * Only the reports matching the current license header, and the current commit if known, are merged.
+	 * Every other report is ignored as outdated, which makes the shards they stood for missing.
+	 *
+	 * @param reports the reports to merge
+	 * @param fingerprint the fingerprint of the current license header
+	 * @param revision the identifier of the current commit, or {@code null} if unknown
+	 * @return the merged verdict
+	 */
+	public static Aggregate aggregate(Collection<LicenseShardReport> reports, String fingerprint, @Nullable String revision) {
+		var reportsByTask = new TreeMap<String, List<LicenseShardReport>>();
+		int outdated = 0;
+
+		for (var report : reports) {
+			if (!report.fingerprint().equals(fingerprint) || (revision != null && !report.revision().equals(revision))) {
+				outdated++;
+				reportsByTask.computeIfAbsent(report.task(), task -> new ArrayList<>());
+				continue;
+			}
+
+			reportsByTask.computeIfAbsent(report.task(), task -> new ArrayList<>()).add(report);
+		}
+
+		var failed = new ArrayList<String>();
+		var problems = new ArrayList<String>();
+		int total = 0;
+
+		for (Map.Entry<String, List<LicenseShardReport>> entry : reportsByTask.entrySet()) {
+			if (entry.getValue().isEmpty()) {
+				problems.add(String.format("%s has no report matching the current license configuration and commit", entry.getKey()));
+				continue;
+			}
+
+			LicenseShardReport first = entry.getValue().get(0);
+			int count = first.shard().count();
+			var seen = new BitSet(count);
+
+			for (var report : entry.getValue()) {
+				if (report.shard().count() != count) {
+					problems.add(String.format("%s has reports with mismatching shard counts (%d and %d)",
+							entry.getKey(), count, report.shard().count()));
+					continue;
+				} else if (!report.revision().equals(first.revision())) {
+					problems.add(String.format("%s has reports of different commits (%s and %s)",
+							entry.getKey(), first.revision(), report.revision()));
+					continue;
+				} else if (seen.get(report.shard().index() - 1)) {
+					problems.add(String.format("%s has several reports of shard %s", entry.getKey(), report.shard()));
+					continue;
+				}
+
+				seen.set(report.shard().index() - 1);
+				total += report.total();
+				failed.addAll(report.failed());
+			}
+
+			for (int i = seen.nextClearBit(0); i < count; i = seen.nextClearBit(i + 1)) {
+				problems.add(String.format("%s is missing the report of shard %d/%d", entry.getKey(), i + 1, count));
+			}
+		}
+
+		return new Aggregate(total, List.copyOf(failed), List.copyOf(problems), outdated);
+	}
+
+	/**
+	 * Represents the merged verdict of sharded license checks.
+	 *
+	 * @param total the number of checked files
+	 * @param failed the project-relative paths of the files which failed the checks
+	 * @param problems the reasons why the reports are incomplete
+	 * @param outdated the number of ignored outdated reports
+	 */
+	public record Aggregate(int total, List<String> failed, List<String> problems, int outdated) {}
+}
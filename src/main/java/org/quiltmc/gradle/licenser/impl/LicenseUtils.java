@@ -16,14 +16,18 @@
 
 package org.quiltmc.gradle.licenser.impl;
 
-import org.gradle.api.GradleException;
 import org.gradle.api.Project;
 import org.jetbrains.annotations.ApiStatus;
 import org.jetbrains.annotations.Nullable;
 import org.quiltmc.gradle.licenser.api.license.HeaderFormat;
+import org.quiltmc.gradle.licenser.api.license.HeaderTemplate;
 import org.quiltmc.gradle.licenser.api.license.LicenseHeader;
+import org.quiltmc.gradle.licenser.api.license.comment.JavaLicenseComment;
+import org.quiltmc.gradle.licenser.api.license.comment.LicenseComment;
 
+import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -34,6 +38,9 @@ import java.util.regex.Pattern;
 
 @ApiStatus.Internal
 public class LicenseUtils {
+	private static final char TEXT_MARKER = '\u0001';
+	private static final char VARIABLE_MARKER = '\u0002';
+
 	private LicenseUtils() {
 		throw new UnsupportedOperationException("LicenseUtils only contains static definitions.");
 	}
@@ -61,26 +68,153 @@ public class LicenseUtils {
 		}
 	}
 
+	/**
+	 * Returns the path of a file relative to the given root, using {@code /} as separator on every platform.
+	 *
+	 * @param root the root path
+	 * @param path the path of the file
+	 * @return the relative path
+	 */
+	public static String getRelativePath(Path root, Path path) {
+		var relative = root.relativize(path.toAbsolutePath()).toString();
+
+		if (!File.separator.equals("/")) {
+			relative = relative.replace(File.separator, "/");
+		}
+
+		return relative;
+	}
+
+	/**
+	 * Builds the pattern validating the {@linkplain JavaLicenseComment#JAVA Java} license comment of the given header.
+	 *
+	 * @param headerFormat the header format
+	 * @return the validator pattern
+	 * @see #getValidator(HeaderFormat, LicenseComment)
+	 */
 	public static Pattern getValidator(HeaderFormat headerFormat) {
+		return getValidator(headerFormat, JavaLicenseComment.JAVA);
+	}
+
+	/**
+	 * Builds the pattern validating the license comment of the given header, written in the given comment style.
+	 * <p>
+	 * Each distinct variable of the header {@linkplain HeaderTemplate#getVariables() template} is captured in its own group,
+	 * numbered in the order of first occurrence. Later occurrences of the same variable must match the captured value.
+	 * <p>
+	 * The pattern is anchored at the start of the input,
+	 * matchers must start at the {@linkplain LicenseComment#findHeaderStart(CharSequence) header start} of the source.
+	 *
+	 * @param headerFormat the header format
+	 * @param comment the comment style
+	 * @return the validator pattern
+	 */
+	public static Pattern getValidator(HeaderFormat headerFormat, LicenseComment comment) {
+		return compileValidator(headerFormat, getValidatorLayout(headerFormat, getMarkedLines(headerFormat), comment));
+	}
+
+	/**
+	 * {@return the lines of the given header with its literal text and variables delimited by markers}
+	 *
+	 * @param headerFormat the header format
+	 * @see #getValidatorLayout(HeaderFormat, String[], LicenseComment)
+	 */
+	public static String[] getMarkedLines(HeaderFormat headerFormat) {
+		HeaderTemplate template = headerFormat.getTemplate();
+		var lines = new String[template.getLineCount()];
+		var lineBuilder = new StringBuilder();
+
+		for (int i = 0; i < template.getLineCount(); i++) {
+			List<HeaderTemplate.Part> parts = template.getLine(i);
+
+			if (parts.size() == 1 && !parts.get(0).variable() && parts.get(0).value().isBlank()) {
+				lines[i] = "";
+				continue;
+			}
+
+			lineBuilder.setLength(0);
+
+			for (var part : parts) {
+				char marker = part.variable() ? VARIABLE_MARKER : TEXT_MARKER;
+				lineBuilder.append(marker).append(part.value()).append(marker);
+			}
+
+			lines[i] = lineBuilder.toString();
+		}
+
+		return lines;
+	}
+
+	/**
+	 * Lays out the marked lines of a header in the given comment style.
+	 * <p>
+	 * The validator of the header only depends on this layout, comment styles laying out the header the same way share it.
+	 *
+	 * @param headerFormat the header format
+	 * @param markedLines the {@linkplain #getMarkedLines(HeaderFormat) marked lines} of the header
+	 * @param comment the comment style
+	 * @return the layout of the header
+	 */
+	public static String getValidatorLayout(HeaderFormat headerFormat, String[] markedLines, LicenseComment comment) {
+		return comment.getLicenseComment(markedLines, headerFormat.getLineSeparator());
+	}
+
+	/**
+	 * Compiles the pattern validating the license comment of the given header from its layout in a comment style.
+	 *
+	 * @param headerFormat the header format
+	 * @param layout the {@linkplain #getValidatorLayout(HeaderFormat, String[], LicenseComment) layout} of the header
+	 * @return the validator pattern
+	 * @see #getValidator(HeaderFormat, LicenseComment)
+	 */
+	public static Pattern compileValidator(HeaderFormat headerFormat, String layout) {
 		String singleYearRegex = "\\d{4}(?: ?- ?\\d{4})?";
+		String yearRegex = "(?:" + singleYearRegex + ")(?:, " + singleYearRegex + ")*";
+
+		List<String> variables = headerFormat.getTemplate().getVariables();
+		var captured = new boolean[variables.size()];
+
+		// The markers tell the header apart from the comment syntax.
+		var patternBuilder = new StringBuilder("^");
+		int index = 0;
+
+		while (index < layout.length()) {
+			char c = layout.charAt(index);
+
+			if (c != TEXT_MARKER && c != VARIABLE_MARKER) {
+				int end = index + 1;
+
+				while (end < layout.length() && layout.charAt(end) != TEXT_MARKER && layout.charAt(end) != VARIABLE_MARKER) {
+					end++;
+				}
+
+				patternBuilder.append(Pattern.quote(layout.substring(index, end)));
+				index = end;
+				continue;
+			}
 
-		String pattern = escapeRegexControl(headerFormat.getSource())
-				.replace("${" + LicenseHeader.YEAR_KEY + "}", "((?:" + singleYearRegex
-						+ ")(?:, " + singleYearRegex + ")*)");
-		String[] lines = pattern.split(headerFormat.getLineSeparator());
-		var patternBuilder = new StringBuilder("\\/\\*" + headerFormat.getLineSeparator());
+			int end = layout.indexOf(c, index + 1);
+			String value = layout.substring(index + 1, end);
+			index = end + 1;
 
-		for (var line : lines) {
-			if (line.isBlank()) {
-				patternBuilder.append(" \\*").append(headerFormat.getLineSeparator());
+			if (c == TEXT_MARKER) {
+				patternBuilder.append(escapeRegexControl(value));
+				continue;
+			}
+
+			int group = variables.indexOf(value);
+
+			if (captured[group]) {
+				patternBuilder.append("(?:\\").append(group + 1).append(')');
 			} else {
-				patternBuilder.append(" \\* ").append(line).append(headerFormat.getLineSeparator());
+				captured[group] = true;
+				patternBuilder.append('(')
+						.append(value.equals(LicenseHeader.YEAR_KEY) ? yearRegex : ".*?")
+						.append(')');
 			}
 		}
 
-		patternBuilder.append(" \\*\\/").append(headerFormat.getLineSeparator()).append(headerFormat.getLineSeparator());
-
-		return Pattern.compile("^" + patternBuilder);
+		return Pattern.compile(patternBuilder.toString());
 	}
 
 	public static @Nullable Pattern getMatcher(HeaderFormat headerFormat) {
@@ -103,13 +237,30 @@ public class LicenseUtils {
 	}
 
 	public static <T extends Enum<T>> T getEnumValue(HeaderFormat format, String key, T defaultValue) {
+		return getEnumValue(format, key, defaultValue, defaultValue.getDeclaringClass().getEnumConstants());
+	}
+
+	/**
+	 * Gets an enum value by key in the metadata of the license header, among the given constants.
+	 * <p>
+	 * Listing the constants of an enum reflectively resolves the types of its methods,
+	 * which fails without Gradle on the classpath for enums with methods using Gradle types, such as the year selection mode.
+	 *
+	 * @param format the license header format
+	 * @param key the key of the enum metadata
+	 * @param defaultValue the default value of the enum value
+	 * @param constants the constants of the enum
+	 * @param <T> the type of the enum
+	 * @return the enum value
+	 */
+	public static <T extends Enum<T>> T getEnumValue(HeaderFormat format, String key, T defaultValue, T[] constants) {
 		var match = key + ": ";
 
 		for (var line : format.getMetadataLines()) {
 			if (line.startsWith(match)) {
 				String valueStr = line.substring(match.length()).strip();
 
-				for (var constant : defaultValue.getDeclaringClass().getEnumConstants()) {
+				for (var constant : constants) {
 					if (constant.name().equalsIgnoreCase(valueStr)) {
 						return constant;
 					}
@@ -141,7 +292,7 @@ public class LicenseUtils {
 		try {
 			return Files.readString(path, StandardCharsets.UTF_8);
 		} catch (IOException e) {
-			throw new GradleException(String.format("Failed to load file %s", path), e);
+			throw new UncheckedIOException(String.format("Failed to load file %s", path), e);
 		}
 	}
 
@@ -160,8 +311,23 @@ public class LicenseUtils {
 		return list;
 	}
 
+	/**
+	 * @deprecated use {@link #getBackupPath(Path, Path, Path)} with the build directory of the project instead
+	 */
+	@Deprecated(since = "2.1.0", forRemoval = true)
 	public static @Nullable Path getBackupPath(Project project, Path rootPath, Path path) {
-		Path backupDir = project.getBuildDir().toPath().resolve("quilt/licenser");
+		return getBackupPath(project.getBuildDir().toPath(), rootPath, path);
+	}
+
+	/**
+	 * {@return the path to which the given file is backed up before being updated, or {@code null} if it cannot be backed up}
+	 *
+	 * @param buildDir the build directory of the project
+	 * @param rootPath the root path of the project
+	 * @param path the path of the file
+	 */
+	public static @Nullable Path getBackupPath(Path buildDir, Path rootPath, Path path) {
+		Path backupDir = buildDir.resolve("quilt/licenser");
 
 		try {
 			Files.createDirectories(backupDir);
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2022-2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.gradle.licenser.impl;
+
+import org.gradle.api.Project;
+import org.gradle.api.provider.Provider;
+import org.gradle.api.services.BuildService;
+import org.gradle.api.services.BuildServiceParameters;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+import org.quiltmc.gradle.licenser.api.license.LicenseHeader;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Represents the registry of files already processed during a build, along with their verdict.
+ * <p>
+ * Source sets may share source directories, in which case the same physical file would be read, validated
+ * and sometimes rewritten by several tasks. Tasks instead reuse the verdict of the first task which processed the file.
+ */
+@ApiStatus.Internal
+public abstract class LicenseVerdictRegistry implements BuildService<BuildServiceParameters.None> {
+	public static final String NAME = "quiltLicenserVerdicts";
+
+	private final Map<Path, Map<Key, Verdict>> verdicts = new ConcurrentHashMap<>();
+
+	/**
+	 * Registers the verdict registry if absent.
+	 *
+	 * @param project the project requesting the registry
+	 * @return the verdict registry provider
+	 */
+	public static Provider<LicenseVerdictRegistry> register(Project project) {
+		return project.getGradle().getSharedServices().registerIfAbsent(NAME, LicenseVerdictRegistry.class, spec -> {});
+	}
+
+	/**
+	 * {@return the verdict of the given file if it already got processed during this build, or {@code null} otherwise}
+	 *
+	 * @param action the action performed on the file
+	 * @param header the license header the file got processed with
+	 * @param path the path of the file
+	 */
+	public @Nullable Verdict get(Action action, LicenseHeader header, Path path) {
+		Map<Key, Verdict> fileVerdicts = this.verdicts.get(path.toAbsolutePath().normalize());
+		return fileVerdicts == null ? null : fileVerdicts.get(new Key(action, header));
+	}
+
+	/**
+	 * Records the verdict of a processed file.
+	 * <p>
+	 * A file updated by an {@linkplain Action#APPLY apply} invalidates the verdicts of the checks of that file,
+	 * as they were made against its previous content.
+	 *
+	 * @param action the action performed on the file
+	 * @param header the license header the file got processed with
+	 * @param path the path of the file
+	 * @param verdict the verdict
+	 */
+	public void put(Action action, LicenseHeader header, Path path, Verdict verdict) {
+		this.verdicts.compute(path.toAbsolutePath().normalize(), (key, fileVerdicts) -> {
+			if (fileVerdicts == null) {
+				fileVerdicts = new ConcurrentHashMap<>();
+			} else if (action == Action.APPLY && verdict.result()) {
+				fileVerdicts.keySet().removeIf(verdictKey -> verdictKey.action() != Action.APPLY);
+			}
+
+			fileVerdicts.putIfAbsent(new Key(action, header), verdict);
+			return fileVerdicts;
+		});
+	}
+
+	public enum Action {
+		CHECK,
+		/**
+		 * A check which also requires the years of the license headers to be up to date.
+		 */
+		STRICT_CHECK,
+		APPLY
+	}
+
+	/**
+	 * Represents the verdict of a processed file.
+	 *
+	 * @param task the path of the task which processed the file
+	 * @param result {@code true} if the file passed the check or got updated, depending on the action, or {@code false} otherwise
+	 */
+	public record Verdict(String task, boolean result) {}
+
+	/**
+	 * Headers are compared by identity, as verdicts only stay valid for the exact same rules and variables.
+	 */
+	private record Key(Action action, LicenseHeader header) {}
+}
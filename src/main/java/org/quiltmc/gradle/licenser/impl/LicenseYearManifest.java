@@ -0,0 +1,201 @@
+/*
+ * Copyright 2022-2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.gradle.licenser.impl;
+
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+import org.quiltmc.gradle.licenser.api.license.ModificationYearLookup;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.TreeMap;
+
+/**
+ * Represents the years of the files of a project, exported from a full clone of its git repository.
+ * <p>
+ * Builds without git history, such as shallow clones, read their years from the manifest instead of the repository.
+ * Each line holds the last modification year, the creation year ({@code -} for directories) and the path of a file
+ * or directory relative to the project directory, the project directory itself being the empty path.
+ */
+@ApiStatus.Internal
+public final class LicenseYearManifest {
+	private static final String HEADER = "# quilt-licenser years v1";
+	private static final String NO_YEAR = "-";
+
+	private final Path root;
+	private final Map<String, Entry> entries;
+
+	private LicenseYearManifest(Path root, Map<String, Entry> entries) {
+		this.root = root;
+		this.entries = entries;
+	}
+
+	/**
+	 * Gets the last modification year of the given path, ignoring modifications older than the given year.
+	 * <p>
+	 * Paths missing from the manifest have been created since it got exported, and are modified in the current year.
+	 *
+	 * @param path the path of a file, or of the project directory
+	 * @param sinceYear the year before which modifications are ignored, or {@link ModificationYearLookup#UNBOUNDED}
+	 * @param currentYear the current year
+	 * @return the last modification year, or an empty value if the path has not been modified since the given year
+	 */
+	public OptionalInt getModificationYear(Path path, int sinceYear, int currentYear) {
+		Entry entry = this.entries.get(LicenseUtils.getRelativePath(this.root, path));
+		int year = entry == null ? currentYear : entry.modificationYear();
+		return year < sinceYear ? OptionalInt.empty() : OptionalInt.of(year);
+	}
+
+	/**
+	 * {@return the creation year of the given file, or the current year if it is missing from the manifest}
+	 *
+	 * @param path the path of the file
+	 * @param currentYear the current year
+	 */
+	public int getCreationYear(Path path, int currentYear) {
+		Entry entry = this.entries.get(LicenseUtils.getRelativePath(this.root, path));
+		return entry == null || entry.creationYear() == null ? currentYear : entry.creationYear();
+	}
+
+	/**
+	 * {@return the number of paths in this manifest}
+	 */
+	public int size() {
+		return this.entries.size();
+	}
+
+	/**
+	 * Reads a manifest.
+	 *
+	 * @param file the manifest file
+	 * @param root the directory the paths of the manifest are relative to
+	 * @return the manifest
+	 */
+	public static LicenseYearManifest read(Path file, Path root) {
+		var entries = new HashMap<String, Entry>();
+
+		try {
+			var lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+
+			if (lines.isEmpty() || !lines.get(0).equals(HEADER)) {
+				throw new IllegalStateException(String.format("%s is not a license year manifest.", file));
+			}
+
+			for (var line : lines.subList(1, lines.size())) {
+				// The path is last, as it may contain spaces.
+				int modificationEnd = line.indexOf(' ');
+				int creationEnd = line.indexOf(' ', modificationEnd + 1);
+
+				if (modificationEnd == -1 || creationEnd == -1) {
+					throw new IllegalStateException(String.format("Malformed line in license year manifest %s: %s", file, line));
+				}
+
+				String creationYear = line.substring(modificationEnd + 1, creationEnd);
+				entries.put(line.substring(creationEnd + 1), new Entry(
+						Integer.parseInt(line.substring(0, modificationEnd)),
+						creationYear.equals(NO_YEAR) ? null : Integer.valueOf(creationYear)
+				));
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(String.format("Failed to read license year manifest %s", file), e);
+		} catch (NumberFormatException e) {
+			throw new IllegalStateException(String.format("Malformed year in license year manifest %s", file), e);
+		}
+
+		return new LicenseYearManifest(root, entries);
+	}
+
+	/**
+	 * Exports the years of the files of a project from its git repository.
+	 *
+	 * @param file the manifest file
+	 * @param root the project directory
+	 * @param repositoryRoot the root of the git repository
+	 * @param yearCache the last commit years of the repository
+	 * @param creationYears the creation years of the repository
+	 * @return the number of exported paths
+	 */
+	public static int write(Path file, Path root, Path repositoryRoot, GitYearCache yearCache, GitCreationYears creationYears) {
+		String prefix = LicenseUtils.getRelativePath(repositoryRoot, root);
+		var entries = new TreeMap<String, Entry>();
+
+		var creationYearsByPath = new HashMap<String, Integer>();
+		var directories = new HashSet<String>();
+
+		// The files at HEAD are the ones with a creation year, the year cache also remembers deleted paths.
+		creationYears.forEachYear((path, year) -> {
+			String relativePath = relativize(prefix, path);
+
+			if (relativePath != null) {
+				creationYearsByPath.put(relativePath, year);
+
+				for (int i = relativePath.lastIndexOf('/'); i != -1; i = relativePath.lastIndexOf('/', i - 1)) {
+					directories.add(relativePath.substring(0, i));
+				}
+
+				directories.add("");
+			}
+		});
+		yearCache.forEachYear((path, year) -> {
+			String relativePath = relativize(prefix, path);
+
+			if (relativePath != null && (creationYearsByPath.containsKey(relativePath) || directories.contains(relativePath))) {
+				entries.put(relativePath, new Entry(year, creationYearsByPath.get(relativePath)));
+			}
+		});
+
+		var lines = new ArrayList<String>(entries.size() + 1);
+		lines.add(HEADER);
+		entries.forEach((path, entry) -> lines.add(entry.modificationYear() + " "
+				+ (entry.creationYear() == null ? NO_YEAR : entry.creationYear()) + " " + path));
+
+		try {
+			Path directory = file.toAbsolutePath().getParent();
+			Files.createDirectories(directory);
+			Path tempFile = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+			Files.write(tempFile, lines, StandardCharsets.UTF_8);
+			Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			throw new UncheckedIOException(String.format("Failed to write license year manifest %s", file), e);
+		}
+
+		return entries.size();
+	}
+
+	private static @Nullable String relativize(String prefix, String path) {
+		if (prefix.isEmpty()) {
+			return path;
+		} else if (path.equals(prefix)) {
+			return "";
+		} else if (path.startsWith(prefix) && path.length() > prefix.length() && path.charAt(prefix.length()) == '/') {
+			return path.substring(prefix.length() + 1);
+		}
+
+		return null;
+	}
+
+	private record Entry(int modificationYear, @Nullable Integer creationYear) {}
+}
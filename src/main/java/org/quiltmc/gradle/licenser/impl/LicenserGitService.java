@@ -0,0 +1,419 @@
+/*
+ * Copyright 2022-2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.gradle.licenser.impl;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.internal.storage.commitgraph.CommitGraph;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.gradle.api.GradleException;
+import org.gradle.api.Project;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.file.RegularFile;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.api.provider.Property;
+import org.gradle.api.provider.Provider;
+import org.gradle.api.services.BuildService;
+import org.gradle.api.services.BuildServiceParameters;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+import org.quiltmc.gradle.licenser.QuiltLicenserGradlePlugin;
+import org.quiltmc.gradle.licenser.extension.QuiltLicenserGradleExtension;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Represents the git state shared by every license task of a build.
+ * <p>
+ * The repository is opened once per build, and the {@link GitYearCache} is loaded and updated at most once per build.
+ * The {@link GitIgnoreRules} are also shared, so each {@code .gitignore} file is parsed once per build,
+ * as are the {@link GitCreationYears}, so the history is walked at most once per build to find the creation years.
+ * Builds reading their years from a {@link LicenseYearManifest} do not open the repository at all.
+ */
+@ApiStatus.Internal
+public abstract class LicenserGitService implements BuildService<LicenserGitService.Parameters>, AutoCloseable {
+	public static final String NAME = "quiltLicenserGit";
+	private static final Logger LOGGER = Logging.getLogger(LicenserGitService.class);
+
+	private @Nullable Git git;
+	private boolean gitUnavailable;
+	private @Nullable GitYearCache yearCache;
+	private boolean yearCacheUnavailable;
+	private @Nullable GitIgnoreRules ignoreRules;
+	private @Nullable CommitGraph commitGraph;
+	private boolean commitGraphLoaded;
+	private @Nullable GitCreationYears creationYears;
+	private boolean creationYearsLoaded;
+	private final Map<Path, LicenseYearManifest> yearManifests = new HashMap<>();
+	private int currentYear;
+
+	public interface Parameters extends BuildServiceParameters {
+		/**
+		 * {@return the root directory of the git repository}
+		 */
+		DirectoryProperty getRootDirectory();
+
+		/**
+		 * {@return the file in which the git year cache is persisted}
+		 */
+		RegularFileProperty getYearCacheFile();
+
+		/**
+		 * {@return the file into which a commit-graph is generated if the repository has none, absent to not generate any}
+		 */
+		RegularFileProperty getCommitGraphFile();
+
+		/**
+		 * {@return whether packs should be memory-mapped, absent to keep the JGit default}
+		 */
+		Property<Boolean> getPackedGitMmap();
+
+		/**
+		 * {@return the size in bytes of the pack windows, absent to keep the JGit default}
+		 */
+		Property<Integer> getPackedGitWindowSize();
+
+		/**
+		 * {@return the total size in bytes of the pack windows kept in memory, absent to keep the JGit default}
+		 */
+		Property<Long> getPackedGitLimit();
+
+		/**
+		 * {@return the size in bytes of the delta base cache, absent to keep the JGit default}
+		 */
+		Property<Integer> getDeltaBaseCacheLimit();
+
+		/**
+		 * {@return the clock the current year is read from, absent to use the system clock}
+		 */
+		Property<String> getClock();
+	}
+
+	/**
+	 * Registers the shared git service if absent.
+	 *
+	 * @param project the project requesting the service
+	 * @return the shared git service provider
+	 */
+	public static Provider<LicenserGitService> register(Project project) {
+		return project.getGradle().getSharedServices().registerIfAbsent(NAME, LicenserGitService.class, spec -> {
+			var rootProject = project.getRootProject();
+			File projectCacheDir = project.getGradle().getStartParameter().getProjectCacheDir();
+
+			if (projectCacheDir == null) {
+				projectCacheDir = new File(rootProject.getProjectDir(), ".gradle");
+			}
+
+			spec.getParameters().getRootDirectory().set(rootProject.getProjectDir());
+			spec.getParameters().getYearCacheFile().set(new File(projectCacheDir, "quilt-licenser/git-years.bin"));
+
+			var commitGraphFile = new File(projectCacheDir, "quilt-licenser/commit-graph");
+			spec.getParameters().getCommitGraphFile().fileProvider(project.provider(
+					() -> getProjectValues(rootProject, QuiltLicenserGradleExtension::isGenerateCommitGraph).containsKey(true)
+							? commitGraphFile : null
+			));
+			spec.getParameters().getPackedGitMmap().set(project.provider(
+					() -> getCacheSetting(rootProject, "packedGitMmap", QuiltLicenserGradleExtension::getPackedGitMmap)
+			));
+			spec.getParameters().getPackedGitWindowSize().set(project.provider(
+					() -> getCacheSetting(rootProject, "packedGitWindowSize", QuiltLicenserGradleExtension::getPackedGitWindowSize)
+			));
+			spec.getParameters().getPackedGitLimit().set(project.provider(
+					() -> getCacheSetting(rootProject, "packedGitLimit", QuiltLicenserGradleExtension::getPackedGitLimit)
+			));
+			spec.getParameters().getDeltaBaseCacheLimit().set(project.provider(
+					() -> getCacheSetting(rootProject, "deltaBaseCacheLimit", QuiltLicenserGradleExtension::getDeltaBaseCacheLimit)
+			));
+			spec.getParameters().getClock().set(project.provider(
+					() -> getBuildSetting(rootProject, "clock", QuiltLicenserGradleExtension::getClock)
+			));
+		});
+	}
+
+	/**
+	 * {@return the value of a setting which applies to the whole build, or {@code null} if no project sets it}
+	 * <p>
+	 * The service is shared by the whole build, so every project applying the plugin must agree on the value.
+	 *
+	 * @param rootProject the root project of the build
+	 * @param name the name of the setting, used in the error message
+	 * @param getter the getter of the setting, returning {@code null} if the setting is not set
+	 * @throws GradleException if projects set different values
+	 */
+	private static <T> @Nullable T getBuildSetting(Project rootProject, String name, Function<QuiltLicenserGradleExtension, @Nullable T> getter) {
+		Map<T, List<String>> values = getProjectValues(rootProject, getter);
+
+		if (values.size() > 1) {
+			throw new GradleException(String.format(
+					"The license %s applies to the whole build, but the projects set different values: %s.", name, values
+			));
+		}
+
+		return values.isEmpty() ? null : values.keySet().iterator().next();
+	}
+
+	/**
+	 * {@return the value of a JGit cache setting, or {@code null} if no project sets it}
+	 * <p>
+	 * The JGit caches are global to the JVM, so the settings apply to the whole build.
+	 * If projects set different values, a warning is logged and the value of the project closest to the root is used.
+	 *
+	 * @param rootProject the root project of the build
+	 * @param name the name of the setting, used in the warning
+	 * @param getter the getter of the setting, returning {@code null} if the setting is not set
+	 */
+	private static <T> @Nullable T getCacheSetting(Project rootProject, String name, Function<QuiltLicenserGradleExtension, @Nullable T> getter) {
+		Map<T, List<String>> values = getProjectValues(rootProject, getter);
+
+		if (values.isEmpty()) {
+			return null;
+		}
+
+		T value = values.keySet().iterator().next();
+
+		if (values.size() > 1) {
+			LOGGER.warn("The git cache setting {} applies to the whole build, but the projects set different values: {}. Using {}.",
+					name, values, value
+			);
+		}
+
+		return value;
+	}
+
+	/**
+	 * {@return the values of a setting mapped to the paths of the projects setting them, in project order}
+	 *
+	 * @param rootProject the root project of the build
+	 * @param getter the getter of the setting, returning {@code null} if the setting is not set
+	 */
+	private static <T> Map<T, List<String>> getProjectValues(Project rootProject, Function<QuiltLicenserGradleExtension, @Nullable T> getter) {
+		Map<T, List<String>> values = new LinkedHashMap<>();
+
+		for (Project project : rootProject.getAllprojects()) {
+			var extension = project.getExtensions().findByType(QuiltLicenserGradleExtension.class);
+			T value = extension == null ? null : getter.apply(extension);
+
+			if (value != null) {
+				values.computeIfAbsent(value, v -> new ArrayList<>()).add(project.getPath());
+			}
+		}
+
+		return values;
+	}
+
+	/**
+	 * {@return the shared git service of the build}
+	 *
+	 * @param project the project requesting the service
+	 */
+	public static LicenserGitService get(Project project) {
+		return register(project).get();
+	}
+
+	/**
+	 * {@return the settings of the JGit caches, which apply to the whole build}
+	 */
+	public GitCacheSettings getCacheSettings() {
+		Parameters parameters = this.getParameters();
+		return new GitCacheSettings(
+				parameters.getPackedGitMmap().getOrNull(), parameters.getPackedGitWindowSize().getOrNull(),
+				parameters.getPackedGitLimit().getOrNull(), parameters.getDeltaBaseCacheLimit().getOrNull()
+		);
+	}
+
+	/**
+	 * {@return the git repository, or {@code null} if the project is not in a git repository}
+	 */
+	public synchronized @Nullable Git getGit() {
+		if (this.git == null && !this.gitUnavailable) {
+			this.getCacheSettings().install();
+
+			try {
+				this.git = Git.open(this.getParameters().getRootDirectory().get().getAsFile());
+			} catch (IOException e) {
+				this.gitUnavailable = true;
+			}
+		}
+
+		return this.git;
+	}
+
+	/**
+	 * {@return the identifier of the commit checked out in the repository, or {@code null} if unknown}
+	 */
+	public synchronized @Nullable String getHeadRevision() {
+		Git git = this.getGit();
+
+		if (git == null) {
+			return null;
+		}
+
+		try {
+			ObjectId head = git.getRepository().resolve(Constants.HEAD);
+			return head == null ? null : head.name();
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * {@return the current year, read once per build from the configured clock}
+	 */
+	public synchronized int getCurrentYear() {
+		if (this.currentYear == 0) {
+			String clock = this.getParameters().getClock().getOrNull();
+
+			try {
+				this.currentYear = (clock == null ? LicenseClock.SYSTEM : LicenseClock.parse(clock)).getCurrentYear(() -> {
+					Git git = this.getGit();
+					return git == null ? null : git.getRepository();
+				});
+			} catch (IllegalArgumentException | IllegalStateException | UncheckedIOException e) {
+				throw new GradleException(e.getMessage(), e);
+			}
+		}
+
+		return this.currentYear;
+	}
+
+	/**
+	 * {@return the up-to-date git year cache, or {@code null} if it could not be loaded}
+	 */
+	public synchronized @Nullable GitYearCache getYearCache() {
+		if (this.yearCache == null && !this.yearCacheUnavailable) {
+			Git git = this.getGit();
+
+			if (git == null) {
+				this.yearCacheUnavailable = true;
+				return null;
+			}
+
+			try {
+				this.yearCache = GitYearCache.load(git.getRepository(),
+						this.getParameters().getYearCacheFile().get().getAsFile().toPath(), LOGGER);
+			} catch (IOException | RuntimeException e) {
+				LOGGER.warn("Failed to load the git year cache, falling back to per-file history walks.", e);
+				this.yearCacheUnavailable = true;
+			}
+		}
+
+		return this.yearCache;
+	}
+
+	/**
+	 * {@return the commit-graph of the repository, or {@code null} if it has none and none could be generated}
+	 */
+	public synchronized @Nullable CommitGraph getCommitGraph() {
+		if (!this.commitGraphLoaded) {
+			this.commitGraphLoaded = true;
+			Git git = this.getGit();
+
+			if (git == null) {
+				return null;
+			}
+
+			RegularFile privateFile = this.getParameters().getCommitGraphFile().getOrNull();
+
+			try {
+				this.commitGraph = GitCommitGraph.load(git.getRepository(),
+						privateFile == null ? null : privateFile.getAsFile().toPath(), LOGGER);
+			} catch (IOException | RuntimeException e) {
+				LOGGER.warn("Failed to load the git commit-graph, history walks will diff every commit.", e);
+			}
+		}
+
+		return this.commitGraph;
+	}
+
+	/**
+	 * {@return the creation years of the files of the repository, or {@code null} if they could not be computed}
+	 */
+	public synchronized @Nullable GitCreationYears getCreationYears() {
+		if (!this.creationYearsLoaded) {
+			this.creationYearsLoaded = true;
+			Git git = this.getGit();
+
+			if (git == null) {
+				return null;
+			}
+
+			try {
+				this.creationYears = GitCreationYears.compute(git.getRepository(), LOGGER);
+			} catch (IOException | RuntimeException e) {
+				LOGGER.warn("Failed to compute the creation years of the files, falling back to the current year.", e);
+			}
+		}
+
+		return this.creationYears;
+	}
+
+	/**
+	 * {@return the year manifest read from the given file, which is only read once per build}
+	 *
+	 * @param file the manifest file
+	 * @param root the directory the paths of the manifest are relative to
+	 */
+	public synchronized LicenseYearManifest getYearManifest(Path file, Path root) {
+		return this.yearManifests.computeIfAbsent(file.toAbsolutePath().normalize(), path -> {
+			LicenseYearManifest manifest = LicenseYearManifest.read(path, root);
+			LOGGER.info("Read the years of {} paths from {}.", manifest.size(), path);
+			return manifest;
+		});
+	}
+
+	/**
+	 * {@return the ignore rules of the git work tree, or {@code null} if the project is not in a git repository}
+	 */
+	public synchronized @Nullable GitIgnoreRules getIgnoreRules() {
+		if (this.ignoreRules == null) {
+			Git git = this.getGit();
+
+			if (git == null) {
+				return null;
+			}
+
+			this.ignoreRules = GitIgnoreRules.load(git.getRepository());
+		}
+
+		return this.ignoreRules;
+	}
+
+	@Override
+	public synchronized void close() {
+		if (this.git != null) {
+			if (QuiltLicenserGradlePlugin.DEBUG_MODE) {
+				LOGGER.lifecycle("Git pack cache: {}.", GitCacheSettings.describeStatistics());
+			} else {
+				LOGGER.info("Git pack cache: {}.", GitCacheSettings.describeStatistics());
+			}
+
+			this.git.close();
+			this.git = null;
+		}
+	}
+}
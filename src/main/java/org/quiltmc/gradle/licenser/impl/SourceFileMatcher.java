@@ -0,0 +1,320 @@
+/*
+ * Copyright 2022-2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.gradle.licenser.impl;
+
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Represents include and exclude Ant-style patterns precompiled for fast matching of relative paths.
+ * <p>
+ * Most patterns used to filter source files are of a few simple shapes, which are matched without any regular expression:
+ * <ul>
+ *     <li>{@code **}{@code /*.ext} patterns are looked up in an extension hash set;</li>
+ *     <li>{@code **}{@code /name} patterns are looked up in a file name hash set;</li>
+ *     <li>{@code some/dir/**} exclude patterns are looked up in a directory-prefix trie;</li>
+ *     <li>{@code **}{@code /some/dir/**} exclude patterns are matched against the end of directory paths.</li>
+ * </ul>
+ * Any other pattern is compiled into a regular expression.
+ * <p>
+ * Exclude patterns also apply to directories, so whole excluded subtrees can be pruned without being listed.
+ */
+@ApiStatus.Internal
+public final class SourceFileMatcher {
+	/**
+	 * The patterns excluded by Gradle by default when walking file trees.
+	 */
+	public static final List<String> DEFAULT_EXCLUDES = List.of(
+			"**/%*%", "**/.#*", "**/._*", "**/#*#", "**/*~", "**/.DS_Store",
+			"**/CVS", "**/CVS/**", "**/.cvsignore",
+			"**/SCCS", "**/SCCS/**",
+			"**/.bzr", "**/.bzr/**", "**/.bzrignore",
+			"**/vssver.scc",
+			"**/.hg", "**/.hg/**", "**/.hgtags", "**/.hgignore", "**/.hgsubstate", "**/.hgsub",
+			"**/.svn", "**/.svn/**",
+			"**/.git", "**/.git/**", "**/.gitignore", "**/.gitmodules", "**/.gitattributes"
+	);
+
+	/**
+	 * The patterns excluded by default from licensing, which match files without standard comment format and binary files.
+	 */
+	public static final List<String> DEFAULT_LICENSE_EXCLUDES = List.of(
+			// Files without standard comment format.
+			"**/*.txt",
+			"**/*.json",
+			"**/*.md", // Supports HTML comments but would require modification of this plugin first
+
+			// Image files
+			"**/*.jpg",
+			"**/*.png",
+			"**/*.gif",
+			"**/*.bmp",
+			"**/*.ico",
+			"**/*.webp",
+			"**/*.qoi",
+
+			// Binary files
+			"**/*.zip",
+			"**/*.jar",
+			"**/*.tar",
+			"**/*.class",
+			"**/*.bin",
+
+			// Manifest
+			"**/MANIFEST.MF",
+			"**/META-INF/services/**"
+	);
+
+	private final PatternGroup includes;
+	private final PatternGroup excludes;
+
+	private SourceFileMatcher(PatternGroup includes, PatternGroup excludes) {
+		this.includes = includes;
+		this.excludes = excludes;
+	}
+
+	/**
+	 * Compiles the given patterns.
+	 *
+	 * @param includes the include patterns, if empty every file is included
+	 * @param excludes the exclude patterns
+	 * @return the compiled matcher
+	 */
+	public static SourceFileMatcher compile(Iterable<String> includes, Iterable<String> excludes) {
+		return new SourceFileMatcher(PatternGroup.compile(includes), PatternGroup.compile(excludes));
+	}
+
+	/**
+	 * {@return {@code true} if the given file or directory is excluded, or {@code false} otherwise}
+	 *
+	 * @param relativePath the path relative to the root of the walked tree, using {@code /} as separator
+	 * @param directory {@code true} if the path is a directory, or {@code false} otherwise
+	 */
+	public boolean isExcluded(String relativePath, boolean directory) {
+		return this.excludes.matches(relativePath, directory);
+	}
+
+	/**
+	 * {@return {@code true} if the given file is selected by this matcher, or {@code false} otherwise}
+	 *
+	 * @param relativePath the path of the file relative to the root of the walked tree, using {@code /} as separator
+	 */
+	public boolean isSelected(String relativePath) {
+		return (this.includes.isEmpty() || this.includes.matches(relativePath, false))
+				&& !this.excludes.matches(relativePath, false);
+	}
+
+	private record PatternGroup(
+			Set<String> extensions, Set<String> names, PrefixTrie directoryPrefixes, List<String> directorySuffixes,
+			List<Pattern> patterns
+	) {
+		static PatternGroup compile(Iterable<String> rawPatterns) {
+			var group = new PatternGroup(new HashSet<>(), new HashSet<>(), new PrefixTrie(), new ArrayList<>(), new ArrayList<>());
+
+			for (var rawPattern : rawPatterns) {
+				group.add(rawPattern);
+			}
+
+			return group;
+		}
+
+		boolean isEmpty() {
+			return this.extensions.isEmpty() && this.names.isEmpty() && this.directoryPrefixes.isEmpty()
+					&& this.directorySuffixes.isEmpty() && this.patterns.isEmpty();
+		}
+
+		void add(String pattern) {
+			pattern = pattern.replace('\\', '/');
+
+			if (pattern.endsWith("/")) {
+				pattern += "**";
+			}
+
+			if (pattern.startsWith("**/")) {
+				String rest = pattern.substring(3);
+
+				if (rest.startsWith("*.") && isLiteralName(rest.substring(2)) && rest.indexOf('.', 2) == -1) {
+					this.extensions.add(rest.substring(2));
+					return;
+				} else if (isLiteralName(rest)) {
+					this.names.add(rest);
+					return;
+				} else if (rest.endsWith("/**") && isLiteral(rest.substring(0, rest.length() - 3))) {
+					this.directorySuffixes.add(rest.substring(0, rest.length() - 3));
+					return;
+				}
+			} else if (pattern.endsWith("/**") && isLiteral(pattern.substring(0, pattern.length() - 3))) {
+				this.directoryPrefixes.add(pattern.substring(0, pattern.length() - 3));
+				return;
+			}
+
+			this.patterns.add(toRegex(pattern));
+		}
+
+		boolean matches(String relativePath, boolean directory) {
+			int nameStart = relativePath.lastIndexOf('/') + 1;
+
+			if (!this.names.isEmpty() && this.names.contains(relativePath.substring(nameStart))) {
+				return true;
+			}
+
+			if (!this.extensions.isEmpty()) {
+				int extensionStart = relativePath.lastIndexOf('.');
+
+				if (extensionStart >= nameStart && this.extensions.contains(relativePath.substring(extensionStart + 1))) {
+					return true;
+				}
+			}
+
+			if (this.directoryPrefixes.matches(relativePath)) {
+				return true;
+			}
+
+			for (var suffix : this.directorySuffixes) {
+				if (matchesDirectorySuffix(relativePath, directory, suffix)) {
+					return true;
+				}
+			}
+
+			for (var pattern : this.patterns) {
+				if (pattern.matcher(relativePath).matches()) {
+					return true;
+				}
+			}
+
+			return false;
+		}
+
+		/**
+		 * Matches {@code **}{@code /suffix/**}, which selects the directory itself and everything under it.
+		 */
+		private static boolean matchesDirectorySuffix(String relativePath, boolean directory, String suffix) {
+			if (directory && (relativePath.equals(suffix) || relativePath.endsWith("/" + suffix))) {
+				return true;
+			}
+
+			// A file matches if it is anywhere under such a directory.
+			return relativePath.startsWith(suffix + "/") || relativePath.contains("/" + suffix + "/");
+		}
+	}
+
+	private static boolean isLiteral(String pattern) {
+		return !pattern.isEmpty() && pattern.indexOf('*') == -1 && pattern.indexOf('?') == -1;
+	}
+
+	private static boolean isLiteralName(String pattern) {
+		return isLiteral(pattern) && pattern.indexOf('/') == -1;
+	}
+
+	private static Pattern toRegex(String pattern) {
+		var regex = new StringBuilder();
+		int i = 0;
+
+		while (i < pattern.length()) {
+			char c = pattern.charAt(i);
+
+			if (i == 0 && pattern.startsWith("**/")) {
+				regex.append("(?:.*/)?");
+				i += 3;
+			} else if (pattern.startsWith("/**/", i)) {
+				regex.append("(?:/.*)?/");
+				i += 4;
+			} else if (pattern.startsWith("/**", i) && i + 3 == pattern.length()) {
+				regex.append("(?:/.*)?");
+				i += 3;
+			} else if (pattern.startsWith("**", i)) {
+				regex.append(".*");
+				i += 2;
+			} else if (c == '*') {
+				regex.append("[^/]*");
+				i++;
+			} else if (c == '?') {
+				regex.append("[^/]");
+				i++;
+			} else {
+				int next = i + 1;
+
+				while (next < pattern.length() && pattern.charAt(next) != '*' && pattern.charAt(next) != '?'
+						&& !pattern.startsWith("/**", next)) {
+					next++;
+				}
+
+				regex.append(Pattern.quote(pattern.substring(i, next)));
+				i = next;
+			}
+		}
+
+		return Pattern.compile(regex.toString());
+	}
+
+	/**
+	 * Represents a trie of directory path segments.
+	 */
+	private static final class PrefixTrie {
+		private final Node root = new Node();
+
+		void add(String path) {
+			Node node = this.root;
+
+			for (var segment : path.split("/")) {
+				node = node.children.computeIfAbsent(segment, s -> new Node());
+			}
+
+			node.terminal = true;
+		}
+
+		boolean isEmpty() {
+			return this.root.children.isEmpty();
+		}
+
+		/**
+		 * {@return {@code true} if the given path is one of the prefixes, or is under one of them}
+		 */
+		boolean matches(String path) {
+			@Nullable Node node = this.root;
+			int start = 0;
+
+			while (node != null && !node.children.isEmpty()) {
+				int end = path.indexOf('/', start);
+				node = node.children.get(end == -1 ? path.substring(start) : path.substring(start, end));
+
+				if (node != null && node.terminal) {
+					return true;
+				} else if (end == -1) {
+					return false;
+				}
+
+				start = end + 1;
+			}
+
+			return false;
+		}
+
+		private static final class Node {
+			private final Map<String, Node> children = new HashMap<>();
+			private boolean terminal;
+		}
+	}
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2022-2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.gradle.licenser.impl;
+
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Sniffs the first block of source files to skip binary and oversized files before they are fully read.
+ * <p>
+ * A sniffer reuses its buffers and is not thread-safe.
+ */
+@ApiStatus.Internal
+public final class SourceFileSniffer {
+	public static final int BLOCK_SIZE = 8192;
+
+	private final long maxFileSize;
+	private final ByteBuffer block = ByteBuffer.allocate(BLOCK_SIZE);
+	// A block of UTF-8 never decodes to more chars than it has bytes.
+	private final CharBuffer decoded = CharBuffer.allocate(BLOCK_SIZE);
+	private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder();
+
+	/**
+	 * @param maxFileSize the maximum size in bytes of the files to process
+	 */
+	public SourceFileSniffer(long maxFileSize) {
+		this.maxFileSize = maxFileSize;
+	}
+
+	/**
+	 * Sniffs the given file.
+	 *
+	 * @param path the path of the file
+	 * @return the reason why the file should be skipped, or {@code null} if it should be processed
+	 */
+	public @Nullable SkipReason sniff(Path path) {
+		try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			long size = channel.size();
+
+			if (size > this.maxFileSize) {
+				return SkipReason.TOO_LARGE;
+			}
+
+			this.block.clear();
+
+			while (this.block.hasRemaining() && channel.read(this.block) != -1) {
+				// Keep reading until the block is full or the end of the file is reached.
+			}
+
+			this.block.flip();
+
+			for (int i = 0; i < this.block.limit(); i++) {
+				if (this.block.get(i) == 0) {
+					return SkipReason.BINARY;
+				}
+			}
+
+			// A multibyte sequence may be cut at the end of a partial block, which only is an error at the end of the file.
+			boolean endOfInput = this.block.limit() >= size;
+			this.decoded.clear();
+
+			if (this.decoder.reset().decode(this.block, this.decoded, endOfInput).isError()) {
+				return SkipReason.NOT_UTF8;
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(String.format("Failed to read file %s", path), e);
+		}
+
+		return null;
+	}
+
+	/**
+	 * Represents the reason why a file is skipped.
+	 */
+	public enum SkipReason {
+		TOO_LARGE("larger than the maximum file size"),
+		BINARY("binary file"),
+		NOT_UTF8("not valid UTF-8");
+
+		private final String description;
+
+		SkipReason(String description) {
+			this.description = description;
+		}
+
+		public String getDescription() {
+			return this.description;
+		}
+	}
+}
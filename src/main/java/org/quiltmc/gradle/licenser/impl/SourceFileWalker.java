@@ -0,0 +1,141 @@
+/*
+ * Copyright 2022-2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.gradle.licenser.impl;
+
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileSystemLoopException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Walks source directories and hands the selected files over as soon as they are found.
+ * <p>
+ * Directories excluded by any of the matchers are pruned without being listed.
+ */
+@ApiStatus.Internal
+public final class SourceFileWalker {
+	private SourceFileWalker() {
+		throw new UnsupportedOperationException("SourceFileWalker only contains static definitions.");
+	}
+
+	/**
+	 * Walks the given directory.
+	 *
+	 * @param root the directory to walk
+	 * @param matchers the matchers which must all select a file for it to be visited
+	 * @param action the action to run on each selected file
+	 */
+	public static void walk(Path root, List<SourceFileMatcher> matchers, Consumer<Path> action) {
+		walk(root, matchers, null, action);
+	}
+
+	/**
+	 * Walks the given directory, skipping the files and directories ignored by git.
+	 *
+	 * @param root the directory to walk
+	 * @param matchers the matchers which must all select a file for it to be visited
+	 * @param ignoreRules the git ignore rules, or {@code null} if ignored files should be visited
+	 * @param action the action to run on each selected file
+	 */
+	public static void walk(Path root, List<SourceFileMatcher> matchers, @Nullable GitIgnoreRules ignoreRules, Consumer<Path> action) {
+		if (ignoreRules != null && ignoreRules.isIgnored(root, true)) {
+			return;
+		}
+
+		int rootLength = root.toString().length() + 1;
+
+		try {
+			Files.walkFileTree(root, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE, new SimpleFileVisitor<>() {
+				@Override
+				public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+					if (dir.equals(root)) {
+						return FileVisitResult.CONTINUE;
+					}
+
+					String relativePath = getRelativePath(dir, rootLength);
+
+					for (var matcher : matchers) {
+						if (matcher.isExcluded(relativePath, true)) {
+							return FileVisitResult.SKIP_SUBTREE;
+						}
+					}
+
+					if (ignoreRules != null && ignoreRules.isIgnored(dir, true)) {
+						return FileVisitResult.SKIP_SUBTREE;
+					}
+
+					return FileVisitResult.CONTINUE;
+				}
+
+				@Override
+				public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+					if (!attrs.isRegularFile()) {
+						return FileVisitResult.CONTINUE;
+					}
+
+					String relativePath = getRelativePath(file, rootLength);
+
+					for (var matcher : matchers) {
+						if (!matcher.isSelected(relativePath)) {
+							return FileVisitResult.CONTINUE;
+						}
+					}
+
+					if (ignoreRules != null && ignoreRules.isIgnored(file, false)) {
+						return FileVisitResult.CONTINUE;
+					}
+
+					action.accept(file);
+					return FileVisitResult.CONTINUE;
+				}
+
+				@Override
+				public FileVisitResult visitFileFailed(Path file, IOException exc) throws IOException {
+					if (exc instanceof FileSystemLoopException) {
+						return FileVisitResult.CONTINUE;
+					}
+
+					throw exc;
+				}
+			});
+		} catch (IOException e) {
+			throw new UncheckedIOException(String.format("Failed to walk source directory %s", root), e);
+		}
+	}
+
+	private static String getRelativePath(Path path, int rootLength) {
+		var relativePath = path.toString().substring(rootLength);
+
+		if (!File.separator.equals("/")) {
+			relativePath = relativePath.replace(File.separator, "/");
+		}
+
+		return relativePath;
+	}
+}
@@ -0,0 +1,271 @@
+/*
+ * Copyright 2022-2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.quiltmc.gradle.licenser.impl;
+
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Watches source directories and hands the created or modified source files over in batches.
+ * <p>
+ * Events are debounced: a batch is only handed over once no event has been received for the debounce delay,
+ * so a burst of writes, such as a code generator run or an IDE save, results in a single batch.
+ * <p>
+ * Watch services do not watch subdirectories on every platform, so each directory is registered on its own,
+ * including the ones created while watching, except the directories excluded by the filter which are pruned.
+ * Files whose modification time did not change since they were last handed over are skipped,
+ * which ignores the events caused by the batch handler writing to the files itself.
+ * Deleted files are forgotten, so a file recreated with the same modification time is handed over again.
+ */
+@ApiStatus.Internal
+public final class SourceFileWatcher implements AutoCloseable {
+	private final WatchService watchService;
+	private final long debounceNanos;
+	private final Map<WatchKey, WatchedDirectory> directories = new HashMap<>();
+	private final Map<Path, Filter> roots = new HashMap<>();
+	private final Map<Path, FileTime> handledFiles = new HashMap<>();
+
+	/**
+	 * @param root a directory of the file system to watch, used to get its watch service
+	 * @param debounce the delay without any event after which a batch is handed over
+	 * @throws IOException if the watch service could not be created
+	 */
+	public SourceFileWatcher(Path root, Duration debounce) throws IOException {
+		this.watchService = root.getFileSystem().newWatchService();
+		this.debounceNanos = debounce.toNanos();
+	}
+
+	/**
+	 * Registers the given directory and all its subdirectories which are not excluded by the filter.
+	 *
+	 * @param root the directory to watch
+	 * @param filter the filter selecting the source files and the directories of the directory
+	 */
+	public void register(Path root, Filter filter) {
+		this.roots.merge(root, filter, Filter::or);
+		this.registerTree(root, this.roots.get(root), null);
+	}
+
+	/**
+	 * Watches the registered directories until this watcher is closed or the current thread is interrupted.
+	 *
+	 * @param batchHandler the handler of each batch of created or modified source files
+	 * @throws InterruptedException if the current thread got interrupted while waiting for events
+	 */
+	public void run(Consumer<Set<Path>> batchHandler) throws InterruptedException {
+		var pending = new LinkedHashSet<Path>();
+		long lastEvent = 0;
+
+		try {
+			while (true) {
+				WatchKey key;
+
+				if (pending.isEmpty()) {
+					key = this.watchService.take();
+				} else {
+					long remaining = this.debounceNanos - (System.nanoTime() - lastEvent);
+					key = remaining > 0 ? this.watchService.poll(remaining, TimeUnit.NANOSECONDS) : null;
+				}
+
+				if (key == null) {
+					this.handle(pending, batchHandler);
+					pending.clear();
+					continue;
+				}
+
+				this.processEvents(key, pending);
+				lastEvent = System.nanoTime();
+			}
+		} catch (ClosedWatchServiceException e) {
+			// The watcher got closed, stop watching.
+		}
+	}
+
+	private void processEvents(WatchKey key, Set<Path> pending) {
+		WatchedDirectory directory = this.directories.get(key);
+
+		for (WatchEvent<?> event : key.pollEvents()) {
+			if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+				// Some events got lost, every file has to be considered changed.
+				for (var root : this.roots.entrySet()) {
+					this.registerTree(root.getKey(), root.getValue(), pending);
+				}
+
+				continue;
+			} else if (directory == null) {
+				continue;
+			}
+
+			Path path = directory.path().resolve((Path) event.context());
+
+			if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+				this.forget(path, pending);
+			} else if (Files.isDirectory(path)) {
+				if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && directory.filter().directories().test(path)) {
+					// Files may have been written before the directory got registered.
+					this.registerTree(path, directory.filter(), pending);
+				}
+			} else if (directory.filter().files().test(path)) {
+				pending.add(path);
+			}
+		}
+
+		if (!key.reset()) {
+			this.directories.remove(key);
+		}
+	}
+
+	private void forget(Path path, Set<Path> pending) {
+		pending.remove(path);
+
+		if (this.handledFiles.remove(path) == null) {
+			// A whole directory may have been deleted.
+			pending.removeIf(file -> file.startsWith(path));
+			this.handledFiles.keySet().removeIf(file -> file.startsWith(path));
+		}
+	}
+
+	private void handle(Set<Path> pending, Consumer<Set<Path>> batchHandler) {
+		var batch = new LinkedHashSet<Path>();
+
+		for (var path : pending) {
+			FileTime modifiedTime = getModifiedTime(path);
+
+			if (modifiedTime == null) {
+				this.handledFiles.remove(path);
+			} else if (!modifiedTime.equals(this.handledFiles.get(path))) {
+				batch.add(path);
+			}
+		}
+
+		if (batch.isEmpty()) {
+			return;
+		}
+
+		batchHandler.accept(batch);
+
+		for (var path : batch) {
+			FileTime modifiedTime = getModifiedTime(path);
+
+			if (modifiedTime != null) {
+				this.handledFiles.put(path, modifiedTime);
+			}
+		}
+	}
+
+	private void registerTree(Path root, Filter filter, @Nullable Set<Path> found) {
+		try {
+			Files.walkFileTree(root, new SimpleFileVisitor<>() {
+				@Override
+				public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+					if (!dir.equals(root) && !filter.directories().test(dir)) {
+						return FileVisitResult.SKIP_SUBTREE;
+					}
+
+					WatchKey key = dir.register(SourceFileWatcher.this.watchService, StandardWatchEventKinds.ENTRY_CREATE,
+							StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+					SourceFileWatcher.this.directories.put(key, new WatchedDirectory(dir, filter));
+					return FileVisitResult.CONTINUE;
+				}
+
+				@Override
+				public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+					if (found != null && attrs.isRegularFile() && filter.files().test(file)) {
+						found.add(file);
+					}
+
+					return FileVisitResult.CONTINUE;
+				}
+
+				@Override
+				public FileVisitResult visitFileFailed(Path file, IOException exc) {
+					// The file may have been deleted in the meantime.
+					return FileVisitResult.CONTINUE;
+				}
+			});
+		} catch (IOException e) {
+			throw new UncheckedIOException(String.format("Failed to watch source directory %s", root), e);
+		}
+	}
+
+	private static @Nullable FileTime getModifiedTime(Path path) {
+		try {
+			return Files.getLastModifiedTime(path);
+		} catch (IOException e) {
+			// The file got deleted.
+			return null;
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		this.watchService.close();
+	}
+
+	/**
+	 * Represents the filter of a watched directory.
+	 *
+	 * @param files the predicate selecting the source files
+	 * @param directories the predicate selecting the subdirectories which may contain source files,
+	 * the other ones are neither walked nor watched
+	 */
+	public record Filter(Predicate<Path> files, Predicate<Path> directories) {
+		/**
+		 * {@return a filter selecting the files and directories selected by this filter or the given one}
+		 *
+		 * @param other the other filter
+		 */
+		public Filter or(Filter other) {
+			return new Filter(this.files.or(other.files), this.directories.or(other.directories));
+		}
+
+		/**
+		 * {@return a filter selecting the files and directories selected by both this filter and the given predicates}
+		 *
+		 * @param files the other predicate selecting the source files
+		 * @param directories the other predicate selecting the subdirectories
+		 */
+		public Filter and(Predicate<Path> files, Predicate<Path> directories) {
+			return new Filter(this.files.and(files), this.directories.and(directories));
+		}
+	}
+
+	private record WatchedDirectory(Path path, Filter filter) {}
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2022-2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.gradle.licenser.task;
+
+import org.gradle.api.DefaultTask;
+import org.gradle.api.GradleException;
+import org.gradle.api.Project;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.TaskAction;
+import org.gradle.api.tasks.options.Option;
+import org.jetbrains.annotations.ApiStatus;
+import org.quiltmc.gradle.licenser.extension.QuiltLicenserGradleExtension;
+import org.quiltmc.gradle.licenser.impl.LicenseShardReport;
+
+import javax.inject.Inject;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+
+/**
+ * Merges the reports written by sharded license checks into a single verdict.
+ */
+@ApiStatus.Internal
+public class AggregateLicenseReportsTask extends DefaultTask {
+	private Path reportsDirectory;
+
+	@Inject
+	public AggregateLicenseReportsTask() {
+		this.reportsDirectory = LicenseShardReport.getReportsDirectory(this.getProject());
+		this.setDescription("Merges the reports of sharded license checks into a single verdict.");
+		this.setGroup("verification");
+	}
+
+	@Option(option = "reports-dir", description = "The directory containing the license shard reports to merge.")
+	public void setReportsDirectory(String reportsDirectory) {
+		this.reportsDirectory = this.getProject().file(reportsDirectory).toPath();
+	}
+
+	@Internal
+	public Path getReportsDirectory() {
+		return this.reportsDirectory;
+	}
+
+	@TaskAction
+	public void execute() {
+		var reports = new ArrayList<LicenseShardReport>();
+
+		try {
+			for (var reportPath : LicenseShardReport.list(this.reportsDirectory)) {
+				reports.add(LicenseShardReport.read(reportPath));
+			}
+		} catch (IOException e) {
+			throw new GradleException("Failed to list license shard reports in " + this.reportsDirectory + ".", e);
+		}
+
+		if (reports.isEmpty()) {
+			throw new GradleException("No license shard reports found in " + this.reportsDirectory + ".");
+		}
+
+		Project project = this.getProject();
+		String fingerprint = project.getExtensions().getByType(QuiltLicenserGradleExtension.class).getLicenseHeader().getFingerprint();
+		String revision = LicenseShardReport.getRevision(project);
+		LicenseShardReport.Aggregate aggregate = LicenseShardReport.aggregate(reports, fingerprint, revision.isEmpty() ? null : revision);
+
+		if (aggregate.outdated() != 0) {
+			this.getLogger().lifecycle("Ignored {} outdated license shard reports.", aggregate.outdated());
+		}
+
+		for (var failedPath : aggregate.failed()) {
+			this.getLogger().error(" - {} - license checks have failed.", failedPath);
+		}
+
+		for (var problem : aggregate.problems()) {
+			this.getLogger().error(" - {}.", problem);
+		}
+
+		if (!aggregate.failed().isEmpty()) {
+			throw new GradleException(String.format("License header checks have failed on %d out of %d files.",
+					aggregate.failed().size(), aggregate.total()));
+		} else if (!aggregate.problems().isEmpty()) {
+			throw new GradleException("Incomplete license shard reports, cannot determine the license check verdict.");
+		}
+
+		this.getLogger().lifecycle("All license header checks passed ({} files).", aggregate.total());
+	}
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2022-2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.gradle.licenser.task;
+
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.SourceSet;
+import org.gradle.api.tasks.TaskAction;
+import org.gradle.api.tasks.options.Option;
+import org.jetbrains.annotations.ApiStatus;
+import org.quiltmc.gradle.licenser.api.license.LicenseHeader;
+import org.quiltmc.gradle.licenser.extension.QuiltLicenserGradleExtension;
+
+import javax.inject.Inject;
+import java.util.Collection;
+
+/**
+ * Represents the task used instead of the apply tasks of each source set when the source sets are aggregated.
+ * <p>
+ * Every source set is walked by this single task, sharing the same license header, git state and summary.
+ */
+@ApiStatus.Internal
+public class AggregatedApplyLicenseTask extends JavaSourceBasedTask {
+	private final LicenseHeader licenseHeader;
+	private boolean full;
+
+	@Inject
+	public AggregatedApplyLicenseTask(Collection<SourceSet> sourceSets, QuiltLicenserGradleExtension extension) {
+		super(sourceSets, extension);
+		this.licenseHeader = extension.getLicenseHeader();
+		this.setDescription("Applies the correct license headers to source files in every source set, in a single pass.");
+		this.setGroup("generation");
+
+		if (!this.licenseHeader.isValid()) {
+			this.setEnabled(false);
+		}
+	}
+
+	/**
+	 * Sets whether every file should be processed,
+	 * even those which passed the last license check or are unchanged since the last apply.
+	 *
+	 * @param full {@code true} to process every file, or {@code false} otherwise
+	 */
+	@Option(option = "full", description = "Processes every file, even those known to have a valid license header.")
+	public void setFull(boolean full) {
+		this.full = full;
+	}
+
+	/**
+	 * {@return {@code true} if every file is processed, or {@code false} if files which passed the last license check
+	 * or are unchanged since the last apply are skipped}
+	 */
+	@Internal
+	public boolean isFull() {
+		return this.full;
+	}
+
+	@TaskAction
+	public void execute() {
+		this.execute(ApplyLicenseTask.createConsumer(this, this.licenseHeader, this.full));
+	}
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2022-2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.gradle.licenser.task;
+
+import org.gradle.api.tasks.SourceSet;
+import org.gradle.api.tasks.TaskAction;
+import org.jetbrains.annotations.ApiStatus;
+import org.quiltmc.gradle.licenser.api.license.LicenseHeader;
+import org.quiltmc.gradle.licenser.extension.QuiltLicenserGradleExtension;
+
+import javax.inject.Inject;
+import java.util.Collection;
+
+/**
+ * Represents the task used instead of the check tasks of each source set when the source sets are aggregated.
+ * <p>
+ * Every source set is walked by this single task, sharing the same license header, git state and summary.
+ */
+@ApiStatus.Internal
+public class AggregatedCheckLicenseTask extends JavaSourceBasedTask {
+	private final LicenseHeader licenseHeader;
+
+	@Inject
+	public AggregatedCheckLicenseTask(Collection<SourceSet> sourceSets, QuiltLicenserGradleExtension extension) {
+		super(sourceSets, extension);
+		this.licenseHeader = extension.getLicenseHeader();
+		this.setDescription("Checks whether source files in every source set contain a valid license header, in a single pass.");
+		this.setGroup("verification");
+
+		if (!this.licenseHeader.isValid()) {
+			this.setEnabled(false);
+		}
+	}
+
+	@TaskAction
+	public void execute() {
+		this.execute(CheckLicenseTask.createConsumer(this, this.licenseHeader));
+	}
+}
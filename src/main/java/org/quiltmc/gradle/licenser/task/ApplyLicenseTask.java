@@ -16,16 +16,28 @@
 
 package org.quiltmc.gradle.licenser.task;
 
+import org.gradle.api.GradleException;
 import org.gradle.api.Project;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.tasks.SourceSet;
+import org.gradle.api.tasks.Internal;
 import org.gradle.api.tasks.TaskAction;
+import org.gradle.api.tasks.options.Option;
 import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
 import org.quiltmc.gradle.licenser.QuiltLicenserGradlePlugin;
 import org.quiltmc.gradle.licenser.api.license.LicenseHeader;
+import org.quiltmc.gradle.licenser.api.util.GitUtils;
 import org.quiltmc.gradle.licenser.extension.QuiltLicenserGradleExtension;
+import org.quiltmc.gradle.licenser.impl.GradleLicenseContext;
+import org.quiltmc.gradle.licenser.impl.LicenseApplyPipeline;
+import org.quiltmc.gradle.licenser.impl.LicenseApplyState;
+import org.quiltmc.gradle.licenser.impl.LicenseCheckManifest;
+import org.quiltmc.gradle.licenser.impl.LicenseVerdictRegistry;
 
 import javax.inject.Inject;
+import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
@@ -33,10 +45,11 @@ import java.util.List;
 @ApiStatus.Internal
 public class ApplyLicenseTask extends JavaSourceBasedTask {
 	private final LicenseHeader licenseHeader;
+	private boolean full;
 
 	@Inject
 	public ApplyLicenseTask(SourceSet sourceSet, QuiltLicenserGradleExtension extension) {
-		super(sourceSet, extension.asPatternFilterable());
+		super(sourceSet, extension);
 		this.licenseHeader = extension.getLicenseHeader();
 		this.setDescription("Applies the correct license headers to source files in the " + sourceSet.getName() + " source set.");
 		this.setGroup("generation");
@@ -46,40 +59,222 @@ public class ApplyLicenseTask extends JavaSourceBasedTask {
 		}
 	}
 
+	/**
+	 * Sets whether every file should be processed,
+	 * even those which passed the last license check or are unchanged since the last apply.
+	 *
+	 * @param full {@code true} to process every file, or {@code false} otherwise
+	 */
+	@Option(option = "full", description = "Processes every file, even those known to have a valid license header.")
+	public void setFull(boolean full) {
+		this.full = full;
+	}
+
+	/**
+	 * {@return {@code true} if every file is processed, or {@code false} if files which passed the last license check
+	 * or are unchanged since the last apply are skipped}
+	 */
+	@Internal
+	public boolean isFull() {
+		return this.full;
+	}
+
 	@TaskAction
 	public void execute() {
-		this.execute(new Consumer(this.licenseHeader));
+		this.execute(createConsumer(this, this.licenseHeader, this.full));
+	}
+
+	static Consumer createConsumer(JavaSourceBasedTask task, LicenseHeader licenseHeader, boolean full) {
+		Project project = task.getProject();
+		String id = task.getName().substring(QuiltLicenserGradlePlugin.APPLY_TASK_PREFIX.length());
+		// The years written depend on the current year, and with the project year selection on the last commit of the project.
+		int currentYear = GitUtils.getCurrentYear(project);
+		int projectYear = GitUtils.getModificationYear(project, project.getProjectDir().toPath());
+		Path manifestPath = LicenseCheckManifest.getPath(project, id);
+		LicenseCheckManifest.Loaded checkManifest = null;
+
+		if (!full && task.getShard() == null) {
+			checkManifest = LicenseCheckManifest.read(manifestPath);
+
+			if (checkManifest != null && !checkManifest.fingerprint().equals(
+					LicenseCheckManifest.computeFingerprint(licenseHeader, currentYear, projectYear))) {
+				// The license header or the years to write changed since the check.
+				checkManifest = null;
+			}
+		}
+
+		Path statePath = LicenseApplyState.getPath(project, id);
+		long fingerprint = LicenseApplyState.computeFingerprint(licenseHeader.getFingerprint(), currentYear, projectYear);
+		LicenseApplyState applyState = full
+				? LicenseApplyState.empty(fingerprint)
+				: LicenseApplyState.read(statePath, fingerprint, task.getLogger());
+
+		return new Consumer(licenseHeader, task.getVerdictRegistry(), task.getPath(), checkManifest, manifestPath, applyState, statePath);
 	}
 
 	public static class Consumer implements JavaSourceConsumer {
 		private final LicenseHeader licenseHeader;
+		private final @Nullable LicenseVerdictRegistry verdictRegistry;
+		private final String task;
+		private final LicenseCheckManifest.@Nullable Loaded checkManifest;
+		private final @Nullable Path manifestPath;
+		private final @Nullable LicenseApplyState applyState;
+		private final @Nullable Path statePath;
 		private final List<Path> updatedFiles = new ArrayList<>();
+		private final List<Path> resolvedFiles = new ArrayList<>();
+		private @Nullable LicenseApplyPipeline pipeline;
 		private int total = 0;
+		private int checked = 0;
+		private int unchanged = 0;
 
 		public Consumer(LicenseHeader licenseHeader) {
+			this(licenseHeader, null, "", null, null);
+		}
+
+		/**
+		 * @param licenseHeader the license header to apply
+		 * @param verdictRegistry the registry of the files already processed during the build
+		 * @param task the path of the apply task
+		 * @param checkManifest the manifest written by the last strict license check, used to skip the files which passed it
+		 * @param manifestPath the path of the check manifest, which becomes outdated once license headers are applied
+		 */
+		public Consumer(LicenseHeader licenseHeader, @Nullable LicenseVerdictRegistry verdictRegistry, String task,
+				LicenseCheckManifest.@Nullable Loaded checkManifest, @Nullable Path manifestPath) {
+			this(licenseHeader, verdictRegistry, task, checkManifest, manifestPath, null, null);
+		}
+
+		/**
+		 * @param licenseHeader the license header to apply
+		 * @param verdictRegistry the registry of the files already processed during the build
+		 * @param task the path of the apply task
+		 * @param checkManifest the manifest written by the last strict license check, used to skip the files which passed it
+		 * @param manifestPath the path of the check manifest, which becomes outdated once license headers are applied
+		 * @param applyState the state of the last apply, used to skip the files which are unchanged since
+		 * @param statePath the path the updated apply state is written to
+		 */
+		public Consumer(LicenseHeader licenseHeader, @Nullable LicenseVerdictRegistry verdictRegistry, String task,
+				LicenseCheckManifest.@Nullable Loaded checkManifest, @Nullable Path manifestPath,
+				@Nullable LicenseApplyState applyState, @Nullable Path statePath) {
 			this.licenseHeader = licenseHeader;
+			this.verdictRegistry = verdictRegistry;
+			this.task = task;
+			this.checkManifest = checkManifest;
+			this.manifestPath = manifestPath;
+			this.applyState = applyState;
+			this.statePath = statePath;
 		}
 
 		@Override
 		public void consume(Project project, Logger logger, Path rootPath, Path path) {
-			if (QuiltLicenserGradlePlugin.DEBUG_MODE) {
-				logger.lifecycle("=> Visiting {}...", path);
+			this.total++;
+
+			if (this.verdictRegistry != null) {
+				var verdict = this.verdictRegistry.get(LicenseVerdictRegistry.Action.APPLY, this.licenseHeader, path);
+
+				if (verdict != null) {
+					// The file was already formatted by another task during this build, don't rewrite it again.
+					if (QuiltLicenserGradlePlugin.DEBUG_MODE) {
+						logger.lifecycle("=> {} already processed by {}.", path, verdict.task());
+					}
+
+					return;
+				}
 			}
 
-			if (this.licenseHeader.format(project, rootPath, path)) {
-				this.updatedFiles.add(path);
+			if (this.applyState != null && this.applyState.isUnchanged(path.toAbsolutePath().normalize())) {
+				this.unchanged++;
+				return;
 			}
 
-			this.total++;
+			int rule = -1;
+			int headerEnd = -1;
+
+			if (this.checkManifest != null) {
+				LicenseCheckManifest.Failure failure = this.checkManifest.getFailure(path.toAbsolutePath().normalize());
+
+				if (failure != null) {
+					rule = failure.rule();
+					headerEnd = failure.headerEnd();
+				}
+
+				// Only files which failed the check, or which changed since, may need to be fixed.
+				if (this.checkManifest.isModifiedSince(path)) {
+					rule = -1;
+					headerEnd = -1;
+				} else if (failure == null) {
+					if (this.applyState != null) {
+						// The file passed the check with the same rules and years, it has a valid license header.
+						this.applyState.record(path.toAbsolutePath().normalize());
+					}
+
+					this.checked++;
+					return;
+				}
+			}
+
+			if (this.pipeline == null) {
+				this.pipeline = new LicenseApplyPipeline(new GradleLicenseContext(project, rootPath), this.licenseHeader, this::onResolved);
+			}
+
+			this.pipeline.submit(path, rule, headerEnd);
+		}
+
+		private void onResolved(LicenseApplyPipeline.ResolvedFile file) {
+			if (file.updated()) {
+				this.updatedFiles.add(file.path());
+			}
+
+			this.resolvedFiles.add(file.path());
+
+			if (this.verdictRegistry != null) {
+				this.verdictRegistry.put(LicenseVerdictRegistry.Action.APPLY, this.licenseHeader, file.path(),
+						new LicenseVerdictRegistry.Verdict(this.task, file.updated()));
+			}
 		}
 
 		@Override
 		public void end(Logger logger) {
+			if (this.pipeline != null) {
+				this.pipeline.finish();
+			}
+
+			if (this.applyState != null && this.statePath != null) {
+				// Only stat the files once the pipeline wrote them.
+				for (var path : this.resolvedFiles) {
+					this.applyState.record(path.toAbsolutePath().normalize());
+				}
+
+				this.applyState.write(this.statePath, logger);
+			}
+
+			if (this.manifestPath != null) {
+				try {
+					Files.deleteIfExists(this.manifestPath);
+				} catch (IOException e) {
+					throw new GradleException(String.format("Failed to delete outdated license check manifest %s", this.manifestPath), e);
+				}
+			}
+
+			if (this.unchanged != 0) {
+				logger.lifecycle("Skipped {} files unchanged since the last apply.", this.unchanged);
+			}
+
+			if (this.checked != 0) {
+				logger.lifecycle("Skipped {} files which passed the last license check.", this.checked);
+			}
+
 			for (var path : this.updatedFiles) {
 				logger.lifecycle(" - Updated file {}", path);
 			}
 
 			logger.lifecycle("Updated {} out of {} files.", this.updatedFiles.size(), this.total);
 		}
+
+		@Override
+		public void abort() {
+			if (this.pipeline != null) {
+				this.pipeline.abort();
+			}
+		}
 	}
 }
@@ -22,8 +22,18 @@ import org.gradle.api.logging.Logger;
 import org.gradle.api.tasks.SourceSet;
 import org.gradle.api.tasks.TaskAction;
 import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+import org.quiltmc.gradle.licenser.QuiltLicenserGradlePlugin;
+import org.quiltmc.gradle.licenser.api.license.LicenseContext;
 import org.quiltmc.gradle.licenser.api.license.LicenseHeader;
+import org.quiltmc.gradle.licenser.api.util.GitUtils;
 import org.quiltmc.gradle.licenser.extension.QuiltLicenserGradleExtension;
+import org.quiltmc.gradle.licenser.impl.GradleLicenseContext;
+import org.quiltmc.gradle.licenser.impl.LicenseCheckManifest;
+import org.quiltmc.gradle.licenser.impl.LicenseShard;
+import org.quiltmc.gradle.licenser.impl.LicenseShardReport;
+import org.quiltmc.gradle.licenser.impl.LicenseUtils;
+import org.quiltmc.gradle.licenser.impl.LicenseVerdictRegistry;
 
 import javax.inject.Inject;
 import java.nio.file.Path;
@@ -36,7 +46,7 @@ public class CheckLicenseTask extends JavaSourceBasedTask {
 
 	@Inject
 	public CheckLicenseTask(SourceSet sourceSet, QuiltLicenserGradleExtension extension) {
-		super(sourceSet, extension.asPatternFilterable());
+		super(sourceSet, extension);
 		this.licenseHeader = extension.getLicenseHeader();
 		this.setDescription("Checks whether source files in the " + sourceSet.getName() + " source set contain a valid license header.");
 		this.setGroup("verification");
@@ -48,29 +58,145 @@ public class CheckLicenseTask extends JavaSourceBasedTask {
 
 	@TaskAction
 	public void execute() {
-		this.execute(new Consumer(this.licenseHeader));
+		this.execute(createConsumer(this, this.licenseHeader));
 	}
 
+	static Consumer createConsumer(JavaSourceBasedTask task, LicenseHeader licenseHeader) {
+		Project project = task.getProject();
+		LicenseShard shard = task.getShard();
+		ShardReportTarget reportTarget = null;
+
+		if (shard != null) {
+			reportTarget = new ShardReportTarget(task.getPath(), shard, LicenseShardReport.getReportsDirectory(project),
+					LicenseShardReport.getRevision(project));
+		}
+
+		LicenseContext yearContext = null;
+		ManifestTarget manifestTarget = null;
+
+		if (task.getExtension().isStrictYearCheck()) {
+			// Strict checks look the years up from the git state shared by the build, like the apply tasks.
+			yearContext = new GradleLicenseContext(project, project.getProjectDir().toPath());
+
+			if (shard == null) {
+				// Only a check of every file, which also checked the years, can tell the apply task which files are valid.
+				Path manifestPath = LicenseCheckManifest.getPath(project,
+						task.getName().substring(QuiltLicenserGradlePlugin.CHECK_TASK_PREFIX.length()));
+				manifestTarget = new ManifestTarget(manifestPath, LicenseCheckManifest.computeFingerprint(licenseHeader,
+						GitUtils.getCurrentYear(project), GitUtils.getModificationYear(project, project.getProjectDir().toPath())));
+			}
+		}
+
+		return new Consumer(licenseHeader, reportTarget, task.getVerdictRegistry(), task.getPath(), manifestTarget, yearContext);
+	}
+
+	/**
+	 * Describes where the verdict of a sharded check should be reported.
+	 *
+	 * @param task the path of the check task
+	 * @param shard the checked shard
+	 * @param directory the reports directory
+	 * @param revision the identifier of the checked out commit, or an empty string if unknown
+	 */
+	public record ShardReportTarget(String task, LicenseShard shard, Path directory, String revision) {}
+
+	/**
+	 * Describes where the manifest of a strict check should be written.
+	 *
+	 * @param path the path of the manifest
+	 * @param fingerprint the fingerprint of the manifest
+	 * @see LicenseCheckManifest#computeFingerprint(LicenseHeader, int, int)
+	 */
+	public record ManifestTarget(Path path, String fingerprint) {}
+
 	public static class Consumer implements JavaSourceConsumer {
 		private final LicenseHeader licenseHeader;
+		private final @Nullable ShardReportTarget reportTarget;
+		private final @Nullable LicenseVerdictRegistry verdictRegistry;
+		private final String task;
+		private final @Nullable ManifestTarget manifestTarget;
+		private final @Nullable LicenseContext yearContext;
 		private final List<Path> failedChecks = new ArrayList<>();
+		private final List<LicenseCheckManifest.Failure> manifestFailures = new ArrayList<>();
+		private final List<String> failedRelativePaths = new ArrayList<>();
 		private int total = 0;
 
 		public Consumer(LicenseHeader licenseHeader) {
+			this(licenseHeader, null, null, "");
+		}
+
+		public Consumer(LicenseHeader licenseHeader, @Nullable ShardReportTarget reportTarget,
+				@Nullable LicenseVerdictRegistry verdictRegistry, String task) {
+			this(licenseHeader, reportTarget, verdictRegistry, task, null, null);
+		}
+
+		/**
+		 * @param manifestTarget where to write the manifest of the check, which is only written if the years are checked
+		 * @param yearContext the license context used to check the years of the license headers,
+		 * or {@code null} to accept any year
+		 */
+		public Consumer(LicenseHeader licenseHeader, @Nullable ShardReportTarget reportTarget,
+				@Nullable LicenseVerdictRegistry verdictRegistry, String task, @Nullable ManifestTarget manifestTarget,
+				@Nullable LicenseContext yearContext) {
 			this.licenseHeader = licenseHeader;
+			this.reportTarget = reportTarget;
+			this.verdictRegistry = verdictRegistry;
+			this.task = task;
+			this.manifestTarget = yearContext != null ? manifestTarget : null;
+			this.yearContext = yearContext;
 		}
 
 		@Override
 		public void consume(Project project, Logger logger, Path sourceSetPath, Path path) {
-			if (!this.licenseHeader.validate(path)) {
+			LicenseHeader.Violation violation = this.check(logger, path);
+
+			if (violation != null) {
 				this.failedChecks.add(path);
+				this.failedRelativePaths.add(LicenseUtils.getRelativePath(sourceSetPath, path));
+				this.manifestFailures.add(new LicenseCheckManifest.Failure(path.toAbsolutePath().normalize(),
+						violation.rule(), violation.headerEnd()));
 			}
 
 			this.total++;
 		}
 
+		private LicenseHeader.@Nullable Violation check(Logger logger, Path path) {
+			if (this.verdictRegistry == null) {
+				return this.licenseHeader.findViolation(this.yearContext, path);
+			}
+
+			var action = this.yearContext == null ? LicenseVerdictRegistry.Action.CHECK : LicenseVerdictRegistry.Action.STRICT_CHECK;
+			var verdict = this.verdictRegistry.get(action, this.licenseHeader, path);
+
+			if (verdict != null) {
+				if (QuiltLicenserGradlePlugin.DEBUG_MODE) {
+					logger.lifecycle("=> Reusing the verdict of {} for {}.", verdict.task(), path);
+				}
+
+				// The reused verdict doesn't say where the header is, the apply task will find it again.
+				return verdict.result() ? null : new LicenseHeader.Violation(-1, -1);
+			}
+
+			LicenseHeader.Violation violation = this.licenseHeader.findViolation(this.yearContext, path);
+			this.verdictRegistry.put(action, this.licenseHeader, path,
+					new LicenseVerdictRegistry.Verdict(this.task, violation == null));
+			return violation;
+		}
+
 		@Override
 		public void end(Logger logger) {
+			if (this.manifestTarget != null) {
+				new LicenseCheckManifest(this.manifestTarget.fingerprint(), List.copyOf(this.manifestFailures))
+						.write(this.manifestTarget.path());
+			}
+
+			if (this.reportTarget != null) {
+				var report = new LicenseShardReport(this.reportTarget.task(), this.reportTarget.shard(),
+						this.licenseHeader.getFingerprint(), this.reportTarget.revision(), this.total, List.copyOf(this.failedRelativePaths));
+				Path reportPath = report.write(this.reportTarget.directory());
+				logger.lifecycle("Wrote license shard {} report to {}.", this.reportTarget.shard(), reportPath);
+			}
+
 			if (this.failedChecks.isEmpty()) {
 				logger.lifecycle("All license header checks passed ({} files).", this.total);
 			} else {
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2022-2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.gradle.licenser.task;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.Repository;
+import org.gradle.api.DefaultTask;
+import org.gradle.api.GradleException;
+import org.gradle.api.tasks.OutputFile;
+import org.gradle.api.tasks.TaskAction;
+import org.gradle.api.tasks.options.Option;
+import org.jetbrains.annotations.ApiStatus;
+import org.quiltmc.gradle.licenser.impl.GitCreationYears;
+import org.quiltmc.gradle.licenser.impl.GitYearCache;
+import org.quiltmc.gradle.licenser.impl.LicenseYearManifest;
+import org.quiltmc.gradle.licenser.impl.LicenserGitService;
+
+import javax.inject.Inject;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Exports the years of the files of the project from the git history into a license year manifest.
+ * <p>
+ * Builds without the git history, such as shallow clones, can then read their years from the manifest.
+ */
+@ApiStatus.Internal
+public class ExportLicenseYearsTask extends DefaultTask {
+	public static final String NAME = "exportLicenseYears";
+
+	private File outputFile;
+
+	@Inject
+	public ExportLicenseYearsTask() {
+		this.outputFile = this.getProject().getBuildDir().toPath().resolve("quilt/licenser-years.txt").toFile();
+		this.usesService(LicenserGitService.register(this.getProject()));
+		// The years depend on the git history, which is not tracked as an input.
+		this.getOutputs().upToDateWhen(task -> false);
+		this.setDescription("Exports the years of the source files from the git history into a license year manifest.");
+		this.setGroup("generation");
+	}
+
+	@Option(option = "output", description = "The file the license year manifest is written to.")
+	public void setOutputFile(String outputFile) {
+		this.outputFile = this.getProject().file(outputFile);
+	}
+
+	@OutputFile
+	public File getOutputFile() {
+		return this.outputFile;
+	}
+
+	@TaskAction
+	public void execute() {
+		var service = LicenserGitService.get(this.getProject());
+		Git git = service.getGit();
+
+		if (git == null) {
+			throw new GradleException("Cannot export the license years without a git repository.");
+		}
+
+		Repository repository = git.getRepository();
+
+		try {
+			if (!repository.getObjectDatabase().getShallowCommits().isEmpty()) {
+				throw new GradleException("Cannot export the license years from a shallow clone, its history is incomplete.");
+			}
+		} catch (IOException e) {
+			throw new GradleException("Failed to read the shallow commits of the git repository.", e);
+		}
+
+		GitYearCache yearCache = service.getYearCache();
+		GitCreationYears creationYears = service.getCreationYears();
+
+		if (yearCache == null || creationYears == null) {
+			throw new GradleException("Failed to read the years from the git history.");
+		}
+
+		try {
+			int count = LicenseYearManifest.write(this.outputFile.toPath(), this.getProject().getProjectDir().toPath(),
+					repository.getWorkTree().toPath(), yearCache, creationYears);
+			this.getLogger().lifecycle("Exported the years of {} paths to {}.", count, this.outputFile);
+		} catch (UncheckedIOException e) {
+			throw new GradleException(e.getMessage(), e);
+		}
+	}
+}
@@ -18,35 +18,379 @@ package org.quiltmc.gradle.licenser.task;
 
 import org.gradle.api.DefaultTask;
 import org.gradle.api.Project;
+import org.gradle.api.file.FileTree;
+import org.gradle.api.file.SourceDirectorySet;
 import org.gradle.api.logging.Logger;
+import org.gradle.api.plugins.ExtensionAware;
+import org.gradle.api.plugins.ExtensionContainer;
+import org.gradle.api.provider.Provider;
+import org.gradle.api.tasks.Internal;
 import org.gradle.api.tasks.SourceSet;
+import org.gradle.api.tasks.options.Option;
 import org.gradle.api.tasks.util.PatternFilterable;
+import org.gradle.api.tasks.util.PatternSet;
 import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+import org.quiltmc.gradle.licenser.QuiltLicenserGradlePlugin;
+import org.quiltmc.gradle.licenser.extension.QuiltLicenserGradleExtension;
+import org.quiltmc.gradle.licenser.impl.GitIgnoreRules;
+import org.quiltmc.gradle.licenser.impl.LicenseShard;
+import org.quiltmc.gradle.licenser.impl.LicenserGitService;
+import org.quiltmc.gradle.licenser.impl.LicenseUtils;
+import org.quiltmc.gradle.licenser.impl.LicenseVerdictRegistry;
+import org.quiltmc.gradle.licenser.impl.SourceFileMatcher;
+import org.quiltmc.gradle.licenser.impl.SourceFileSniffer;
+import org.quiltmc.gradle.licenser.impl.SourceFileWalker;
+import org.quiltmc.gradle.licenser.impl.SourceFileWatcher;
 
+import java.io.File;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 @ApiStatus.Internal
 public abstract class JavaSourceBasedTask extends DefaultTask {
-	protected final SourceSet sourceSet;
+	protected final Collection<SourceSet> sourceSets;
 	protected final PatternFilterable patternFilterable;
+	private final QuiltLicenserGradleExtension extension;
+	private final Provider<LicenseVerdictRegistry> verdictRegistry;
+	private @Nullable LicenseShard shard;
 
-	protected JavaSourceBasedTask(SourceSet sourceSet, PatternFilterable patternFilterable) {
-		this.sourceSet = sourceSet;
-		this.patternFilterable = patternFilterable;
+	protected JavaSourceBasedTask(SourceSet sourceSet, QuiltLicenserGradleExtension extension) {
+		this(List.of(sourceSet), extension);
+	}
+
+	/**
+	 * @param sourceSets the source sets processed together by this task, which may be a live collection
+	 * @param extension the license extension
+	 */
+	protected JavaSourceBasedTask(Collection<SourceSet> sourceSets, QuiltLicenserGradleExtension extension) {
+		this.sourceSets = sourceSets;
+		this.patternFilterable = extension.asPatternFilterable();
+		this.extension = extension;
+		this.verdictRegistry = LicenseVerdictRegistry.register(this.getProject());
+		this.usesService(LicenserGitService.register(this.getProject()));
+		this.usesService(this.verdictRegistry);
+	}
+
+	/**
+	 * Restricts this task to a single shard of the source files.
+	 *
+	 * @param shard the shard in the {@code index/count} notation
+	 */
+	@Option(option = "shard", description = "Only processes the files of the given shard, using the index/count notation (e.g. 1/4).")
+	public void setShard(String shard) {
+		this.shard = LicenseShard.parse(shard);
+	}
+
+	/**
+	 * {@return the shard this task is restricted to, or {@code null} if every file is processed}
+	 * <p>
+	 * If no shard is specified on the command line, the {@value QuiltLicenserGradlePlugin#SHARD_PROPERTY}
+	 * project property is used instead.
+	 */
+	@Internal
+	public @Nullable LicenseShard getShard() {
+		if (this.shard == null) {
+			Object property = this.getProject().findProperty(QuiltLicenserGradlePlugin.SHARD_PROPERTY);
+
+			if (property != null) {
+				this.shard = LicenseShard.parse(property.toString());
+			}
+		}
+
+		return this.shard;
+	}
+
+	/**
+	 * {@return the current year, read from the configured clock}
+	 * <p>
+	 * It is the year of the files modified but not committed yet.
+	 * The license tasks declare no outputs and always run, so it is not declared as a task input.
+	 */
+	@Internal
+	public int getCurrentYear() {
+		return LicenserGitService.get(this.getProject()).getCurrentYear();
+	}
+
+	/**
+	 * {@return the license extension this task is configured by}
+	 */
+	@Internal
+	protected QuiltLicenserGradleExtension getExtension() {
+		return this.extension;
+	}
+
+	/**
+	 * {@return the registry of the files already processed during this build}
+	 */
+	@Internal
+	protected LicenseVerdictRegistry getVerdictRegistry() {
+		return this.verdictRegistry.get();
 	}
 
 	protected void execute(JavaSourceConsumer consumer) {
-		for (var javaDir : this.sourceSet.getAllSource().matching(this.patternFilterable)) {
-			Path sourcePath = javaDir.toPath();
-			consumer.consume(this.getProject(), this.getLogger(), this.getProject().getProjectDir().toPath(), sourcePath);
+		LicenseShard shard = this.getShard();
+		Path projectPath = this.getProject().getProjectDir().toPath();
+		var sniffer = new SourceFileSniffer(this.extension.getMaxFileSize());
+		var skippedFiles = new ArrayList<Map.Entry<Path, SourceFileSniffer.SkipReason>>();
+
+		try {
+			this.forEachSourceFile(sourcePath -> {
+				if (shard != null && !shard.contains(LicenseUtils.getRelativePath(projectPath, sourcePath))) {
+					return;
+				}
+
+				SourceFileSniffer.SkipReason skipReason = sniffer.sniff(sourcePath);
+
+				if (skipReason != null) {
+					skippedFiles.add(Map.entry(sourcePath, skipReason));
+					return;
+				}
+
+				consumer.consume(this.getProject(), this.getLogger(), projectPath, sourcePath);
+			});
+		} catch (RuntimeException e) {
+			consumer.abort();
+			throw e;
+		}
+
+		if (!skippedFiles.isEmpty()) {
+			for (var skippedFile : skippedFiles) {
+				this.getLogger().info(" - Skipped file {} ({}).", skippedFile.getKey(), skippedFile.getValue().getDescription());
+			}
+
+			this.getLogger().lifecycle("Skipped {} binary, non UTF-8 or oversized files.", skippedFiles.size());
 		}
 
 		consumer.end(this.getLogger());
 	}
 
+	/**
+	 * Visits every source file of the source sets selected by the license patterns.
+	 * <p>
+	 * The source directories are walked directly with precompiled patterns, pruning excluded directories,
+	 * and files are handed to the action while the walk is still running.
+	 * If the patterns cannot be precompiled, the source set file tree is used instead.
+	 * Files shared between several source sets are only visited once,
+	 * and files ignored by git are skipped if the extension is configured to.
+	 *
+	 * @param action the action to run on each source file
+	 */
+	protected void forEachSourceFile(Consumer<Path> action) {
+		// The same directory may belong to several directory sets, for example Kotlin also compiles the Java directory.
+		var visited = new HashSet<Path>();
+		Consumer<Path> visitor = path -> {
+			if (visited.add(path)) {
+				action.accept(path);
+			}
+		};
+		GitIgnoreRules ignoreRules = this.extension.isSkipGitIgnoredFiles()
+				? LicenserGitService.get(this.getProject()).getIgnoreRules()
+				: null;
+		SourceFileMatcher licenseMatcher = null;
+
+		for (var sourceSet : this.sourceSets) {
+			List<SourceDirectorySet> directorySets = getSourceDirectorySets(sourceSet);
+
+			if (directorySets == null || hasSpecs(this.patternFilterable)) {
+				for (var file : sourceSet.getAllSource().matching(this.patternFilterable)) {
+					if (ignoreRules == null || !ignoreRules.isIgnored(file.toPath(), false)) {
+						visitor.accept(file.toPath());
+					}
+				}
+
+				continue;
+			}
+
+			if (licenseMatcher == null) {
+				licenseMatcher = this.compileLicenseMatcher();
+			}
+
+			for (var directorySet : directorySets) {
+				List<SourceFileMatcher> matchers = compileMatchers(directorySet, licenseMatcher);
+
+				for (var directory : directorySet.getSrcDirs()) {
+					if (directory.isDirectory()) {
+						SourceFileWalker.walk(directory.toPath(), matchers, ignoreRules, visitor);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Collects the source directories of the source sets, along with the filter selecting their source files.
+	 * <p>
+	 * The filters select the same files as {@link #forEachSourceFile(Consumer)},
+	 * and prune the same directories.
+	 *
+	 * @return the source directories and their filters
+	 */
+	protected Map<Path, SourceFileWatcher.Filter> getSourceRoots() {
+		var roots = new LinkedHashMap<Path, SourceFileWatcher.Filter>();
+		GitIgnoreRules ignoreRules = this.extension.isSkipGitIgnoredFiles()
+				? LicenserGitService.get(this.getProject()).getIgnoreRules()
+				: null;
+		SourceFileMatcher licenseMatcher = null;
+
+		for (var sourceSet : this.sourceSets) {
+			List<SourceDirectorySet> directorySets = getSourceDirectorySets(sourceSet);
+
+			if (directorySets == null || hasSpecs(this.patternFilterable)) {
+				FileTree sourceTree = sourceSet.getAllSource().matching(this.patternFilterable);
+
+				for (var directory : sourceSet.getAllSource().getSrcDirs()) {
+					roots.merge(directory.toPath(), new SourceFileWatcher.Filter(path -> sourceTree.contains(path.toFile()), path -> true),
+							SourceFileWatcher.Filter::or);
+				}
+
+				continue;
+			}
+
+			if (licenseMatcher == null) {
+				licenseMatcher = this.compileLicenseMatcher();
+			}
+
+			for (var directorySet : directorySets) {
+				List<SourceFileMatcher> matchers = compileMatchers(directorySet, licenseMatcher);
+
+				for (var directory : directorySet.getSrcDirs()) {
+					Path root = directory.toPath();
+					Predicate<Path> files = path -> {
+						String relativePath = LicenseUtils.getRelativePath(root, path);
+
+						for (var matcher : matchers) {
+							if (!matcher.isSelected(relativePath)) {
+								return false;
+							}
+						}
+
+						return true;
+					};
+					Predicate<Path> directories = path -> {
+						String relativePath = LicenseUtils.getRelativePath(root, path);
+
+						for (var matcher : matchers) {
+							if (matcher.isExcluded(relativePath, true)) {
+								return false;
+							}
+						}
+
+						return true;
+					};
+					roots.merge(root, new SourceFileWatcher.Filter(files, directories), SourceFileWatcher.Filter::or);
+				}
+			}
+		}
+
+		if (ignoreRules != null) {
+			roots.replaceAll((root, filter) -> filter.and(path -> !ignoreRules.isIgnored(path, false),
+					path -> !ignoreRules.isIgnored(path, true)));
+		}
+
+		return roots;
+	}
+
+	private SourceFileMatcher compileLicenseMatcher() {
+		var excludes = new ArrayList<>(this.patternFilterable.getExcludes());
+		excludes.addAll(SourceFileMatcher.DEFAULT_EXCLUDES);
+		return SourceFileMatcher.compile(this.patternFilterable.getIncludes(), excludes);
+	}
+
+	/**
+	 * Compiles the matchers selecting the source files of the given directory set.
+	 * <p>
+	 * Like Gradle, a file must match both the patterns of the directory set and its filter,
+	 * as well as the license patterns.
+	 *
+	 * @param directorySet the directory set
+	 * @param licenseMatcher the matcher of the license patterns
+	 * @return the matchers which must all select a file
+	 */
+	private static List<SourceFileMatcher> compileMatchers(SourceDirectorySet directorySet, SourceFileMatcher licenseMatcher) {
+		PatternFilterable filter = directorySet.getFilter();
+		return List.of(
+				SourceFileMatcher.compile(directorySet.getIncludes(), directorySet.getExcludes()),
+				SourceFileMatcher.compile(filter.getIncludes(), filter.getExcludes()),
+				licenseMatcher
+		);
+	}
+
+	/**
+	 * {@return the directory sets composing all the sources of the given source set,
+	 * or {@code null} if they cannot be determined or use filters which cannot be precompiled}
+	 *
+	 * @param sourceSet the source set
+	 */
+	private static @Nullable List<SourceDirectorySet> getSourceDirectorySets(SourceSet sourceSet) {
+		var directorySets = new ArrayList<SourceDirectorySet>();
+		directorySets.add(sourceSet.getJava());
+		directorySets.add(sourceSet.getResources());
+
+		// Other languages, such as Kotlin or Groovy, register their directory sets as source set extensions.
+		ExtensionContainer extensions = ((ExtensionAware) sourceSet).getExtensions();
+
+		for (var schema : extensions.getExtensionsSchema().getElements()) {
+			if (extensions.findByName(schema.getName()) instanceof SourceDirectorySet directorySet
+					&& !directorySets.contains(directorySet)) {
+				directorySets.add(directorySet);
+			}
+		}
+
+		var directories = new HashSet<File>();
+
+		for (var directorySet : directorySets) {
+			// The Java plugin excludes the Java sources from the resources with a spec,
+			// which never changes the union of the directory sets this task walks.
+			int ignoredExcludeSpecs = directorySet == sourceSet.getResources() ? 1 : 0;
+
+			if (hasSpecs(directorySet.getFilter(), ignoredExcludeSpecs)) {
+				return null;
+			}
+
+			// The patterns of the directory set itself are only exposed through its directory trees.
+			for (var tree : directorySet.getSrcDirTrees()) {
+				if (hasSpecs(tree.getPatterns(), 0)) {
+					return null;
+				}
+			}
+
+			directories.addAll(directorySet.getSrcDirs());
+		}
+
+		if (!directories.containsAll(sourceSet.getAllSource().getSrcDirs())) {
+			// Some sources come from somewhere else, let Gradle handle them.
+			return null;
+		}
+
+		return directorySets;
+	}
+
+	private static boolean hasSpecs(PatternFilterable filterable) {
+		return hasSpecs(filterable, 0);
+	}
+
+	private static boolean hasSpecs(PatternFilterable filterable, int ignoredExcludeSpecs) {
+		return filterable instanceof PatternSet patternSet
+				&& (!patternSet.getIncludeSpecs().isEmpty() || patternSet.getExcludeSpecs().size() > ignoredExcludeSpecs);
+	}
+
 	public interface JavaSourceConsumer {
 		void consume(Project project, Logger logger, Path sourceSetPath, Path path);
 
 		void end(Logger logger);
+
+		/**
+		 * Called instead of {@link #end(Logger)} if visiting the source files failed.
+		 */
+		default void abort() {
+		}
 	}
 }
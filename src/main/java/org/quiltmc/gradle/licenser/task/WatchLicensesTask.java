@@ -0,0 +1,188 @@
+/*
+ * Copyright 2022-2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.quiltmc.gradle.licenser.task;
+
+import org.gradle.api.GradleException;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.SourceSet;
+import org.gradle.api.tasks.TaskAction;
+import org.gradle.api.tasks.options.Option;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+import org.quiltmc.gradle.licenser.api.license.LicenseContext;
+import org.quiltmc.gradle.licenser.api.license.LicenseHeader;
+import org.quiltmc.gradle.licenser.extension.QuiltLicenserGradleExtension;
+import org.quiltmc.gradle.licenser.impl.GradleLicenseContext;
+import org.quiltmc.gradle.licenser.impl.SourceFileSniffer;
+import org.quiltmc.gradle.licenser.impl.SourceFileWatcher;
+
+import javax.inject.Inject;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.Set;
+
+/**
+ * Represents the task which watches the source sets and applies license headers to files as soon as they are created or modified.
+ * <p>
+ * The license rules and the git state are loaded once and kept for the whole watch,
+ * so each batch of changed files only costs the formatting of those files.
+ */
+@ApiStatus.Internal
+public class WatchLicensesTask extends JavaSourceBasedTask {
+	public static final String NAME = "watchLicenses";
+	private static final long DEFAULT_DEBOUNCE = 300;
+
+	private final LicenseHeader licenseHeader;
+	private final long maxFileSize;
+	private long debounce = DEFAULT_DEBOUNCE;
+
+	@Inject
+	public WatchLicensesTask(Collection<SourceSet> sourceSets, QuiltLicenserGradleExtension extension) {
+		super(sourceSets, extension);
+		this.licenseHeader = extension.getLicenseHeader();
+		this.maxFileSize = extension.getMaxFileSize();
+		this.setDescription("Watches every source set and applies the correct license headers to files as they are created or modified.");
+		this.setGroup("generation");
+
+		if (!this.licenseHeader.isValid()) {
+			this.setEnabled(false);
+		}
+	}
+
+	/**
+	 * Sets the delay without any change after which the changed files are licensed.
+	 *
+	 * @param debounce the delay in milliseconds
+	 */
+	@Option(option = "debounce", description = "The delay in milliseconds without any change after which changed files are licensed.")
+	public void setDebounce(String debounce) {
+		try {
+			this.debounce = Long.parseLong(debounce);
+		} catch (NumberFormatException e) {
+			throw new GradleException(String.format("Invalid debounce delay %s, expected milliseconds.", debounce), e);
+		}
+	}
+
+	/**
+	 * {@return the delay in milliseconds without any change after which the changed files are licensed}
+	 */
+	@Internal
+	public long getDebounce() {
+		return this.debounce;
+	}
+
+	@TaskAction
+	public void execute() {
+		Map<Path, SourceFileWatcher.Filter> roots = this.getSourceRoots();
+		roots.keySet().removeIf(root -> !Files.isDirectory(root));
+
+		if (roots.isEmpty()) {
+			this.getLogger().lifecycle("No source directories to watch.");
+			return;
+		}
+
+		var context = new GradleLicenseContext(this.getProject(), this.getProject().getProjectDir().toPath());
+		var sniffer = new SourceFileSniffer(this.maxFileSize);
+
+		try (var watcher = new SourceFileWatcher(roots.keySet().iterator().next(), Duration.ofMillis(this.debounce))) {
+			roots.forEach(watcher::register);
+			this.getLogger().lifecycle("Watching {} source directories for new and modified files, interrupt the build to stop.", roots.size());
+
+			watcher.run(batch -> this.apply(new BatchLicenseContext(context, batch), sniffer, batch));
+		} catch (IOException e) {
+			throw new GradleException("Failed to watch the source directories.", e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void apply(LicenseContext context, SourceFileSniffer sniffer, Set<Path> batch) {
+		int updated = 0;
+
+		for (var path : batch) {
+			try {
+				if (sniffer.sniff(path) == null && this.licenseHeader.format(context, path)) {
+					this.getLogger().lifecycle(" - Updated file {}", path);
+					updated++;
+				}
+			} catch (RuntimeException e) {
+				// A single broken file must not stop the watch.
+				this.getLogger().error("Failed to apply the license header to {}.", path, e);
+			}
+		}
+
+		this.getLogger().lifecycle("Updated {} out of {} changed files.", updated, batch.size());
+	}
+
+	/**
+	 * Represents the license context of a batch of changed files.
+	 * <p>
+	 * The git state is kept from the start of the watch, so it does not know about the files changed since.
+	 * Those are modified now, as are the directories containing them.
+	 *
+	 * @param parent the license context of the project
+	 * @param batch the changed files
+	 */
+	private record BatchLicenseContext(LicenseContext parent, Set<Path> batch) implements LicenseContext {
+		@Override
+		public Path getProjectDirectory() {
+			return this.parent.getProjectDirectory();
+		}
+
+		@Override
+		public int getCurrentYear() {
+			return this.parent.getCurrentYear();
+		}
+
+		@Override
+		public OptionalInt getModificationYear(Path path, int sinceYear) {
+			for (var changedPath : this.batch) {
+				if (changedPath.startsWith(path)) {
+					return OptionalInt.of(this.parent.getCurrentYear());
+				}
+			}
+
+			return this.parent.getModificationYear(path, sinceYear);
+		}
+
+		@Override
+		public int getCreationYear(Path path) {
+			return this.parent.getCreationYear(path);
+		}
+
+		@Override
+		public @Nullable Path getBackupPath(Path path) {
+			return this.parent.getBackupPath(path);
+		}
+
+		@Override
+		public boolean isDebug() {
+			return this.parent.isDebug();
+		}
+
+		@Override
+		public void debug(String message, Object... arguments) {
+			this.parent.debug(message, arguments);
+		}
+	}
+}
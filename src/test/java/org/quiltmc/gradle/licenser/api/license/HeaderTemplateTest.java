@@ -0,0 +1,126 @@
+/*
+ * Copyright 2022-2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.quiltmc.gradle.licenser.api.license;
+
+import org.junit.jupiter.api.Test;
+import org.quiltmc.gradle.licenser.api.license.comment.JavaLicenseComment;
+import org.quiltmc.gradle.licenser.api.license.comment.LicenseComment;
+import org.quiltmc.gradle.licenser.api.license.comment.LineLicenseComment;
+import org.quiltmc.gradle.licenser.impl.LicenseUtils;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HeaderTemplateTest {
+	private static final String HEADER = "Copyright (c) ${YEAR} ${AUTHOR}\n\nMaintained by ${AUTHOR} at ${URL}.";
+
+	@Test
+	void compile() {
+		var template = HeaderTemplate.compile(new String[] {"Copyright ${YEAR} ${AUTHOR}", "", "By ${AUTHOR}", "${unterminated"});
+
+		assertEquals(4, template.getLineCount());
+		assertEquals(List.of("YEAR", "AUTHOR"), template.getVariables());
+		assertEquals(List.of(new HeaderTemplate.Part("By ", false), new HeaderTemplate.Part("AUTHOR", true)), template.getLine(2));
+		assertEquals(List.of(new HeaderTemplate.Part("${unterminated", false)), template.getLine(3));
+	}
+
+	@Test
+	void renderKeepsUnknownVariables() {
+		var template = new HeaderFormat(HEADER).getTemplate();
+
+		assertEquals(List.of("Copyright (c) 2023 ${AUTHOR}", "", "Maintained by ${AUTHOR} at ${URL}."),
+				List.of(template.render(Map.of("YEAR", "2023"))));
+	}
+
+	@Test
+	void roundTrip() {
+		var variables = Map.of("YEAR", "2019-2023", "AUTHOR", "QuiltMC", "URL", "https://quiltmc.org");
+
+		for (LicenseComment comment : List.of(JavaLicenseComment.JAVA, LineLicenseComment.HASH)) {
+			Matcher matcher = validate(HEADER, variables, comment);
+
+			assertTrue(matcher.find(), comment.toString());
+			assertEquals(3, matcher.groupCount());
+			assertEquals("2019-2023", matcher.group(1));
+			assertEquals("QuiltMC", matcher.group(2));
+			assertEquals("https://quiltmc.org", matcher.group(3));
+		}
+	}
+
+	@Test
+	void repeatedVariablesMustMatch() {
+		var format = new HeaderFormat(HEADER);
+		String rendered = render(format, Map.of("YEAR", "2023", "AUTHOR", "QuiltMC", "URL", "https://quiltmc.org"), JavaLicenseComment.JAVA);
+
+		// The second occurrence of the variable is a backreference to the first one.
+		String mismatched = rendered.replace("Maintained by QuiltMC", "Maintained by Someone");
+		assertFalse(LicenseUtils.getValidator(format, JavaLicenseComment.JAVA).matcher(mismatched).find());
+	}
+
+	@Test
+	void variableValuesWithRegexMetacharacters() {
+		var rule = new LicenseRule(HEADER);
+		var variables = Map.of("AUTHOR", "C++ [fork] (a|b)* $1 \\d", "URL", "^.?$");
+		String source = render(new HeaderFormat(HEADER), with(variables, "YEAR", "2023"), JavaLicenseComment.JAVA) + "class Test {}\n";
+
+		assertTrue(rule.validate(source, variables, JavaLicenseComment.JAVA));
+		assertFalse(rule.validate(source, Map.of("AUTHOR", "C++ [fork] (a|b)* $1 \\d", "URL", "x"), JavaLicenseComment.JAVA));
+		assertFalse(rule.validate(source.replace("C++", "CCC"), variables, JavaLicenseComment.JAVA));
+	}
+
+	@Test
+	void unknownVariablesAreKept() {
+		var rule = new LicenseRule(HEADER);
+		String source = render(new HeaderFormat(HEADER), Map.of("YEAR", "2023"), JavaLicenseComment.JAVA) + "class Test {}\n";
+
+		assertTrue(source.contains("Maintained by ${AUTHOR} at ${URL}."), source);
+		assertTrue(rule.validate(source, Map.of(), JavaLicenseComment.JAVA));
+		assertFalse(rule.validate(source, Map.of("AUTHOR", "QuiltMC"), JavaLicenseComment.JAVA));
+	}
+
+	@Test
+	void yearIsReserved() {
+		var header = new LicenseHeader(new LicenseRule(HEADER));
+
+		assertThrows(IllegalArgumentException.class, () -> header.setVariable(LicenseHeader.YEAR_KEY, "2023"));
+		header.setVariable("AUTHOR", "QuiltMC");
+		assertEquals(Map.of("AUTHOR", "QuiltMC"), header.getVariables());
+	}
+
+	private static Matcher validate(String header, Map<String, String> variables, LicenseComment comment) {
+		var format = new HeaderFormat(header);
+		return LicenseUtils.getValidator(format, comment).matcher(render(format, variables, comment) + "rest\n");
+	}
+
+	private static String render(HeaderFormat format, Map<String, String> variables, LicenseComment comment) {
+		return comment.getLicenseComment(format.getTemplate().render(variables), format.getLineSeparator());
+	}
+
+	private static Map<String, String> with(Map<String, String> variables, String name, String value) {
+		var result = new HashMap<>(variables);
+		result.put(name, value);
+		return result;
+	}
+}
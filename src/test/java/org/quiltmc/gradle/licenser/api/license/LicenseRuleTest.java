@@ -0,0 +1,51 @@
+/*
+ * Copyright 2022-2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.quiltmc.gradle.licenser.api.license;
+
+import org.junit.jupiter.api.Test;
+import org.quiltmc.gradle.licenser.api.license.comment.JavaLicenseComment;
+import org.quiltmc.gradle.licenser.api.license.comment.LineLicenseComment;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LicenseRuleTest {
+	private static final String HEADER = "Copyright ${YEAR} Test";
+
+	@Test
+	void equivalentCommentStylesShareValidators() {
+		var rule = new LicenseRule(HEADER);
+		assertEquals(1, rule.getValidatorCount());
+
+		// Each build creates its own instances of the custom comment styles.
+		for (int i = 0; i < 10; i++) {
+			var style = new LineLicenseComment("#");
+			assertTrue(rule.validate("# Copyright 2023 Test\n\nkey=value\n", Map.of(), style));
+			assertFalse(rule.validate("// Copyright 2023 Test\n\nkey=value\n", Map.of(), style));
+		}
+
+		assertEquals(2, rule.getValidatorCount());
+
+		assertTrue(rule.validate("// Copyright 2023 Test\n\nclass Test {}\n", Map.of(), new LineLicenseComment("//")));
+		assertTrue(rule.validate("/*\n * Copyright 2023 Test\n */\n\nclass Test {}\n", Map.of(), JavaLicenseComment.JAVA));
+		assertEquals(3, rule.getValidatorCount());
+	}
+}
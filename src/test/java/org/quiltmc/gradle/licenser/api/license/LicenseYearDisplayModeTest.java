@@ -0,0 +1,88 @@
+/*
+ * Copyright 2022-2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.quiltmc.gradle.licenser.api.license;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LicenseYearDisplayModeTest {
+	private static final int CURRENT_YEAR = 2024;
+
+	@Test
+	void lookupIsSkippedWhenTheCurrentYearIsPresent() {
+		for (var mode : LicenseYearDisplayMode.values()) {
+			var calls = new ArrayList<Integer>();
+			ModificationYearLookup lookup = countCalls(calls, OptionalInt.of(2023));
+
+			mode.getYearString("2020-2024", lookup, CURRENT_YEAR);
+			assertEquals(List.of(), calls, mode.name());
+		}
+	}
+
+	@Test
+	void lookupIsBoundedByTheNewestYearOtherwise() {
+		var expected = Map.of(
+				LicenseYearDisplayMode.LENIENT_RANGE, "2020-2023",
+				LicenseYearDisplayMode.LIST, "2020, 2021, 2023",
+				LicenseYearDisplayMode.COMPACT_RANGES, "2020-2021, 2023"
+		);
+
+		expected.forEach((mode, yearString) -> {
+			var calls = new ArrayList<Integer>();
+			ModificationYearLookup lookup = countCalls(calls, OptionalInt.of(2023));
+
+			assertEquals(yearString, mode.getYearString("2020-2021", lookup, CURRENT_YEAR));
+			assertEquals(List.of(2021), calls, mode.name());
+		});
+	}
+
+	@Test
+	void creationOnlyLooksUpMissingYearsOnly() {
+		var calls = new ArrayList<Integer>();
+		ModificationYearLookup lookup = countCalls(calls, OptionalInt.of(2023));
+
+		assertEquals("2020", LicenseYearDisplayMode.CREATION_ONLY.getYearString("2020", lookup, CURRENT_YEAR));
+		assertEquals(List.of(), calls);
+
+		assertEquals("2023", LicenseYearDisplayMode.CREATION_ONLY.getYearString(null, lookup, CURRENT_YEAR));
+		assertEquals(List.of(ModificationYearLookup.UNBOUNDED), calls);
+	}
+
+	@Test
+	void emptyLookupFallsBackToTheCurrentYear() {
+		var calls = new ArrayList<Integer>();
+		ModificationYearLookup lookup = countCalls(calls, OptionalInt.empty());
+
+		assertEquals("2020-2021", LicenseYearDisplayMode.LENIENT_RANGE.getYearString("2020-2021", lookup, CURRENT_YEAR));
+		assertEquals(String.valueOf(CURRENT_YEAR), LicenseYearDisplayMode.LENIENT_RANGE.getYearString(null, lookup, CURRENT_YEAR));
+		assertEquals(List.of(2021, ModificationYearLookup.UNBOUNDED), calls);
+	}
+
+	private static ModificationYearLookup countCalls(List<Integer> calls, OptionalInt year) {
+		return sinceYear -> {
+			calls.add(sinceYear);
+			return year;
+		};
+	}
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2022-2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.gradle.licenser.api.license;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.OptionalInt;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class YearIntervalSetTest {
+	@Test
+	void parseMergesRanges() {
+		var years = YearIntervalSet.parse("2019, 2015-2017, 2018, 2021 - 2022, invalid, 2030-2025");
+
+		assertEquals(2, years.intervalCount());
+		assertEquals(2015, years.first());
+		assertEquals(2022, years.last());
+		assertTrue(years.containsRange(2015, 2019));
+		assertFalse(years.contains(2020));
+	}
+
+	@Test
+	void addBridgesIntervals() {
+		var years = YearIntervalSet.parse("2015, 2017, 2019");
+		years.add(2016);
+		years.add(2018);
+
+		assertEquals(1, years.intervalCount());
+		assertTrue(years.containsRange(2015, 2019));
+	}
+
+	@Test
+	void displayModes() {
+		assertEquals("2015-2019, 2021-2026", LicenseYearDisplayMode.COMPACT_RANGES.getYearString("2015-2019, 2021-2025", 2026));
+		assertEquals("2015, 2016, 2018", LicenseYearDisplayMode.LIST.getYearString("2016, 2015", 2018));
+		assertEquals("2015-2018", LicenseYearDisplayMode.LENIENT_RANGE.getYearString("2015, 2016", 2018));
+		assertEquals("2015", LicenseYearDisplayMode.CREATION_ONLY.getYearString("2015", 2018));
+		assertEquals("2018", LicenseYearDisplayMode.CREATION_ONLY.getYearString(null, 2018));
+	}
+
+	@Test
+	void creationOnlySkipsLookup() {
+		assertEquals("2015", LicenseYearDisplayMode.CREATION_ONLY.getYearString("2015", sinceYear -> {
+			throw new AssertionError("The modification year should not be looked up.");
+		}));
+	}
+
+	@Test
+	void currentYearBoundsLookup() {
+		// Every year up to the current one is already present, the file cannot have been modified since.
+		assertEquals("2015-2019", LicenseYearDisplayMode.COMPACT_RANGES.getYearString("2015-2019", sinceYear -> {
+			throw new AssertionError("The modification year should not be looked up.");
+		}, 2019));
+		assertEquals("2020", LicenseYearDisplayMode.CREATION_ONLY.getYearString(null, sinceYear -> OptionalInt.empty(), 2020));
+	}
+
+	@Test
+	void lookupIsBoundedByNewestYear() {
+		assertEquals("2015-2019", LicenseYearDisplayMode.COMPACT_RANGES.getYearString("2015-2019", sinceYear -> {
+			assertEquals(2019, sinceYear);
+			return OptionalInt.empty();
+		}, 2024));
+	}
+
+	@Test
+	void lenientRangeUsesTheOldestAndNewestYears() {
+		// The years are not taken in the order they are listed.
+		assertEquals("2015-2018", LicenseYearDisplayMode.LENIENT_RANGE.getYearString("2018, 2015", sinceYear -> OptionalInt.empty(), 2018));
+		assertEquals("2015-2024", LicenseYearDisplayMode.LENIENT_RANGE.getYearString("2018, 2015", sinceYear -> OptionalInt.of(2024), 2024));
+	}
+}
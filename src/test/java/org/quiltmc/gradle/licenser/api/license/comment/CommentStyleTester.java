@@ -0,0 +1,108 @@
+/*
+ * Copyright 2022-2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.quiltmc.gradle.licenser.api.license.comment;
+
+import org.jetbrains.annotations.Nullable;
+import org.quiltmc.gradle.licenser.api.license.LicenseContext;
+import org.quiltmc.gradle.licenser.api.license.LicenseHeader;
+import org.quiltmc.gradle.licenser.api.license.LicenseRule;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.OptionalInt;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Applies license headers to files of a given comment style, used to test the comment styles.
+ */
+final class CommentStyleTester {
+	static final int YEAR = 2023;
+	static final String HEADER = "Copyright ${YEAR} Test\n\nLicensed under the test license.";
+
+	final LicenseHeader header = new LicenseHeader(new LicenseRule(HEADER));
+	private final TestContext context;
+
+	CommentStyleTester(Path directory) {
+		this.context = new TestContext(directory);
+	}
+
+	/**
+	 * Applies the license header to a file, and checks that applying it again changes nothing.
+	 *
+	 * @param fileName the name of the file, its extension selects the comment style
+	 * @param source the source of the file
+	 * @return the source of the licensed file
+	 */
+	String apply(String fileName, String source) {
+		Path path = this.context.directory().resolve(fileName);
+
+		try {
+			Files.writeString(path, source);
+			this.header.format(this.context, path);
+			String licensed = Files.readString(path);
+
+			assertTrue(this.header.validate(path), licensed);
+			assertFalse(this.header.format(this.context, path), licensed);
+			assertEquals(licensed, Files.readString(path));
+			return licensed;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private record TestContext(Path directory) implements LicenseContext {
+		@Override
+		public Path getProjectDirectory() {
+			return this.directory;
+		}
+
+		@Override
+		public int getCurrentYear() {
+			return YEAR;
+		}
+
+		@Override
+		public OptionalInt getModificationYear(Path path, int sinceYear) {
+			return OptionalInt.empty();
+		}
+
+		@Override
+		public int getCreationYear(Path path) {
+			return YEAR;
+		}
+
+		@Override
+		public @Nullable Path getBackupPath(Path path) {
+			return this.directory.resolve("backup").resolve(this.directory.relativize(path));
+		}
+
+		@Override
+		public boolean isDebug() {
+			return false;
+		}
+
+		@Override
+		public void debug(String message, Object... arguments) {
+		}
+	}
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2022-2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.quiltmc.gradle.licenser.api.license.comment;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+import org.quiltmc.gradle.licenser.api.license.LicenseHeader;
+import org.quiltmc.gradle.licenser.api.license.LicenseRule;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that comment styles and callers written against the previous {@link LicenseComment} API keep working.
+ */
+@SuppressWarnings("removal")
+class LegacyLicenseCommentTest {
+	private static final String SOURCE = "/*\n * Copyright 2023 Test\n *\n * Licensed under the test license.\n */\n\nclass Test {}\n";
+
+	@Test
+	void stringLookupExtractsTheExistingText() {
+		LicenseComment.Result result = JavaLicenseComment.JAVA.findLicenseComment(SOURCE);
+
+		LicenseComment.Result location = JavaLicenseComment.JAVA.findLicenseComment((CharSequence) SOURCE);
+		assertNull(location.existing());
+		assertEquals(JavaLicenseComment.JAVA.extractExisting(SOURCE, location), result.existing());
+		assertTrue(result.existing().endsWith("Licensed under the test license."), result.existing());
+		assertEquals(SOURCE.indexOf("class"), result.endIndex());
+
+		LicenseComment.Result none = JavaLicenseComment.JAVA.findLicenseComment("class Test {}\n");
+		assertFalse(none.hasExisting());
+		assertNull(none.existing());
+	}
+
+	@Test
+	void legacyImplementation() {
+		LicenseComment legacy = new LicenseComment() {
+			@Override
+			public @NotNull Result findLicenseComment(@NotNull String source) {
+				if (!source.startsWith("/*")) {
+					return new Result(0, null);
+				}
+
+				int end = source.indexOf("*/") + 2;
+				return new Result(end, source.substring(2, end - 2).replace(" * ", "").replace(" *", "").strip());
+			}
+
+			@Override
+			public @NotNull String getLicenseComment(@NotNull String[] lines, @NotNull String lineSeparator) {
+				return JavaLicenseComment.JAVA.getLicenseComment(lines, lineSeparator);
+			}
+		};
+
+		LicenseComment.Result result = legacy.findLicenseComment((CharSequence) SOURCE);
+		assertTrue(result.hasExisting());
+		assertEquals("Copyright 2023 Test\n\nLicensed under the test license.", legacy.extractExisting(SOURCE, result));
+
+		var rule = new LicenseRule(CommentStyleTester.HEADER);
+		assertTrue(rule.validate(SOURCE, Map.of(), legacy));
+		assertEquals(result.endIndex(), new LicenseHeader(rule).findHeaderEnd(SOURCE, legacy));
+		assertFalse(legacy.findLicenseComment((CharSequence) "class Test {}\n").hasExisting());
+	}
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2022-2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.quiltmc.gradle.licenser.api.license.comment;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LineLicenseCommentTest {
+	private static final String LICENSE = "# Copyright 2023 Test\n#\n# Licensed under the test license.\n\n";
+
+	@TempDir
+	Path directory;
+
+	private CommentStyleTester tester;
+
+	@BeforeEach
+	void setUp() {
+		this.tester = new CommentStyleTester(this.directory);
+	}
+
+	@Test
+	void insertsLicense() {
+		assertEquals(LICENSE + "key=value\n", this.tester.apply("test.properties", "key=value\n"));
+		assertEquals(LICENSE + "key=value\n", this.tester.apply("test.properties", "\n\nkey=value\n"));
+	}
+
+	@Test
+	void otherPrefixes() {
+		assertEquals("-- Copyright 2023 Test\n--\n-- Licensed under the test license.\n\nSELECT 1;\n",
+				this.tester.apply("test.sql", "SELECT 1;\n"));
+	}
+
+	@Test
+	void keepsShebangFirst() {
+		assertEquals("#!/bin/sh\n" + LICENSE + "echo test\n", this.tester.apply("test.sh", "#!/bin/sh\necho test\n"));
+		assertEquals("#!/bin/sh\n" + LICENSE + "# Prints a test.\necho test\n",
+				this.tester.apply("test.sh", "#!/bin/sh\n\n# Prints a test.\necho test\n"));
+	}
+
+	@Test
+	void keepsUnrelatedLeadingComment() {
+		String source = "# frozen_string_literal: true\n\nputs 'test'\n";
+		assertEquals(LICENSE + source, this.tester.apply("test.rb", source));
+	}
+
+	@Test
+	void replacesLicenses() {
+		// A license matching the rule is kept as is, along with its creation year.
+		String licensed = "# Copyright 2019 Test\n#\n# Licensed under the test license.\n\nkey=value\n";
+		assertEquals(licensed, this.tester.apply("test.properties", licensed));
+		// Another license is recognized by its markers.
+		assertEquals(LICENSE + "key=value\n",
+				this.tester.apply("test.properties", "# Copyright 2019 Someone Else\n# All rights reserved.\n\nkey=value\n"));
+		assertEquals(LICENSE + "key=value\n", this.tester.apply("test.properties", "# SPDX-License-Identifier: MIT\nkey=value\n"));
+	}
+
+	@Test
+	void customLicenseMarkers() {
+		this.tester.header.setLicenseMarkers(List.of("Legal"));
+
+		assertEquals(LICENSE + "key=value\n", this.tester.apply("test.properties", "# Legal notice.\nkey=value\n"));
+
+		String source = "# Copyright 2019 Someone Else\n\nkey=value\n";
+		assertEquals(LICENSE + source, this.tester.apply("test.properties", source));
+
+		// Licenses matching the rule are recognized without markers.
+		String licensed = "# Copyright 2019 Test\n#\n# Licensed under the test license.\n\nkey=value\n";
+		assertEquals(licensed, this.tester.apply("test.properties", licensed));
+	}
+}
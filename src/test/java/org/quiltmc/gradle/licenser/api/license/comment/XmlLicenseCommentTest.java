@@ -0,0 +1,69 @@
+/*
+ * Copyright 2022-2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.quiltmc.gradle.licenser.api.license.comment;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class XmlLicenseCommentTest {
+	private static final String DECLARATION = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n";
+	private static final String LICENSE = "<!--\n  Copyright 2023 Test\n\n  Licensed under the test license.\n-->\n\n";
+
+	@TempDir
+	Path directory;
+
+	private CommentStyleTester tester;
+
+	@BeforeEach
+	void setUp() {
+		this.tester = new CommentStyleTester(this.directory);
+	}
+
+	@Test
+	void insertsLicense() {
+		assertEquals(LICENSE + "<root/>\n", this.tester.apply("test.xml", "<root/>\n"));
+	}
+
+	@Test
+	void keepsDeclarationFirst() {
+		assertEquals(DECLARATION + LICENSE + "<root/>\n", this.tester.apply("test.xml", DECLARATION + "<root/>\n"));
+		assertEquals(DECLARATION + LICENSE + "<root/>\n", this.tester.apply("test.xml", DECLARATION + "\n<root/>\n"));
+	}
+
+	@Test
+	void keepsUnrelatedLeadingComment() {
+		String source = "<!-- Generated by a tool, do not edit. -->\n<root/>\n";
+		assertEquals(LICENSE + source, this.tester.apply("test.xml", source));
+		assertEquals(DECLARATION + LICENSE + source, this.tester.apply("test.xml", DECLARATION + source));
+	}
+
+	@Test
+	void replacesLicenses() {
+		// A license matching the rule is kept as is, along with its creation year.
+		String licensed = "<!--\n  Copyright 2019 Test\n\n  Licensed under the test license.\n-->\n\n<root/>\n";
+		assertEquals(licensed, this.tester.apply("test.xml", licensed));
+		// Another license is recognized by its markers.
+		assertEquals(DECLARATION + LICENSE + "<root/>\n",
+				this.tester.apply("test.xml", DECLARATION + "<!-- Copyright 2019 Someone Else -->\n<root/>\n"));
+	}
+}
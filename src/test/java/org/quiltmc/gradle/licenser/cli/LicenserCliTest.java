@@ -0,0 +1,177 @@
+/*
+ * Copyright 2022-2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.quiltmc.gradle.licenser.cli;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.jar.JarFile;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LicenserCliTest {
+	private static final String LICENSED_PREFIX = "/*\n * Licensed under the test license.\n */\n\n";
+	private static final String UNLICENSED = "class Foo {}\n";
+
+	@TempDir
+	Path directory;
+
+	private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+	private final ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+	@Test
+	void help() {
+		assertEquals(LicenserCli.EXIT_SUCCESS, this.run("--help"));
+		assertTrue(this.out.toString(StandardCharsets.UTF_8).startsWith("Usage: "));
+	}
+
+	@Test
+	void invalidOptions() throws IOException {
+		this.writeProject();
+
+		this.assertUsageError("At least one license header must be given with --header.", "src");
+		this.assertUsageError("No paths to license were given.", "--header", "HEADER");
+		this.assertUsageError("Unknown option --unknown.", "--header", "HEADER", "--unknown", "src");
+		this.assertUsageError("Missing value for option --header.", "src", "--header");
+		this.assertUsageError("Invalid variable NAME, expected NAME=value.", "--header", "HEADER", "--variable", "NAME", "src");
+		this.assertUsageError("Invalid value yearly, expected one of", "--header", "HEADER", "--year-display", "yearly", "src");
+		this.assertUsageError("Invalid comment style cobol=cbl", "--header", "HEADER", "--comment-style", "cobol=cbl", "src");
+		this.assertUsageError("Invalid file size big.", "--header", "HEADER", "--max-file-size", "big", "src");
+		this.assertUsageError("Invalid clock tomorrow", "--header", "HEADER", "--clock", "tomorrow", "src");
+		this.assertUsageError("License header file", "--header", "MISSING", "src");
+	}
+
+	@Test
+	void checkFailure() throws IOException {
+		this.writeProject();
+		Files.writeString(this.directory.resolve("src/Licensed.java"), LICENSED_PREFIX + UNLICENSED);
+
+		assertEquals(LicenserCli.EXIT_CHECK_FAILED, this.run("--check", "--header", this.getHeader(), "src"));
+		String errors = this.err.toString(StandardCharsets.UTF_8);
+		assertTrue(errors.contains("Foo.java - license checks have failed."), errors);
+		assertTrue(errors.contains("License header checks have failed on 1 out of 2 files."), errors);
+	}
+
+	@Test
+	void applyIsIdempotent() throws IOException {
+		this.writeProject();
+		Path file = this.directory.resolve("src/Foo.java");
+
+		assertEquals(LicenserCli.EXIT_SUCCESS, this.run("--apply", "--header", this.getHeader(), "src"));
+		assertEquals(LICENSED_PREFIX + UNLICENSED, Files.readString(file));
+		assertTrue(this.out.toString(StandardCharsets.UTF_8).contains("Updated 1 out of 1 files."));
+
+		this.out.reset();
+		assertEquals(LicenserCli.EXIT_SUCCESS, this.run("--apply", "--header", this.getHeader(), "src"));
+		assertEquals(LICENSED_PREFIX + UNLICENSED, Files.readString(file));
+		assertTrue(this.out.toString(StandardCharsets.UTF_8).contains("Updated 0 out of 1 files."));
+
+		assertEquals(LicenserCli.EXIT_SUCCESS, this.run("--check", "--header", this.getHeader(), "src"));
+	}
+
+	@Test
+	void strictYears() throws IOException {
+		this.writeProject();
+		Files.writeString(this.directory.resolve("HEADER"), "Copyright ${YEAR} Test\n;;year_display: lenient_range");
+		Files.writeString(this.directory.resolve("src/Foo.java"), "/*\n * Copyright 2019 Test\n */\n\n" + UNLICENSED);
+
+		assertEquals(LicenserCli.EXIT_SUCCESS, this.run("--check", "--clock", "2020", "--header", this.getHeader(), "src"));
+		assertEquals(LicenserCli.EXIT_CHECK_FAILED,
+				this.run("--check", "--strict-years", "--clock", "2020", "--header", this.getHeader(), "src"));
+
+		assertEquals(LicenserCli.EXIT_SUCCESS, this.run("--apply", "--clock", "2020", "--header", this.getHeader(), "src"));
+		assertEquals(LicenserCli.EXIT_SUCCESS,
+				this.run("--check", "--strict-years", "--clock", "2020", "--header", this.getHeader(), "src"));
+	}
+
+	@Test
+	void runsWithoutGradle() throws Exception {
+		this.writeProject();
+		var classPath = new ArrayList<URL>();
+
+		for (var entry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+			if (!containsGradle(Path.of(entry))) {
+				classPath.add(Path.of(entry).toUri().toURL());
+			}
+		}
+
+		try (var classLoader = new URLClassLoader(classPath.toArray(URL[]::new), ClassLoader.getPlatformClassLoader())) {
+			Class<?> cli = classLoader.loadClass(LicenserCli.class.getName());
+			var run = cli.getMethod("run", String[].class, PrintStream.class, PrintStream.class);
+
+			assertEquals(LicenserCli.EXIT_CHECK_FAILED, this.invoke(run, "--check"));
+			assertEquals(LicenserCli.EXIT_SUCCESS, this.invoke(run, "--apply"));
+			assertEquals(LicenserCli.EXIT_SUCCESS, this.invoke(run, "--check"));
+		}
+
+		assertEquals(LICENSED_PREFIX + UNLICENSED, Files.readString(this.directory.resolve("src/Foo.java")));
+	}
+
+	private int invoke(Method run, String action) throws ReflectiveOperationException {
+		String[] args = {action, "--project-dir", this.directory.toString(), "--header", this.getHeader(), "src"};
+		return (int) run.invoke(null, args, new PrintStream(this.out), new PrintStream(this.err));
+	}
+
+	private static boolean containsGradle(Path entry) throws IOException {
+		if (!Files.isRegularFile(entry)) {
+			return Files.isDirectory(entry.resolve("org/gradle"));
+		}
+
+		try (var jar = new JarFile(entry.toFile())) {
+			return jar.stream().anyMatch(jarEntry -> jarEntry.getName().startsWith("org/gradle/"));
+		}
+	}
+
+	private void writeProject() throws IOException {
+		Files.writeString(this.directory.resolve("HEADER"), "Licensed under the test license.");
+		Files.createDirectories(this.directory.resolve("src"));
+		Files.writeString(this.directory.resolve("src/Foo.java"), UNLICENSED);
+	}
+
+	private String getHeader() {
+		return this.directory.resolve("HEADER").toString();
+	}
+
+	private void assertUsageError(String message, String... args) {
+		this.err.reset();
+		assertEquals(LicenserCli.EXIT_USAGE, this.run(args), String.join(" ", args));
+		String errors = this.err.toString(StandardCharsets.UTF_8);
+		assertTrue(errors.startsWith(message), errors);
+	}
+
+	private int run(String... args) {
+		var fullArgs = new ArrayList<String>();
+		fullArgs.add("--project-dir");
+		fullArgs.add(this.directory.toString());
+		fullArgs.addAll(List.of(args));
+		return LicenserCli.run(fullArgs.toArray(String[]::new), new PrintStream(this.out), new PrintStream(this.err));
+	}
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2022-2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.quiltmc.gradle.licenser.impl;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.internal.storage.commitgraph.CommitGraph;
+import org.eclipse.jgit.lib.Constants;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.helpers.NOPLogger;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class GitCommitGraphTest {
+	@TempDir
+	Path directory;
+
+	@Test
+	void generatesPrivateCommitGraph() throws IOException, GitAPIException {
+		Path privateFile = this.directory.resolve("private/commit-graph");
+
+		try (var git = this.createRepository()) {
+			assertNull(GitCommitGraph.load(git.getRepository(), null, NOPLogger.NOP_LOGGER));
+
+			CommitGraph graph = GitCommitGraph.load(git.getRepository(), privateFile, NOPLogger.NOP_LOGGER);
+			assertNotNull(graph);
+			assertNotEquals(-1, graph.findGraphPosition(git.getRepository().resolve(Constants.HEAD)));
+			assertEquals(List.of(privateFile), this.list(privateFile.getParent()));
+		}
+	}
+
+	@Test
+	void concurrentWritesDoNotCollide() throws Exception {
+		Path privateFile = this.directory.resolve("private/commit-graph");
+
+		try (var git = this.createRepository()) {
+			var threads = Stream.generate(() -> new Thread(() -> {
+				try {
+					GitCommitGraph.write(git.getRepository(), privateFile);
+				} catch (IOException e) {
+					throw new RuntimeException(e);
+				}
+			})).limit(8).toList();
+			var failures = new ConcurrentLinkedQueue<Throwable>();
+
+			for (var thread : threads) {
+				thread.setUncaughtExceptionHandler((t, e) -> failures.add(e));
+				thread.start();
+			}
+
+			for (var thread : threads) {
+				thread.join();
+			}
+
+			assertEquals(List.of(), List.copyOf(failures));
+			assertEquals(List.of(privateFile), this.list(privateFile.getParent()));
+			assertNotNull(GitCommitGraph.load(git.getRepository(), privateFile, NOPLogger.NOP_LOGGER));
+		}
+	}
+
+	private Git createRepository() throws IOException, GitAPIException {
+		var git = Git.init().setDirectory(this.directory.resolve("repository").toFile()).call();
+		Path file = this.directory.resolve("repository/Foo.java");
+		Files.writeString(file, "class Foo {}\n");
+		git.add().addFilepattern("Foo.java").call();
+		git.commit().setMessage("Initial commit").setSign(false).call();
+		return git;
+	}
+
+	private List<Path> list(Path directory) throws IOException {
+		try (var files = Files.list(directory)) {
+			return files.toList();
+		}
+	}
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2022-2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.quiltmc.gradle.licenser.impl;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.helpers.NOPLogger;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class GitCreationYearsTest {
+	private static final String FOO = "class Foo {\n\tvoid foo() {}\n\n\tvoid bar() {}\n\n\tvoid baz() {}\n}\n";
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void renamedFilesKeepTheirCreationYear() throws IOException, GitAPIException {
+		try (var git = Git.init().setDirectory(this.directory.toFile()).call()) {
+			this.write("src/Foo.java", FOO);
+			this.write("src/Bar.java", "class Bar {}\n");
+			this.commit(git, 2019);
+
+			this.move("src/Foo.java", "src/org/example/Foo.java");
+			this.commit(git, 2020);
+
+			// A rename along with a small edit is still detected as a rename.
+			this.move("src/org/example/Foo.java", "src/Renamed.java");
+			this.write("src/Renamed.java", FOO.replace("Foo", "Renamed"));
+			this.write("src/Baz.java", "class Baz {}\n");
+			this.commit(git, 2021);
+
+			// A file deleted and added again is a new file.
+			Files.delete(this.directory.resolve("src/Bar.java"));
+			this.commit(git, 2022);
+			this.write("src/Bar.java", "class Bar {}\n");
+			this.commit(git, 2023);
+
+			var years = GitCreationYears.compute(git.getRepository(), NOPLogger.NOP_LOGGER);
+
+			assertEquals(Map.of("src/Renamed.java", 2019, "src/Baz.java", 2021, "src/Bar.java", 2023), this.collect(years));
+			assertEquals(OptionalInt.of(2019), years.getYear("src/Renamed.java"));
+			assertEquals(OptionalInt.empty(), years.getYear("src/Foo.java"));
+		}
+	}
+
+	@Test
+	void emptyRepository() throws IOException, GitAPIException {
+		try (var git = Git.init().setDirectory(this.directory.toFile()).call()) {
+			assertEquals(Map.of(), this.collect(GitCreationYears.compute(git.getRepository(), NOPLogger.NOP_LOGGER)));
+		}
+	}
+
+	private Map<String, Integer> collect(GitCreationYears years) {
+		var map = new TreeMap<String, Integer>();
+		years.forEachYear(map::put);
+		return map;
+	}
+
+	private void commit(Git git, int year) throws GitAPIException {
+		var ident = new PersonIdent("Test", "test@example.com",
+				ZonedDateTime.of(year, 6, 1, 12, 0, 0, 0, ZoneOffset.UTC).toInstant(), ZoneOffset.UTC);
+		git.add().addFilepattern(".").call();
+		git.add().addFilepattern(".").setUpdate(true).call();
+		git.commit().setMessage("Commit of " + year).setAuthor(ident).setCommitter(ident).setSign(false).call();
+	}
+
+	private void move(String from, String to) throws IOException {
+		Path target = this.directory.resolve(to);
+		Files.createDirectories(target.getParent());
+		Files.move(this.directory.resolve(from), target);
+	}
+
+	private void write(String path, String content) throws IOException {
+		Path file = this.directory.resolve(path);
+		Files.createDirectories(file.getParent());
+		Files.writeString(file, content);
+	}
+}
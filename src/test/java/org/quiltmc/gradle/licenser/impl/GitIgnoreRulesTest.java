@@ -0,0 +1,89 @@
+/*
+ * Copyright 2022-2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.quiltmc.gradle.licenser.impl;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GitIgnoreRulesTest {
+	@TempDir
+	Path directory;
+
+	@Test
+	void ignoreRules() throws IOException, GitAPIException {
+		this.write(".gitignore", "*.log\nbuild/\n/out\n");
+		this.write("src/.gitignore", "Local.java\n!keep.log\n");
+
+		try (var git = Git.init().setDirectory(this.directory.toFile()).call()) {
+			var rules = GitIgnoreRules.load(git.getRepository());
+
+			assertTrue(rules.isIgnored(this.directory.resolve("debug.log"), false));
+			assertTrue(rules.isIgnored(this.directory.resolve("src/main/debug.log"), false));
+			assertFalse(rules.isIgnored(this.directory.resolve("src/keep.log"), false));
+			assertTrue(rules.isIgnored(this.directory.resolve("build"), true));
+			assertTrue(rules.isIgnored(this.directory.resolve("sub/build/Foo.java"), false));
+			assertTrue(rules.isIgnored(this.directory.resolve("out/Foo.java"), false));
+			assertFalse(rules.isIgnored(this.directory.resolve("sub/out/Foo.java"), false));
+			assertTrue(rules.isIgnored(this.directory.resolve("src/main/Local.java"), false));
+			assertFalse(rules.isIgnored(this.directory.resolve("Local.java"), false));
+			assertFalse(rules.isIgnored(this.directory.resolve("src/main/Foo.java"), false));
+			// Paths outside the work tree are never ignored.
+			assertFalse(rules.isIgnored(this.directory.getParent().resolve("debug.log"), false));
+		}
+	}
+
+	@Test
+	void trackedFilesAreNotIgnored() throws IOException, GitAPIException {
+		this.write("gen/Tracked.java", "class Tracked {}\n");
+		this.write("src/Tracked.java", "class Tracked {}\n");
+
+		try (var git = Git.init().setDirectory(this.directory.toFile()).call()) {
+			git.add().addFilepattern("gen/Tracked.java").addFilepattern("src/Tracked.java").call();
+			this.write("gen/Untracked.java", "class Untracked {}\n");
+			this.write("ignored/Untracked.java", "class Untracked {}\n");
+			this.write("src/nested/Tracked.java", "class Tracked {}\n");
+			// The files get ignored after being tracked, like force-added files.
+			this.write(".gitignore", "gen/\nTracked.java\nignored/\n");
+
+			var rules = GitIgnoreRules.load(git.getRepository());
+
+			assertFalse(rules.isIgnored(this.directory.resolve("gen/Tracked.java"), false));
+			assertFalse(rules.isIgnored(this.directory.resolve("src/Tracked.java"), false));
+			assertTrue(rules.isIgnored(this.directory.resolve("gen/Untracked.java"), false));
+			assertTrue(rules.isIgnored(this.directory.resolve("src/nested/Tracked.java"), false));
+			// A directory holding tracked files must still be walked.
+			assertFalse(rules.isIgnored(this.directory.resolve("gen"), true));
+			assertTrue(rules.isIgnored(this.directory.resolve("ignored"), true));
+		}
+	}
+
+	private void write(String path, String content) throws IOException {
+		Path file = this.directory.resolve(path);
+		Files.createDirectories(file.getParent());
+		Files.writeString(file, content);
+	}
+}
@@ -0,0 +1,254 @@
+/*
+ * Copyright 2022-2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.quiltmc.gradle.licenser.impl;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.MergeCommand;
+import org.eclipse.jgit.api.ResetCommand;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.quiltmc.gradle.licenser.api.license.ModificationYearLookup;
+import org.slf4j.Logger;
+import org.slf4j.helpers.MessageFormatter;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GitYearCacheTest {
+	@TempDir
+	Path directory;
+
+	private final List<String> messages = new ArrayList<>();
+
+	@Test
+	void freshBuild() throws IOException, GitAPIException {
+		try (var git = Git.init().setDirectory(this.directory.toFile()).call()) {
+			assertTrue(this.load(git).isUnborn());
+
+			this.write("Foo.java", "class Foo {}\n");
+			this.write("src/Bar.java", "class Bar {}\n");
+			this.commit(git, 2019);
+			this.write("src/Bar.java", "class Bar { }\n");
+			this.write("src/nested/Baz.java", "class Baz {}\n");
+			this.commit(git, 2021);
+
+			GitYearCache cache = this.load(git);
+
+			assertFalse(cache.isUnborn());
+			assertEquals(Map.of("", 2021, "Foo.java", 2019, "src", 2021, "src/Bar.java", 2021, "src/nested", 2021,
+					"src/nested/Baz.java", 2021), collect(cache));
+			assertEquals(OptionalInt.empty(), cache.getYear("Missing.java"));
+			assertTrue(Files.isRegularFile(this.getCacheFile()));
+			assertEquals(List.of("Updated the git year cache with 2 commits."), this.messages);
+		}
+	}
+
+	@Test
+	void incrementalUpdate() throws IOException, GitAPIException {
+		try (var git = Git.init().setDirectory(this.directory.toFile()).call()) {
+			this.write("Foo.java", "class Foo {}\n");
+			this.write("Bar.java", "class Bar {}\n");
+			this.commit(git, 2019);
+			this.load(git);
+
+			// Loading the cache at the same HEAD does not walk anything.
+			this.messages.clear();
+			assertEquals(OptionalInt.of(2019), this.load(git).getYear("Foo.java"));
+			assertEquals(List.of(), this.messages);
+
+			this.write("Foo.java", "class Foo { }\n");
+			this.commit(git, 2022);
+
+			GitYearCache cache = this.load(git);
+			assertEquals(Map.of("", 2022, "Foo.java", 2022, "Bar.java", 2019), collect(cache));
+			assertEquals(List.of("Updated the git year cache with 1 commits."), this.messages);
+		}
+	}
+
+	@Test
+	void rebuildsAfterRewrittenHistory() throws IOException, GitAPIException {
+		try (var git = Git.init().setDirectory(this.directory.toFile()).call()) {
+			this.write("Foo.java", "class Foo {}\n");
+			RevCommit first = this.commit(git, 2019);
+			this.write("Bar.java", "class Bar {}\n");
+			this.commit(git, 2020);
+			this.load(git);
+
+			// Amending the last commit, the cached HEAD is not an ancestor of the new one anymore.
+			Files.delete(this.directory.resolve("Bar.java"));
+			this.write("Baz.java", "class Baz {}\n");
+			this.commit(git, 2021, true);
+
+			this.messages.clear();
+			GitYearCache cache = this.load(git);
+			assertEquals(Map.of("", 2021, "Foo.java", 2019, "Baz.java", 2021), collect(cache));
+			assertTrue(this.messages.get(0).contains("is not an ancestor"), this.messages.toString());
+			assertEquals("Updated the git year cache with 2 commits.", this.messages.get(1));
+
+			// Resetting to an older commit rebuilds the cache too.
+			git.reset().setMode(ResetCommand.ResetType.HARD).setRef(first.name()).call();
+			assertEquals(Map.of("", 2019, "Foo.java", 2019), collect(this.load(git)));
+		}
+	}
+
+	@Test
+	void mergeKeepingOneSide() throws IOException, GitAPIException {
+		try (var git = Git.init().setDirectory(this.directory.toFile()).call()) {
+			String mainBranch;
+			this.write("Foo.java", "class Foo {}\n");
+			this.write("Bar.java", "class Bar {}\n");
+			this.commit(git, 2019);
+			mainBranch = git.getRepository().getBranch();
+
+			git.checkout().setCreateBranch(true).setName("side").call();
+			this.write("Foo.java", "class Foo { }\n");
+			this.write("Bar.java", "class Bar { }\n");
+			this.commit(git, 2021);
+
+			git.checkout().setName(mainBranch).call();
+			this.write("Baz.java", "class Baz {}\n");
+			this.commit(git, 2020);
+
+			// The merge keeps the version of Foo.java of the main branch, discarding the change of the side branch.
+			git.merge().include(git.getRepository().resolve("side")).setCommit(false)
+					.setFastForward(MergeCommand.FastForwardMode.NO_FF).call();
+			this.write("Foo.java", "class Foo {}\n");
+			RevCommit merge = this.commit(git, 2022);
+			assertEquals(2, merge.getParentCount());
+
+			GitYearCache cache = this.load(git);
+			assertEquals(OptionalInt.of(2019), cache.getYear("Foo.java"));
+			assertEquals(OptionalInt.of(2021), cache.getYear("Bar.java"));
+			assertEquals(OptionalInt.of(2020), cache.getYear("Baz.java"));
+
+			// The cache agrees with the history walk of each file.
+			for (var path : List.of("Foo.java", "Bar.java", "Baz.java")) {
+				RevCommit commit = GitYearResolver.getLatestCommit(git, Path.of(path), ModificationYearLookup.UNBOUNDED);
+				int year = commit.getAuthorIdent().getWhenAsInstant().atZone(ZoneOffset.UTC).getYear();
+				assertEquals(OptionalInt.of(year), cache.getYear(path), path);
+			}
+		}
+	}
+
+	@Test
+	void dirtyFiles() throws IOException, GitAPIException {
+		try (var git = Git.init().setDirectory(this.directory.toFile()).call()) {
+			this.write("Foo.java", "class Foo {}\n");
+			this.write("Bar.java", "class Bar {}\n");
+			this.commit(git, 2019);
+			this.load(git);
+
+			this.write("Foo.java", "class Foo { }\n");
+			this.write("New.java", "class New {}\n");
+
+			GitYearCache cache = this.load(git);
+			assertTrue(cache.isDirty("Foo.java"));
+			assertTrue(cache.isDirty("New.java"));
+			assertFalse(cache.isDirty("Bar.java"));
+			// Uncommitted changes do not change the cached years.
+			assertEquals(OptionalInt.of(2019), cache.getYear("Foo.java"));
+		}
+	}
+
+	@Test
+	void invalidCacheFilesAreRebuilt() throws IOException, GitAPIException {
+		try (var git = Git.init().setDirectory(this.directory.toFile()).call()) {
+			this.write("Foo.java", "class Foo {}\n");
+			this.commit(git, 2019);
+			this.load(git);
+			byte[] valid = Files.readAllBytes(this.getCacheFile());
+
+			byte[] wrongMagic = valid.clone();
+			ByteBuffer.wrap(wrongMagic).putInt(0, 0xcafebabe);
+			byte[] wrongVersion = valid.clone();
+			ByteBuffer.wrap(wrongVersion).putInt(4, 0);
+
+			for (byte[] content : List.of(wrongMagic, wrongVersion, Arrays.copyOf(valid, valid.length - 3), "garbage".getBytes())) {
+				Files.write(this.getCacheFile(), content);
+				this.messages.clear();
+
+				assertEquals(Map.of("", 2019, "Foo.java", 2019), collect(this.load(git)));
+				assertTrue(this.messages.contains("Updated the git year cache with 1 commits."), this.messages.toString());
+				assertTrue(Arrays.equals(valid, Files.readAllBytes(this.getCacheFile())), "The cache file has not been rewritten.");
+			}
+		}
+	}
+
+	private GitYearCache load(Git git) throws IOException {
+		return GitYearCache.load(git.getRepository(), this.getCacheFile(), this.createLogger());
+	}
+
+	private Path getCacheFile() {
+		return this.directory.resolve(".git/quilt-licenser/git-years.bin");
+	}
+
+	/**
+	 * {@return a logger recording the info messages}
+	 */
+	private Logger createLogger() {
+		return (Logger) Proxy.newProxyInstance(Logger.class.getClassLoader(), new Class<?>[] {Logger.class}, (proxy, method, args) -> {
+			if (method.getName().equals("info") && args != null && args[0] instanceof String format) {
+				this.messages.add(MessageFormatter.arrayFormat(format, Arrays.copyOfRange(args, 1, args.length)).getMessage());
+			}
+
+			return method.getReturnType() == boolean.class ? false : null;
+		});
+	}
+
+	private static Map<String, Integer> collect(GitYearCache cache) {
+		var map = new TreeMap<String, Integer>();
+		cache.forEachYear(map::put);
+		return map;
+	}
+
+	private RevCommit commit(Git git, int year) throws GitAPIException {
+		return this.commit(git, year, false);
+	}
+
+	private RevCommit commit(Git git, int year, boolean amend) throws GitAPIException {
+		var ident = new PersonIdent("Test", "test@example.com",
+				ZonedDateTime.of(year, 6, 1, 12, 0, 0, 0, ZoneOffset.UTC).toInstant(), ZoneOffset.UTC);
+		git.add().addFilepattern(".").call();
+		git.add().addFilepattern(".").setUpdate(true).call();
+		return git.commit().setMessage("Commit of " + year).setAuthor(ident).setCommitter(ident).setAmend(amend).setSign(false).call();
+	}
+
+	private void write(String path, String content) throws IOException {
+		Path file = this.directory.resolve(path);
+		Files.createDirectories(file.getParent());
+		Files.writeString(file, content);
+	}
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2022-2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.quiltmc.gradle.licenser.impl;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.quiltmc.gradle.licenser.api.license.ModificationYearLookup;
+import org.quiltmc.gradle.licenser.api.util.GitUtils;
+import org.slf4j.helpers.NOPLogger;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.OptionalInt;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class GitYearResolverTest {
+	private static final int CURRENT_YEAR = 2024;
+	private static final Path FOO = Path.of("Foo.java");
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void walkStopsAtTheBoundWithADayOfMargin() throws IOException, GitAPIException {
+		try (var git = Git.init().setDirectory(this.directory.toFile()).call()) {
+			// The bound of 2020 is 2019-12-31T00:00Z, this commit is half a day before it.
+			this.write("Foo.java", "class Foo {}\n");
+			RevCommit beforeBound = this.commit(git, utc(2019, 12, 30, 12));
+
+			assertEquals(beforeBound, GitUtils.getLatestCommit(git, FOO));
+			assertEquals(beforeBound, GitYearResolver.getLatestCommit(git, FOO, 2019));
+			assertNull(GitYearResolver.getLatestCommit(git, FOO, 2020));
+			assertEquals(OptionalInt.empty(), this.getModificationYear(git, 2020));
+
+			// Half a day after the bound, the commit is walked but still authored in 2019.
+			this.write("Foo.java", "class Foo { }\n");
+			RevCommit afterBound = this.commit(git, utc(2019, 12, 31, 12));
+
+			assertEquals(afterBound, GitYearResolver.getLatestCommit(git, FOO, 2020));
+			assertEquals(OptionalInt.empty(), this.getModificationYear(git, 2020));
+			assertEquals(OptionalInt.of(2019), this.getModificationYear(git, 2019));
+		}
+	}
+
+	@Test
+	void marginKeepsCommitsAuthoredInTheYearInAnotherTimeZone() throws IOException, GitAPIException {
+		try (var git = Git.init().setDirectory(this.directory.toFile()).call()) {
+			// 2020-01-01T00:30+02:00 is 2019-12-31T22:30Z, before the year in UTC but after the bound.
+			var time = ZonedDateTime.of(2020, 1, 1, 0, 30, 0, 0, ZoneOffset.ofHours(2));
+			this.write("Foo.java", "class Foo {}\n");
+			RevCommit commit = this.commit(git, time, time);
+
+			assertEquals(commit, GitYearResolver.getLatestCommit(git, FOO, 2020));
+			assertEquals(OptionalInt.of(2020), this.getModificationYear(git, 2020));
+		}
+	}
+
+	@Test
+	void yearIsTheAuthorYearNotTheCommitYear() throws IOException, GitAPIException {
+		try (var git = Git.init().setDirectory(this.directory.toFile()).call()) {
+			// As for a rebased commit, authored in 2019 but committed in 2021.
+			this.write("Foo.java", "class Foo {}\n");
+			RevCommit commit = this.commit(git, utc(2019, 6, 1, 12), utc(2021, 6, 1, 12));
+
+			// The walk is bounded by the commit time, so the commit is found...
+			assertEquals(commit, GitYearResolver.getLatestCommit(git, FOO, 2020));
+			// ...but the year is the author year, which is older than the bound.
+			assertEquals(OptionalInt.empty(), this.getModificationYear(git, 2020));
+			assertEquals(OptionalInt.of(2019), this.getModificationYear(git, ModificationYearLookup.UNBOUNDED));
+		}
+	}
+
+	@Test
+	void fileWithoutHistory() throws IOException, GitAPIException {
+		try (var git = Git.init().setDirectory(this.directory.toFile()).call()) {
+			this.write("Bar.java", "class Bar {}\n");
+			this.commit(git, utc(2019, 6, 1, 12));
+
+			assertNull(GitYearResolver.getLatestCommit(git, FOO, ModificationYearLookup.UNBOUNDED));
+			// A bounded lookup finds nothing, an unbounded one falls back to the current year.
+			assertEquals(OptionalInt.empty(), this.getModificationYear(git, 2019));
+			assertEquals(OptionalInt.of(CURRENT_YEAR), this.getModificationYear(git, ModificationYearLookup.UNBOUNDED));
+
+			// The year cache agrees with the history walk.
+			GitYearCache cache = GitYearCache.load(git.getRepository(), this.directory.resolve(".git/quilt-licenser/git-years.bin"),
+					NOPLogger.NOP_LOGGER);
+			assertEquals(OptionalInt.empty(), this.getModificationYear(git, cache, 2019));
+			assertEquals(OptionalInt.of(CURRENT_YEAR), this.getModificationYear(git, cache, ModificationYearLookup.UNBOUNDED));
+		}
+	}
+
+	@Test
+	void uncommittedChangesAreTheCurrentYear() throws IOException, GitAPIException {
+		try (var git = Git.init().setDirectory(this.directory.toFile()).call()) {
+			this.write("Foo.java", "class Foo {}\n");
+			assertEquals(OptionalInt.of(CURRENT_YEAR), this.getModificationYear(git, 2019));
+
+			this.write("Bar.java", "class Bar {}\n");
+			this.commit(git, utc(2019, 6, 1, 12));
+			assertEquals(OptionalInt.of(2019), this.getModificationYear(git, 2019));
+
+			// Only the modified file is dirty.
+			this.write("Foo.java", "class Foo { }\n");
+			assertEquals(OptionalInt.of(CURRENT_YEAR), this.getModificationYear(git, 2019));
+			assertEquals(OptionalInt.of(2019), GitYearResolver.getModificationYear(git, null, this.directory.resolve("Bar.java"),
+					2019, CURRENT_YEAR));
+		}
+	}
+
+	private OptionalInt getModificationYear(Git git, int sinceYear) {
+		return this.getModificationYear(git, null, sinceYear);
+	}
+
+	private OptionalInt getModificationYear(Git git, GitYearCache cache, int sinceYear) {
+		return GitYearResolver.getModificationYear(git, cache, this.directory.resolve(FOO), sinceYear, CURRENT_YEAR);
+	}
+
+	private static ZonedDateTime utc(int year, int month, int day, int hour) {
+		return ZonedDateTime.of(year, month, day, hour, 0, 0, 0, ZoneOffset.UTC);
+	}
+
+	private RevCommit commit(Git git, ZonedDateTime time) throws GitAPIException {
+		return this.commit(git, time, time);
+	}
+
+	private RevCommit commit(Git git, ZonedDateTime authorTime, ZonedDateTime commitTime) throws GitAPIException {
+		git.add().addFilepattern(".").call();
+		git.add().addFilepattern(".").setUpdate(true).call();
+		return git.commit().setMessage("Commit")
+				.setAuthor(ident(authorTime))
+				.setCommitter(ident(commitTime))
+				.setSign(false)
+				.call();
+	}
+
+	private static PersonIdent ident(ZonedDateTime time) {
+		return new PersonIdent("Test", "test@example.com", time.toInstant(), time.getZone());
+	}
+
+	private void write(String path, String content) throws IOException {
+		Files.writeString(this.directory.resolve(path), content);
+	}
+}
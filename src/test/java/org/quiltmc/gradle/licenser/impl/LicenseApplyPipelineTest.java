@@ -0,0 +1,155 @@
+/*
+ * Copyright 2022-2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.quiltmc.gradle.licenser.impl;
+
+import org.gradle.api.GradleException;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.quiltmc.gradle.licenser.api.license.LicenseContext;
+import org.quiltmc.gradle.licenser.api.license.LicenseHeader;
+import org.quiltmc.gradle.licenser.api.license.LicenseRule;
+import org.quiltmc.gradle.licenser.api.license.comment.LicenseComment;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.OptionalInt;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+class LicenseApplyPipelineTest {
+	private static final String LICENSED_PREFIX = "/*\n * Licensed under the test license.\n */\n\n";
+	private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+	@TempDir
+	Path directory;
+
+	private final LicenseHeader header = new LicenseHeader(new LicenseRule("Licensed under the test license."));
+
+	@Test
+	void appliesHeaders() throws IOException {
+		// More files than the queues can hold, so every stage has to wait on the others.
+		var files = new ArrayList<Path>();
+
+		for (int i = 0; i < 300; i++) {
+			files.add(this.write("File" + i + ".java", (i % 2 == 0 ? LICENSED_PREFIX : "") + "class File" + i + " {}\n"));
+		}
+
+		var resolvedFiles = new ArrayList<LicenseApplyPipeline.ResolvedFile>();
+		var pipeline = new LicenseApplyPipeline(new TestContext(this.directory), this.header, resolvedFiles::add);
+
+		for (var file : files) {
+			pipeline.submit(file);
+		}
+
+		assertTimeoutPreemptively(TIMEOUT, pipeline::finish);
+		assertEquals(files.size(), resolvedFiles.size());
+		assertEquals(files.size() / 2, resolvedFiles.stream().filter(LicenseApplyPipeline.ResolvedFile::updated).count());
+
+		for (int i = 0; i < files.size(); i++) {
+			assertEquals(LICENSED_PREFIX + "class File" + i + " {}\n", Files.readString(files.get(i)));
+		}
+	}
+
+	@Test
+	void readFailure() throws IOException {
+		var pipeline = new LicenseApplyPipeline(new TestContext(this.directory), this.header, file -> {});
+		pipeline.submit(this.write("Foo.java", "class Foo {}\n"));
+		pipeline.submit(this.directory.resolve("Missing.java"));
+
+		assertTimeoutPreemptively(TIMEOUT, () -> assertThrows(RuntimeException.class, pipeline::finish));
+	}
+
+	@Test
+	void readerError() throws IOException {
+		// An error escaping the reader kills its thread, the pipeline must fail instead of waiting for the file forever.
+		// Finding a rule with special matching reads the header of the file with its comment style, which fails.
+		var header = new LicenseHeader(new LicenseRule("Licensed under the test license.\n;;match_from: never"));
+		header.getCommentStyles().register(new FailingComment(), "fail");
+		var pipeline = new LicenseApplyPipeline(new TestContext(this.directory), header, file -> {});
+
+		for (int i = 0; i < 10; i++) {
+			pipeline.submit(this.write("File" + i + ".fail", "content\n"));
+		}
+
+		assertTimeoutPreemptively(TIMEOUT, () -> assertThrows(GradleException.class, pipeline::finish));
+	}
+
+	private Path write(String name, String content) throws IOException {
+		return Files.writeString(this.directory.resolve(name), content);
+	}
+
+	private record TestContext(Path directory) implements LicenseContext {
+		@Override
+		public Path getProjectDirectory() {
+			return this.directory;
+		}
+
+		@Override
+		public int getCurrentYear() {
+			return 2023;
+		}
+
+		@Override
+		public OptionalInt getModificationYear(Path path, int sinceYear) {
+			return OptionalInt.empty();
+		}
+
+		@Override
+		public int getCreationYear(Path path) {
+			return 2023;
+		}
+
+		@Override
+		public @Nullable Path getBackupPath(Path path) {
+			return this.directory.resolve("backup").resolve(this.directory.relativize(path));
+		}
+
+		@Override
+		public boolean isDebug() {
+			return false;
+		}
+
+		@Override
+		public void debug(String message, Object... arguments) {
+		}
+	}
+
+	private static final class FailingComment implements LicenseComment {
+		@Override
+		public @NotNull Result findLicenseComment(@NotNull CharSequence source) {
+			throw new AssertionError("Unexpected failure.");
+		}
+
+		@Override
+		public @Nullable String extractExisting(@NotNull CharSequence source, @NotNull Result result) {
+			throw new AssertionError("Unexpected failure.");
+		}
+
+		@Override
+		public @NotNull String getLicenseComment(@NotNull String[] lines, @NotNull String lineSeparator) {
+			throw new AssertionError("Unexpected failure.");
+		}
+	}
+}
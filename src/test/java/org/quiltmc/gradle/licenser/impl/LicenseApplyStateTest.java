@@ -0,0 +1,132 @@
+/*
+ * Copyright 2022-2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.quiltmc.gradle.licenser.impl;
+
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LicenseApplyStateTest {
+	private static final Logger LOGGER = Logging.getLogger(LicenseApplyStateTest.class);
+	private static final long FINGERPRINT = 42;
+	// Files modified as late as the state are processed again, so the files are older.
+	private static final FileTime MODIFIED_TIME = FileTime.from(Instant.now().minus(1, ChronoUnit.HOURS).truncatedTo(ChronoUnit.SECONDS));
+
+	@TempDir
+	Path directory;
+
+	private Path statePath;
+	private Path foo;
+	private Path bar;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		this.statePath = this.directory.resolve("states/Main.state");
+		this.foo = this.write("Foo.java", "class Foo {}\n");
+		this.bar = this.write("Bar.java", "class Bar {}\n");
+
+		var state = LicenseApplyState.read(this.statePath, FINGERPRINT, LOGGER);
+		state.record(this.foo);
+		state.record(this.bar);
+		state.write(this.statePath, LOGGER);
+	}
+
+	@Test
+	void skipsUnchangedFiles() {
+		var state = this.read();
+		assertTrue(state.isUnchanged(this.foo));
+		assertTrue(state.isUnchanged(this.bar));
+		assertFalse(state.isUnchanged(this.directory.resolve("Unknown.java")));
+	}
+
+	@Test
+	void modifiedTimeChange() throws IOException {
+		Files.setLastModifiedTime(this.foo, FileTime.from(MODIFIED_TIME.toInstant().minus(1, ChronoUnit.MINUTES)));
+		assertFalse(this.read().isUnchanged(this.foo));
+	}
+
+	@Test
+	void sizeChange() throws IOException {
+		this.write("Foo.java", "class Foo {\n}\n");
+		assertFalse(this.read().isUnchanged(this.foo));
+	}
+
+	@Test
+	void fingerprintChange() {
+		assertFalse(LicenseApplyState.read(this.statePath, FINGERPRINT + 1, LOGGER).isUnchanged(this.foo));
+		// The entries of the other fingerprint are gone once the state is written again.
+		LicenseApplyState.read(this.statePath, FINGERPRINT + 1, LOGGER).write(this.statePath, LOGGER);
+		assertFalse(this.read().isUnchanged(this.bar));
+	}
+
+	@Test
+	void fullRunProcessesEveryFile() {
+		var state = LicenseApplyState.empty(FINGERPRINT);
+		assertFalse(state.isUnchanged(this.foo));
+		assertFalse(state.isUnchanged(this.bar));
+	}
+
+	@Test
+	void keepsFilesNotVisited() {
+		var state = this.read();
+		assertTrue(state.isUnchanged(this.foo));
+		state.write(this.statePath, LOGGER);
+
+		state = this.read();
+		assertTrue(state.isUnchanged(this.foo));
+		assertTrue(state.isUnchanged(this.bar));
+	}
+
+	@Test
+	void dropsFailedAndDeletedFiles() throws IOException {
+		var state = this.read();
+		// The file is visited, but never recorded as it did not get a valid license header.
+		assertFalse(state.isUnchanged(this.write("Foo.java", "class Foo {\n}\n")));
+		Files.delete(this.bar);
+		state.write(this.statePath, LOGGER);
+
+		// Even with its previous stat data back, the failed file has to be processed again.
+		this.write("Foo.java", "class Foo {}\n");
+		this.write("Bar.java", "class Bar {}\n");
+		state = this.read();
+		assertFalse(state.isUnchanged(this.foo));
+		assertFalse(state.isUnchanged(this.bar));
+	}
+
+	private LicenseApplyState read() {
+		return LicenseApplyState.read(this.statePath, FINGERPRINT, LOGGER);
+	}
+
+	private Path write(String name, String content) throws IOException {
+		Path file = Files.writeString(this.directory.resolve(name), content);
+		Files.setLastModifiedTime(file, MODIFIED_TIME);
+		return file;
+	}
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2022-2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.quiltmc.gradle.licenser.impl;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Year;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LicenseClockTest {
+	@TempDir
+	Path directory;
+
+	@Test
+	void parse() {
+		assertEquals(LicenseClock.SYSTEM, LicenseClock.parse("system"));
+		assertEquals(new LicenseClock(LicenseClock.Source.SOURCE_DATE_EPOCH, 0), LicenseClock.parse("SOURCE_DATE_EPOCH"));
+		assertEquals(new LicenseClock(LicenseClock.Source.HEAD, 0), LicenseClock.parse(" Head "));
+		assertEquals(new LicenseClock(LicenseClock.Source.FIXED, 2024), LicenseClock.parse("2024"));
+
+		assertThrows(IllegalArgumentException.class, () -> LicenseClock.parse("fixed"));
+		assertThrows(IllegalArgumentException.class, () -> LicenseClock.parse("tomorrow"));
+		assertThrows(IllegalArgumentException.class, () -> LicenseClock.parse(""));
+	}
+
+	@Test
+	void toStringIsParsable() {
+		for (var value : new String[] {"system", "source_date_epoch", "head", "2024"}) {
+			assertEquals(value, LicenseClock.parse(value).toString());
+		}
+	}
+
+	@Test
+	void currentYear() throws GitAPIException {
+		int systemYear = Year.now().getValue();
+
+		assertEquals(2024, LicenseClock.parse("2024").getCurrentYear(() -> {
+			throw new AssertionError("The repository of a fixed clock must not be opened.");
+		}));
+		assertEquals(systemYear, LicenseClock.SYSTEM.getCurrentYear(() -> null));
+		// Without a commit to read, the head clock falls back to the system clock.
+		assertEquals(systemYear, LicenseClock.parse("head").getCurrentYear(() -> null));
+
+		try (var git = Git.init().setDirectory(this.directory.toFile()).call()) {
+			assertEquals(systemYear, LicenseClock.parse("head").getCurrentYear(git::getRepository));
+
+			var ident = new PersonIdent("Test", "test@example.com",
+					ZonedDateTime.of(2015, 12, 31, 23, 0, 0, 0, ZoneOffset.ofHours(-5)).toInstant(), ZoneOffset.ofHours(-5));
+			git.commit().setMessage("Initial commit").setAllowEmpty(true).setAuthor(ident).setCommitter(ident).setSign(false).call();
+
+			// The year is read in the time zone of the committer, it is already 2016 in UTC.
+			assertEquals(2015, LicenseClock.parse("head").getCurrentYear(git::getRepository));
+		}
+	}
+}
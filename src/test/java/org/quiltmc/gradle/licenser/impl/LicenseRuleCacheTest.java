@@ -0,0 +1,53 @@
+/*
+ * Copyright 2022-2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.quiltmc.gradle.licenser.impl;
+
+import org.junit.jupiter.api.Test;
+import org.quiltmc.gradle.licenser.api.license.LicenseRule;
+import org.quiltmc.gradle.licenser.api.license.LicenseYearDisplayMode;
+import org.quiltmc.gradle.licenser.api.license.LicenseYearSelectionMode;
+
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class LicenseRuleCacheTest {
+	private static final String HEADER = "Copyright ${YEAR} Test\n\nLicensed under the test license.";
+
+	@Test
+	void identicalHeadersShareTheirRule() {
+		LicenseRule rule = get(HEADER);
+
+		assertSame(rule, get(new StringBuilder(HEADER).toString()));
+		assertSame(rule, LicenseRuleCache.get(HEADER, LicenseYearDisplayMode.CREATION_ONLY, LicenseYearSelectionMode.PROJECT));
+	}
+
+	@Test
+	void editedHeadersDoNotShareTheirRule() {
+		LicenseRule rule = get(HEADER);
+
+		assertNotSame(rule, get(HEADER + "\nSee the LICENSE file."));
+		assertNotSame(rule, get(HEADER.replace("test license", "other license")));
+		// The default modes are part of the rule too.
+		assertNotSame(rule, LicenseRuleCache.get(HEADER, LicenseYearDisplayMode.LENIENT_RANGE, LicenseYearSelectionMode.PROJECT));
+		assertNotSame(rule, LicenseRuleCache.get(HEADER, LicenseYearDisplayMode.CREATION_ONLY, LicenseYearSelectionMode.FILE));
+	}
+
+	private static LicenseRule get(String header) {
+		return LicenseRuleCache.get(header, LicenseYearDisplayMode.CREATION_ONLY, LicenseYearSelectionMode.PROJECT);
+	}
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2022-2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.quiltmc.gradle.licenser.impl;
+
+import org.gradle.api.GradleException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LicenseShardTest {
+	private static final String FINGERPRINT = "fingerprint";
+	private static final String REVISION = "0123456789abcdef0123456789abcdef01234567";
+
+	@Test
+	void hashingIsStable() {
+		// The partition must never change, or machines running different plugin versions would skip or double-check files.
+		assertShard("src/main/java/Foo.java", 4);
+		assertShard("src/main/java/org/example/Bar.java", 1);
+		assertShard("src/test/java/BazTest.java", 2);
+		assertShard("build.gradle", 1);
+		assertShard("README.md", 3);
+	}
+
+	@Test
+	void everyFileBelongsToOneShard() {
+		for (int file = 0; file < 100; file++) {
+			String path = "src/main/java/File" + file + ".java";
+			int shards = 0;
+
+			for (int index = 1; index <= 3; index++) {
+				if (new LicenseShard(index, 3).contains(path)) {
+					shards++;
+				}
+			}
+
+			assertEquals(1, shards, path);
+		}
+	}
+
+	@Test
+	void parse() {
+		assertEquals(new LicenseShard(2, 4), LicenseShard.parse(" 2 / 4 "));
+		assertThrows(GradleException.class, () -> LicenseShard.parse("2"));
+		assertThrows(GradleException.class, () -> LicenseShard.parse("5/4"));
+	}
+
+	@Test
+	void aggregateDetectsMissingShards() {
+		var aggregate = LicenseShardReport.aggregate(List.of(
+				report(1, 3, REVISION, 10, List.of()),
+				report(3, 3, REVISION, 5, List.of("src/main/java/Foo.java"))
+		), FINGERPRINT, REVISION);
+
+		assertEquals(15, aggregate.total());
+		assertEquals(List.of("src/main/java/Foo.java"), aggregate.failed());
+		assertEquals(List.of(":checkLicenseMain is missing the report of shard 2/3"), aggregate.problems());
+	}
+
+	@Test
+	void aggregateDetectsMismatchedShards() {
+		var aggregate = LicenseShardReport.aggregate(List.of(
+				report(1, 2, REVISION, 10, List.of()),
+				report(2, 2, REVISION, 10, List.of()),
+				report(2, 3, REVISION, 10, List.of())
+		), FINGERPRINT, null);
+
+		assertEquals(List.of(":checkLicenseMain has reports with mismatching shard counts (2 and 3)"), aggregate.problems());
+
+		aggregate = LicenseShardReport.aggregate(List.of(
+				report(1, 2, REVISION, 10, List.of()),
+				report(2, 2, "fedcba9876543210fedcba9876543210fedcba98", 10, List.of())
+		), FINGERPRINT, null);
+
+		// The report of the other commit is rejected, which leaves its shard missing.
+		assertEquals(2, aggregate.problems().size());
+		assertTrue(aggregate.problems().get(0).contains("different commits"));
+		assertEquals(":checkLicenseMain is missing the report of shard 2/2", aggregate.problems().get(1));
+	}
+
+	@Test
+	void aggregateIgnoresOutdatedReports() {
+		var aggregate = LicenseShardReport.aggregate(List.of(
+				report(1, 2, REVISION, 10, List.of()),
+				report(2, 2, REVISION, 10, List.of()),
+				// A stale failure of an earlier commit.
+				report(2, 2, "fedcba9876543210fedcba9876543210fedcba98", 10, List.of("src/main/java/Foo.java")),
+				new LicenseShardReport(":checkLicenseMain", new LicenseShard(1, 2), "other", REVISION, 10, List.of("src/main/java/Bar.java"))
+		), FINGERPRINT, REVISION);
+
+		assertEquals(2, aggregate.outdated());
+		assertEquals(20, aggregate.total());
+		assertEquals(List.of(), aggregate.failed());
+		assertEquals(List.of(), aggregate.problems());
+
+		aggregate = LicenseShardReport.aggregate(List.of(report(1, 1, REVISION, 10, List.of())), "other", REVISION);
+		assertEquals(1, aggregate.problems().size());
+	}
+
+	@Test
+	void writeRemovesReportsOfOtherShardCounts(@TempDir Path directory) throws IOException {
+		Path stale = report(3, 3, REVISION, 10, List.of("src/main/java/Foo.java")).write(directory);
+		Path other = new LicenseShardReport(":checkLicenseTest", new LicenseShard(1, 3), FINGERPRINT, REVISION, 1, List.of())
+				.write(directory);
+		Path current = report(1, 2, REVISION, 10, List.of("src/main/java/Foo.java")).write(directory);
+
+		assertEquals(List.of(other, current).stream().sorted().toList(), LicenseShardReport.list(directory));
+		assertTrue(Files.notExists(stale));
+		assertEquals(report(1, 2, REVISION, 10, List.of("src/main/java/Foo.java")), LicenseShardReport.read(current));
+	}
+
+	private static void assertShard(String path, int expectedIndex) {
+		for (int index = 1; index <= 4; index++) {
+			assertEquals(index == expectedIndex, new LicenseShard(index, 4).contains(path), path + " in shard " + index);
+		}
+	}
+
+	private static LicenseShardReport report(int index, int count, String revision, int total, List<String> failed) {
+		return new LicenseShardReport(":checkLicenseMain", new LicenseShard(index, count), FINGERPRINT, revision, total, failed);
+	}
+}
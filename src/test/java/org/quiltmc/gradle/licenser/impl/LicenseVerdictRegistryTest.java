@@ -0,0 +1,75 @@
+/*
+ * Copyright 2022-2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.quiltmc.gradle.licenser.impl;
+
+import org.gradle.api.services.BuildServiceParameters;
+import org.junit.jupiter.api.Test;
+import org.quiltmc.gradle.licenser.api.license.LicenseHeader;
+import org.quiltmc.gradle.licenser.api.license.LicenseRule;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class LicenseVerdictRegistryTest {
+	private static final Path FILE = Path.of("src/main/java/Foo.java");
+
+	private final LicenseHeader header = new LicenseHeader(new LicenseRule("Licensed under the test license."));
+	private final LicenseVerdictRegistry registry = new LicenseVerdictRegistry() {
+		@Override
+		public BuildServiceParameters.None getParameters() {
+			return null;
+		}
+	};
+
+	@Test
+	void firstVerdictWins() {
+		var first = new LicenseVerdictRegistry.Verdict(":checkLicenseMain", false);
+		this.registry.put(LicenseVerdictRegistry.Action.CHECK, this.header, FILE, first);
+		this.registry.put(LicenseVerdictRegistry.Action.CHECK, this.header, FILE.toAbsolutePath(),
+				new LicenseVerdictRegistry.Verdict(":checkLicenseTest", true));
+
+		assertEquals(first, this.registry.get(LicenseVerdictRegistry.Action.CHECK, this.header, FILE));
+		assertNull(this.registry.get(LicenseVerdictRegistry.Action.CHECK, new LicenseHeader(), FILE));
+	}
+
+	@Test
+	void updatingApplyInvalidatesChecks() {
+		this.registry.put(LicenseVerdictRegistry.Action.CHECK, this.header, FILE,
+				new LicenseVerdictRegistry.Verdict(":checkLicenseMain", false));
+		this.registry.put(LicenseVerdictRegistry.Action.STRICT_CHECK, this.header, FILE,
+				new LicenseVerdictRegistry.Verdict(":checkLicenseMain", false));
+		var apply = new LicenseVerdictRegistry.Verdict(":applyLicenseMain", true);
+		this.registry.put(LicenseVerdictRegistry.Action.APPLY, this.header, FILE, apply);
+
+		assertNull(this.registry.get(LicenseVerdictRegistry.Action.CHECK, this.header, FILE));
+		assertNull(this.registry.get(LicenseVerdictRegistry.Action.STRICT_CHECK, this.header, FILE));
+		assertEquals(apply, this.registry.get(LicenseVerdictRegistry.Action.APPLY, this.header, FILE));
+	}
+
+	@Test
+	void unchangedApplyKeepsChecks() {
+		var check = new LicenseVerdictRegistry.Verdict(":checkLicenseMain", true);
+		this.registry.put(LicenseVerdictRegistry.Action.CHECK, this.header, FILE, check);
+		this.registry.put(LicenseVerdictRegistry.Action.APPLY, this.header, FILE,
+				new LicenseVerdictRegistry.Verdict(":applyLicenseMain", false));
+
+		assertEquals(check, this.registry.get(LicenseVerdictRegistry.Action.CHECK, this.header, FILE));
+	}
+}
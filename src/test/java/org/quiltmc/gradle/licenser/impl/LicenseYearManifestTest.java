@@ -0,0 +1,117 @@
+/*
+ * Copyright 2022-2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.quiltmc.gradle.licenser.impl;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.quiltmc.gradle.licenser.api.license.ModificationYearLookup;
+import org.slf4j.helpers.NOPLogger;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.OptionalInt;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LicenseYearManifestTest {
+	private static final int CURRENT_YEAR = 2030;
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void roundTrip() throws IOException, GitAPIException {
+		Path repositoryRoot = this.directory.resolve("repository");
+		Path root = repositoryRoot.resolve("project");
+		Path manifestFile = this.directory.resolve("years/licenser-years.txt");
+
+		try (var git = Git.init().setDirectory(repositoryRoot.toFile()).call()) {
+			this.write(root.resolve("src/Foo.java"), "class Foo {}\n");
+			this.write(root.resolve("src/With space.java"), "class WithSpace {}\n");
+			this.write(repositoryRoot.resolve("other/Other.java"), "class Other {}\n");
+			this.commit(git, 2019);
+			this.write(root.resolve("src/Foo.java"), "class Foo {\n}\n");
+			this.write(root.resolve("src/Bar.java"), "class Bar {}\n");
+			this.commit(git, 2021);
+
+			var yearCache = GitYearCache.load(git.getRepository(), this.directory.resolve("cache"), NOPLogger.NOP_LOGGER);
+			var creationYears = GitCreationYears.compute(git.getRepository(), NOPLogger.NOP_LOGGER);
+			int count = LicenseYearManifest.write(manifestFile, root, repositoryRoot, yearCache, creationYears);
+			var manifest = LicenseYearManifest.read(manifestFile, root);
+
+			// The project directory, src and the three files of the project.
+			assertEquals(5, count);
+			assertEquals(count, manifest.size());
+
+			for (var path : new String[] {"src/Foo.java", "src/Bar.java", "src/With space.java", "src", ""}) {
+				assertEquals(yearCache.getYear(("project/" + path).replaceAll("/$", "")),
+						manifest.getModificationYear(root.resolve(path), ModificationYearLookup.UNBOUNDED, CURRENT_YEAR), path);
+			}
+
+			assertEquals(OptionalInt.of(2021),
+					manifest.getModificationYear(root.resolve("src/Foo.java"), ModificationYearLookup.UNBOUNDED, CURRENT_YEAR));
+			assertEquals(OptionalInt.empty(), manifest.getModificationYear(root.resolve("src/Foo.java"), 2022, CURRENT_YEAR));
+			assertEquals(2019, manifest.getCreationYear(root.resolve("src/Foo.java"), CURRENT_YEAR));
+			assertEquals(2021, manifest.getCreationYear(root.resolve("src/Bar.java"), CURRENT_YEAR));
+			assertEquals(2019, manifest.getCreationYear(root.resolve("src/With space.java"), CURRENT_YEAR));
+
+			// Directories have no creation year, and new files are created and modified in the current year.
+			assertEquals(CURRENT_YEAR, manifest.getCreationYear(root.resolve("src"), CURRENT_YEAR));
+			assertEquals(CURRENT_YEAR, manifest.getCreationYear(root.resolve("src/New.java"), CURRENT_YEAR));
+			assertEquals(OptionalInt.of(CURRENT_YEAR),
+					manifest.getModificationYear(root.resolve("src/New.java"), ModificationYearLookup.UNBOUNDED, CURRENT_YEAR));
+
+			// Files outside the project are not exported.
+			assertEquals(CURRENT_YEAR, LicenseYearManifest.read(manifestFile, repositoryRoot)
+					.getCreationYear(repositoryRoot.resolve("other/Other.java"), CURRENT_YEAR));
+		}
+	}
+
+	@Test
+	void malformedManifests() throws IOException {
+		Path file = this.directory.resolve("licenser-years.txt");
+
+		Files.writeString(file, "2021 2019 Foo.java\n");
+		assertThrows(IllegalStateException.class, () -> LicenseYearManifest.read(file, this.directory));
+
+		Files.writeString(file, "# quilt-licenser years v1\n2021 Foo.java\n");
+		assertThrows(IllegalStateException.class, () -> LicenseYearManifest.read(file, this.directory));
+
+		Files.writeString(file, "# quilt-licenser years v1\nyear 2019 Foo.java\n");
+		assertThrows(IllegalStateException.class, () -> LicenseYearManifest.read(file, this.directory));
+	}
+
+	private void commit(Git git, int year) throws GitAPIException {
+		var ident = new PersonIdent("Test", "test@example.com",
+				ZonedDateTime.of(year, 6, 1, 12, 0, 0, 0, ZoneOffset.UTC).toInstant(), ZoneOffset.UTC);
+		git.add().addFilepattern(".").call();
+		git.commit().setMessage("Commit of " + year).setAuthor(ident).setCommitter(ident).setSign(false).call();
+	}
+
+	private void write(Path file, String content) throws IOException {
+		Files.createDirectories(file.getParent());
+		Files.writeString(file, content);
+	}
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2022-2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.quiltmc.gradle.licenser.impl;
+
+import org.eclipse.jgit.storage.file.WindowCacheConfig;
+import org.gradle.api.GradleException;
+import org.gradle.api.Project;
+import org.gradle.testfixtures.ProjectBuilder;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.quiltmc.gradle.licenser.QuiltLicenserGradlePlugin;
+import org.quiltmc.gradle.licenser.extension.QuiltLicenserGradleExtension;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LicenserGitServiceTest {
+	@TempDir
+	Path directory;
+
+	@Test
+	void clockAppliesToTheWholeBuild() {
+		Project root = ProjectBuilder.builder().withProjectDir(this.directory.toFile()).build();
+		Project child = ProjectBuilder.builder().withName("child").withParent(root).build();
+		applyPlugin(root).setClock("2020");
+		applyPlugin(child).setClock("2020");
+
+		// Whichever project registers the service, the agreed clock is used.
+		assertEquals(2020, LicenserGitService.get(child).getCurrentYear());
+	}
+
+	@Test
+	void projectsMustAgreeOnTheClock() {
+		Project root = ProjectBuilder.builder().withProjectDir(this.directory.toFile()).build();
+		Project child = ProjectBuilder.builder().withName("child").withParent(root).build();
+		applyPlugin(root).setClock("2020");
+		applyPlugin(child).setClock("2021");
+
+		// Gradle wraps the failure of the service parameters.
+		Throwable exception = assertThrows(RuntimeException.class, () -> LicenserGitService.get(child).getCurrentYear());
+
+		while (!(exception instanceof GradleException) || !exception.getMessage().startsWith("The license clock")) {
+			assertNotNull(exception.getCause(), "The disagreement on the clock is not reported.");
+			exception = exception.getCause();
+		}
+
+		assertTrue(exception.getMessage().contains(":child"), exception.getMessage());
+	}
+
+	@Test
+	void cacheSettingsApplyToTheWholeBuild() {
+		Project root = ProjectBuilder.builder().withProjectDir(this.directory.toFile()).build();
+		Project child = ProjectBuilder.builder().withName("child").withParent(root).build();
+		var rootExtension = applyPlugin(root);
+		var childExtension = applyPlugin(child);
+		rootExtension.setPackedGitWindowSize(65536);
+		rootExtension.setPackedGitLimit(64L << 20);
+		childExtension.setPackedGitWindowSize(16384);
+		childExtension.setDeltaBaseCacheLimit(32 << 20);
+		childExtension.setGenerateCommitGraph(true);
+
+		LicenserGitService service = LicenserGitService.get(child);
+		GitCacheSettings settings = service.getCacheSettings();
+		// The root project wins the disagreement on the window size, the other settings are merged.
+		assertEquals(new GitCacheSettings(null, 65536, 64L << 20, 32 << 20), settings);
+		assertTrue(service.getParameters().getCommitGraphFile().isPresent());
+
+		WindowCacheConfig config = settings.toConfig();
+		assertEquals(65536, config.getPackedGitWindowSize());
+		assertEquals(64L << 20, config.getPackedGitLimit());
+		assertEquals(32 << 20, config.getDeltaBaseCacheLimit());
+		assertEquals(new WindowCacheConfig().isPackedGitMMAP(), config.isPackedGitMMAP());
+
+		try {
+			// The settings are installed before the repository is opened, even if there is none.
+			service.getGit();
+			assertEquals(settings, GitCacheSettings.getInstalled());
+		} finally {
+			GitCacheSettings.DEFAULT.install();
+		}
+	}
+
+	private static QuiltLicenserGradleExtension applyPlugin(Project project) {
+		project.getPlugins().apply("java");
+		project.getPlugins().apply(QuiltLicenserGradlePlugin.class);
+		return project.getExtensions().getByType(QuiltLicenserGradleExtension.class);
+	}
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2022-2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.quiltmc.gradle.licenser.impl;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class SourceFileSnifferTest {
+	@TempDir
+	Path directory;
+
+	@Test
+	void sourceFile() throws IOException {
+		assertNull(this.sniff(Long.MAX_VALUE, "class Foo {} // ünïcödé\n".getBytes(StandardCharsets.UTF_8)));
+		assertNull(this.sniff(Long.MAX_VALUE, new byte[0]));
+	}
+
+	@Test
+	void binaryFile() throws IOException {
+		assertEquals(SourceFileSniffer.SkipReason.BINARY, this.sniff(Long.MAX_VALUE, new byte[] {'P', 'K', 3, 4, 0, 0}));
+	}
+
+	@Test
+	void notUtf8() throws IOException {
+		assertEquals(SourceFileSniffer.SkipReason.NOT_UTF8,
+				this.sniff(Long.MAX_VALUE, "café\n".getBytes(StandardCharsets.ISO_8859_1)));
+		// A multibyte sequence cut by the end of the file.
+		assertEquals(SourceFileSniffer.SkipReason.NOT_UTF8, this.sniff(Long.MAX_VALUE, new byte[] {'a', (byte) 0xc3}));
+	}
+
+	@Test
+	void multibyteSequenceAcrossTheBlock() throws IOException {
+		// The first block ends in the middle of a two bytes sequence, which continues right after it.
+		byte[] content = new byte[SourceFileSniffer.BLOCK_SIZE + 1];
+		Arrays.fill(content, (byte) 'a');
+		content[SourceFileSniffer.BLOCK_SIZE - 1] = (byte) 0xc3;
+		content[SourceFileSniffer.BLOCK_SIZE] = (byte) 0xa9;
+
+		assertNull(this.sniff(Long.MAX_VALUE, content));
+	}
+
+	@Test
+	void tooLarge() throws IOException {
+		byte[] content = "class Foo {}\n".getBytes(StandardCharsets.UTF_8);
+
+		assertNull(this.sniff(content.length, content));
+		assertEquals(SourceFileSniffer.SkipReason.TOO_LARGE, this.sniff(content.length - 1, content));
+	}
+
+	@Test
+	void snifferIsReusable() throws IOException {
+		var sniffer = new SourceFileSniffer(Long.MAX_VALUE);
+
+		assertEquals(SourceFileSniffer.SkipReason.BINARY, sniffer.sniff(this.write("a.bin", new byte[] {0})));
+		assertNull(sniffer.sniff(this.write("b.txt", "text\n".getBytes(StandardCharsets.UTF_8))));
+	}
+
+	private SourceFileSniffer.SkipReason sniff(long maxFileSize, byte[] content) throws IOException {
+		return new SourceFileSniffer(maxFileSize).sniff(this.write("file", content));
+	}
+
+	private Path write(String name, byte[] content) throws IOException {
+		return Files.write(this.directory.resolve(name), content);
+	}
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2022-2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.quiltmc.gradle.licenser.impl;
+
+import org.gradle.api.Project;
+import org.gradle.api.tasks.util.PatternSet;
+import org.gradle.testfixtures.ProjectBuilder;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks that the walker selects the same files as a Gradle file tree with the same patterns.
+ */
+class SourceFileWalkerTest {
+	private static final List<String> FILES = List.of(
+			"Foo.java",
+			"org/example/Bar.java",
+			"org/example/Bar.kt",
+			"org/example/data.json",
+			"org/example/package-info.java",
+			"gen/Generated.java",
+			"gen/nested/Nested.java",
+			"nested/gen/Deep.java",
+			"assets/icon.png",
+			"assets/lang/en_us.properties",
+			".git/config",
+			"build/tmp/Stale.java"
+	);
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void noPatterns() throws IOException {
+		this.assertSameFiles(List.of(), List.of());
+	}
+
+	@Test
+	void defaultLicenseExcludes() throws IOException {
+		this.assertSameFiles(List.of(), SourceFileMatcher.DEFAULT_LICENSE_EXCLUDES);
+	}
+
+	@Test
+	void extensionsAndNames() throws IOException {
+		this.assertSameFiles(List.of("**/*.java", "**/*.kt"), List.of("**/package-info.java"));
+	}
+
+	@Test
+	void directories() throws IOException {
+		this.assertSameFiles(List.of(), List.of("gen/**", "**/gen/**", "assets/"));
+		this.assertSameFiles(List.of("org/**"), List.of());
+	}
+
+	@Test
+	void wildcards() throws IOException {
+		this.assertSameFiles(List.of("**/B?r.*", "*.java"), List.of("org/*/data.*"));
+		this.assertSameFiles(List.of("**/gen/*.java"), List.of());
+	}
+
+	private void assertSameFiles(List<String> includes, List<String> excludes) throws IOException {
+		Path root = this.directory.resolve("root");
+
+		for (var file : FILES) {
+			Path path = root.resolve(file);
+			Files.createDirectories(path.getParent());
+			Files.writeString(path, file);
+		}
+
+		var walked = new ArrayList<Path>();
+		// Gradle file trees always exclude the files of version control systems.
+		var matchers = List.of(SourceFileMatcher.compile(includes, excludes), SourceFileMatcher.compile(List.of(), SourceFileMatcher.DEFAULT_EXCLUDES));
+		SourceFileWalker.walk(root, matchers, walked::add);
+
+		Project project = ProjectBuilder.builder().withProjectDir(this.directory.toFile()).build();
+		var patterns = new PatternSet().include(includes).exclude(excludes);
+		Set<File> expected = project.fileTree(root).matching(patterns).getFiles();
+
+		assertEquals(relativize(root, expected.stream().map(File::toPath).toList()), relativize(root, walked),
+				"includes " + includes + ", excludes " + excludes);
+	}
+
+	private static Set<String> relativize(Path root, List<Path> paths) {
+		var relativePaths = new TreeSet<String>();
+
+		for (var path : paths) {
+			relativePaths.add(LicenseUtils.getRelativePath(root, path));
+		}
+
+		return relativePaths;
+	}
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2022-2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.quiltmc.gradle.licenser.impl;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+class SourceFileWatcherTest {
+	private static final long TIMEOUT_SECONDS = 10;
+
+	@TempDir
+	Path directory;
+
+	private final BlockingQueue<Set<Path>> batches = new LinkedBlockingQueue<>();
+	private SourceFileWatcher watcher;
+	private Thread thread;
+
+	@BeforeEach
+	void watch() throws IOException {
+		Files.createDirectories(this.directory.resolve("gen/nested"));
+		this.watcher = new SourceFileWatcher(this.directory, Duration.ofMillis(50));
+		this.watcher.register(this.directory, new SourceFileWatcher.Filter(
+				path -> path.toString().endsWith(".java"),
+				path -> !path.getFileName().toString().equals("gen")
+		));
+		this.thread = new Thread(() -> {
+			try {
+				this.watcher.run(this.batches::add);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		this.thread.start();
+	}
+
+	@AfterEach
+	void close() throws Exception {
+		this.watcher.close();
+		this.thread.join(TimeUnit.SECONDS.toMillis(TIMEOUT_SECONDS));
+	}
+
+	@Test
+	void handsOverCreatedFiles() throws Exception {
+		Path foo = this.write("org/example/Foo.java");
+		this.write("org/example/notes.txt");
+
+		assertEquals(Set.of(foo), this.awaitFiles(Set.of(foo)));
+	}
+
+	@Test
+	void prunesExcludedDirectories() throws Exception {
+		this.write("gen/Generated.java");
+		this.write("gen/nested/Nested.java");
+		Path foo = this.write("Foo.java");
+
+		assertEquals(Set.of(foo), this.awaitFiles(Set.of(foo)));
+	}
+
+	@Test
+	void forgetsDeletedFiles() throws Exception {
+		Path foo = this.write("Foo.java");
+		this.awaitFiles(Set.of(foo));
+		FileTime modifiedTime = Files.getLastModifiedTime(foo);
+
+		Files.delete(foo);
+		Path bar = this.write("Bar.java");
+		this.awaitFiles(Set.of(bar));
+
+		// Recreating the file with the same modification time must not be mistaken for the batch handler writing to it.
+		this.write("Foo.java");
+		Files.setLastModifiedTime(foo, modifiedTime);
+
+		assertEquals(Set.of(foo), this.awaitFiles(Set.of(foo)));
+	}
+
+	private Set<Path> awaitFiles(Set<Path> expected) throws InterruptedException {
+		var files = new HashSet<Path>();
+
+		while (!files.containsAll(expected)) {
+			Set<Path> batch = this.batches.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+			assertNotNull(batch, "Timed out waiting for " + expected + ", got " + files);
+			files.addAll(batch);
+		}
+
+		return files;
+	}
+
+	private Path write(String path) throws IOException {
+		Path file = this.directory.resolve(path);
+		Files.createDirectories(file.getParent());
+		Files.writeString(file, "class Test {}\n");
+		return file;
+	}
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2022-2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.quiltmc.gradle.licenser.task;
+
+import org.gradle.api.GradleException;
+import org.gradle.api.Task;
+import org.gradle.api.tasks.SourceSet;
+import org.gradle.api.tasks.SourceSetContainer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AggregatedLicenseTaskTest {
+	private static final String FOO = "src/main/java/Foo.java";
+	private static final String BAR = "src/test/java/Bar.java";
+	private static final String UNLICENSED = "class Foo {}\n";
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void checkDependsOnTheAggregatedTaskOnlyWhenEnabled() {
+		var test = new LicenserTestProject(this.directory);
+		Task check = test.project.getTasks().getByName("checkLicenses");
+		Task apply = test.project.getTasks().getByName("applyLicenses");
+
+		assertEquals(Set.of(test.getCheck(), test.project.getTasks().getByName("checkLicenseTest")), getDependencies(check));
+		assertEquals(Set.of(test.getApply(), test.project.getTasks().getByName("applyLicenseTest")), getDependencies(apply));
+
+		test.extension.setAggregateSourceSets(true);
+
+		assertEquals(Set.of(test.getAggregatedCheck()), getDependencies(check));
+		assertEquals(Set.of(test.getAggregatedApply()), getDependencies(apply));
+	}
+
+	@Test
+	void aggregatedTasksWalkEveryIncludedSourceSet() {
+		var test = new LicenserTestProject(this.directory);
+		test.write(FOO, UNLICENSED);
+		test.write(BAR, UNLICENSED);
+		test.write("src/excluded/java/Baz.java", UNLICENSED);
+		test.extension.exclude(this.createSourceSet(test, "excluded", "src/excluded/java"));
+
+		assertEquals(List.of(test.directory.resolve(FOO), test.directory.resolve(BAR)), getSourceFiles(test.getAggregatedCheck()));
+
+		assertThrows(GradleException.class, () -> test.getAggregatedCheck().execute());
+		test.getAggregatedApply().execute();
+		test.getAggregatedCheck().execute();
+
+		assertEquals(LicenserTestProject.LICENSED_PREFIX + UNLICENSED, test.read(FOO));
+		assertEquals(LicenserTestProject.LICENSED_PREFIX + UNLICENSED, test.read(BAR));
+		assertEquals(UNLICENSED, test.read("src/excluded/java/Baz.java"));
+	}
+
+	@Test
+	void fileSharedBySourceSetsIsVisitedOnce() {
+		var test = new LicenserTestProject(this.directory);
+		test.write(FOO, UNLICENSED);
+		this.createSourceSet(test, "shared", "src/main/java");
+
+		assertEquals(List.of(test.directory.resolve(FOO)), getSourceFiles(test.getAggregatedApply()));
+
+		test.getAggregatedApply().execute();
+		assertEquals(LicenserTestProject.LICENSED_PREFIX + UNLICENSED, test.read(FOO));
+	}
+
+	private SourceSet createSourceSet(LicenserTestProject test, String name, String directory) {
+		SourceSet sourceSet = test.project.getExtensions().getByType(SourceSetContainer.class).create(name);
+		sourceSet.getJava().setSrcDirs(List.of(test.directory.resolve(directory).toFile()));
+		sourceSet.getResources().setSrcDirs(List.of());
+		return sourceSet;
+	}
+
+	private static Set<? extends Task> getDependencies(Task task) {
+		return task.getTaskDependencies().getDependencies(task);
+	}
+
+	private static List<Path> getSourceFiles(JavaSourceBasedTask task) {
+		var files = new ArrayList<Path>();
+		task.forEachSourceFile(files::add);
+		return files;
+	}
+}
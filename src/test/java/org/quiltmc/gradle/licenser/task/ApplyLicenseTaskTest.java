@@ -0,0 +1,152 @@
+/*
+ * Copyright 2022-2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.quiltmc.gradle.licenser.task;
+
+import org.gradle.api.GradleException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.quiltmc.gradle.licenser.impl.LicenseCheckManifest;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ApplyLicenseTaskTest {
+	private static final String HEADER = "Copyright ${YEAR} Test\n;;year_display: lenient_range";
+	private static final String VALID = "src/main/java/Valid.java";
+	private static final String INVALID = "src/main/java/Invalid.java";
+	private static final String UNLICENSED = "class Foo {}\n";
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void laxCheckWritesNoManifest() {
+		var test = this.createProject("2020");
+		test.write(VALID, licensed(2019));
+		test.getCheck().execute();
+
+		assertFalse(Files.exists(this.getManifestPath(test)));
+
+		// The lax check accepted the old year, applying must still update it.
+		test.getApply().execute();
+		assertEquals(licensed("2019-2020"), test.read(VALID));
+	}
+
+	@Test
+	void strictCheckManifestSkipsPassingFiles() throws IOException {
+		var test = this.createProject("2020");
+		test.write(VALID, licensed(2020));
+		test.write(INVALID, UNLICENSED);
+		test.extension.setStrictYearCheck(true);
+
+		assertThrows(GradleException.class, () -> test.getCheck().execute());
+		assertTrue(Files.exists(this.getManifestPath(test)));
+
+		// Not modified since the check as far as the apply task can tell, so it must not be read again.
+		this.writeUnmodified(test, VALID, UNLICENSED);
+		test.getApply().execute();
+
+		assertEquals(UNLICENSED, test.read(VALID));
+		assertEquals(licensed(2020), test.read(INVALID));
+		// Applying license headers outdates the manifest.
+		assertFalse(Files.exists(this.getManifestPath(test)));
+	}
+
+	@Test
+	void strictCheckManifestIsIgnoredOnceTheYearChanged() throws IOException {
+		var check = this.createProject("2020");
+		check.write(VALID, licensed(2020));
+		check.write(INVALID, UNLICENSED);
+		check.extension.setStrictYearCheck(true);
+		assertThrows(GradleException.class, () -> check.getCheck().execute());
+
+		this.writeUnmodified(check, VALID, UNLICENSED);
+		var apply = this.createProject("2021");
+		apply.getApply().execute();
+
+		assertEquals(licensed(2021), apply.read(VALID));
+		assertEquals(licensed(2021), apply.read(INVALID));
+	}
+
+	@Test
+	void keepsUnrelatedLeadingComments() {
+		var test = this.createProject("2020");
+		String properties = "src/main/resources/test.properties";
+		test.write(properties, "# Generated by a tool.\nkey=value\n");
+
+		test.getApply().execute();
+		assertEquals("# Copyright 2020 Test\n\n# Generated by a tool.\nkey=value\n", test.read(properties));
+		test.getCheck().execute();
+	}
+
+	@Test
+	void fullApplyIgnoresTheState() throws IOException {
+		var test = this.createProject("2020");
+		// Files modified as late as the state are processed again, so the file is older.
+		FileTime modifiedTime = FileTime.from(Instant.now().minus(1, ChronoUnit.HOURS));
+		Path file = test.write(VALID, licensed(2020));
+		Files.setLastModifiedTime(file, modifiedTime);
+		test.getApply().execute();
+
+		// Same size, modification time and inode as recorded in the state, so only a full apply notices the change.
+		String unlicensed = " ".repeat(licensed(2020).length() - UNLICENSED.length()) + UNLICENSED;
+		test.write(VALID, unlicensed);
+		Files.setLastModifiedTime(file, modifiedTime);
+
+		var next = this.createProject("2020");
+		next.getApply().execute();
+		assertEquals(unlicensed, next.read(VALID));
+
+		var full = this.createProject("2020");
+		full.getApply().setFull(true);
+		full.getApply().execute();
+		assertEquals(licensed(2020), full.read(VALID));
+	}
+
+	private LicenserTestProject createProject(String clock) {
+		var test = new LicenserTestProject(this.directory, HEADER);
+		test.extension.setClock(clock);
+		return test;
+	}
+
+	private Path getManifestPath(LicenserTestProject test) {
+		return LicenseCheckManifest.getPath(test.project, "LicenseMain");
+	}
+
+	/**
+	 * Changes a file while keeping a modification time older than the check manifest.
+	 */
+	private void writeUnmodified(LicenserTestProject test, String path, String content) throws IOException {
+		FileTime manifestTime = Files.getLastModifiedTime(this.getManifestPath(test));
+		Path file = test.write(path, content);
+		Files.setLastModifiedTime(file, FileTime.from(manifestTime.toInstant().minus(1, ChronoUnit.HOURS)));
+	}
+
+	private static String licensed(Object year) {
+		return "/*\n * Copyright " + year + " Test\n */\n\n" + UNLICENSED;
+	}
+}
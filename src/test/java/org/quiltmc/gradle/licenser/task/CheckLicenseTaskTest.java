@@ -0,0 +1,93 @@
+/*
+ * Copyright 2022-2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.quiltmc.gradle.licenser.task;
+
+import org.gradle.api.GradleException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CheckLicenseTaskTest {
+	private static final String FOO = "src/main/java/Foo.java";
+	private static final String BAR = "src/main/java/Bar.java";
+	private static final String UNLICENSED = "class Foo {}\n";
+	private static final String YEAR_HEADER = "Copyright ${YEAR} Test\n;;year_display: lenient_range";
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void checkAfterApplyInTheSameBuild() {
+		var test = new LicenserTestProject(this.directory);
+		test.write(FOO, UNLICENSED);
+
+		assertThrows(GradleException.class, () -> test.getCheck().execute());
+		test.getApply().execute();
+		// The verdict of the first check is outdated once the file is updated.
+		test.getCheck().execute();
+	}
+
+	@Test
+	void strictYearCheck() {
+		var test = this.createYearProject();
+		test.write(FOO, licensed(2019));
+
+		// Only the header text is checked by default.
+		test.getCheck().execute();
+
+		// Outside of git, files are modified in the current year, apply would write 2019-2020.
+		test.extension.setStrictYearCheck(true);
+		assertThrows(GradleException.class, () -> test.getCheck().execute());
+
+		// Verdicts are kept for the whole build, so the updated files are checked in the next one.
+		var next = this.createYearProject();
+		next.write(FOO, licensed("2019-2020"));
+		next.write(BAR, licensed(2020));
+		next.extension.setStrictYearCheck(true);
+		next.getCheck().execute();
+	}
+
+	@Test
+	void strictYearCheckAfterLaxCheckInTheSameBuild() {
+		var test = this.createYearProject();
+		test.write(FOO, licensed(2019));
+
+		test.getCheck().execute();
+		// The lax verdict of the first check must not be reused by the strict check.
+		test.extension.setStrictYearCheck(true);
+		assertThrows(GradleException.class, () -> test.getCheck().execute());
+
+		test.getApply().execute();
+		assertEquals(licensed("2019-2020"), test.read(FOO));
+		test.getCheck().execute();
+	}
+
+	private LicenserTestProject createYearProject() {
+		var test = new LicenserTestProject(this.directory, YEAR_HEADER);
+		test.extension.setClock("2020");
+		return test;
+	}
+
+	private static String licensed(Object year) {
+		return "/*\n * Copyright " + year + " Test\n */\n\n" + UNLICENSED;
+	}
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2022-2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.quiltmc.gradle.licenser.task;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JavaSourceBasedTaskTest {
+	private static final String UNLICENSED = "class Foo {}\n";
+	private static final String FOO = "src/main/java/org/example/Foo.java";
+	private static final String BAR = "src/main/java/org/example/Bar.java";
+	private static final String GENERATED = "src/main/java/gen/Generated.java";
+	private static final String RESOURCE = "src/main/resources/example.properties";
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void directorySetExcludesAreHonoured() {
+		var test = this.createProject();
+		test.getMain().getJava().exclude("gen/**");
+
+		assertEquals(Set.of(FOO, BAR, RESOURCE), this.walk(test));
+		assertEquals(this.walkFileTree(test), this.walk(test));
+
+		test.getApply().execute();
+		assertEquals(UNLICENSED, test.read(GENERATED));
+		assertEquals(LicenserTestProject.LICENSED_PREFIX + UNLICENSED, test.read(FOO));
+
+		// The generated file must not fail the check either.
+		test.getCheck().execute();
+	}
+
+	@Test
+	void directorySetIncludesAreHonoured() {
+		var test = this.createProject();
+		test.getMain().getJava().include("org/**");
+
+		assertEquals(Set.of(FOO, BAR, RESOURCE), this.walk(test));
+		assertEquals(this.walkFileTree(test), this.walk(test));
+	}
+
+	@Test
+	void directorySetSpecsAreHonoured() {
+		var test = this.createProject();
+		test.getMain().getJava().exclude(element -> element.getName().equals("Bar.java"));
+
+		assertEquals(Set.of(FOO, GENERATED, RESOURCE), this.walk(test));
+		assertEquals(this.walkFileTree(test), this.walk(test));
+	}
+
+	@Test
+	void sourceRootsMatchTheWalk() {
+		var test = this.createProject();
+		test.getMain().getJava().exclude("gen/**");
+		var roots = test.getApply().getSourceRoots();
+		Path root = this.directory.resolve("src/main/java");
+
+		assertTrue(roots.get(root).files().test(root.resolve("org/example/Foo.java")));
+		assertFalse(roots.get(root).files().test(root.resolve("gen/Generated.java")));
+		assertTrue(roots.get(root).directories().test(root.resolve("org/example")));
+		assertFalse(roots.get(root).directories().test(root.resolve("gen")));
+	}
+
+	private LicenserTestProject createProject() {
+		var test = new LicenserTestProject(this.directory);
+		test.write(FOO, UNLICENSED);
+		test.write(BAR, LicenserTestProject.LICENSED_PREFIX + "class Bar {}\n");
+		test.write(GENERATED, UNLICENSED);
+		test.write(RESOURCE, "key=value\n");
+		return test;
+	}
+
+	private Set<String> walk(LicenserTestProject test) {
+		var files = new ArrayList<Path>();
+		test.getApply().forEachSourceFile(files::add);
+		return this.relativize(files.stream().map(Path::toFile).toList());
+	}
+
+	private Set<String> walkFileTree(LicenserTestProject test) {
+		return this.relativize(test.getMain().getAllSource().matching(test.extension.asPatternFilterable()).getFiles());
+	}
+
+	private Set<String> relativize(Iterable<File> files) {
+		var paths = new TreeSet<String>();
+
+		for (var file : files) {
+			paths.add(this.directory.relativize(file.toPath()).toString().replace(File.separatorChar, '/'));
+		}
+
+		return paths;
+	}
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2022-2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.quiltmc.gradle.licenser.task;
+
+import org.gradle.api.Project;
+import org.gradle.api.tasks.SourceSet;
+import org.gradle.api.tasks.SourceSetContainer;
+import org.gradle.testfixtures.ProjectBuilder;
+import org.quiltmc.gradle.licenser.QuiltLicenserGradlePlugin;
+import org.quiltmc.gradle.licenser.extension.QuiltLicenserGradleExtension;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * A Java project with the licenser plugin applied, used to run the license tasks in tests.
+ */
+final class LicenserTestProject {
+	static final String HEADER = "Licensed under the test license.";
+	static final String LICENSED_PREFIX = "/*\n * " + HEADER + "\n */\n\n";
+
+	final Path directory;
+	final Project project;
+	final QuiltLicenserGradleExtension extension;
+
+	LicenserTestProject(Path directory) {
+		this(directory, HEADER);
+	}
+
+	LicenserTestProject(Path directory, String header) {
+		this.directory = directory;
+		write("HEADER", header);
+		this.project = ProjectBuilder.builder().withProjectDir(directory.toFile()).build();
+		this.project.getPlugins().apply("java");
+		this.project.getPlugins().apply(QuiltLicenserGradlePlugin.class);
+		this.extension = this.project.getExtensions().getByType(QuiltLicenserGradleExtension.class);
+		this.extension.rule(directory.resolve("HEADER").toFile());
+	}
+
+	SourceSet getMain() {
+		return this.project.getExtensions().getByType(SourceSetContainer.class).getByName(SourceSet.MAIN_SOURCE_SET_NAME);
+	}
+
+	CheckLicenseTask getCheck() {
+		return (CheckLicenseTask) this.project.getTasks().getByName("checkLicenseMain");
+	}
+
+	ApplyLicenseTask getApply() {
+		return (ApplyLicenseTask) this.project.getTasks().getByName("applyLicenseMain");
+	}
+
+	AggregatedCheckLicenseTask getAggregatedCheck() {
+		return (AggregatedCheckLicenseTask) this.project.getTasks()
+				.getByName(QuiltLicenserGradlePlugin.getAggregatedTaskName(QuiltLicenserGradlePlugin.CHECK_TASK_PREFIX));
+	}
+
+	AggregatedApplyLicenseTask getAggregatedApply() {
+		return (AggregatedApplyLicenseTask) this.project.getTasks()
+				.getByName(QuiltLicenserGradlePlugin.getAggregatedTaskName(QuiltLicenserGradlePlugin.APPLY_TASK_PREFIX));
+	}
+
+	Path write(String path, String content) {
+		Path file = this.directory.resolve(path);
+
+		try {
+			Files.createDirectories(file.getParent());
+			Files.writeString(file, content);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+
+		return file;
+	}
+
+	String read(String path) {
+		try {
+			return Files.readString(this.directory.resolve(path));
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}